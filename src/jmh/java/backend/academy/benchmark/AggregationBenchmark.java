@@ -0,0 +1,127 @@
+package backend.academy.benchmark;
+
+import backend.academy.analyzer.AggregationKernels;
+import backend.academy.analyzer.LogAnalyzer;
+import backend.academy.analyzer.Statistics;
+import backend.academy.parser.FieldDictionaries;
+import backend.academy.parser.LogRecord;
+import backend.academy.parser.RecordBatch;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Сравнивает агрегацию 1 и 10 млн записей по одной ({@link LogAnalyzer#accept(LogRecord)})
+ * с агрегацией колоночных блоков ({@link LogAnalyzer#accept(RecordBatch)}),
+ * а также векторные и скалярные ядра {@link AggregationKernels} на колонке размеров ответа.
+ *
+ * Чтобы 10 млн записей не занимали гигабайты кучи, записи и блок берутся из пула
+ * в {@value #POOL} строк, который проходится {@code rows / POOL} раз.
+ * Модуль {@code jdk.incubator.vector} форк получает из аргументов JVM, запустившей JMH (профиль {@code jmh}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AggregationBenchmark {
+
+    private static final int POOL = 62_500;
+    private static final int RESOURCES = 500;
+    private static final int[] STATUS_CODES = {200, 200, 200, 301, 304, 404, 500};
+    private static final int MAX_SIZE = 100_000;
+    private static final int ZERO_SHARE = 10;
+    private static final long START = 1_704_067_200L;
+
+    @Param({"1000000", "10000000"})
+    private int rows;
+
+    private final List<LogRecord> records = new ArrayList<>(POOL);
+    private RecordBatch batch;
+    private final AggregationKernels vector = AggregationKernels.select();
+    private final AggregationKernels scalar = AggregationKernels.scalar();
+    private int[] sizes;
+
+    /**
+     * Генерирует одни и те же строки в виде записей и в виде блока, а колонку размеров — на все строки.
+     */
+    @Setup
+    public void setUp() {
+        Random random = new Random(1);
+        FieldDictionaries dictionaries = new FieldDictionaries();
+        batch = new RecordBatch(dictionaries, POOL);
+        for (int i = 0; i < POOL; i++) {
+            String resource = "/resource/" + random.nextInt(RESOURCES);
+            int status = STATUS_CODES[random.nextInt(STATUS_CODES.length)];
+            int size = random.nextInt(ZERO_SHARE) == 0 ? 0 : random.nextInt(MAX_SIZE);
+            LogRecord logRecord = new LogRecord(dictionaries, "10.0.0.1", START + i, 0, resource, status, size);
+            records.add(logRecord);
+            batch.add(logRecord.ipAddressId(), logRecord.epochSecond(), 0, logRecord.resourceId(), status, size, 0);
+        }
+        sizes = new int[rows];
+        for (int i = 0; i < rows; i++) {
+            sizes[i] = batch.responseSizes()[i % POOL];
+        }
+    }
+
+    /**
+     * Агрегация по одной записи.
+     *
+     * @return статистика.
+     */
+    @Benchmark
+    public Statistics perRecord() {
+        LogAnalyzer analyzer = new LogAnalyzer();
+        for (int pass = 0; pass < rows / POOL; pass++) {
+            records.forEach(analyzer);
+        }
+        return analyzer.getStatistics();
+    }
+
+    /**
+     * Агрегация колоночными блоками.
+     *
+     * @return статистика.
+     */
+    @Benchmark
+    public Statistics perBatch() {
+        LogAnalyzer analyzer = new LogAnalyzer();
+        for (int pass = 0; pass < rows / POOL; pass++) {
+            analyzer.accept(batch);
+        }
+        return analyzer.getStatistics();
+    }
+
+    /**
+     * Сумма, минимум и число нулей выбранными ядрами.
+     *
+     * @return контрольная сумма.
+     */
+    @Benchmark
+    public long selectedKernels() {
+        return vector.sum(sizes, rows) + vector.minNonZero(sizes, rows) + vector.countZeros(sizes, rows);
+    }
+
+    /**
+     * Сумма, минимум и число нулей скалярными ядрами.
+     *
+     * @return контрольная сумма.
+     */
+    @Benchmark
+    public long scalarKernels() {
+        return scalar.sum(sizes, rows) + scalar.minNonZero(sizes, rows) + scalar.countZeros(sizes, rows);
+    }
+}
@@ -0,0 +1,103 @@
+package backend.academy.benchmark;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import lombok.experimental.UtilityClass;
+
+/**
+ * Строки лога для бенчмарков: одинаковые при одном и том же зерне, чтобы результаты запусков
+ * можно было сравнивать между собой.
+ */
+@UtilityClass
+public class BenchmarkLogs {
+
+    private static final DateTimeFormatter TIMESTAMP =
+        DateTimeFormatter.ofPattern("dd/MMM/yyyy:HH:mm:ss Z", Locale.ENGLISH).withZone(ZoneOffset.UTC);
+    private static final long START = 1_704_067_200L;
+    private static final int ADDRESSES = 2_000;
+    private static final int OCTET = 256;
+    private static final int RESOURCES = 5_000;
+    private static final int MAX_SIZE = 100_000;
+    private static final int ZERO_SHARE = 10;
+    private static final int MAX_STEP_SECONDS = 2;
+    private static final int MALFORMED_KINDS = 3;
+    private static final int[] STATUS_CODES = {200, 200, 200, 200, 301, 304, 404, 404, 403};
+    private static final String GET = "GET";
+    private static final String[] METHODS = {GET, GET, GET, "POST", "HEAD"};
+    private static final String[] AGENTS = {
+        "Mozilla/5.0 (X11; Linux x86_64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/126.0 Safari/537.36",
+        "Mozilla/5.0 (Windows NT 10.0; Win64; x64; rv:127.0) Gecko/20100101 Firefox/127.0",
+        "curl/8.5.0",
+        "Wget/1.21.4",
+        "Go-http-client/1.1",
+    };
+
+    /**
+     * Создаёт корректные строки в формате combined с идущими по порядку временными метками.
+     * Коды 5xx не встречаются, поэтому фильтр {@code status=5xx} отклоняет все строки.
+     *
+     * @param seed зерно генератора.
+     * @param count число строк.
+     * @return строки без символа перевода строки.
+     */
+    public static List<String> lines(long seed, int count) {
+        Random random = new Random(seed);
+        List<String> lines = new ArrayList<>(count);
+        long second = START;
+        for (int i = 0; i < count; i++) {
+            second += random.nextInt(MAX_STEP_SECONDS);
+            int address = random.nextInt(ADDRESSES);
+            int size = random.nextInt(ZERO_SHARE) == 0 ? 0 : random.nextInt(MAX_SIZE);
+            lines.add("10.0." + address / OCTET + "." + address % OCTET + " - - ["
+                + TIMESTAMP.format(Instant.ofEpochSecond(second)) + "] \""
+                + METHODS[random.nextInt(METHODS.length)] + " /api/v1/items/" + random.nextInt(RESOURCES)
+                + " HTTP/1.1\" " + STATUS_CODES[random.nextInt(STATUS_CODES.length)] + " " + size
+                + " \"-\" \"" + AGENTS[random.nextInt(AGENTS.length)] + "\"");
+        }
+        return lines;
+    }
+
+    /**
+     * Создаёт строки, которые не разбирает ни быстрый путь, ни регулярное выражение:
+     * обрезанные, с неверным кодом ответа и с посторонним текстом.
+     *
+     * @param seed зерно генератора.
+     * @param count число строк.
+     * @return строки без символа перевода строки.
+     */
+    public static List<String> malformedLines(long seed, int count) {
+        Random random = new Random(seed);
+        List<String> valid = lines(seed, count);
+        List<String> lines = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String line = valid.get(i);
+            lines.add(switch (i % MALFORMED_KINDS) {
+                case 0 -> line.substring(0, 1 + random.nextInt(line.indexOf('"')));
+                case 1 -> line.replace("HTTP/1.1\" ", "HTTP/1.1\" OK");
+                default -> "#" + line.substring(line.indexOf(']') + 2);
+            });
+        }
+        return lines;
+    }
+
+    /**
+     * Кодирует строки в отдельные буферы, как их видит токенизатор.
+     *
+     * @param lines строки лога.
+     * @return буферы с байтами строк в UTF-8.
+     */
+    public static ByteBuffer[] encode(List<String> lines) {
+        ByteBuffer[] buffers = new ByteBuffer[lines.size()];
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = ByteBuffer.wrap(lines.get(i).getBytes(StandardCharsets.UTF_8));
+        }
+        return buffers;
+    }
+}
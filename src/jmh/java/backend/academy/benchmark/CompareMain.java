@@ -0,0 +1,169 @@
+package backend.academy.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import lombok.Getter;
+import lombok.experimental.UtilityClass;
+
+/**
+ * Сравнивает результаты JMH в формате JSON ({@code -rf json}) с сохранённой базой.
+ *
+ * Для каждого бенчмарка с параметрами печатает оценку в базе и сейчас, изменение в процентах
+ * и выделение памяти на операцию ({@code gc.alloc.rate.norm}, если запуск был с {@code -prof gc}).
+ * Регрессией считается ухудшение оценки больше порога, если разница оценок к тому же превышает
+ * сумму их погрешностей, или рост выделений больше порога и больше {@value #MIN_ALLOCATION_BYTES} байт
+ * на операцию. При регрессиях программа завершается с кодом 1.
+ *
+ * Запуск: {@code CompareMain <база.json> <текущий.json> [порог, %]}, порог по умолчанию — 10%.
+ */
+@UtilityClass
+public class CompareMain {
+
+    private static final double DEFAULT_THRESHOLD = 10;
+    private static final double PERCENT = 100;
+    private static final double MIN_ALLOCATION_BYTES = 64;
+    private static final String ALLOCATION = "gc.alloc.rate.norm";
+    private static final String ROW_FORMAT = "%-75s %14s %14s %9s %22s%n";
+    private static final String MISSING = "—";
+    private static final String SCORE = "score";
+    private static final PrintStream OUT = System.out;
+
+    /**
+     * Печатает сравнение и завершает процесс с кодом 1 при регрессиях.
+     *
+     * @param args путь к базе, путь к текущим результатам и необязательный порог в процентах.
+     * @throws IOException если файл результатов не удалось прочитать.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            throw new IllegalArgumentException("Использование: CompareMain <база.json> <текущий.json> [порог]");
+        }
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : DEFAULT_THRESHOLD;
+        List<String> regressions = compare(read(Path.of(args[0])), read(Path.of(args[1])), threshold, OUT);
+        if (!regressions.isEmpty()) {
+            OUT.println("Регрессии больше " + threshold + "%: " + String.join(", ", regressions));
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Печатает таблицу сравнения.
+     *
+     * @param baseline результаты базы по ключу «бенчмарк и параметры».
+     * @param current текущие результаты по тому же ключу.
+     * @param threshold порог регрессии в процентах.
+     * @param out поток для таблицы.
+     * @return ключи бенчмарков с регрессией.
+     */
+    static List<String> compare(Map<String, Result> baseline, Map<String, Result> current, double threshold,
+        PrintStream out) {
+        List<String> regressions = new ArrayList<>();
+        out.printf(ROW_FORMAT, "Бенчмарк", "База", "Сейчас", "Изм.", "Память, Б/оп");
+        for (Map.Entry<String, Result> entry : current.entrySet()) {
+            Result now = entry.getValue();
+            Result base = baseline.get(entry.getKey());
+            if (base == null) {
+                out.printf(ROW_FORMAT, entry.getKey(), MISSING, now.formatScore(), MISSING,
+                    format(now.allocation()));
+                continue;
+            }
+            double change = (now.score() - base.score()) / base.score() * PERCENT;
+            double allocated = now.allocation() - base.allocation();
+            boolean allocates = allocated > MIN_ALLOCATION_BYTES && allocated / base.allocation() * PERCENT > threshold;
+            boolean significant = Math.abs(now.score() - base.score()) > base.error() + now.error();
+            boolean slower = now.higherIsBetter() ? change < -threshold : change > threshold;
+            boolean regressed = slower && significant || allocates;
+            if (regressed) {
+                regressions.add(entry.getKey());
+            }
+            out.printf(ROW_FORMAT, entry.getKey(), base.formatScore(), now.formatScore(),
+                String.format(Locale.ROOT, "%+.1f%%%s", change, regressed ? " !" : ""),
+                format(base.allocation()) + " → " + format(now.allocation()));
+        }
+        return regressions;
+    }
+
+    /**
+     * Читает результаты JMH.
+     *
+     * @param path файл, записанный с {@code -rf json}.
+     * @return результаты по ключу «бенчмарк и параметры» в порядке файла.
+     * @throws IOException если файл не удалось прочитать.
+     */
+    static Map<String, Result> read(Path path) throws IOException {
+        Map<String, Result> results = new LinkedHashMap<>();
+        for (JsonNode run : new ObjectMapper().readTree(path.toFile())) {
+            StringBuilder key = new StringBuilder(run.get("benchmark").asText()
+                .replaceFirst("^backend\\.academy\\.", ""));
+            Iterator<Map.Entry<String, JsonNode>> params = run.path("params").fields();
+            while (params.hasNext()) {
+                Map.Entry<String, JsonNode> param = params.next();
+                key.append(' ').append(param.getKey()).append('=').append(param.getValue().asText());
+            }
+            JsonNode primary = run.get("primaryMetric");
+            double allocation = Double.NaN;
+            Iterator<Map.Entry<String, JsonNode>> secondary = run.path("secondaryMetrics").fields();
+            while (secondary.hasNext()) {
+                Map.Entry<String, JsonNode> metric = secondary.next();
+                // JMH до 1.36 добавлял к именам метрик профилировщиков префикс «·».
+                if (metric.getKey().replace("·", "").equals(ALLOCATION)) {
+                    allocation = metric.getValue().get(SCORE).asDouble();
+                }
+            }
+            results.put(key.toString(), new Result(run.get("mode").asText(), primary.get(SCORE).asDouble(),
+                primary.get("scoreError").asDouble(0), primary.get("scoreUnit").asText(), allocation));
+        }
+        return results;
+    }
+
+    private static String format(double allocation) {
+        return Double.isNaN(allocation) ? MISSING : String.format(Locale.ROOT, "%.0f", allocation);
+    }
+
+    /**
+     * Результат одного бенчмарка.
+     */
+    @Getter
+    static final class Result {
+
+        private final String mode;
+        private final double score;
+        private final double error;
+        private final String unit;
+        private final double allocation;
+
+        /**
+         * Создаёт результат.
+         *
+         * @param mode режим JMH, например {@code avgt} или {@code thrpt}.
+         * @param score оценка.
+         * @param error погрешность оценки; {@code NaN} (одна итерация) считается нулём.
+         * @param unit единица оценки.
+         * @param allocation выделение памяти в байтах на операцию или {@code NaN}.
+         */
+        Result(String mode, double score, double error, String unit, double allocation) {
+            this.mode = mode;
+            this.score = score;
+            this.error = Double.isNaN(error) ? 0 : error;
+            this.unit = unit;
+            this.allocation = allocation;
+        }
+
+        boolean higherIsBetter() {
+            return "thrpt".equals(mode);
+        }
+
+        String formatScore() {
+            return String.format(Locale.ROOT, "%.3f %s", score, unit);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package backend.academy.benchmark;
+
+import backend.academy.analyzer.LogAnalyzer;
+import backend.academy.analyzer.Statistics;
+import backend.academy.formatter.AsciidocFormatter;
+import backend.academy.formatter.JsonFormatter;
+import backend.academy.formatter.MarkdownFormatter;
+import backend.academy.formatter.ReportFormatter;
+import backend.academy.parser.FieldDictionaries;
+import backend.academy.parser.LogRecord;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Построение статистики и отчётов, в которые попадают все ресурсы: при большом числе
+ * различных ресурсов время уходит на сортировку счётчиков и вывод таблицы.
+ * Отчёт пишется в {@link Writer#nullWriter()}, поэтому вывод в консоль или файл не учитывается.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReportBenchmark {
+
+    private static final double[] PERCENTILES = {50, 95, 99, 99.9};
+    private static final int[] STATUS_CODES = {200, 200, 200, 301, 304, 404, 500};
+    private static final int MAX_REPEATS = 8;
+    private static final int MAX_SIZE = 100_000;
+    private static final long START = 1_704_067_200L;
+
+    @Param({"1000", "100000"})
+    private int resources;
+
+    private final Writer sink = Writer.nullWriter();
+    private final ReportFormatter markdown = new MarkdownFormatter();
+    private final ReportFormatter asciidoc = new AsciidocFormatter();
+    private final ReportFormatter json = new JsonFormatter();
+    private final ReportFormatter ndjson = new JsonFormatter(true);
+    private LogAnalyzer analyzer;
+    private Statistics statistics;
+
+    /**
+     * Учитывает каждый ресурс от одного до {@value #MAX_REPEATS} раз.
+     */
+    @Setup
+    public void setUp() {
+        Random random = new Random(1);
+        FieldDictionaries dictionaries = new FieldDictionaries();
+        analyzer = new LogAnalyzer(PERCENTILES, resources, 0);
+        long second = START;
+        for (int i = 0; i < resources; i++) {
+            String resource = "/api/v1/items/" + i;
+            for (int repeat = random.nextInt(MAX_REPEATS); repeat >= 0; repeat--) {
+                int status = STATUS_CODES[random.nextInt(STATUS_CODES.length)];
+                analyzer.accept(new LogRecord(dictionaries, "10.0.0.1", second++, 0, resource, status,
+                    random.nextInt(MAX_SIZE)));
+            }
+        }
+        statistics = analyzer.getStatistics();
+        statistics.path("access.log");
+    }
+
+    /**
+     * Итоговая статистика: отбор популярных ресурсов и процентили.
+     *
+     * @return статистика.
+     */
+    @Benchmark
+    public Statistics statistics() {
+        return analyzer.getStatistics();
+    }
+
+    /**
+     * Отчёт в формате Markdown.
+     *
+     * @throws IOException не возникает.
+     */
+    @Benchmark
+    public void markdown() throws IOException {
+        markdown.format(statistics, sink);
+    }
+
+    /**
+     * Отчёт в формате AsciiDoc.
+     *
+     * @throws IOException не возникает.
+     */
+    @Benchmark
+    public void asciidoc() throws IOException {
+        asciidoc.format(statistics, sink);
+    }
+
+    /**
+     * Отчёт в формате JSON.
+     *
+     * @throws IOException не возникает.
+     */
+    @Benchmark
+    public void json() throws IOException {
+        json.format(statistics, sink);
+    }
+
+    /**
+     * Отчёт в формате NDJSON.
+     *
+     * @throws IOException не возникает.
+     */
+    @Benchmark
+    public void ndjson() throws IOException {
+        ndjson.format(statistics, sink);
+    }
+}
@@ -0,0 +1,82 @@
+package backend.academy.parser;
+
+import backend.academy.benchmark.BenchmarkLogs;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Проверка условий фильтра по полям строки. Поля токенизатора действительны только до разбора
+ * следующей строки, поэтому {@link #tokenizeAndMatch()} включает токенизацию, а цена самого
+ * фильтра — разница с {@link #tokenizeOnly()}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FilterBenchmark {
+
+    private static final int LINES = 4_096;
+    private static final long SEED = 21;
+
+    @Param({
+        "status=5xx",
+        "resource=/api/v1/items/1*",
+        "method=GET and (status=4xx or agent=\"curl*\") and not ip=10.0.0.0/8",
+    })
+    private String expression;
+
+    private final LogLineTokenizer tokenizer = new LogLineTokenizer();
+    private LogFilter filter;
+    private ByteBuffer[] lines;
+    private int next;
+
+    /**
+     * Компилирует выражение и генерирует строки.
+     */
+    @Setup
+    public void setUp() {
+        filter = new LogFilter(null, null, null, null, List.of(expression));
+        lines = BenchmarkLogs.encode(BenchmarkLogs.lines(SEED, LINES));
+    }
+
+    /**
+     * Только токенизация строки.
+     *
+     * @return признак разбора строки.
+     */
+    @Benchmark
+    public boolean tokenizeOnly() {
+        ByteBuffer line = lines[nextIndex()];
+        return tokenizer.tokenize(line, 0, line.limit());
+    }
+
+    /**
+     * Токенизация и проверка фильтра.
+     *
+     * @return результат фильтра.
+     */
+    @Benchmark
+    public boolean tokenizeAndMatch() {
+        ByteBuffer line = lines[nextIndex()];
+        return tokenizer.tokenize(line, 0, line.limit()) && filter.matches(tokenizer);
+    }
+
+    private int nextIndex() {
+        next = (next + 1) & (LINES - 1);
+        return next;
+    }
+}
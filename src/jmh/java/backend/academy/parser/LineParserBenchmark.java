@@ -0,0 +1,113 @@
+package backend.academy.parser;
+
+import backend.academy.benchmark.BenchmarkLogs;
+import backend.academy.metrics.StageRecorder;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Разбор одной строки так же, как в {@link LogLineReader}: токенизатор с общими словарями,
+ * а для отклонённых им строк — регулярное выражение. Строки перебираются по кругу, поэтому
+ * кэш временных меток и словари работают как на настоящем файле.
+ *
+ * Бенчмарк лежит в пакете парсера, потому что быстрый путь ({@link LogParser#parseTokens})
+ * закрыт пакетом.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LineParserBenchmark {
+
+    private static final int LINES = 4_096;
+    private static final long SEED = 21;
+    private static final LogFilter ALL = new LogFilter(null, null, null, null);
+    private static final LogFilter SERVER_ERRORS = new LogFilter(null, null, "status", "5xx");
+
+    private final LogLineTokenizer tokenizer = new LogLineTokenizer();
+    private final FieldDictionaries dictionaries = new FieldDictionaries();
+    private final StageRecorder recorder = new StageRecorder(null);
+    private ByteBuffer[] valid;
+    private ByteBuffer[] malformed;
+    private List<String> validText;
+    private int next;
+
+    /**
+     * Генерирует строки и проверяет, что некорректные строки действительно не разбираются.
+     */
+    @Setup
+    public void setUp() {
+        validText = BenchmarkLogs.lines(SEED, LINES);
+        valid = BenchmarkLogs.encode(validText);
+        malformed = BenchmarkLogs.encode(BenchmarkLogs.malformedLines(SEED, LINES));
+        for (ByteBuffer line : malformed) {
+            if (parse(line, ALL) != null) {
+                throw new IllegalStateException("Строка разобрана: " + tokenizer.line());
+            }
+        }
+    }
+
+    /**
+     * Корректная строка, прошедшая фильтр.
+     *
+     * @return запись лога.
+     */
+    @Benchmark
+    public LogRecord validLine() {
+        return parse(valid[nextIndex()], ALL);
+    }
+
+    /**
+     * Некорректная строка: токенизатор её отклоняет, и регулярное выражение тоже не находит совпадения.
+     *
+     * @return {@code null}.
+     */
+    @Benchmark
+    public LogRecord malformedLine() {
+        return parse(malformed[nextIndex()], ALL);
+    }
+
+    /**
+     * Корректная строка, отклонённая фильтром {@code status=5xx}.
+     *
+     * @return {@code null}.
+     */
+    @Benchmark
+    public LogRecord filteredOutLine() {
+        return parse(valid[nextIndex()], SERVER_ERRORS);
+    }
+
+    /**
+     * Корректная строка, разобранная только регулярным выражением, — цена запасного пути.
+     *
+     * @return запись лога.
+     */
+    @Benchmark
+    public LogRecord validLineRegex() {
+        return LogParser.parseLine(validText.get(nextIndex()), ALL, dictionaries, recorder);
+    }
+
+    private LogRecord parse(ByteBuffer line, LogFilter filter) {
+        return tokenizer.tokenize(line, 0, line.limit())
+            ? LogParser.parseTokens(tokenizer, filter, dictionaries, recorder)
+            : LogParser.parseLine(tokenizer.line(), filter, dictionaries, recorder);
+    }
+
+    private int nextIndex() {
+        next = (next + 1) & (LINES - 1);
+        return next;
+    }
+}
@@ -0,0 +1,108 @@
+package backend.academy.parser;
+
+import backend.academy.benchmark.BenchmarkLogs;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Разбор временной метки: {@link NginxTimestampParser} на метках по порядку строк (кэш минуты
+ * срабатывает почти всегда) и вперемешку (каждый раз полный разбор), а также запасной путь через
+ * {@link DateTimeFormatter}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TimestampBenchmark {
+
+    private static final int STAMPS = 4_096;
+    private static final int LENGTH = 26;
+    private static final long SEED = 21;
+    private static final DateTimeFormatter FORMATTER =
+        DateTimeFormatter.ofPattern("dd/MMM/yyyy:HH:mm:ss Z", Locale.ENGLISH);
+
+    private final NginxTimestampParser parser = new NginxTimestampParser();
+    private ByteBuffer ordered;
+    private ByteBuffer shuffled;
+    private String[] text;
+    private int next;
+
+    /**
+     * Выделяет метки из сгенерированных строк.
+     */
+    @Setup
+    public void setUp() {
+        List<String> stamps = BenchmarkLogs.lines(SEED, STAMPS).stream()
+            .map(line -> line.substring(line.indexOf('[') + 1, line.indexOf(']')))
+            .toList();
+        text = stamps.toArray(String[]::new);
+        ordered = concat(stamps);
+        List<String> mixed = new ArrayList<>(stamps);
+        Collections.shuffle(mixed, new Random(SEED));
+        shuffled = concat(mixed);
+    }
+
+    /**
+     * Метки по порядку строк лога.
+     *
+     * @return секунды эпохи.
+     */
+    @Benchmark
+    public long orderedStamps() {
+        return parse(ordered);
+    }
+
+    /**
+     * Метки вперемешку: кэш минуты почти не срабатывает.
+     *
+     * @return секунды эпохи.
+     */
+    @Benchmark
+    public long shuffledStamps() {
+        return parse(shuffled);
+    }
+
+    /**
+     * Разбор через {@link DateTimeFormatter}, как для меток, отклонённых быстрым путём.
+     *
+     * @return секунды эпохи.
+     */
+    @Benchmark
+    public long formatter() {
+        next = (next + 1) & (STAMPS - 1);
+        return OffsetDateTime.parse(text[next], FORMATTER).toEpochSecond();
+    }
+
+    private long parse(ByteBuffer stamps) {
+        next = (next + 1) & (STAMPS - 1);
+        int start = next * LENGTH;
+        if (!parser.parse(stamps, start, start + LENGTH)) {
+            throw new IllegalStateException("Метка не разобрана");
+        }
+        return parser.epochSecond();
+    }
+
+    private static ByteBuffer concat(List<String> stamps) {
+        return ByteBuffer.wrap(String.join("", stamps).getBytes(StandardCharsets.US_ASCII));
+    }
+}
@@ -0,0 +1,73 @@
+package backend.academy.analyzer;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Вычислительные ядра агрегации над колонками {@link backend.academy.parser.RecordBatch}.
+ * Есть две реализации: векторная на {@code jdk.incubator.vector} ({@link VectorKernels})
+ * и скалярная ({@link ScalarKernels}); {@link #select()} выбирает векторную, если модуль
+ * подключён ({@code --add-modules jdk.incubator.vector}), и скалярную иначе.
+ * Векторная реализация загружается по имени, поэтому без модуля приложение запускается
+ * и работает на скалярной.
+ * Реализации обязаны давать одинаковый результат.
+ */
+public interface AggregationKernels {
+
+    /**
+     * Возвращает сумму значений.
+     *
+     * @param values массив значений.
+     * @param length количество значений с начала массива.
+     * @return сумма без переполнения {@code int}.
+     */
+    long sum(int[] values, int length);
+
+    /**
+     * Возвращает минимальное ненулевое значение.
+     *
+     * @param values массив неотрицательных значений меньше {@link Integer#MAX_VALUE}.
+     * @param length количество значений с начала массива.
+     * @return минимальное ненулевое значение или 0, если ненулевых нет.
+     */
+    int minNonZero(int[] values, int length);
+
+    /**
+     * Возвращает количество нулевых значений.
+     *
+     * @param values массив значений.
+     * @param length количество значений с начала массива.
+     * @return количество нулей.
+     */
+    long countZeros(int[] values, int length);
+
+    /**
+     * Возвращает скалярную реализацию.
+     *
+     * @return скалярные ядра.
+     */
+    static AggregationKernels scalar() {
+        return new ScalarKernels();
+    }
+
+    /**
+     * Выбирает самую быструю доступную реализацию.
+     *
+     * @return векторные ядра, если модуль {@code jdk.incubator.vector} подключён, иначе скалярные.
+     */
+    static AggregationKernels select() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return scalar();
+        }
+        try {
+            return Class.forName(AggregationKernels.class.getPackageName() + ".VectorKernels")
+                .asSubclass(AggregationKernels.class)
+                .getDeclaredConstructor()
+                .newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            Logger.getLogger(AggregationKernels.class.getName())
+                .log(Level.FINE, "Векторные ядра недоступны, используются скалярные", e);
+            return scalar();
+        }
+    }
+}
@@ -0,0 +1,299 @@
+package backend.academy.analyzer;
+
+import it.unimi.dsi.fastutil.ints.IntArrays;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Приближённый подсчёт самых популярных ресурсов в ограниченной памяти (алгоритм Space-Saving).
+ *
+ * Хранится не больше {@code capacity} счётчиков. Когда места нет, новый ресурс вытесняет
+ * счётчик с минимальным значением и наследует его как погрешность. Для каждого хранимого ресурса
+ * истинное количество лежит в диапазоне {@code [count - error, count]}, а погрешность не превышает
+ * {@code N / capacity}, где {@code N} — число учтённых запросов. Любой ресурс, запрошенный больше
+ * {@code N / capacity} раз, гарантированно присутствует в сводке.
+ *
+ * Минимальный счётчик находится в индексированной min-куче, поэтому добавление — O(log capacity).
+ * Массивы счётчиков растут вдвое по мере появления новых ресурсов и не больше {@code capacity},
+ * поэтому частичные сводки (по куску файла, диапазону HTTP) занимают память по числу увиденных
+ * ресурсов, а не по ограничению на весь разбор.
+ * Сводки из разных потоков объединяются через {@link #merge(HeavyHitters)} с сохранением тех же гарантий.
+ */
+public class HeavyHitters {
+
+    /**
+     * Оценка памяти на один счётчик: строка URL средней длины, ячейка хеш-таблицы и элементы массивов.
+     */
+    public static final int ENTRY_BYTES = 192;
+    private static final int MAX_CAPACITY = Integer.MAX_VALUE - 8;
+    private static final int INITIAL_SLOTS = 16;
+
+    private final int capacity;
+    private final Object2IntOpenHashMap<String> slots;
+    private String[] keys;
+    private long[] counts;
+    private long[] errors;
+    private int[] heap;
+    private int[] heapIndex;
+    private int size;
+    private long totalCount;
+
+    /**
+     * Создаёт пустую сводку.
+     *
+     * @param capacity максимальное количество хранимых счётчиков.
+     */
+    public HeavyHitters(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Ёмкость сводки должна быть положительной: " + capacity);
+        }
+        this.capacity = capacity;
+        this.slots = new Object2IntOpenHashMap<>();
+        this.slots.defaultReturnValue(-1);
+        int slotCount = Math.min(capacity, INITIAL_SLOTS);
+        this.keys = new String[slotCount];
+        this.counts = new long[slotCount];
+        this.errors = new long[slotCount];
+        this.heap = new int[slotCount];
+        this.heapIndex = new int[slotCount];
+    }
+
+    /**
+     * Вычисляет количество счётчиков, которое помещается в заданный объём памяти.
+     *
+     * @param memoryBytes ограничение памяти в байтах.
+     * @return количество счётчиков, не меньше 1.
+     */
+    public static int capacityFor(long memoryBytes) {
+        return Math.clamp(memoryBytes / ENTRY_BYTES, 1, MAX_CAPACITY);
+    }
+
+    /**
+     * Учитывает один запрос к ресурсу.
+     *
+     * @param resource запрашиваемый ресурс.
+     */
+    public void offer(String resource) {
+        offer(resource, 1, 0);
+        totalCount++;
+    }
+
+    /**
+     * Учитывает несколько запросов к ресурсу, например из заранее посчитанной сводки.
+     *
+     * @param resource запрашиваемый ресурс.
+     * @param count количество запросов.
+     */
+    public void offer(String resource, long count) {
+        offer(resource, count, 0);
+        totalCount += count;
+    }
+
+    /**
+     * Объединяет текущую сводку с другой. Отсутствующему в одной из сводок ресурсу приписывается
+     * её минимальный счётчик (если сводка заполнена), после чего остаются {@code capacity} наибольших.
+     *
+     * @param other сводка с частичными результатами.
+     * @return текущая сводка.
+     */
+    public HeavyHitters merge(HeavyHitters other) {
+        long ownMin = minCount();
+        long otherMin = other.minCount();
+        int candidates = size + other.size;
+        String[] mergedKeys = new String[candidates];
+        long[] mergedCounts = new long[candidates];
+        long[] mergedErrors = new long[candidates];
+        int merged = 0;
+        for (int slot = 0; slot < size; slot++) {
+            int otherSlot = other.slots.getInt(keys[slot]);
+            mergedKeys[merged] = keys[slot];
+            mergedCounts[merged] = counts[slot] + (otherSlot >= 0 ? other.counts[otherSlot] : otherMin);
+            mergedErrors[merged] = errors[slot] + (otherSlot >= 0 ? other.errors[otherSlot] : otherMin);
+            merged++;
+        }
+        for (int otherSlot = 0; otherSlot < other.size; otherSlot++) {
+            if (!slots.containsKey(other.keys[otherSlot])) {
+                mergedKeys[merged] = other.keys[otherSlot];
+                mergedCounts[merged] = other.counts[otherSlot] + ownMin;
+                mergedErrors[merged] = other.errors[otherSlot] + ownMin;
+                merged++;
+            }
+        }
+
+        int[] order = sortedByCount(mergedKeys, mergedCounts, merged);
+        slots.clear();
+        size = 0;
+        for (int i = 0; i < Math.min(merged, capacity); i++) {
+            int candidate = order[i];
+            add(mergedKeys[candidate], mergedCounts[candidate], mergedErrors[candidate]);
+        }
+        totalCount += other.totalCount;
+        return this;
+    }
+
+    /**
+     * Возвращает самые популярные ресурсы по убыванию количества (при равенстве — по имени).
+     *
+     * @param limit максимальное количество строк.
+     * @return список ресурсов с оценками количества и погрешности.
+     */
+    public List<ResourceCount> top(int limit) {
+        int[] order = sortedByCount(keys, counts, size);
+        List<ResourceCount> result = new ArrayList<>(Math.min(limit, size));
+        for (int i = 0; i < Math.min(limit, size); i++) {
+            int slot = order[i];
+            result.add(new ResourceCount(keys[slot], counts[slot], errors[slot]));
+        }
+        return result;
+    }
+
+    /**
+     * Возвращает количество учтённых запросов.
+     *
+     * @return количество запросов.
+     */
+    public long totalCount() {
+        return totalCount;
+    }
+
+    /**
+     * Записывает ёмкость, число учтённых запросов и все счётчики с погрешностями в двоичном виде.
+     *
+     * @param output приёмник данных.
+     * @throws IOException если запись завершилась ошибкой.
+     */
+    void writeTo(DataOutput output) throws IOException {
+        VarInts.writeVarLong(output, capacity);
+        VarInts.writeVarLong(output, totalCount);
+        VarInts.writeVarLong(output, size);
+        for (int slot = 0; slot < size; slot++) {
+            VarInts.writeString(output, keys[slot]);
+            VarInts.writeVarLong(output, counts[slot]);
+            VarInts.writeVarLong(output, errors[slot]);
+        }
+    }
+
+    /**
+     * Читает сводку, записанную {@link #writeTo(DataOutput)}.
+     *
+     * @param input источник данных.
+     * @return прочитанная сводка.
+     * @throws IOException если чтение завершилось ошибкой или данные повреждены.
+     */
+    static HeavyHitters readFrom(DataInput input) throws IOException {
+        HeavyHitters summary = new HeavyHitters((int) VarInts.readVarLong(input));
+        summary.totalCount = VarInts.readVarLong(input);
+        long entries = VarInts.readVarLong(input);
+        if (entries > summary.capacity) {
+            throw new IOException("Счётчиков в сводке больше её ёмкости: " + entries);
+        }
+        for (long i = 0; i < entries; i++) {
+            summary.add(VarInts.readString(input), VarInts.readVarLong(input), VarInts.readVarLong(input));
+        }
+        return summary;
+    }
+
+    private long minCount() {
+        return size == capacity ? counts[heap[0]] : 0;
+    }
+
+    private void offer(String key, long count, long error) {
+        int slot = slots.getInt(key);
+        if (slot >= 0) {
+            counts[slot] += count;
+            errors[slot] += error;
+            siftDown(heapIndex[slot]);
+        } else if (size < capacity) {
+            add(key, count, error);
+        } else {
+            slot = heap[0];
+            long min = counts[slot];
+            slots.removeInt(keys[slot]);
+            slots.put(key, slot);
+            keys[slot] = key;
+            counts[slot] = min + count;
+            errors[slot] = min + error;
+            siftDown(0);
+        }
+    }
+
+    private void add(String key, long count, long error) {
+        if (size == keys.length) {
+            grow();
+        }
+        int slot = size++;
+        slots.put(key, slot);
+        keys[slot] = key;
+        counts[slot] = count;
+        errors[slot] = error;
+        heap[slot] = slot;
+        heapIndex[slot] = slot;
+        siftUp(slot);
+    }
+
+    private void grow() {
+        int slotCount = (int) Math.min((long) keys.length * 2, capacity);
+        keys = Arrays.copyOf(keys, slotCount);
+        counts = Arrays.copyOf(counts, slotCount);
+        errors = Arrays.copyOf(errors, slotCount);
+        heap = Arrays.copyOf(heap, slotCount);
+        heapIndex = Arrays.copyOf(heapIndex, slotCount);
+    }
+
+    private void siftUp(int position) {
+        int current = position;
+        while (current > 0) {
+            int parent = (current - 1) >>> 1;
+            if (counts[heap[parent]] <= counts[heap[current]]) {
+                break;
+            }
+            swap(parent, current);
+            current = parent;
+        }
+    }
+
+    private void siftDown(int position) {
+        int current = position;
+        while (true) {
+            int smallest = current;
+            int left = 2 * current + 1;
+            int right = left + 1;
+            if (left < size && counts[heap[left]] < counts[heap[smallest]]) {
+                smallest = left;
+            }
+            if (right < size && counts[heap[right]] < counts[heap[smallest]]) {
+                smallest = right;
+            }
+            if (smallest == current) {
+                return;
+            }
+            swap(current, smallest);
+            current = smallest;
+        }
+    }
+
+    private void swap(int first, int second) {
+        int slot = heap[first];
+        heap[first] = heap[second];
+        heap[second] = slot;
+        heapIndex[heap[first]] = first;
+        heapIndex[heap[second]] = second;
+    }
+
+    private static int[] sortedByCount(String[] keys, long[] counts, int length) {
+        int[] order = new int[length];
+        for (int i = 0; i < length; i++) {
+            order[i] = i;
+        }
+        IntArrays.quickSort(order, (first, second) -> {
+            int byCount = Long.compare(counts[second], counts[first]);
+            return byCount != 0 ? byCount : keys[first].compareTo(keys[second]);
+        });
+        return order;
+    }
+}
@@ -1,9 +1,20 @@
 package backend.academy.analyzer;
 
 import backend.academy.parser.LogRecord;
-import java.util.Collections;
+import backend.academy.parser.RecordBatch;
+import backend.academy.parser.RecordBatchSink;
+import backend.academy.parser.StringDictionary;
+import it.unimi.dsi.fastutil.ints.Int2LongMap;
+import it.unimi.dsi.fastutil.ints.Int2LongMaps;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Collector;
 
 /**
  * Класс для анализа логов. Вычисляет ключевые метрики, такие как:
@@ -14,56 +25,315 @@ import java.util.stream.Collectors;
  * - 95-й перцентиль размера ответа.
  * - Минимальный размер ответа.
  * - Количество ответов размера 0b
+ *
+ * Анализатор работает в потоковом режиме: записи передаются ему по одной через
+ * {@link #accept(LogRecord)}, и статистика обновляется за один проход без хранения записей.
+ * Перцентили размера ответа вычисляются по {@link ResponseSizeHistogram} фиксированного размера,
+ * поэтому расход памяти зависит от числа различных ресурсов и кодов, а не от числа строк.
+ * Если задано ограничение памяти для ресурсов, вместо точных счётчиков используется
+ * приближённая сводка {@link HeavyHitters}, и в отчёт попадают только самые популярные ресурсы.
+ * Точные счётчики ведутся по номерам ресурсов: номер из словаря записи переводится в номер
+ * словаря статистики через таблицу, поэтому строка ресурса не хешируется на каждой записи.
+ * Частичные анализаторы, собранные в разных потоках, объединяются через {@link #merge(LogAnalyzer)}.
+ *
+ * Парсер передаёт анализатору записи колоночными блоками {@link RecordBatch}
+ * ({@link #accept(RecordBatch)}): сумма, минимум и число нулевых размеров ответа считаются
+ * ядрами {@link AggregationKernels} по массиву блока, без обхода объектов записей.
+ * Готовые сводки из индекса по минутам добавляются через {@link #add(RequestRollup, StringDictionary)}.
+ * Накопленное состояние сохраняется в двоичном виде через {@link #writeTo(DataOutput)}
+ * и добавляется обратно через {@link #addFrom(DataInput)}, например при продолжении с контрольной точки.
  */
-public class LogAnalyzer {
+public final class LogAnalyzer implements Consumer<LogRecord>, RecordBatchSink {
 
-    private static final double PERCENTILE_95 = 0.95;
-    private final List<LogRecord> logs;
+    private static final double PERCENTILE_95 = 95.0;
+    private static final int DEFAULT_TOP_RESOURCES = 10;
+    private static final AggregationKernels KERNELS = AggregationKernels.select();
+    private final Statistics stats = new Statistics();
+    private final ResponseSizeHistogram responseSizes = new ResponseSizeHistogram();
+    private final double[] percentiles;
+    private final int topResources;
+    private final HeavyHitters heavyHitters;
+    private long totalRequests;
+    private long totalResponseSize;
+    private int minResponseSize;
+    private long zeroResponseCount;
+    private StringDictionary remapSource;
+    private int[] remap = new int[0];
+
+    /**
+     * Создаёт пустой потоковый анализатор, вычисляющий 95-й перцентиль.
+     */
+    public LogAnalyzer() {
+        this(PERCENTILE_95);
+    }
+
+    /**
+     * Создаёт пустой потоковый анализатор с заданным набором перцентилей.
+     *
+     * @param percentiles перцентили размера ответа в процентах (например, 50, 99.9).
+     */
+    public LogAnalyzer(double... percentiles) {
+        this(percentiles, DEFAULT_TOP_RESOURCES, 0);
+    }
+
+    /**
+     * Создаёт пустой потоковый анализатор.
+     *
+     * @param percentiles перцентили размера ответа в процентах.
+     * @param topResources количество самых популярных ресурсов в отчёте.
+     * @param resourceMemoryBytes ограничение памяти на счётчики ресурсов в байтах;
+     *     0 — считать все ресурсы точно.
+     */
+    public LogAnalyzer(double[] percentiles, int topResources, long resourceMemoryBytes) {
+        this.percentiles = percentiles.clone();
+        Arrays.sort(this.percentiles);
+        this.topResources = topResources;
+        this.heavyHitters = resourceMemoryBytes > 0
+            ? new HeavyHitters(Math.max(topResources, HeavyHitters.capacityFor(resourceMemoryBytes)))
+            : null;
+    }
 
     /**
      * Создаёт анализатор логов на основе списка записей.
+     * Оставлен для совместимости: записи просто передаются в {@link #accept(LogRecord)}.
      *
      * @param logs список объектов {@link LogRecord}, представляющих записи логов.
      */
     public LogAnalyzer(List<LogRecord> logs) {
-        this.logs = logs;
+        this();
+        logs.forEach(this);
+    }
+
+    /**
+     * Возвращает коллектор, который передаёт записи в потоковый анализатор
+     * и в конце строит {@link Statistics}.
+     *
+     * @return коллектор статистики.
+     */
+    public static Collector<LogRecord, LogAnalyzer, Statistics> collector() {
+        return collector(PERCENTILE_95);
+    }
+
+    /**
+     * Возвращает коллектор статистики с заданным набором перцентилей.
+     *
+     * @param percentiles перцентили размера ответа в процентах.
+     * @return коллектор статистики.
+     */
+    public static Collector<LogRecord, LogAnalyzer, Statistics> collector(double... percentiles) {
+        return collector(percentiles, DEFAULT_TOP_RESOURCES, 0);
+    }
+
+    /**
+     * Возвращает коллектор статистики.
+     *
+     * @param percentiles перцентили размера ответа в процентах.
+     * @param topResources количество самых популярных ресурсов в отчёте.
+     * @param resourceMemoryBytes ограничение памяти на счётчики ресурсов в байтах; 0 — без ограничения.
+     * @return коллектор статистики.
+     */
+    public static Collector<LogRecord, LogAnalyzer, Statistics> collector(
+        double[] percentiles,
+        int topResources,
+        long resourceMemoryBytes
+    ) {
+        return Collector.of(
+            () -> new LogAnalyzer(percentiles, topResources, resourceMemoryBytes),
+            LogAnalyzer::accept,
+            LogAnalyzer::merge,
+            LogAnalyzer::getStatistics
+        );
+    }
+
+    /**
+     * Учитывает одну запись лога.
+     *
+     * @param logRecord запись лога.
+     */
+    @Override
+    public void accept(LogRecord logRecord) {
+        int size = logRecord.responseSize();
+        if (heavyHitters != null) {
+            heavyHitters.offer(logRecord.resource());
+        } else {
+            stats.incrementResourceCount(resourceId(logRecord.dictionaries().resources(), logRecord.resourceId()));
+        }
+        stats.incrementStatusCount(logRecord.statusCode());
+        responseSizes.recordValue(size);
+        totalRequests++;
+        totalResponseSize += size;
+        if (size == 0) {
+            zeroResponseCount++;
+        } else if (minResponseSize == 0 || size < minResponseSize) {
+            minResponseSize = size;
+        }
+    }
+
+    /**
+     * Учитывает блок записей.
+     *
+     * @param batch блок записей в колоночном виде.
+     */
+    @Override
+    public void accept(RecordBatch batch) {
+        int length = batch.size();
+        StringDictionary resources = batch.dictionaries().resources();
+        int[] resourceIds = batch.resourceIds();
+        for (int i = 0; i < length; i++) {
+            if (heavyHitters != null) {
+                heavyHitters.offer(resources.get(resourceIds[i]));
+            } else {
+                stats.incrementResourceCount(resourceId(resources, resourceIds[i]));
+            }
+        }
+        stats.incrementStatusCounts(batch.statusCodes(), length);
+        int[] sizes = batch.responseSizes();
+        for (int i = 0; i < length; i++) {
+            responseSizes.recordValue(sizes[i]);
+        }
+        totalRequests += length;
+        totalResponseSize += KERNELS.sum(sizes, length);
+        zeroResponseCount += KERNELS.countZeros(sizes, length);
+        int batchMin = KERNELS.minNonZero(sizes, length);
+        if (minResponseSize == 0 || batchMin != 0 && batchMin < minResponseSize) {
+            minResponseSize = batchMin;
+        }
+    }
+
+    /**
+     * Учитывает заранее посчитанную сводку запросов, например минуту из индекса.
+     *
+     * @param rollup сводка запросов.
+     * @param resources словарь, в котором записаны номера ресурсов сводки.
+     */
+    public void add(RequestRollup rollup, StringDictionary resources) {
+        for (Int2LongMap.Entry entry : Int2LongMaps.fastIterable(rollup.resourceCounts())) {
+            if (heavyHitters != null) {
+                heavyHitters.offer(resources.get(entry.getIntKey()), entry.getLongValue());
+            } else {
+                stats.addResourceCount(resourceId(resources, entry.getIntKey()), entry.getLongValue());
+            }
+        }
+        for (Int2LongMap.Entry entry : Int2LongMaps.fastIterable(rollup.statusCounts())) {
+            stats.addStatusCount(entry.getIntKey(), entry.getLongValue());
+        }
+        for (Int2LongMap.Entry entry : Int2LongMaps.fastIterable(rollup.sizeBuckets())) {
+            responseSizes.recordBucket(entry.getIntKey(), entry.getLongValue());
+        }
+        responseSizes.recordMaxValue(rollup.maxResponseSize());
+        totalRequests += rollup.count();
+        totalResponseSize += rollup.responseSizeSum();
+        zeroResponseCount += rollup.zeroResponseCount();
+        int rollupMin = rollup.minResponseSize();
+        if (minResponseSize == 0 || rollupMin != 0 && rollupMin < minResponseSize) {
+            minResponseSize = rollupMin;
+        }
+    }
+
+    /**
+     * Переводит номер ресурса из словаря записей в номер словаря статистики. Таблица перевода строится
+     * для текущего словаря записей и сбрасывается, если записи пришли из другого словаря.
+     */
+    private int resourceId(StringDictionary source, int sourceId) {
+        if (source != remapSource) {
+            remapSource = source;
+            remap = new int[source.size()];
+        }
+        if (sourceId >= remap.length) {
+            remap = Arrays.copyOf(remap, Math.max(sourceId + 1, remap.length * 2));
+        }
+        if (remap[sourceId] == 0) {
+            remap[sourceId] = stats.internResource(source.get(sourceId)) + 1;
+        }
+        return remap[sourceId] - 1;
+    }
+
+    /**
+     * Добавляет к текущему анализатору результаты другого анализатора.
+     *
+     * @param other анализатор с частичными результатами.
+     * @return текущий анализатор.
+     */
+    public LogAnalyzer merge(LogAnalyzer other) {
+        stats.merge(other.stats);
+        if (heavyHitters != null) {
+            heavyHitters.merge(other.heavyHitters);
+        }
+        responseSizes.merge(other.responseSizes);
+        totalRequests += other.totalRequests;
+        totalResponseSize += other.totalResponseSize;
+        zeroResponseCount += other.zeroResponseCount;
+        if (minResponseSize == 0 || other.minResponseSize != 0 && other.minResponseSize < minResponseSize) {
+            minResponseSize = other.minResponseSize;
+        }
+        return this;
+    }
+
+    /**
+     * Записывает накопленное состояние анализатора в двоичном виде: итоги, гистограмму размеров,
+     * счётчики кодов и ресурсов (или сводку популярных ресурсов, если память на них ограничена).
+     *
+     * @param output приёмник данных.
+     * @throws IOException если запись завершилась ошибкой.
+     */
+    public void writeTo(DataOutput output) throws IOException {
+        VarInts.writeVarLong(output, totalRequests);
+        VarInts.writeVarLong(output, totalResponseSize);
+        VarInts.writeVarLong(output, zeroResponseCount);
+        VarInts.writeVarLong(output, minResponseSize);
+        responseSizes.writeTo(output);
+        stats.writeCountsTo(output);
+        output.writeBoolean(heavyHitters != null);
+        if (heavyHitters != null) {
+            heavyHitters.writeTo(output);
+        }
+    }
+
+    /**
+     * Добавляет к анализатору состояние, записанное {@link #writeTo(DataOutput)}.
+     * Результат тот же, что у {@link #merge(LogAnalyzer)} с сохранённым анализатором.
+     *
+     * @param input источник данных.
+     * @throws IOException если чтение завершилось ошибкой или состояние записано
+     *     с другим способом подсчёта ресурсов.
+     */
+    public void addFrom(DataInput input) throws IOException {
+        totalRequests += VarInts.readVarLong(input);
+        totalResponseSize += VarInts.readVarLong(input);
+        zeroResponseCount += VarInts.readVarLong(input);
+        int savedMin = (int) VarInts.readVarLong(input);
+        if (minResponseSize == 0 || savedMin != 0 && savedMin < minResponseSize) {
+            minResponseSize = savedMin;
+        }
+        responseSizes.addFrom(input);
+        stats.addCountsFrom(input);
+        if (input.readBoolean() != (heavyHitters != null)) {
+            throw new IOException("Состояние сохранено с другим ограничением памяти на ресурсы");
+        }
+        if (heavyHitters != null) {
+            heavyHitters.merge(HeavyHitters.readFrom(input));
+        }
     }
 
     /**
-     * Анализирует список записей логов и возвращает статистику.
+     * Возвращает статистику по всем учтённым записям.
      *
      * @return объект {@link Statistics}, содержащий результаты анализа логов.
      */
     public Statistics getStatistics() {
-        Statistics stats = new Statistics();
-        stats.totalRequests(logs.size());
-        long totalResponseSize = 0;
-
-        List<Integer> responseSizes = logs.stream()
-            .map(log -> {
-                stats.incrementResourceCount(log.resource());
-                stats.incrementStatusCount(log.statusCode());
-
-                return log.responseSize();
-            })
-            .collect(Collectors.toList());
-
-        totalResponseSize = responseSizes.stream().mapToLong(Integer::longValue).sum();
-        stats.averageResponseSize((double) totalResponseSize / logs.size());
-        Collections.sort(responseSizes);
-        int index95Percentile = (int) Math.ceil(PERCENTILE_95 * responseSizes.size()) - 1;
-        stats.percentile95ResponseSize(responseSizes.get(index95Percentile));
-        int minimumResponseSize = responseSizes.stream()
-            .mapToInt(Integer::intValue)
-            .filter(size -> size > 0)
-            .min()
-            .orElse(0);
-        stats.minResponseSize(minimumResponseSize);
-        long zeroResponseCounter = responseSizes.stream()
-            .mapToInt(Integer::intValue)
-            .filter(size -> size == 0)
-            .count();
-        stats.zeroResponseCount(zeroResponseCounter);
+        stats.totalRequests(totalRequests);
+        stats.topResources(heavyHitters != null
+            ? heavyHitters.top(topResources)
+            : stats.topResourceCounts(topResources));
+        stats.averageResponseSize(totalRequests == 0 ? 0 : (double) totalResponseSize / totalRequests);
+        stats.percentile95ResponseSize(responseSizes.valueAtPercentile(PERCENTILE_95));
+        Map<Double, Integer> values = new LinkedHashMap<>();
+        for (double percentile : percentiles) {
+            values.put(percentile, responseSizes.valueAtPercentile(percentile));
+        }
+        stats.responseSizePercentiles(values);
+        stats.minResponseSize(minResponseSize);
+        stats.zeroResponseCount(zeroResponseCount);
         return stats;
     }
 }
@@ -0,0 +1,109 @@
+package backend.academy.analyzer;
+
+import it.unimi.dsi.fastutil.ints.Int2LongMap;
+import it.unimi.dsi.fastutil.ints.Int2LongMaps;
+import it.unimi.dsi.fastutil.ints.Int2LongOpenHashMap;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+/**
+ * Заранее посчитанная сводка по группе запросов, например за одну минуту лога:
+ * количество запросов, сумма, минимум и число нулевых размеров ответа, счётчики кодов ответа,
+ * разреженная гистограмма размеров (только непустые корзины {@link ResponseSizeHistogram})
+ * и счётчики ресурсов. Ресурсы хранятся номерами во внешнем словаре, общем для всех сводок
+ * одного индекса. Сводка добавляется в анализатор через
+ * {@link LogAnalyzer#add(RequestRollup, backend.academy.parser.StringDictionary)} и даёт тот же
+ * результат, что и разбор исходных строк.
+ */
+@Getter
+public final class RequestRollup {
+
+    @Getter(AccessLevel.PACKAGE)
+    private final Int2LongOpenHashMap statusCounts = new Int2LongOpenHashMap();
+    @Getter(AccessLevel.PACKAGE)
+    private final Int2LongOpenHashMap sizeBuckets = new Int2LongOpenHashMap();
+    @Getter(AccessLevel.PACKAGE)
+    private final Int2LongOpenHashMap resourceCounts = new Int2LongOpenHashMap();
+    private long count;
+    private long responseSizeSum;
+    private long zeroResponseCount;
+    private int minResponseSize;
+    private int maxResponseSize;
+
+    /**
+     * Учитывает один запрос.
+     *
+     * @param resourceId номер ресурса во внешнем словаре.
+     * @param statusCode HTTP-код ответа.
+     * @param responseSize размер ответа в байтах.
+     */
+    public void add(int resourceId, int statusCode, int responseSize) {
+        resourceCounts.addTo(resourceId, 1);
+        statusCounts.addTo(statusCode, 1);
+        sizeBuckets.addTo(ResponseSizeHistogram.bucketOf(responseSize), 1);
+        count++;
+        responseSizeSum += responseSize;
+        if (responseSize == 0) {
+            zeroResponseCount++;
+        } else if (minResponseSize == 0 || responseSize < minResponseSize) {
+            minResponseSize = responseSize;
+        }
+        maxResponseSize = Math.max(maxResponseSize, responseSize);
+    }
+
+    /**
+     * Записывает сводку в двоичном виде; числа записываются переменной длины ({@link VarInts}).
+     *
+     * @param output приёмник данных.
+     * @throws IOException если запись завершилась ошибкой.
+     */
+    public void writeTo(DataOutput output) throws IOException {
+        VarInts.writeVarLong(output, count);
+        VarInts.writeVarLong(output, responseSizeSum);
+        VarInts.writeVarLong(output, zeroResponseCount);
+        VarInts.writeVarLong(output, minResponseSize);
+        VarInts.writeVarLong(output, maxResponseSize);
+        writeCounts(output, statusCounts);
+        writeCounts(output, sizeBuckets);
+        writeCounts(output, resourceCounts);
+    }
+
+    /**
+     * Читает сводку, записанную {@link #writeTo(DataOutput)}.
+     *
+     * @param input источник данных.
+     * @return прочитанная сводка.
+     * @throws IOException если чтение завершилось ошибкой.
+     */
+    public static RequestRollup readFrom(DataInput input) throws IOException {
+        RequestRollup rollup = new RequestRollup();
+        rollup.count = VarInts.readVarLong(input);
+        rollup.responseSizeSum = VarInts.readVarLong(input);
+        rollup.zeroResponseCount = VarInts.readVarLong(input);
+        rollup.minResponseSize = (int) VarInts.readVarLong(input);
+        rollup.maxResponseSize = (int) VarInts.readVarLong(input);
+        readCounts(input, rollup.statusCounts);
+        readCounts(input, rollup.sizeBuckets);
+        readCounts(input, rollup.resourceCounts);
+        return rollup;
+    }
+
+    private static void writeCounts(DataOutput output, Int2LongMap counts) throws IOException {
+        VarInts.writeVarLong(output, counts.size());
+        for (Int2LongMap.Entry entry : Int2LongMaps.fastIterable(counts)) {
+            VarInts.writeVarLong(output, entry.getIntKey());
+            VarInts.writeVarLong(output, entry.getLongValue());
+        }
+    }
+
+    private static void readCounts(DataInput input, Int2LongOpenHashMap counts) throws IOException {
+        int size = (int) VarInts.readVarLong(input);
+        counts.ensureCapacity(size);
+        for (int i = 0; i < size; i++) {
+            counts.put((int) VarInts.readVarLong(input), VarInts.readVarLong(input));
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package backend.academy.analyzer;
+
+import lombok.Getter;
+
+/**
+ * Строка отчёта о популярном ресурсе.
+ *
+ * Для точного подсчёта {@code error} равен нулю. Для приближённого подсчёта
+ * ({@link HeavyHitters}) истинное количество лежит в диапазоне {@code [count - error, count]}.
+ */
+@Getter
+public class ResourceCount {
+
+    private final String resource;
+    private final long count;
+    private final long error;
+
+    /**
+     * Создаёт строку отчёта.
+     *
+     * @param resource запрашиваемый ресурс.
+     * @param count количество запросов (для приближённого подсчёта — верхняя оценка).
+     * @param error максимальная переоценка количества.
+     */
+    public ResourceCount(String resource, long count, long error) {
+        this.resource = resource;
+        this.count = count;
+        this.error = error;
+    }
+}
@@ -0,0 +1,164 @@
+package backend.academy.analyzer;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Гистограмма размеров ответа с логарифмически-линейными корзинами (в духе HDR Histogram).
+ * Используется для вычисления перцентилей в ограниченной памяти.
+ *
+ * Значения меньше {@code 2^(SIGNIFICANT_BITS + 1)} хранятся точно. Более крупные значения
+ * попадают в корзины, ширина которых не превышает {@code 2^-SIGNIFICANT_BITS} от нижней границы
+ * корзины, поэтому относительная погрешность любого перцентиля не больше 1/128 (≈ 0.8%).
+ * Сверху результат дополнительно ограничен максимальным учтённым значением.
+ *
+ * Добавление значения — O(1), память фиксирована (3200 счётчиков для всего диапазона {@code int}),
+ * гистограммы из разных потоков объединяются сложением счётчиков.
+ */
+public class ResponseSizeHistogram {
+
+    private static final int SIGNIFICANT_BITS = 7;
+    private static final int SUB_BUCKET_HALF_COUNT = 1 << SIGNIFICANT_BITS;
+    private static final int SUB_BUCKET_COUNT = SUB_BUCKET_HALF_COUNT << 1;
+    private static final int BUCKET_COUNT = Integer.SIZE - SIGNIFICANT_BITS;
+    private static final double PERCENT = 100.0;
+
+    private final long[] counts = new long[BUCKET_COUNT * SUB_BUCKET_HALF_COUNT];
+    private long totalCount;
+    private int maxValue;
+
+    /**
+     * Учитывает одно значение.
+     *
+     * @param value неотрицательное значение.
+     */
+    public void recordValue(int value) {
+        counts[indexOf(value)]++;
+        totalCount++;
+        if (value > maxValue) {
+            maxValue = value;
+        }
+    }
+
+    /**
+     * Учитывает несколько значений, попавших в одну корзину.
+     *
+     * @param bucket номер корзины из {@link #bucketOf(int)}.
+     * @param count количество значений.
+     */
+    void recordBucket(int bucket, long count) {
+        counts[bucket] += count;
+        totalCount += count;
+    }
+
+    /**
+     * Учитывает максимальное значение, записанное через {@link #recordBucket(int, long)}.
+     *
+     * @param value наибольшее из значений.
+     */
+    void recordMaxValue(int value) {
+        maxValue = Math.max(maxValue, value);
+    }
+
+    /**
+     * Возвращает номер корзины для значения.
+     *
+     * @param value неотрицательное значение.
+     * @return номер корзины.
+     */
+    static int bucketOf(int value) {
+        return indexOf(value);
+    }
+
+    /**
+     * Добавляет к гистограмме счётчики другой гистограммы.
+     *
+     * @param other гистограмма с частичными результатами.
+     */
+    public void merge(ResponseSizeHistogram other) {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        totalCount += other.totalCount;
+        maxValue = Math.max(maxValue, other.maxValue);
+    }
+
+    /**
+     * Записывает максимальное значение и непустые корзины в двоичном виде.
+     *
+     * @param output приёмник данных.
+     * @throws IOException если запись завершилась ошибкой.
+     */
+    void writeTo(DataOutput output) throws IOException {
+        VarInts.writeVarLong(output, maxValue);
+        int nonEmpty = 0;
+        for (long count : counts) {
+            nonEmpty += count != 0 ? 1 : 0;
+        }
+        VarInts.writeVarLong(output, nonEmpty);
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] != 0) {
+                VarInts.writeVarLong(output, i);
+                VarInts.writeVarLong(output, counts[i]);
+            }
+        }
+    }
+
+    /**
+     * Добавляет к гистограмме счётчики, записанные {@link #writeTo(DataOutput)}.
+     *
+     * @param input источник данных.
+     * @throws IOException если чтение завершилось ошибкой.
+     */
+    void addFrom(DataInput input) throws IOException {
+        recordMaxValue((int) VarInts.readVarLong(input));
+        long nonEmpty = VarInts.readVarLong(input);
+        for (long i = 0; i < nonEmpty; i++) {
+            recordBucket((int) VarInts.readVarLong(input), VarInts.readVarLong(input));
+        }
+    }
+
+    /**
+     * Возвращает перцентиль по правилу ближайшего ранга: значение с порядковым номером
+     * {@code ceil(p / 100 * n)} в отсортированной последовательности, с точностью до корзины.
+     *
+     * @param percentile перцентиль в процентах, от 0 (не включая) до 100.
+     * @return значение перцентиля или 0, если гистограмма пуста.
+     */
+    public int valueAtPercentile(double percentile) {
+        long rank = Math.max(1, (long) Math.ceil(percentile / PERCENT * totalCount));
+        long seen = 0;
+        for (int i = 0; i < counts.length && totalCount > 0; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(highestEquivalentValue(i), maxValue);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Возвращает количество учтённых значений.
+     *
+     * @return количество значений.
+     */
+    public long totalCount() {
+        return totalCount;
+    }
+
+    private static int indexOf(int value) {
+        int bucket = Math.max(0, Integer.SIZE - Integer.numberOfLeadingZeros(value) - SIGNIFICANT_BITS - 1);
+        return (bucket << SIGNIFICANT_BITS) + (value >>> bucket);
+    }
+
+    private static int highestEquivalentValue(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int bucket = (index >>> SIGNIFICANT_BITS) - 1;
+        int subBucket = index - (bucket << SIGNIFICANT_BITS);
+        long lowest = (long) subBucket << bucket;
+        return (int) Math.min(Integer.MAX_VALUE, lowest + (1L << bucket) - 1);
+    }
+}
@@ -0,0 +1,38 @@
+package backend.academy.analyzer;
+
+/**
+ * Скалярная реализация ядер агрегации: простые циклы, которые JIT может развернуть сам.
+ */
+final class ScalarKernels implements AggregationKernels {
+
+    @Override
+    public long sum(int[] values, int length) {
+        long sum = 0;
+        for (int i = 0; i < length; i++) {
+            sum += values[i];
+        }
+        return sum;
+    }
+
+    @Override
+    public int minNonZero(int[] values, int length) {
+        int min = Integer.MAX_VALUE;
+        for (int i = 0; i < length; i++) {
+            if (values[i] != 0 && values[i] < min) {
+                min = values[i];
+            }
+        }
+        return min == Integer.MAX_VALUE ? 0 : min;
+    }
+
+    @Override
+    public long countZeros(int[] values, int length) {
+        long count = 0;
+        for (int i = 0; i < length; i++) {
+            if (values[i] == 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
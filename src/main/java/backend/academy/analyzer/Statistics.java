@@ -1,24 +1,53 @@
 package backend.academy.analyzer;
 
+import backend.academy.parser.StringDictionary;
+import it.unimi.dsi.fastutil.ints.Int2LongLinkedOpenHashMap;
+import it.unimi.dsi.fastutil.ints.Int2LongMap;
+import it.unimi.dsi.fastutil.ints.Int2LongMaps;
+import it.unimi.dsi.fastutil.ints.Int2LongOpenHashMap;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.time.LocalDateTime;
-import java.util.HashMap;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Set;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 
 /**
  * Класс для хранения статистики по логам:
  * - Количество запросов.
- * - Популярные ресурсы.
+ * - Популярные ресурсы (все счётчики и первые N по убыванию количества).
  * - Частота кодов ответа.
  * - Средний размер ответа.
  * - 95-й перцентиль размера ответа.
+ * - Выбранные перцентили размера ответа (в процентах, по возрастанию).
  * - Минимальный размер ответа.
  * - Количество ответов размера 0b
+ *
+ * Счётчики хранятся в примитивном виде: коды ответа 100–599 — в плотном массиве,
+ * прочие коды — в открытой хеш-таблице fastutil со значениями {@code long}.
+ * Ресурсы кодируются номерами в словаре {@link StringDictionary}, и их счётчики лежат
+ * в массиве по номеру ресурса; при объединении статистик номера перенумеровываются.
+ * Наружу счётчики отдаются только для чтения.
  */
 @Getter
 public class Statistics {
 
+    private static final int MIN_STATUS_CODE = 100;
+    private static final int MAX_STATUS_CODE = 599;
+    private static final int INITIAL_RESOURCE_CAPACITY = 16;
+
     @Setter
     private String path;
     @Setter
@@ -26,21 +55,88 @@ public class Statistics {
     @Setter
     private LocalDateTime to;
     @Setter
-    private int totalRequests;
-    private Map<String, Integer> resourceCounts;
-    private Map<Integer, Integer> statusCounts;
+    private long totalRequests;
+    @Getter(AccessLevel.NONE)
+    private final StringDictionary resourceNames = new StringDictionary();
+    @Getter(AccessLevel.NONE)
+    private long[] resourceCounts = new long[INITIAL_RESOURCE_CAPACITY];
+    @Getter(AccessLevel.NONE)
+    private final long[] statusCounts = new long[MAX_STATUS_CODE - MIN_STATUS_CODE + 1];
+    @Getter(AccessLevel.NONE)
+    private final Int2LongOpenHashMap otherStatusCounts = new Int2LongOpenHashMap();
+    @Setter
+    private List<ResourceCount> topResources = List.of();
     @Setter
     private double averageResponseSize;
     @Setter
     private double percentile95ResponseSize;
     @Setter
+    private Map<Double, Integer> responseSizePercentiles = Map.of();
+    @Setter
     private int minResponseSize;
     @Setter
     private long zeroResponseCount;
 
-    public Statistics() {
-        this.resourceCounts = new HashMap<>();
-        this.statusCounts = new HashMap<>();
+    /**
+     * Возвращает счётчики запросов по ресурсам без копирования: поиск идёт по словарю ресурсов,
+     * а обход — по номерам ресурсов с ненулевым счётчиком.
+     *
+     * @return неизменяемое представление счётчиков, отражающее последующие изменения статистики.
+     */
+    public Map<String, Long> resourceCounts() {
+        return new ResourceCountsView();
+    }
+
+    /**
+     * Возвращает счётчики кодов ответа в порядке возрастания кода.
+     *
+     * @return неизменяемая копия счётчиков.
+     */
+    public Map<Integer, Long> statusCounts() {
+        int[] otherCodes = otherStatusCounts.keySet().toIntArray();
+        Arrays.sort(otherCodes);
+        Int2LongMap counts = new Int2LongLinkedOpenHashMap();
+        int next = 0;
+        for (; next < otherCodes.length && otherCodes[next] < MIN_STATUS_CODE; next++) {
+            counts.put(otherCodes[next], otherStatusCounts.get(otherCodes[next]));
+        }
+        for (int i = 0; i < statusCounts.length; i++) {
+            if (statusCounts[i] != 0) {
+                counts.put(MIN_STATUS_CODE + i, statusCounts[i]);
+            }
+        }
+        for (; next < otherCodes.length; next++) {
+            counts.put(otherCodes[next], otherStatusCounts.get(otherCodes[next]));
+        }
+        return Int2LongMaps.unmodifiable(counts);
+    }
+
+    /**
+     * Выбирает из точных счётчиков самые популярные ресурсы по убыванию количества
+     * (при равенстве — по имени), не сортируя все ресурсы целиком.
+     *
+     * @param limit максимальное количество строк.
+     * @return список ресурсов с нулевой погрешностью.
+     */
+    List<ResourceCount> topResourceCounts(int limit) {
+        Comparator<ResourceCount> order = Comparator.comparingLong(ResourceCount::count).reversed()
+            .thenComparing(ResourceCount::resource);
+        PriorityQueue<ResourceCount> top = new PriorityQueue<>(order.reversed());
+        for (int id = 0; id < resourceNames.size(); id++) {
+            if (resourceCounts[id] == 0) {
+                continue;
+            }
+            ResourceCount candidate = new ResourceCount(resourceNames.get(id), resourceCounts[id], 0);
+            if (top.size() < limit) {
+                top.add(candidate);
+            } else if (limit > 0 && order.compare(candidate, top.peek()) < 0) {
+                top.poll();
+                top.add(candidate);
+            }
+        }
+        List<ResourceCount> result = new ArrayList<>(top);
+        result.sort(order);
+        return result;
     }
 
     /**
@@ -49,7 +145,40 @@ public class Statistics {
      * @param resource запрашиваемый ресурс.
      */
     public void incrementResourceCount(String resource) {
-        resourceCounts.put(resource, resourceCounts.getOrDefault(resource, 0) + 1);
+        incrementResourceCount(internResource(resource));
+    }
+
+    /**
+     * Возвращает номер ресурса в словаре этой статистики, добавляя ресурс при первом появлении.
+     *
+     * @param resource запрашиваемый ресурс.
+     * @return номер ресурса.
+     */
+    public int internResource(String resource) {
+        int id = resourceNames.intern(resource);
+        if (id >= resourceCounts.length) {
+            resourceCounts = Arrays.copyOf(resourceCounts, resourceCounts.length * 2);
+        }
+        return id;
+    }
+
+    /**
+     * Увеличивает счётчик ресурса по его номеру, полученному из {@link #internResource(String)}.
+     *
+     * @param resourceId номер ресурса.
+     */
+    public void incrementResourceCount(int resourceId) {
+        resourceCounts[resourceId]++;
+    }
+
+    /**
+     * Увеличивает счётчик ресурса по его номеру на заданное количество запросов.
+     *
+     * @param resourceId номер ресурса из {@link #internResource(String)}.
+     * @param count количество запросов.
+     */
+    public void addResourceCount(int resourceId, long count) {
+        resourceCounts[resourceId] += count;
     }
 
     /**
@@ -58,6 +187,157 @@ public class Statistics {
      * @param statusCode код ответа HTTP.
      */
     public void incrementStatusCount(int statusCode) {
-        statusCounts.put(statusCode, statusCounts.getOrDefault(statusCode, 0) + 1);
+        addStatusCount(statusCode, 1);
+    }
+
+    /**
+     * Увеличивает счётчик для указанного кода ответа на заданное количество запросов.
+     *
+     * @param statusCode код ответа HTTP.
+     * @param count количество запросов.
+     */
+    public void addStatusCount(int statusCode, long count) {
+        if (statusCode >= MIN_STATUS_CODE && statusCode <= MAX_STATUS_CODE) {
+            statusCounts[statusCode - MIN_STATUS_CODE] += count;
+        } else {
+            otherStatusCounts.addTo(statusCode, count);
+        }
+    }
+
+    /**
+     * Увеличивает счётчики для кодов ответа из колонки блока записей.
+     *
+     * @param statusCodes коды ответа.
+     * @param length количество кодов с начала массива.
+     */
+    public void incrementStatusCounts(short[] statusCodes, int length) {
+        for (int i = 0; i < length; i++) {
+            incrementStatusCount(statusCodes[i]);
+        }
+    }
+
+    /**
+     * Добавляет к счётчикам ресурсов и кодов ответа счётчики другой статистики.
+     *
+     * @param other статистика с частичными результатами.
+     */
+    public void merge(Statistics other) {
+        int[] remap = resourceNames.merge(other.resourceNames);
+        if (resourceNames.size() > resourceCounts.length) {
+            resourceCounts = Arrays.copyOf(resourceCounts, Math.max(resourceNames.size(), resourceCounts.length * 2));
+        }
+        for (int id = 0; id < remap.length; id++) {
+            resourceCounts[remap[id]] += other.resourceCounts[id];
+        }
+        for (int i = 0; i < statusCounts.length; i++) {
+            statusCounts[i] += other.statusCounts[i];
+        }
+        for (Int2LongMap.Entry entry : Int2LongMaps.fastIterable(other.otherStatusCounts)) {
+            otherStatusCounts.addTo(entry.getIntKey(), entry.getLongValue());
+        }
+    }
+
+    /**
+     * Записывает счётчики ресурсов (по именам) и кодов ответа в двоичном виде.
+     *
+     * @param output приёмник данных.
+     * @throws IOException если запись завершилась ошибкой.
+     */
+    void writeCountsTo(DataOutput output) throws IOException {
+        int resources = 0;
+        for (int id = 0; id < resourceNames.size(); id++) {
+            resources += resourceCounts[id] != 0 ? 1 : 0;
+        }
+        VarInts.writeVarLong(output, resources);
+        for (int id = 0; id < resourceNames.size(); id++) {
+            if (resourceCounts[id] != 0) {
+                VarInts.writeString(output, resourceNames.get(id));
+                VarInts.writeVarLong(output, resourceCounts[id]);
+            }
+        }
+        Map<Integer, Long> codes = statusCounts();
+        VarInts.writeVarLong(output, codes.size());
+        for (Map.Entry<Integer, Long> entry : codes.entrySet()) {
+            VarInts.writeVarLong(output, entry.getKey());
+            VarInts.writeVarLong(output, entry.getValue());
+        }
+    }
+
+    /**
+     * Добавляет к счётчикам счётчики, записанные {@link #writeCountsTo(DataOutput)}.
+     *
+     * @param input источник данных.
+     * @throws IOException если чтение завершилось ошибкой.
+     */
+    void addCountsFrom(DataInput input) throws IOException {
+        long resources = VarInts.readVarLong(input);
+        for (long i = 0; i < resources; i++) {
+            addResourceCount(internResource(VarInts.readString(input)), VarInts.readVarLong(input));
+        }
+        long codes = VarInts.readVarLong(input);
+        for (long i = 0; i < codes; i++) {
+            addStatusCount((int) VarInts.readVarLong(input), VarInts.readVarLong(input));
+        }
+    }
+
+    /**
+     * Представление счётчиков ресурсов в виде {@link Map} только для чтения.
+     */
+    private final class ResourceCountsView extends AbstractMap<String, Long> {
+
+        @Override
+        public Long get(Object key) {
+            int id = key instanceof String resource ? resourceNames.find(resource) : -1;
+            return id >= 0 && resourceCounts[id] != 0 ? resourceCounts[id] : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return get(key) != null;
+        }
+
+        @Override
+        public Set<Entry<String, Long>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<String, Long>> iterator() {
+                    return new Iterator<>() {
+                        private int next = skipEmpty(0);
+
+                        @Override
+                        public boolean hasNext() {
+                            return next < resourceNames.size();
+                        }
+
+                        @Override
+                        public Entry<String, Long> next() {
+                            if (!hasNext()) {
+                                throw new NoSuchElementException();
+                            }
+                            int id = next;
+                            next = skipEmpty(id + 1);
+                            return Map.entry(resourceNames.get(id), resourceCounts[id]);
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    int size = 0;
+                    for (int id = 0; id < resourceNames.size(); id++) {
+                        size += resourceCounts[id] != 0 ? 1 : 0;
+                    }
+                    return size;
+                }
+            };
+        }
+
+        private int skipEmpty(int from) {
+            int id = from;
+            while (id < resourceNames.size() && resourceCounts[id] == 0) {
+                id++;
+            }
+            return id;
+        }
     }
 }
@@ -0,0 +1,52 @@
+package backend.academy.analyzer;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import lombok.experimental.UtilityClass;
+
+/**
+ * Запись неотрицательных чисел переменной длины (по 7 бит в байте, младшими группами вперёд)
+ * и строк с такой длиной для двоичных сводок и сохранённого состояния анализатора.
+ */
+@UtilityClass
+class VarInts {
+
+    private static final int PAYLOAD = 0x7F;
+    private static final int CONTINUATION = 0x80;
+    private static final int SHIFT = 7;
+
+    static void writeVarLong(DataOutput output, long value) throws IOException {
+        long rest = value;
+        while ((rest & ~PAYLOAD) != 0) {
+            output.writeByte((int) (rest & PAYLOAD) | CONTINUATION);
+            rest >>>= SHIFT;
+        }
+        output.writeByte((int) rest);
+    }
+
+    static long readVarLong(DataInput input) throws IOException {
+        long value = 0;
+        int shift = 0;
+        int current;
+        do {
+            current = input.readUnsignedByte();
+            value |= (long) (current & PAYLOAD) << shift;
+            shift += SHIFT;
+        } while ((current & CONTINUATION) != 0);
+        return value;
+    }
+
+    static void writeString(DataOutput output, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(output, bytes.length);
+        output.write(bytes);
+    }
+
+    static String readString(DataInput input) throws IOException {
+        byte[] bytes = new byte[(int) readVarLong(input)];
+        input.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,71 @@
+package backend.academy.analyzer;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Реализация ядер агрегации на Vector API. Основная часть массива обрабатывается векторами
+ * предпочтительной для процессора ширины, остаток — скалярно.
+ * Для суммы значения {@code int} расширяются до {@code long} по половине вектора,
+ * чтобы сумма не переполнялась.
+ */
+final class VectorKernels implements AggregationKernels {
+
+    private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Long> LONGS = LongVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Integer> HALF_INTS =
+        VectorSpecies.of(int.class, VectorShape.forBitSize(LONGS.vectorBitSize() / 2));
+
+    @Override
+    public long sum(int[] values, int length) {
+        LongVector accumulator = LongVector.zero(LONGS);
+        int bound = HALF_INTS.loopBound(length);
+        int i = 0;
+        for (; i < bound; i += HALF_INTS.length()) {
+            accumulator = accumulator.add(
+                IntVector.fromArray(HALF_INTS, values, i).convertShape(VectorOperators.I2L, LONGS, 0));
+        }
+        long sum = accumulator.reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            sum += values[i];
+        }
+        return sum;
+    }
+
+    @Override
+    public int minNonZero(int[] values, int length) {
+        IntVector accumulator = IntVector.broadcast(INTS, Integer.MAX_VALUE);
+        int bound = INTS.loopBound(length);
+        int i = 0;
+        for (; i < bound; i += INTS.length()) {
+            IntVector vector = IntVector.fromArray(INTS, values, i);
+            accumulator = accumulator.min(vector.blend(Integer.MAX_VALUE, vector.compare(VectorOperators.EQ, 0)));
+        }
+        int min = accumulator.reduceLanes(VectorOperators.MIN);
+        for (; i < length; i++) {
+            if (values[i] != 0 && values[i] < min) {
+                min = values[i];
+            }
+        }
+        return min == Integer.MAX_VALUE ? 0 : min;
+    }
+
+    @Override
+    public long countZeros(int[] values, int length) {
+        int bound = INTS.loopBound(length);
+        long count = 0;
+        int i = 0;
+        for (; i < bound; i += INTS.length()) {
+            count += IntVector.fromArray(INTS, values, i).compare(VectorOperators.EQ, 0).trueCount();
+        }
+        for (; i < length; i++) {
+            if (values[i] == 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
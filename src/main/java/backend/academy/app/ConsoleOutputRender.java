@@ -1,16 +1,32 @@
 package backend.academy.app;
 
+import backend.academy.analyzer.Statistics;
+import backend.academy.formatter.ReportFormatter;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
 import java.io.PrintStream;
+import java.io.Writer;
 
 /**
  * Реализация {@link OutputRender} для вывода в консоль.
+ * Отчёт форматтера пишется в консоль через буфер, не собираясь в строку.
  */
 public class ConsoleOutputRender implements OutputRender {
 
     private static final PrintStream OUT = System.out;
+    private static final int BUFFER_SIZE = 65_536;
 
     @Override
     public void render(String output) {
         OUT.println(output);
     }
+
+    @Override
+    public void render(ReportFormatter formatter, Statistics stats) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(OUT, OUT.charset()), BUFFER_SIZE);
+        formatter.format(stats, writer);
+        writer.write(System.lineSeparator());
+        writer.flush();
+    }
 }
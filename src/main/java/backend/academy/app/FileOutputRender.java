@@ -0,0 +1,56 @@
+package backend.academy.app;
+
+import backend.academy.analyzer.Statistics;
+import backend.academy.formatter.ReportFormatter;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Реализация {@link OutputRender} для вывода в файл в UTF-8. Отчёт пишется через буфер прямо
+ * в канал файла, поэтому размер отчёта не ограничен памятью. Каждый вывод заменяет содержимое
+ * файла, так что в режиме наблюдения в файле всегда последний отчёт.
+ */
+public class FileOutputRender implements OutputRender {
+
+    private static final int BUFFER_SIZE = 65_536;
+
+    private final Path path;
+
+    /**
+     * Создаёт вывод в файл.
+     *
+     * @param path путь к файлу отчёта; файл создаётся или перезаписывается.
+     */
+    public FileOutputRender(Path path) {
+        this.path = path;
+    }
+
+    @Override
+    public void render(String output) {
+        try (Writer writer = open()) {
+            writer.write(output);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось записать отчёт в " + path, e);
+        }
+    }
+
+    @Override
+    public void render(ReportFormatter formatter, Statistics stats) throws IOException {
+        try (Writer writer = open()) {
+            formatter.format(stats, writer);
+        }
+    }
+
+    private Writer open() throws IOException {
+        FileChannel channel = FileChannel.open(path,
+            StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        return new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8), BUFFER_SIZE);
+    }
+}
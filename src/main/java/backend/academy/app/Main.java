@@ -17,7 +17,9 @@ public class Main {
      */
     public static void main(String[] args) {
         AppConfig config = new AppConfig(args);
-        OutputRender outputRenderer = new ConsoleOutputRender();
+        OutputRender outputRenderer = config.output() != null
+            ? new FileOutputRender(config.output())
+            : new ConsoleOutputRender();
         ParserApp app = new ParserApp(config, outputRenderer);
 
         app.run();
@@ -1,5 +1,9 @@
 package backend.academy.app;
 
+import backend.academy.analyzer.Statistics;
+import backend.academy.formatter.ReportFormatter;
+import java.io.IOException;
+
 /**
  * Интерфейс для вывода результатов анализа.
  */
@@ -11,4 +15,16 @@ public interface OutputRender {
      * @param output текст отчёта.
      */
     void render(String output);
+
+    /**
+     * Выводит отчёт, который форматтер пишет по частям прямо в приёмник вывода.
+     * По умолчанию отчёт сначала собирается в строку.
+     *
+     * @param formatter форматтер отчёта.
+     * @param stats статистика для отчёта.
+     * @throws IOException если отчёт не удалось записать.
+     */
+    default void render(ReportFormatter formatter, Statistics stats) throws IOException {
+        render(formatter.format(stats));
+    }
 }
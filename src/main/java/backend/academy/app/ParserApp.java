@@ -2,17 +2,36 @@ package backend.academy.app;
 
 import backend.academy.analyzer.LogAnalyzer;
 import backend.academy.analyzer.Statistics;
+import backend.academy.checkpoint.Checkpoint;
+import backend.academy.checkpoint.CheckpointSettings;
 import backend.academy.config.AppConfig;
+import backend.academy.distributed.ShardCoordinator;
+import backend.academy.distributed.Snapshot;
 import backend.academy.formatter.AsciidocFormatter;
+import backend.academy.formatter.JsonFormatter;
 import backend.academy.formatter.MarkdownFormatter;
 import backend.academy.formatter.ReportFormatter;
+import backend.academy.index.RollupIndex;
+import backend.academy.metrics.PipelineMetrics;
+import backend.academy.metrics.Stage;
+import backend.academy.metrics.StageRecorder;
+import backend.academy.parser.BadLines;
+import backend.academy.parser.FileFollower;
+import backend.academy.parser.LogFiles;
 import backend.academy.parser.LogFilter;
 import backend.academy.parser.LogParser;
 import backend.academy.parser.LogRecord;
+import backend.academy.parser.LogSources;
+import backend.academy.parser.ParseContext;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Supplier;
 import java.util.logging.Logger;
+import java.util.stream.Collector;
 
 /**
  * Основное приложение для анализа логов.
@@ -20,6 +39,7 @@ import java.util.logging.Logger;
 public class ParserApp {
 
     private static final Logger LOGGER = Logger.getLogger(ParserApp.class.getName());
+    private static final PrintStream ERR = System.err;
     private final AppConfig config;
     private final OutputRender outputRender;
     private final Map<String, Supplier<ReportFormatter>> formatters;
@@ -35,52 +55,225 @@ public class ParserApp {
         this.outputRender = outputRender;
         this.formatters = Map.of(
             "markdown", MarkdownFormatter::new,
-            "adoc", AsciidocFormatter::new
+            "adoc", AsciidocFormatter::new,
+            "json", JsonFormatter::new,
+            "ndjson", () -> new JsonFormatter(true)
         );
     }
 
     /**
      * Запускает приложение:
-     * - Читает и парсит логи.
+     * - Раскрывает шаблоны путей в список файлов.
+     * - Читает и парсит логи, передавая записи в потоковый анализатор,
+     *   или отвечает по индексу по минутам ({@code --index}).
+     * - С {@code --checkpoint} сохраняет состояние разбора и продолжает его ({@code --resume}).
+     * - С {@code --workers} делит работу между процессами-обработчиками; обработчик
+     *   ({@code --snapshot}) вместо отчёта записывает снимок частичного результата.
+     * - В режиме {@code --follow} продолжает читать дописываемые строки и обновляет отчёт.
      * - Выполняет анализ данных.
      * - Форматирует отчёт.
      * - Выводит результат.
+     * - Строки, которые не удалось разобрать, выводит в журнал выборочно, пишет в карантин
+     *   ({@code --quarantine}) и прерывает разбор, если их доля больше {@code --max-error-ratio}.
+     * - С {@code --pipeline} разбирает потоки поэтапно: чтение, разбор и сборка результата идут
+     *   в разных потоках.
+     * - С {@code --stats} печатает в stderr сводку метрик по этапам; метрики собираются
+     *   и без флага, если идёт запись JFR с событиями анализатора.
      */
     public void run() {
-        try {
-            LogFilter filter = new LogFilter(config.from(), config.to(), config.filterField(), config.filterValue());
-            List<LogRecord> logs = LogParser.parse(config.pathOrUrl(), filter);
+        PipelineMetrics metrics = config.stats() || PipelineMetrics.recording() ? new PipelineMetrics() : null;
+        try (BadLines badLines = badLines()) {
+            LogFilter filter = new LogFilter(config.from(), config.to(),
+                config.filterField(), config.filterValue(), config.filters())
+                .seek(config.seek())
+                .seekToleranceSeconds(config.seekToleranceSeconds());
+            ParseContext context = new ParseContext().metrics(metrics).badLines(badLines).pipeline(config.pipeline());
+            List<String> sources = LogSources.resolve(config.paths());
+            if (config.follow()) {
+                follow(sources, filter, context);
+            } else if (config.snapshot() != null) {
+                snapshot(sources, filter, context);
+            } else {
+                report(sources, filter, context);
+            }
+        } catch (Exception e) {
+            LOGGER.severe("Ошибка: " + e.getMessage());
+        }
+        if (metrics != null) {
+            metrics.finish();
+            if (config.stats()) {
+                ERR.print(metrics.summary());
+            }
+        }
+    }
+
+    /**
+     * Однократно анализирует источники и выводит отчёт.
+     *
+     * @param sources пути к файлам логов или URL.
+     * @param filter параметры фильтрации.
+     * @param context общее состояние разбора.
+     * @throws IOException если индекс не удалось прочитать или записать или отчёт не удалось вывести.
+     */
+    private void report(List<String> sources, LogFilter filter, ParseContext context) throws IOException {
+        Statistics stats = analyze(sources, filter, context,
+            LogAnalyzer.collector(config.percentiles(), config.topK(), config.topKMemoryBytes()));
 
-            if (logs.isEmpty()) {
-                outputRender.render("Ошибка: Логи отсутствуют или файл пуст.");
-                return;
+        if (stats.totalRequests() == 0) {
+            outputRender.render("Ошибка: Логи отсутствуют или файл пуст.");
+            return;
+        }
+
+        describe(stats, sources);
+        render(getFormatter(config.format()), stats, context);
+    }
+
+    /**
+     * Режим наблюдения ({@code --follow}): читает файлы с начала, затем дочитывает дописанные строки
+     * раз в {@link AppConfig#refreshInterval()} и выводит обновлённый отчёт, если появились новые данные.
+     * Статистика обновляется на месте, поэтому стоимость обновления зависит только от объёма новых данных.
+     * Работает, пока поток не прерван.
+     *
+     * @param sources пути к несжатым локальным файлам.
+     * @param filter параметры фильтрации.
+     * @param context общее состояние разбора.
+     * @throws IOException если файл не удалось прочитать или отчёт не удалось вывести.
+     */
+    private void follow(List<String> sources, LogFilter filter, ParseContext context) throws IOException {
+        for (String source : sources) {
+            if (LogParser.isUrl(source) || Files.exists(Path.of(source)) && !LogParser.isPlainFile(source)) {
+                throw new IllegalArgumentException("Режим --follow поддерживает только несжатые локальные файлы: "
+                    + source);
             }
+        }
+        LogAnalyzer analyzer = new LogAnalyzer(config.percentiles(), config.topK(), config.topKMemoryBytes());
+        ReportFormatter formatter = getFormatter(config.format());
+        List<FileFollower> followers = sources.stream()
+            .map(source -> new FileFollower(Path.of(source), filter, context))
+            .toList();
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                long read = 0;
+                for (FileFollower follower : followers) {
+                    read += follower.poll(analyzer);
+                }
+                if (read > 0) {
+                    Statistics stats = analyzer.getStatistics();
+                    describe(stats, sources);
+                    render(formatter, stats, context);
+                }
+                Thread.sleep(config.refreshInterval().toMillis());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            for (FileFollower follower : followers) {
+                follower.close();
+            }
+        }
+    }
 
-            LogAnalyzer analyzer = new LogAnalyzer(logs);
-            Statistics stats = analyzer.getStatistics();
-            stats.path(config.pathOrUrl());
-            stats.from(config.from());
-            stats.to(config.to());
-            ReportFormatter formatter = getFormatter(config.format());
-            String report = formatter.format(stats);
-            outputRender.render(report);
+    /**
+     * Режим обработчика ({@code --snapshot}): разбирает источники или диапазон байт {@code --range}
+     * одного несжатого файла и записывает состояние анализатора в файл снимка вместо отчёта.
+     *
+     * @param sources пути к файлам логов или URL.
+     * @param filter параметры фильтрации.
+     * @param context общее состояние разбора.
+     * @throws IOException если файл не удалось прочитать или снимок не удалось записать.
+     */
+    private void snapshot(List<String> sources, LogFilter filter, ParseContext context) throws IOException {
+        Collector<LogRecord, LogAnalyzer, LogAnalyzer> collector = Collector.of(
+            () -> new LogAnalyzer(config.percentiles(), config.topK(), config.topKMemoryBytes()),
+            LogAnalyzer::accept,
+            LogAnalyzer::merge
+        );
+        LogAnalyzer analyzer;
+        if (config.rangeEnd() >= 0) {
+            Path path = Path.of(sources.getFirst());
+            analyzer = LogParser.parseRange(path, LogFiles.lineStartAtOrAfter(path, config.rangeStart()),
+                LogFiles.lineStartAtOrAfter(path, config.rangeEnd()), filter, context, config.parallel(), collector);
+        } else {
+            analyzer = LogParser.parse(sources, filter, context, config.parallel(), config.http(), collector);
+        }
+        Snapshot.write(config.snapshot(), analyzer);
+    }
 
-        } catch (Exception e) {
-            LOGGER.severe("Ошибка: " + e.getMessage());
+    /**
+     * Создаёт обработчик строк, которые не удалось разобрать, по параметрам запуска.
+     */
+    private BadLines badLines() throws IOException {
+        BadLines badLines = new BadLines()
+            .logFirst(config.badLinesLogFirst())
+            .logEvery(config.badLinesLogEvery())
+            .maxErrorRatio(config.maxErrorRatio());
+        return config.quarantine() != null ? badLines.quarantine(config.quarantine()) : badLines;
+    }
+
+    /**
+     * Форматирует и выводит отчёт, замеряя этап отчёта в метриках разбора.
+     */
+    private void render(ReportFormatter formatter, Statistics stats, ParseContext context) throws IOException {
+        StageRecorder recorder = new StageRecorder(context.metrics());
+        recorder.start();
+        outputRender.render(formatter, stats);
+        recorder.stop(Stage.REPORT);
+        recorder.publish();
+    }
+
+    private void describe(Statistics stats, List<String> sources) {
+        stats.path(String.join(", ", sources));
+        stats.from(config.from());
+        stats.to(config.to());
+    }
+
+    /**
+     * Собирает статистику по источникам: с контрольными точками, если задан файл точки;
+     * в процессах-обработчиках, если задано их число; через индекс по минутам, если он включён
+     * и применим; иначе полным разбором.
+     *
+     * @param sources пути к файлам логов или URL.
+     * @param filter параметры фильтрации.
+     * @param context общее состояние разбора.
+     * @param collector коллектор статистики.
+     * @return статистика.
+     * @throws IOException если индекс или контрольную точку не удалось прочитать или записать.
+     */
+    private Statistics analyze(
+        List<String> sources,
+        LogFilter filter,
+        ParseContext context,
+        Collector<LogRecord, LogAnalyzer, Statistics> collector
+    ) throws IOException {
+        if (config.checkpoint() != null) {
+            CheckpointSettings checkpoint =
+                new CheckpointSettings(config.checkpoint(), config.resume(), config.checkpointIntervalBytes());
+            return Checkpoint.parse(sources, filter, context, config.parallel(), checkpoint, collector);
+        }
+        if (config.workers() > 0) {
+            return ShardCoordinator.parse(sources, config.workers(), config.workerArguments(), collector);
+        }
+        if (config.index()) {
+            if (RollupIndex.supports(sources, filter)) {
+                return RollupIndex.parse(sources, filter, context, config.indexDirectory(), collector);
+            }
+            LOGGER.warning("Индекс не используется: он поддерживает только несжатые локальные файлы "
+                + "и фильтр по датам.");
         }
+        return LogParser.parse(sources, filter, context, config.parallel(), config.http(), collector);
     }
 
     /**
      * Возвращает форматтер для создания отчёта в заданном формате.
      *
-     * @param format строка формата (markdown или adoc).
+     * @param format строка формата (markdown, adoc, json или ndjson).
      * @return объект {@link ReportFormatter} для заданного формата.
      * @throws IllegalArgumentException если указанный формат не поддерживается.
      */
     private ReportFormatter getFormatter(String format) {
         return formatters.getOrDefault(format.toLowerCase(), () -> {
             throw new IllegalArgumentException(
-                "Неизвестный формат: " + format + ". Доступные форматы: markdown, adoc."
+                "Неизвестный формат: " + format + ". Доступные форматы: markdown, adoc, json, ndjson."
             );
         }).get();
     }
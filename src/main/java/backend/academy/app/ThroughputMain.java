@@ -0,0 +1,166 @@
+package backend.academy.app;
+
+import backend.academy.analyzer.Statistics;
+import backend.academy.config.AppConfig;
+import backend.academy.formatter.ReportFormatter;
+import backend.academy.parser.LogFiles;
+import backend.academy.parser.LogParser;
+import backend.academy.parser.LogSources;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.logging.Logger;
+import lombok.experimental.UtilityClass;
+
+/**
+ * Сквозной замер пропускной способности: несколько раз запускает {@link ParserApp} над готовыми
+ * файлами (например, созданными {@link backend.academy.generator.GeneratorMain}) и печатает
+ * для каждого запуска время, строки и мегабайты в секунду и пиковый RSS процесса.
+ *
+ * Параметры — те же, что у приложения, и ещё {@code --runs} (число замеров, по умолчанию 3)
+ * и {@code --warmup} (число прогревочных запусков, по умолчанию 1). Отчёт форматируется
+ * выбранным форматтером, но никуда не выводится. Пиковый RSS читается из {@code VmHWM}
+ * в {@code /proc/self/status} и сбрасывается перед каждым запуском записью в {@code /proc/self/clear_refs},
+ * поэтому доступен только в Linux.
+ */
+@UtilityClass
+public class ThroughputMain {
+
+    private static final Logger LOGGER = Logger.getLogger(ThroughputMain.class.getName());
+    private static final PrintStream OUT = System.out;
+    private static final Path PROC_STATUS = Path.of("/proc/self/status");
+    private static final Path PROC_CLEAR_REFS = Path.of("/proc/self/clear_refs");
+    private static final String RESET_PEAK_RSS = "5";
+    private static final String PEAK_RSS_FIELD = "VmHWM:";
+    private static final long BYTES_PER_KILOBYTE = 1_024;
+    private static final double BYTES_PER_MEGABYTE = 1_048_576.0;
+    private static final double NANOS_PER_SECOND = 1e9;
+    private static final int DEFAULT_RUNS = 3;
+    private static final int DEFAULT_WARMUP = 1;
+    private static final String ARG_RUNS = "--runs";
+    private static final String ONE_DECIMAL = "%.1f";
+    private static final String ROW_FORMAT = "%-10s %10s %14s %10s %14s%n";
+
+    /**
+     * Запускает замер.
+     *
+     * @param args параметры приложения и параметры замера.
+     */
+    public static void main(String[] args) {
+        try {
+            AppConfig config = new AppConfig(args);
+            int runs = option(args, ARG_RUNS, DEFAULT_RUNS);
+            int warmup = option(args, "--warmup", DEFAULT_WARMUP);
+            List<String> sources = LogSources.resolve(config.paths());
+            long bytes = 0;
+            long lines = 0;
+            for (String source : sources) {
+                if (!LogParser.isPlainFile(source)) {
+                    throw new IllegalArgumentException("Замер поддерживает только несжатые локальные файлы: " + source);
+                }
+                bytes += Files.size(Path.of(source));
+                lines += LogFiles.countLines(Path.of(source));
+            }
+            OUT.printf(Locale.ROOT, "Файлов: %d, %.1f МБ, %d строк%n", sources.size(), bytes / BYTES_PER_MEGABYTE,
+                lines);
+            OUT.printf(ROW_FORMAT, "Запуск", "Время, с", "Строк/с", "МБ/с", "Пик RSS, МБ");
+            double[] seconds = new double[runs];
+            for (int run = -warmup; run < runs; run++) {
+                double elapsed = measure(config, run < 0 ? "прогрев" : String.valueOf(run + 1), lines, bytes);
+                if (run >= 0) {
+                    seconds[run] = elapsed;
+                }
+            }
+            Arrays.sort(seconds);
+            printRow("медиана", seconds[runs / 2], lines, bytes, -1);
+        } catch (IllegalArgumentException | IOException e) {
+            LOGGER.severe("Ошибка: " + e.getMessage());
+        }
+    }
+
+    private static double measure(AppConfig config, String name, long lines, long bytes) {
+        System.gc();
+        resetPeakRss();
+        DiscardingRender render = new DiscardingRender();
+        long started = System.nanoTime();
+        new ParserApp(config, render).run();
+        double seconds = (System.nanoTime() - started) / NANOS_PER_SECOND;
+        if (!render.rendered) {
+            throw new IllegalArgumentException("Приложение не построило отчёт, см. сообщения об ошибках выше");
+        }
+        printRow(name, seconds, lines, bytes, peakRss());
+        return seconds;
+    }
+
+    private static void printRow(String name, double seconds, long lines, long bytes, long peakRss) {
+        OUT.printf(ROW_FORMAT, name, String.format(Locale.ROOT, "%.3f", seconds),
+            String.format(Locale.ROOT, "%.0f", lines / seconds),
+            String.format(Locale.ROOT, ONE_DECIMAL, bytes / BYTES_PER_MEGABYTE / seconds),
+            peakRss < 0 ? "—" : String.format(Locale.ROOT, ONE_DECIMAL, peakRss / BYTES_PER_MEGABYTE));
+    }
+
+    private static int option(String[] args, String name, int defaultValue) {
+        List<String> values = Arrays.asList(args);
+        int index = values.lastIndexOf(name);
+        if (index < 0) {
+            return defaultValue;
+        }
+        try {
+            int value = Integer.parseInt(values.get(index + 1));
+            if (value < 0 || value == 0 && ARG_RUNS.equals(name)) {
+                throw new NumberFormatException();
+            }
+            return value;
+        } catch (NumberFormatException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Неверное значение параметра " + name);
+        }
+    }
+
+    private static void resetPeakRss() {
+        try {
+            Files.writeString(PROC_CLEAR_REFS, RESET_PEAK_RSS);
+        } catch (IOException | UnsupportedOperationException | SecurityException e) {
+            LOGGER.fine("Пиковый RSS не сброшен: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Пиковый RSS процесса в байтах или {@code -1}, если он недоступен.
+     */
+    private static long peakRss() {
+        try {
+            for (String line : Files.readAllLines(PROC_STATUS)) {
+                if (line.startsWith(PEAK_RSS_FIELD)) {
+                    return Long.parseLong(line.replaceAll("\\D", "")) * BYTES_PER_KILOBYTE;
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            LOGGER.fine("Пиковый RSS недоступен: " + e.getMessage());
+        }
+        return -1;
+    }
+
+    /**
+     * Форматирует отчёт в никуда, чтобы в замер входило форматирование, но не вывод.
+     */
+    private static final class DiscardingRender implements OutputRender {
+
+        private boolean rendered;
+
+        @Override
+        public void render(String output) {
+            rendered = true;
+        }
+
+        @Override
+        public void render(ReportFormatter formatter, Statistics stats) throws IOException {
+            formatter.format(stats, Writer.nullWriter());
+            rendered = true;
+        }
+    }
+}
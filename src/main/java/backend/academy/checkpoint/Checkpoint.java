@@ -0,0 +1,331 @@
+package backend.academy.checkpoint;
+
+import backend.academy.analyzer.LogAnalyzer;
+import backend.academy.parser.LogFiles;
+import backend.academy.parser.LogFilter;
+import backend.academy.parser.LogParser;
+import backend.academy.parser.LogRecord;
+import backend.academy.parser.ParseContext;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.logging.Logger;
+import java.util.stream.Collector;
+
+/**
+ * Контрольная точка разбора: накопленное состояние {@link LogAnalyzer} и для каждого файла —
+ * смещение, до которого он уже учтён. Состояние сохраняется в компактный двоичный файл после
+ * каждого участка файла размером {@code intervalBytes}, поэтому прерванный разбор продолжается
+ * с последнего сохранения ({@code --resume}) и даёт тот же отчёт, что и разбор без перерыва.
+ * Повторный запуск с той же точкой учитывает только строки, дописанные с прошлого запуска,
+ * что подходит для ежедневных заданий cron; отчёт при этом строится по всем учтённым строкам.
+ *
+ * В точку попадают только полные строки. Неполная последняя строка разбирается в отчёт текущего
+ * запуска, но не сохраняется и будет учтена целиком, когда её допишут.
+ *
+ * Файл узнаётся по контрольной сумме своего начала: если по пути лежит другой файл или файл стал
+ * короче учтённого, он разбирается с начала, а уже учтённое состояние сохраняется. Файл, который
+ * ротация переименовала, узнаётся и под новым именем и продолжается с того же смещения.
+ * Сжатые файлы нельзя читать по смещениям, поэтому они учитываются целиком один раз.
+ * Точка привязана к параметрам фильтра: продолжение с другим фильтром — ошибка.
+ */
+public final class Checkpoint {
+
+    private static final Logger LOGGER = Logger.getLogger(Checkpoint.class.getName());
+    private static final int MAGIC = 0x4C434B50;
+    private static final int VERSION = 1;
+    private static final int FINGERPRINT_BYTES = 4_096;
+    private static final int BUFFER_SIZE = 65_536;
+    private static final String FILE_PREFIX = "Файл ";
+    private static final String CHECKPOINT_PREFIX = "Контрольная точка ";
+
+    private final Path path;
+    private final String settings;
+    private final LogAnalyzer analyzer;
+    private final Map<String, FileProgress> files = new LinkedHashMap<>();
+
+    private Checkpoint(Path path, String settings, LogAnalyzer analyzer) {
+        this.path = path;
+        this.settings = settings;
+        this.analyzer = analyzer;
+    }
+
+    /**
+     * Собирает статистику по локальным файлам, сохраняя контрольные точки по ходу разбора.
+     *
+     * @param sources пути к локальным файлам логов.
+     * @param filter параметры фильтрации; поиск по времени не используется.
+     * @param context общее состояние разбора.
+     * @param parallel разбирать ли участки несжатых файлов параллельно.
+     * @param checkpointSettings файл точки, продолжать ли с него и как часто его сохранять.
+     * @param collector коллектор статистики.
+     * @param <R> тип итогового результата.
+     * @return результат коллектора по всем учтённым строкам.
+     * @throws IOException если файл не удалось прочитать или точку не удалось записать.
+     * @throws IllegalArgumentException если источник не локальный файл или точка создана с другим фильтром.
+     */
+    public static <R> R parse(
+        List<String> sources,
+        LogFilter filter,
+        ParseContext context,
+        boolean parallel,
+        CheckpointSettings checkpointSettings,
+        Collector<LogRecord, LogAnalyzer, R> collector
+    ) throws IOException {
+        for (String source : sources) {
+            if (LogParser.isUrl(source) || "-".equals(source)) {
+                throw new IllegalArgumentException("Контрольные точки поддерживают только локальные файлы: " + source);
+            }
+        }
+        String settings = settings(filter);
+        Checkpoint checkpoint =
+            checkpointSettings.resume() ? load(checkpointSettings.path(), settings, collector) : null;
+        if (checkpoint == null) {
+            checkpoint = new Checkpoint(checkpointSettings.path(), settings, collector.supplier().get());
+        }
+        List<Path> plainFiles = new ArrayList<>();
+        for (String source : sources) {
+            if (LogParser.isPlainFile(source)) {
+                plainFiles.add(Path.of(source));
+            }
+        }
+        checkpoint.resolve(plainFiles);
+        LogAnalyzer tail = collector.supplier().get();
+        for (String source : sources) {
+            Path log = Path.of(source);
+            if (plainFiles.contains(log)) {
+                checkpoint.process(log, filter, context, parallel, checkpointSettings.intervalBytes(), collector,
+                    tail);
+            } else {
+                checkpoint.processWhole(log, filter, context, parallel, collector);
+            }
+        }
+        checkpoint.save();
+        return collector.finisher().apply(checkpoint.analyzer.merge(tail));
+    }
+
+    /**
+     * Сопоставляет несжатые файлы с учтёнными частями: сначала по пути, затем для неузнанных
+     * по пути файлов — по контрольной сумме начала среди остальных учтённых частей (файл переименован
+     * ротацией). Части переназначаются только после проверки всех файлов, поэтому новый файл
+     * под старым именем не затирает часть, которую продолжит переименованный файл.
+     */
+    private void resolve(List<Path> logs) throws IOException {
+        Map<String, FileProgress> unmatched = new LinkedHashMap<>();
+        files.forEach((key, progress) -> {
+            if (!progress.completed) {
+                unmatched.put(key, progress);
+            }
+        });
+        List<Path> unknown = new ArrayList<>();
+        for (Path log : logs) {
+            FileProgress saved = unmatched.get(key(log));
+            if (saved != null && saved.matches(log)) {
+                unmatched.remove(key(log));
+            } else {
+                unknown.add(log);
+            }
+        }
+        Map<String, FileProgress> assigned = new LinkedHashMap<>();
+        for (Path log : unknown) {
+            assigned.put(key(log), adopt(log, unmatched));
+        }
+        files.putAll(assigned);
+    }
+
+    /**
+     * Ищет среди неузнанных частей ту, что была учтена для начала этого файла под другим именем.
+     */
+    private FileProgress adopt(Path log, Map<String, FileProgress> unmatched) throws IOException {
+        Iterator<Map.Entry<String, FileProgress>> candidates = unmatched.entrySet().iterator();
+        while (candidates.hasNext()) {
+            Map.Entry<String, FileProgress> candidate = candidates.next();
+            if (candidate.getValue().offset > 0 && candidate.getValue().matches(log)) {
+                LOGGER.info(() -> FILE_PREFIX + log + " продолжает учтённый файл " + candidate.getKey());
+                candidates.remove();
+                files.remove(candidate.getKey());
+                return candidate.getValue();
+            }
+        }
+        if (files.containsKey(key(log))) {
+            LOGGER.info(() -> FILE_PREFIX + log + " заменён или усечён и учитывается с начала");
+        }
+        return new FileProgress();
+    }
+
+    /**
+     * Учитывает новые строки несжатого файла. Полные строки добавляются в состояние участками
+     * с сохранением после каждого, неполная последняя строка — в {@code tail}.
+     */
+    private void process(
+        Path log,
+        LogFilter filter,
+        ParseContext context,
+        boolean parallel,
+        long intervalBytes,
+        Collector<LogRecord, LogAnalyzer, ?> collector,
+        LogAnalyzer tail
+    ) throws IOException {
+        long size = Files.size(log);
+        FileProgress progress = files.get(key(log));
+        long end = LogFiles.completeLinesEnd(log, progress.offset);
+        while (progress.offset < end) {
+            long segmentEnd = LogFiles.lineStartAtOrAfter(log, Math.min(end, progress.offset + intervalBytes));
+            analyzer.merge(
+                LogParser.parseRange(log, progress.offset, segmentEnd, filter, context, parallel, collector));
+            progress.offset = segmentEnd;
+            progress.fingerprintLength = (int) Math.min(FINGERPRINT_BYTES, segmentEnd);
+            progress.fingerprint = LogFiles.prefixChecksum(log, progress.fingerprintLength);
+            save();
+            LOGGER.fine(() -> FILE_PREFIX + log + ": учтено байт " + segmentEnd + " из " + size);
+        }
+        if (end < size) {
+            tail.merge(LogParser.parseRange(log, end, size, filter, context, false, collector));
+        }
+    }
+
+    /**
+     * Учитывает сжатый файл целиком, если он ещё не учтён.
+     */
+    private void processWhole(
+        Path log,
+        LogFilter filter,
+        ParseContext context,
+        boolean parallel,
+        Collector<LogRecord, LogAnalyzer, ?> collector
+    ) throws IOException {
+        long size = Files.size(log);
+        long modified = Files.getLastModifiedTime(log).toMillis();
+        FileProgress progress = files.get(key(log));
+        if (progress != null && progress.completed) {
+            if (progress.offset != size || progress.modified != modified) {
+                LOGGER.warning(FILE_PREFIX + log + " изменился после обработки, но сжатый файл нельзя дочитать"
+                    + " с места остановки; изменения не учтены");
+            }
+            return;
+        }
+        Collector<LogRecord, LogAnalyzer, LogAnalyzer> partial =
+            Collector.of(collector.supplier(), collector.accumulator(), collector.combiner());
+        analyzer.merge(LogParser.parse(log.toString(), filter, context, parallel, partial));
+        FileProgress whole = new FileProgress();
+        whole.offset = size;
+        whole.modified = modified;
+        whole.completed = true;
+        files.put(key(log), whole);
+        save();
+    }
+
+    private static String key(Path log) {
+        return log.toAbsolutePath().normalize().toString();
+    }
+
+    private static String settings(LogFilter filter) {
+        return String.join("|", Objects.toString(filter.from(), ""), Objects.toString(filter.to(), ""),
+            Objects.toString(filter.filterField(), ""), Objects.toString(filter.filterValue(), ""),
+            String.join(" && ", filter.expressions()));
+    }
+
+    private void save() throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temporary = Files.createTempFile(parent, path.getFileName().toString(), ".tmp");
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(
+            Files.newOutputStream(temporary), BUFFER_SIZE))) {
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            output.writeUTF(settings);
+            output.writeInt(files.size());
+            for (Map.Entry<String, FileProgress> entry : files.entrySet()) {
+                output.writeUTF(entry.getKey());
+                entry.getValue().writeTo(output);
+            }
+            analyzer.writeTo(output);
+        } catch (IOException e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Читает сохранённую точку; возвращает {@code null}, если файла нет или он повреждён.
+     */
+    private static Checkpoint load(
+        Path path,
+        String settings,
+        Collector<LogRecord, LogAnalyzer, ?> collector
+    ) throws IOException {
+        if (!Files.isRegularFile(path)) {
+            LOGGER.info(() -> "Контрольной точки " + path + " нет, разбор начинается с начала");
+            return null;
+        }
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(
+            Files.newInputStream(path), BUFFER_SIZE))) {
+            if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+                throw new IOException("неизвестный формат");
+            }
+            String saved = input.readUTF();
+            if (!saved.equals(settings)) {
+                throw new IllegalArgumentException(CHECKPOINT_PREFIX + path
+                    + " создана с другими параметрами фильтра: " + saved);
+            }
+            Checkpoint checkpoint = new Checkpoint(path, settings, collector.supplier().get());
+            int fileCount = input.readInt();
+            for (int i = 0; i < fileCount; i++) {
+                checkpoint.files.put(input.readUTF(), FileProgress.readFrom(input));
+            }
+            checkpoint.analyzer.addFrom(input);
+            return checkpoint;
+        } catch (IOException e) {
+            LOGGER.warning(CHECKPOINT_PREFIX + path + " не прочитана, разбор начинается с начала ("
+                + e.getMessage() + ")");
+            return null;
+        }
+    }
+
+    /**
+     * Учтённая часть одного файла: смещение после последней учтённой строки, контрольная сумма
+     * начала файла, а для сжатых файлов — признак, что файл учтён целиком, и время его изменения.
+     */
+    private static final class FileProgress {
+
+        private long offset;
+        private int fingerprintLength;
+        private long fingerprint;
+        private boolean completed;
+        private long modified;
+
+        private boolean matches(Path log) throws IOException {
+            return Files.size(log) >= offset && LogFiles.prefixChecksum(log, fingerprintLength) == fingerprint;
+        }
+
+        private void writeTo(DataOutputStream output) throws IOException {
+            output.writeLong(offset);
+            output.writeInt(fingerprintLength);
+            output.writeLong(fingerprint);
+            output.writeBoolean(completed);
+            output.writeLong(modified);
+        }
+
+        private static FileProgress readFrom(DataInputStream input) throws IOException {
+            FileProgress progress = new FileProgress();
+            progress.offset = input.readLong();
+            progress.fingerprintLength = input.readInt();
+            progress.fingerprint = input.readLong();
+            progress.completed = input.readBoolean();
+            progress.modified = input.readLong();
+            return progress;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package backend.academy.checkpoint;
+
+import java.nio.file.Path;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Параметры контрольных точек ({@link Checkpoint}).
+ *
+ * Поля класса:
+ * - path: Путь к файлу контрольной точки.
+ * - resume: Продолжить с сохранённой точки; иначе начать заново и перезаписать её.
+ * - intervalBytes: Сколько байт файла разбирать между сохранениями.
+ */
+@Getter
+@AllArgsConstructor
+public class CheckpointSettings {
+
+    private Path path;
+    private boolean resume;
+    private long intervalBytes;
+}
@@ -1,11 +1,20 @@
 package backend.academy.config;
 
+import backend.academy.parser.BadLines;
+import backend.academy.parser.HttpSettings;
+import backend.academy.parser.PipelineSettings;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import lombok.Getter;
 
 /**
@@ -16,17 +25,96 @@ import lombok.Getter;
 public class AppConfig {
 
     private static final String ARG_PATH = "path";
+    private static final String ARG_FORMAT = "format";
     private static final String ARG_FROM = "from";
     private static final String ARG_TO = "to";
     private static final String ARG_FILTER_FIELD = "filter-field";
     private static final String ARG_FILTER_VALUE = "filter-value";
+    private static final String ARG_FILTER = "filter";
+    private static final String ARG_PARALLEL = "parallel";
+    private static final String ARG_PERCENTILES = "percentiles";
+    private static final String ARG_TOP_K = "top-k";
+    private static final String ARG_TOP_K_MEMORY = "top-k-memory";
+    private static final String ARG_HTTP_RETRIES = "http-retries";
+    private static final String ARG_HTTP_TIMEOUT = "http-timeout";
+    private static final String ARG_HTTP_RANGE_SIZE = "http-range-size";
+    private static final String ARG_HTTP_CONNECTIONS = "http-connections";
+    private static final String ARG_SEEK = "seek";
+    private static final String ARG_SEEK_TOLERANCE = "seek-tolerance";
+    private static final String ARG_INDEX = "index";
+    private static final String ARG_INDEX_DIR = "index-dir";
+    private static final String ARG_FOLLOW = "follow";
+    private static final String ARG_REFRESH_INTERVAL = "refresh-interval";
+    private static final String ARG_OUTPUT = "output";
+    private static final String ARG_CHECKPOINT = "checkpoint";
+    private static final String ARG_RESUME = "resume";
+    private static final String ARG_CHECKPOINT_INTERVAL = "checkpoint-interval";
+    private static final long DEFAULT_CHECKPOINT_INTERVAL_MEGABYTES = 1_024;
+    private static final String ARG_WORKERS = "workers";
+    private static final String ARG_SNAPSHOT = "snapshot";
+    private static final String ARG_RANGE = "range";
+    private static final String ARG_STATS = "stats";
+    private static final String ARG_LOG_BAD_LINES = "log-bad-lines";
+    private static final String ARG_LOG_BAD_LINES_EVERY = "log-bad-lines-every";
+    private static final String ARG_QUARANTINE = "quarantine";
+    private static final String ARG_MAX_ERROR_RATIO = "max-error-ratio";
+    private static final String ARG_PIPELINE = "pipeline";
+    private static final String ARG_PIPELINE_WORKERS = "pipeline-workers";
+    private static final String ARG_PIPELINE_BATCH_SIZE = "pipeline-batch-size";
+    private static final String ARG_PIPELINE_QUEUE = "pipeline-queue";
+    private static final String ARG_PIPELINE_THREADS = "pipeline-threads";
+    private static final String ARG_DETERMINISTIC = "deterministic";
+    // Параметры источников, вывода и режима запуска координатора; все остальные передаются обработчикам.
+    private static final Set<String> COORDINATOR_OPTIONS = Set.of(ARG_PATH, ARG_FORMAT, ARG_OUTPUT, ARG_FOLLOW,
+        ARG_REFRESH_INTERVAL, ARG_INDEX, ARG_INDEX_DIR, ARG_CHECKPOINT, ARG_RESUME, ARG_CHECKPOINT_INTERVAL,
+        ARG_WORKERS, ARG_SNAPSHOT, ARG_RANGE, ARG_STATS, ARG_QUARANTINE);
+    private static final Set<String> MULTI_VALUE_OPTIONS = Set.of(ARG_PATH, ARG_FILTER);
+    private static final Set<String> FLAG_OPTIONS = Set.of(ARG_PARALLEL, ARG_FOLLOW, ARG_SEEK, ARG_INDEX, ARG_RESUME,
+        ARG_STATS, ARG_PIPELINE, ARG_DETERMINISTIC);
+    private static final List<String> RUN_MODE_OPTIONS =
+        List.of(ARG_FOLLOW, ARG_SNAPSHOT, ARG_CHECKPOINT, ARG_WORKERS, ARG_INDEX, ARG_INDEX_DIR);
+    private static final int DEFAULT_REFRESH_INTERVAL_SECONDS = 2;
+    private static final long DEFAULT_FOLLOW_TOP_K_MEMORY_MEGABYTES = 16;
+    private static final int DEFAULT_SEEK_TOLERANCE_SECONDS = 60;
+    private static final int DEFAULT_TOP_K = 10;
+    private static final long BYTES_PER_MEGABYTE = 1_048_576L;
+    private static final double MAX_PERCENTILE = 100.0;
+    private static final double[] DEFAULT_PERCENTILES = {95.0};
+    private static final String PARAMETER_PREFIX = "Параметр --";
     private static final DateTimeFormatter ISO8601_FORMATTER = DateTimeFormatter.ISO_DATE_TIME;
-    private String pathOrUrl;
+    private List<String> paths;
     private String format;
+    private Path output;
     private LocalDateTime from;
     private LocalDateTime to;
     private String filterField;
     private String filterValue;
+    private List<String> filters;
+    private boolean parallel;
+    private double[] percentiles;
+    private int topK;
+    private long topKMemoryBytes;
+    private HttpSettings http;
+    private boolean seek;
+    private long seekToleranceSeconds;
+    private boolean index;
+    private Path indexDirectory;
+    private boolean follow;
+    private Duration refreshInterval;
+    private Path checkpoint;
+    private boolean resume;
+    private long checkpointIntervalBytes;
+    private int workers;
+    private Path snapshot;
+    private long rangeStart = -1;
+    private long rangeEnd = -1;
+    private List<String> workerArguments;
+    private boolean stats;
+    private int badLinesLogFirst;
+    private int badLinesLogEvery;
+    private Path quarantine;
+    private double maxErrorRatio;
+    private PipelineSettings pipeline;
 
     /**
      * Создаёт конфигурацию приложения на основе аргументов командной строки.
@@ -35,15 +123,19 @@ public class AppConfig {
      * @throws IllegalArgumentException если обязательные параметры отсутствуют или некорректны.
      */
     public AppConfig(String[] args) {
-        Map<String, String> argMap = parseArgs(args);
+        Map<String, List<String>> values = parseArgs(args);
+        Map<String, String> argMap = new HashMap<>();
+        values.forEach((key, list) -> argMap.put(key, list.isEmpty() ? null : list.getLast()));
+        validateRunMode(argMap);
 
-        if (argMap.containsKey(ARG_PATH)) {
-            this.pathOrUrl = argMap.get(ARG_PATH);
+        if (values.containsKey(ARG_PATH) && !values.get(ARG_PATH).isEmpty()) {
+            this.paths = List.copyOf(values.get(ARG_PATH));
         } else {
             throw new IllegalArgumentException("Параметр --path обязателен.");
         }
 
-        this.format = argMap.getOrDefault("format", "markdown");
+        this.format = argMap.getOrDefault(ARG_FORMAT, "markdown");
+        this.output = argMap.get(ARG_OUTPUT) != null ? Path.of(argMap.get(ARG_OUTPUT)) : null;
 
         if (argMap.containsKey(ARG_FROM)) {
             this.from = parseDate(argMap.get(ARG_FROM));
@@ -54,23 +146,232 @@ public class AppConfig {
 
         this.filterField = argMap.get(ARG_FILTER_FIELD);
         this.filterValue = argMap.get(ARG_FILTER_VALUE);
+        this.filters = List.copyOf(values.getOrDefault(ARG_FILTER, List.of()));
+        this.parallel = argMap.containsKey(ARG_PARALLEL);
+        this.percentiles = argMap.get(ARG_PERCENTILES) != null
+            ? parsePercentiles(argMap.get(ARG_PERCENTILES))
+            : DEFAULT_PERCENTILES.clone();
+        this.topK = argMap.get(ARG_TOP_K) != null
+            ? (int) parseInteger(ARG_TOP_K, argMap.get(ARG_TOP_K), 1)
+            : DEFAULT_TOP_K;
+        this.follow = argMap.containsKey(ARG_FOLLOW);
+        this.refreshInterval = Duration.ofSeconds(argMap.get(ARG_REFRESH_INTERVAL) != null
+            ? parseInteger(ARG_REFRESH_INTERVAL, argMap.get(ARG_REFRESH_INTERVAL), 1)
+            : DEFAULT_REFRESH_INTERVAL_SECONDS);
+        // В режиме наблюдения ресурсы по умолчанию считаются приближённо, чтобы память не росла со временем.
+        this.topKMemoryBytes = argMap.get(ARG_TOP_K_MEMORY) != null
+            ? parseInteger(ARG_TOP_K_MEMORY, argMap.get(ARG_TOP_K_MEMORY), 1) * BYTES_PER_MEGABYTE
+            : follow ? DEFAULT_FOLLOW_TOP_K_MEMORY_MEGABYTES * BYTES_PER_MEGABYTE : 0;
+        this.http = parseHttpSettings(argMap);
+        this.seek = argMap.containsKey(ARG_SEEK);
+        this.seekToleranceSeconds = argMap.get(ARG_SEEK_TOLERANCE) != null
+            ? parseInteger(ARG_SEEK_TOLERANCE, argMap.get(ARG_SEEK_TOLERANCE), 0)
+            : DEFAULT_SEEK_TOLERANCE_SECONDS;
+        this.indexDirectory = argMap.get(ARG_INDEX_DIR) != null ? Path.of(argMap.get(ARG_INDEX_DIR)) : null;
+        this.index = argMap.containsKey(ARG_INDEX) || indexDirectory != null;
+        parseCheckpointSettings(argMap);
+        parseShardSettings(argMap, args);
+        this.stats = argMap.containsKey(ARG_STATS);
+        parseBadLineSettings(argMap);
+        this.pipeline = argMap.containsKey(ARG_PIPELINE) ? parsePipelineSettings(argMap) : null;
+    }
+
+    /**
+     * Проверяет, что задано не больше одного режима запуска: наблюдение, обработчик распределённого режима,
+     * контрольные точки, координатор или индекс. Режимы разбирают источники по-разному, поэтому их сочетание
+     * отклоняется, а не сводится молча к одному из них. {@code --index-dir} вместе с {@code --index} — один режим.
+     *
+     * @param argMap карта аргументов.
+     * @throws IllegalArgumentException если задано несколько режимов запуска.
+     */
+    private static void validateRunMode(Map<String, String> argMap) {
+        List<String> modes = new ArrayList<>();
+        for (String option : RUN_MODE_OPTIONS) {
+            boolean sameIndex = ARG_INDEX_DIR.equals(option) && argMap.containsKey(ARG_INDEX);
+            if (argMap.containsKey(option) && !sameIndex) {
+                modes.add("--" + option);
+            }
+        }
+        if (modes.size() > 1) {
+            throw new IllegalArgumentException("Параметры " + String.join(", ", modes)
+                + " несовместимы: задайте один режим запуска.");
+        }
+    }
+
+    /**
+     * Читает параметры поэтапного разбора ({@code --pipeline}): число разборщиков, размер блока в мегабайтах,
+     * длину очереди блоков, вид потоков и детерминированный режим.
+     *
+     * @param argMap карта аргументов.
+     * @return параметры поэтапного разбора.
+     * @throws IllegalArgumentException если значение параметра некорректно.
+     */
+    private PipelineSettings parsePipelineSettings(Map<String, String> argMap) {
+        PipelineSettings settings = new PipelineSettings().deterministic(argMap.containsKey(ARG_DETERMINISTIC));
+        if (argMap.get(ARG_PIPELINE_WORKERS) != null) {
+            settings.workers((int) parseInteger(ARG_PIPELINE_WORKERS, argMap.get(ARG_PIPELINE_WORKERS), 1));
+        }
+        if (argMap.get(ARG_PIPELINE_BATCH_SIZE) != null) {
+            settings.batchBytes((int) Math.min(Integer.MAX_VALUE / 2,
+                parseInteger(ARG_PIPELINE_BATCH_SIZE, argMap.get(ARG_PIPELINE_BATCH_SIZE), 1) * BYTES_PER_MEGABYTE));
+        }
+        if (argMap.get(ARG_PIPELINE_QUEUE) != null) {
+            settings.queueBatches((int) parseInteger(ARG_PIPELINE_QUEUE, argMap.get(ARG_PIPELINE_QUEUE), 1));
+        }
+        String threads = argMap.get(ARG_PIPELINE_THREADS);
+        boolean platform = "platform".equals(threads);
+        if (threads != null && !platform && !"virtual".equals(threads)) {
+            throw new IllegalArgumentException(
+                PARAMETER_PREFIX + ARG_PIPELINE_THREADS + " принимает значения virtual или platform: " + threads);
+        }
+        return settings.virtualThreads(!platform);
+    }
+
+    /**
+     * Читает параметры обработки строк, которые не удалось разобрать: сколько из них выводить в журнал,
+     * файл карантина и долю ошибок, при которой разбор прерывается.
+     *
+     * @param argMap карта аргументов.
+     */
+    private void parseBadLineSettings(Map<String, String> argMap) {
+        this.badLinesLogFirst = argMap.get(ARG_LOG_BAD_LINES) != null
+            ? (int) parseInteger(ARG_LOG_BAD_LINES, argMap.get(ARG_LOG_BAD_LINES), 0)
+            : BadLines.DEFAULT_LOG_FIRST;
+        this.badLinesLogEvery = argMap.get(ARG_LOG_BAD_LINES_EVERY) != null
+            ? (int) parseInteger(ARG_LOG_BAD_LINES_EVERY, argMap.get(ARG_LOG_BAD_LINES_EVERY), 0)
+            : BadLines.DEFAULT_LOG_EVERY;
+        this.quarantine = argMap.get(ARG_QUARANTINE) != null ? Path.of(argMap.get(ARG_QUARANTINE)) : null;
+        this.maxErrorRatio = argMap.get(ARG_MAX_ERROR_RATIO) != null
+            ? parseRatio(ARG_MAX_ERROR_RATIO, argMap.get(ARG_MAX_ERROR_RATIO))
+            : 1.0;
+    }
+
+    /**
+     * Читает параметры контрольных точек: файл точки, продолжение с неё и размер участка между сохранениями.
+     *
+     * @param argMap карта аргументов.
+     * @throws IllegalArgumentException если {@code --resume} задан без {@code --checkpoint}.
+     */
+    private void parseCheckpointSettings(Map<String, String> argMap) {
+        this.checkpoint = argMap.get(ARG_CHECKPOINT) != null ? Path.of(argMap.get(ARG_CHECKPOINT)) : null;
+        this.resume = argMap.containsKey(ARG_RESUME);
+        if (resume && checkpoint == null) {
+            throw new IllegalArgumentException("Параметр --resume требует --checkpoint.");
+        }
+        this.checkpointIntervalBytes = (argMap.get(ARG_CHECKPOINT_INTERVAL) != null
+            ? parseInteger(ARG_CHECKPOINT_INTERVAL, argMap.get(ARG_CHECKPOINT_INTERVAL), 1)
+            : DEFAULT_CHECKPOINT_INTERVAL_MEGABYTES) * BYTES_PER_MEGABYTE;
+    }
+
+    /**
+     * Читает параметры распределённого режима: число процессов-обработчиков для координатора,
+     * а для обработчика — файл снимка и диапазон байт. Параметры фильтра, разбора и подсчёта
+     * (все, кроме источников, вывода и режима запуска) сохраняются как есть, чтобы координатор передал
+     * их обработчикам и сводки обработчиков считались так же, как в одном процессе.
+     *
+     * @param argMap карта аргументов.
+     * @param args исходные аргументы командной строки.
+     */
+    private void parseShardSettings(Map<String, String> argMap, String[] args) {
+        this.workers = argMap.get(ARG_WORKERS) != null
+            ? (int) parseInteger(ARG_WORKERS, argMap.get(ARG_WORKERS), 1)
+            : 0;
+        this.snapshot = argMap.get(ARG_SNAPSHOT) != null ? Path.of(argMap.get(ARG_SNAPSHOT)) : null;
+        if (argMap.get(ARG_RANGE) != null) {
+            parseByteRange(argMap.get(ARG_RANGE));
+        }
+        List<String> forwarded = new ArrayList<>();
+        boolean keep = false;
+        for (String arg : args) {
+            if (arg.startsWith("--")) {
+                keep = !COORDINATOR_OPTIONS.contains(arg.substring(2));
+            }
+            if (keep) {
+                forwarded.add(arg);
+            }
+        }
+        this.workerArguments = List.copyOf(forwarded);
+    }
+
+    /**
+     * Парсит диапазон байт обработчика в виде {@code НАЧАЛО:КОНЕЦ}.
+     *
+     * @param value строковое значение.
+     * @throws IllegalArgumentException если диапазон задан неверно или задано не ровно одного файла.
+     */
+    private void parseByteRange(String value) {
+        IllegalArgumentException invalid = new IllegalArgumentException(
+            "Параметр --range задаётся как НАЧАЛО:КОНЕЦ для одного файла: " + value);
+        String[] bounds = value.split(":", -1);
+        if (bounds.length != 2 || paths.size() != 1) {
+            throw invalid;
+        }
+        try {
+            this.rangeStart = Long.parseLong(bounds[0].trim());
+            this.rangeEnd = Long.parseLong(bounds[1].trim());
+        } catch (NumberFormatException e) {
+            throw invalid;
+        }
+        if (rangeStart < 0 || rangeEnd < rangeStart) {
+            throw invalid;
+        }
+    }
+
+    /**
+     * Собирает параметры загрузки по HTTP; отсутствующие параметры берутся из {@link HttpSettings#DEFAULT}.
+     *
+     * @param argMap карта аргументов.
+     * @return параметры загрузки по HTTP.
+     */
+    private HttpSettings parseHttpSettings(Map<String, String> argMap) {
+        HttpSettings defaults = HttpSettings.DEFAULT;
+        return new HttpSettings(
+            argMap.get(ARG_HTTP_RETRIES) != null
+                ? (int) parseInteger(ARG_HTTP_RETRIES, argMap.get(ARG_HTTP_RETRIES), 0)
+                : defaults.retries(),
+            argMap.get(ARG_HTTP_TIMEOUT) != null
+                ? Duration.ofSeconds(parseInteger(ARG_HTTP_TIMEOUT, argMap.get(ARG_HTTP_TIMEOUT), 1))
+                : defaults.timeout(),
+            argMap.get(ARG_HTTP_RANGE_SIZE) != null
+                ? parseInteger(ARG_HTTP_RANGE_SIZE, argMap.get(ARG_HTTP_RANGE_SIZE), 1) * BYTES_PER_MEGABYTE
+                : defaults.rangeSize(),
+            argMap.get(ARG_HTTP_CONNECTIONS) != null
+                ? (int) parseInteger(ARG_HTTP_CONNECTIONS, argMap.get(ARG_HTTP_CONNECTIONS), 1)
+                : defaults.connections()
+        );
     }
 
     /**
-     * Парсит аргументы командной строки в карту ключ-значение.
+     * Парсит аргументы командной строки в карту ключ-значения.
+     * Несколько значений подряд принимают только {@code --path} и {@code --filter}
+     * ({@code --path a.log b.log}); флаги значений не принимают, прочие параметры — одно значение.
+     * Параметр можно повторить ({@code --path a.log --path b.log}); для параметров с одним значением
+     * используется последнее.
      *
      * @param args массив аргументов командной строки.
-     * @return карта аргументов, где ключи — это параметры без "--", а значения — их значения.
+     * @return карта аргументов, где ключи — это параметры без "--", а значения — список их значений
+     *     (пустой для флагов).
+     * @throws IllegalArgumentException если значение стоит вне параметра, у флага или сверх одного значения.
      */
-    private Map<String, String> parseArgs(String[] args) {
-        Map<String, String> argMap = new HashMap<>();
-        for (int index = 0; index < args.length;) {
-            if (args[index].startsWith("--")) {
-                String key = args[index].substring(2);
-                String value = (index + 1 < args.length && !args[index + 1].startsWith("--")) ? args[++index] : null;
-                argMap.put(key, value);
+    private Map<String, List<String>> parseArgs(String[] args) {
+        Map<String, List<String>> argMap = new HashMap<>();
+        String option = null;
+        int optionValues = 0;
+        for (String arg : args) {
+            if (arg.startsWith("--")) {
+                option = arg.substring(2);
+                optionValues = 0;
+                argMap.computeIfAbsent(option, key -> new ArrayList<>());
+                continue;
+            }
+            boolean accepted = option != null && (MULTI_VALUE_OPTIONS.contains(option)
+                || !FLAG_OPTIONS.contains(option) && optionValues == 0);
+            if (!accepted) {
+                throw new IllegalArgumentException("Лишний аргумент: " + arg
+                    + (option != null ? " (параметр --" + option + " не принимает столько значений)" : ""));
             }
-            index++;
+            argMap.get(option).add(arg);
+            optionValues++;
         }
         return argMap;
     }
@@ -92,4 +393,70 @@ public class AppConfig {
             throw new IllegalArgumentException("Неверный формат даты: " + dateStr + ". Ожидается формат ISO8601.");
         }
     }
+
+    /**
+     * Парсит список перцентилей через запятую, например {@code 50,90,99,99.9}.
+     *
+     * @param value строка со списком перцентилей.
+     * @return массив перцентилей в процентах.
+     * @throws IllegalArgumentException если значение не число или вне диапазона (0, 100].
+     */
+    private double[] parsePercentiles(String value) {
+        try {
+            double[] result = Arrays.stream(value.split(","))
+                .map(String::trim)
+                .mapToDouble(Double::parseDouble)
+                .toArray();
+            for (double percentile : result) {
+                if (!(percentile > 0 && percentile <= MAX_PERCENTILE)) {
+                    throw new IllegalArgumentException("Перцентиль вне диапазона (0, 100]: " + percentile);
+                }
+            }
+            return result;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Неверный список перцентилей: " + value);
+        }
+    }
+
+    /**
+     * Парсит долю от 0 до 1 включительно.
+     *
+     * @param name имя параметра без "--".
+     * @param value строковое значение.
+     * @return доля.
+     * @throws IllegalArgumentException если значение не число или вне диапазона [0, 1].
+     */
+    private double parseRatio(String name, String value) {
+        try {
+            double result = Double.parseDouble(value.trim());
+            if (!(result >= 0 && result <= 1)) {
+                throw new NumberFormatException();
+            }
+            return result;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(PARAMETER_PREFIX + name + " должен быть числом от 0 до 1: " + value);
+        }
+    }
+
+    /**
+     * Парсит целое значение параметра не меньше заданного.
+     *
+     * @param name имя параметра без "--".
+     * @param value строковое значение.
+     * @param minimum минимальное допустимое значение.
+     * @return значение параметра.
+     * @throws IllegalArgumentException если значение не целое число или меньше минимума.
+     */
+    private long parseInteger(String name, String value, int minimum) {
+        try {
+            int result = Integer.parseInt(value.trim());
+            if (result < minimum) {
+                throw new NumberFormatException();
+            }
+            return result;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(
+                PARAMETER_PREFIX + name + " должен быть целым числом не меньше " + minimum + ": " + value);
+        }
+    }
 }
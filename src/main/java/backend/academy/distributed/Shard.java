@@ -0,0 +1,76 @@
+package backend.academy.distributed;
+
+import java.util.ArrayList;
+import java.util.List;
+import lombok.Getter;
+
+/**
+ * Часть работы одного процесса-обработчика: несколько источников целиком
+ * или диапазон байт {@code [start, end)} одного несжатого файла. В диапазон входят строки,
+ * которые в нём начинаются, поэтому соседние диапазоны делят строки файла без пропусков и повторов.
+ */
+@Getter
+public final class Shard {
+
+    private final List<String> sources;
+    private final long start;
+    private final long end;
+
+    private Shard(List<String> sources, long start, long end) {
+        this.sources = List.copyOf(sources);
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * Создаёт часть из источников, разбираемых целиком.
+     *
+     * @param sources пути к файлам логов или URL.
+     * @return часть работы.
+     */
+    public static Shard of(List<String> sources) {
+        return new Shard(sources, 0, -1);
+    }
+
+    /**
+     * Создаёт часть из диапазона байт несжатого файла.
+     *
+     * @param source путь к файлу.
+     * @param start смещение начала диапазона.
+     * @param end смещение конца диапазона (не включая).
+     * @return часть работы.
+     */
+    public static Shard range(String source, long start, long end) {
+        return new Shard(List.of(source), start, end);
+    }
+
+    /**
+     * Проверяет, задаёт ли часть диапазон байт.
+     *
+     * @return {@code true} для диапазона одного файла.
+     */
+    public boolean isRange() {
+        return end >= 0;
+    }
+
+    /**
+     * Возвращает аргументы командной строки обработчика, задающие эту часть.
+     *
+     * @return аргументы {@code --path} и, для диапазона, {@code --range}.
+     */
+    public List<String> arguments() {
+        List<String> arguments = new ArrayList<>();
+        arguments.add("--path");
+        arguments.addAll(sources);
+        if (isRange()) {
+            arguments.add("--range");
+            arguments.add(start + ":" + end);
+        }
+        return arguments;
+    }
+
+    @Override
+    public String toString() {
+        return isRange() ? sources.getFirst() + " [" + start + ", " + end + ")" : String.join(", ", sources);
+    }
+}
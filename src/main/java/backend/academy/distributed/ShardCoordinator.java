@@ -0,0 +1,202 @@
+package backend.academy.distributed;
+
+import backend.academy.analyzer.LogAnalyzer;
+import backend.academy.parser.LogParser;
+import backend.academy.parser.LogRecord;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.lang.management.ManagementFactory;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.logging.Logger;
+import java.util.stream.Collector;
+import java.util.stream.Stream;
+import lombok.experimental.UtilityClass;
+
+/**
+ * Координатор распределённого разбора: делит источники на части ({@link Shard}), запускает для частей
+ * отдельные процессы-обработчики на этой же машине, не больше {@code workers} одновременно,
+ * и объединяет их снимки ({@link Snapshot}) в один результат.
+ *
+ * Обработчик — то же приложение с параметром {@code --snapshot}: он разбирает свою часть и вместо отчёта
+ * записывает состояние анализатора. Снимки объединяются в порядке частей через
+ * {@link LogAnalyzer#addFrom(java.io.DataInput)}. Объединение счётчиков, гистограммы размеров, минимума
+ * и числа нулевых ответов — сложение, поэтому оно ассоциативно и результат совпадает с разбором
+ * в одном процессе. Сводка популярных ресурсов при ограничении памяти объединяется приближённо
+ * с теми же гарантиями погрешности, что и при параллельном разборе.
+ */
+@UtilityClass
+public class ShardCoordinator {
+
+    private static final Logger LOGGER = Logger.getLogger(ShardCoordinator.class.getName());
+    private static final String MAIN_CLASS = "backend.academy.app.Main";
+    private static final long MIN_SHARD_BYTES = 1_048_576L;
+    private static final List<String> DEBUG_OPTIONS = List.of("-agentlib", "-javaagent", "-Xrunjdwp", "-Xdebug");
+
+    /**
+     * Собирает статистику по источникам в нескольких процессах-обработчиках.
+     *
+     * @param sources пути к файлам логов или URL.
+     * @param workers максимальное число одновременно работающих обработчиков.
+     * @param workerArguments аргументы фильтра и подсчёта, передаваемые каждому обработчику.
+     * @param collector коллектор статистики.
+     * @param <R> тип итогового результата.
+     * @return результат коллектора по всем частям.
+     * @throws IOException если обработчик завершился ошибкой или снимок не удалось прочитать.
+     */
+    public static <R> R parse(
+        List<String> sources,
+        int workers,
+        List<String> workerArguments,
+        Collector<LogRecord, LogAnalyzer, R> collector
+    ) throws IOException {
+        List<Shard> shards = plan(sources, workers);
+        Path directory = Files.createTempDirectory("log-shards");
+        List<Process> processes = new ArrayList<>();
+        try {
+            List<Path> snapshots = new ArrayList<>();
+            for (int i = 0; i < shards.size(); i++) {
+                if (i >= workers) {
+                    await(processes.get(i - workers), shards.get(i - workers), snapshots.get(i - workers));
+                }
+                Path snapshot = directory.resolve("shard-" + i + ".snapshot");
+                snapshots.add(snapshot);
+                processes.add(start(shards.get(i), snapshot, workerArguments));
+            }
+            for (int i = Math.max(0, shards.size() - workers); i < shards.size(); i++) {
+                await(processes.get(i), shards.get(i), snapshots.get(i));
+            }
+            LogAnalyzer analyzer = collector.supplier().get();
+            for (Path snapshot : snapshots) {
+                Snapshot.readInto(snapshot, analyzer);
+            }
+            return collector.finisher().apply(analyzer);
+        } finally {
+            processes.forEach(Process::destroy);
+            try (Stream<Path> files = Files.list(directory)) {
+                for (Path file : files.toList()) {
+                    Files.deleteIfExists(file);
+                }
+            }
+            Files.deleteIfExists(directory);
+        }
+    }
+
+    /**
+     * Делит источники на части примерно по {@code total / workers} байт: несжатый файл больше
+     * этого размера делится на диапазоны, остальные источники группируются целиком по порядку.
+     * Части меньше 1 МБ не создаются, а размер URL считается нулевым.
+     *
+     * @param sources пути к файлам логов или URL.
+     * @param workers число обработчиков.
+     * @return части работы в порядке источников.
+     * @throws IOException если размер файла не удалось получить.
+     * @throws IllegalArgumentException если среди источников есть стандартный ввод.
+     */
+    public static List<Shard> plan(List<String> sources, int workers) throws IOException {
+        long[] sizes = new long[sources.size()];
+        long total = 0;
+        for (int i = 0; i < sources.size(); i++) {
+            String source = sources.get(i);
+            if ("-".equals(source)) {
+                throw new IllegalArgumentException("Стандартный ввод нельзя разделить между процессами");
+            }
+            boolean local = !LogParser.isUrl(source) && Files.isRegularFile(Path.of(source));
+            sizes[i] = local ? Files.size(Path.of(source)) : 0;
+            total += sizes[i];
+        }
+        long target = Math.max(MIN_SHARD_BYTES, Math.ceilDiv(total, workers));
+        List<Shard> shards = new ArrayList<>();
+        List<String> bundle = new ArrayList<>();
+        long bundleBytes = 0;
+        for (int i = 0; i < sources.size(); i++) {
+            String source = sources.get(i);
+            if (sizes[i] > target && LogParser.isPlainFile(source)) {
+                long pieces = Math.ceilDiv(sizes[i], target);
+                for (long piece = 0; piece < pieces; piece++) {
+                    shards.add(Shard.range(source, sizes[i] * piece / pieces, sizes[i] * (piece + 1) / pieces));
+                }
+            } else {
+                bundle.add(source);
+                bundleBytes += sizes[i];
+                if (bundleBytes >= target) {
+                    shards.add(Shard.of(bundle));
+                    bundle.clear();
+                    bundleBytes = 0;
+                }
+            }
+        }
+        if (!bundle.isEmpty()) {
+            shards.add(Shard.of(bundle));
+        }
+        return shards;
+    }
+
+    private static Process start(Shard shard, Path snapshot, List<String> workerArguments) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(ProcessHandle.current().info().command()
+            .orElse(Path.of(System.getProperty("java.home"), "bin", "java").toString()));
+        for (String option : ManagementFactory.getRuntimeMXBean().getInputArguments()) {
+            if (DEBUG_OPTIONS.stream().noneMatch(option::startsWith)) {
+                command.add(option);
+            }
+        }
+        command.add("-cp");
+        command.add(classPath());
+        command.add(MAIN_CLASS);
+        command.addAll(shard.arguments());
+        command.addAll(workerArguments);
+        command.add("--snapshot");
+        command.add(snapshot.toString());
+        LOGGER.fine(() -> "Запуск обработчика: " + shard);
+        return new ProcessBuilder(command)
+            .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+            .redirectError(ProcessBuilder.Redirect.INHERIT)
+            .start();
+    }
+
+    private static void await(Process process, Shard shard, Path snapshot) throws IOException {
+        int exitCode;
+        try {
+            exitCode = process.waitFor();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Ожидание обработчика прервано: " + shard);
+        }
+        if (exitCode != 0 || !Files.isRegularFile(snapshot)) {
+            throw new IOException("Обработчик части " + shard + " завершился с кодом " + exitCode
+                + (Files.isRegularFile(snapshot) ? "" : " без снимка"));
+        }
+    }
+
+    /**
+     * Путь классов для обработчика: путь классов этого процесса и адреса загрузчиков классов
+     * приложения (например, когда классы загружены не системным загрузчиком, как в запуске тестов).
+     */
+    private static String classPath() {
+        Set<String> entries = new LinkedHashSet<>(
+            Arrays.asList(System.getProperty("java.class.path").split(File.pathSeparator)));
+        for (ClassLoader loader = ShardCoordinator.class.getClassLoader(); loader != null;
+            loader = loader.getParent()) {
+            if (loader instanceof URLClassLoader urlLoader) {
+                for (URL url : urlLoader.getURLs()) {
+                    try {
+                        entries.add(Path.of(url.toURI()).toString());
+                    } catch (URISyntaxException | IllegalArgumentException e) {
+                        LOGGER.fine(() -> "Адрес " + url + " не добавлен в путь классов обработчика");
+                    }
+                }
+            }
+        }
+        return String.join(File.pathSeparator, entries);
+    }
+}
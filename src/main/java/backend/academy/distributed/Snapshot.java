@@ -0,0 +1,65 @@
+package backend.academy.distributed;
+
+import backend.academy.analyzer.LogAnalyzer;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import lombok.experimental.UtilityClass;
+
+/**
+ * Файл снимка частичного результата: состояние {@link LogAnalyzer} обработчика (счётчики, гистограмма
+ * размеров, сводка популярных ресурсов, минимум и число нулевых ответов) с заголовком формата.
+ * Снимок записывается во временный файл и переименовывается, поэтому координатор не увидит
+ * недописанный снимок.
+ */
+@UtilityClass
+public class Snapshot {
+
+    private static final int MAGIC = 0x4C534E50;
+    private static final int VERSION = 1;
+    private static final int BUFFER_SIZE = 65_536;
+
+    /**
+     * Записывает состояние анализатора в файл снимка.
+     *
+     * @param path путь к файлу снимка.
+     * @param analyzer анализатор с частичным результатом.
+     * @throws IOException если снимок не удалось записать.
+     */
+    public static void write(Path path, LogAnalyzer analyzer) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        Path temporary = Files.createTempFile(parent, path.getFileName().toString(), ".tmp");
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(
+            Files.newOutputStream(temporary), BUFFER_SIZE))) {
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            analyzer.writeTo(output);
+        } catch (IOException e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Добавляет к анализатору состояние из файла снимка.
+     *
+     * @param path путь к файлу снимка.
+     * @param analyzer анализатор, в который добавляется снимок.
+     * @throws IOException если снимок не удалось прочитать или он записан в другом формате.
+     */
+    public static void readInto(Path path, LogAnalyzer analyzer) throws IOException {
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(
+            Files.newInputStream(path), BUFFER_SIZE))) {
+            if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+                throw new IOException("Файл " + path + " не является снимком анализатора");
+            }
+            analyzer.addFrom(input);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package backend.academy.formatter;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.CharBuffer;
+
+/**
+ * {@link Writer} поверх произвольного {@link Appendable} для форматтеров, которым нужен именно
+ * {@code Writer}. Закрытие приёмник не закрывает.
+ */
+final class AppendableWriter extends Writer {
+
+    private final Appendable out;
+
+    AppendableWriter(Appendable out) {
+        this.out = out;
+    }
+
+    @Override
+    public void write(char[] buffer, int offset, int length) throws IOException {
+        out.append(CharBuffer.wrap(buffer, offset, length));
+    }
+
+    @Override
+    public void write(String text, int offset, int length) throws IOException {
+        out.append(text, offset, offset + length);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (out instanceof Flushable flushable) {
+            flushable.flush();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+    }
+}
@@ -1,8 +1,9 @@
 package backend.academy.formatter;
 
+import backend.academy.analyzer.ResourceCount;
 import backend.academy.analyzer.Statistics;
 import backend.academy.util.HttpStatus;
-import java.time.format.DateTimeFormatter;
+import java.io.IOException;
 import java.util.Map;
 
 /**
@@ -15,67 +16,77 @@ public class AsciidocFormatter implements ReportFormatter {
     private static final String COLUMN_SEPARATOR = " | ";
     private static final String NEW_LINE = "\n";
     private static final String HEADER_COUNT = "Количество";
+    private static final double PERCENTILE_95 = 95.0;
 
     /**
      * Форматирует объект статистики в текстовый отчёт в формате AsciiDoc.
      *
      * @param stats объект {@link Statistics}, содержащий данные для отчёта.
-     * @return строка отчёта в формате AsciiDoc.
+     * @param out приёмник текста отчёта.
+     * @throws IOException если запись в приёмник завершилась ошибкой.
      */
     @Override
-    public String format(Statistics stats) {
-        StringBuilder report = new StringBuilder();
-        report.append("== Общая информация").append(NEW_LINE).append(NEW_LINE)
+    public void format(Statistics stats, Appendable out) throws IOException {
+        out.append("== Общая информация").append(NEW_LINE).append(NEW_LINE)
             .append(TABLE_START)
             .append("| Метрика").append(COLUMN_SEPARATOR).append("Значение").append(NEW_LINE)
             .append(COLUMN_SEPARATOR).append("Файл(-ы)").append(COLUMN_SEPARATOR)
             .append(stats.path()).append(NEW_LINE)
             .append(COLUMN_SEPARATOR).append("Начальная дата").append(COLUMN_SEPARATOR)
-            .append(stats.from() != null
-                ? stats.from().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME)
-                : "-")
-            .append(NEW_LINE)
+            .append(ReportValues.dateTime(stats.from())).append(NEW_LINE)
             .append(COLUMN_SEPARATOR).append("Конечная дата").append(COLUMN_SEPARATOR)
-            .append(stats.to() != null
-                ? stats.to().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME)
-                : "-")
-            .append(NEW_LINE)
+            .append(ReportValues.dateTime(stats.to())).append(NEW_LINE)
             .append(COLUMN_SEPARATOR).append("Количество запросов").append(COLUMN_SEPARATOR)
-            .append(stats.totalRequests()).append(NEW_LINE)
-            .append(COLUMN_SEPARATOR).append("Средний размер ответа").append(COLUMN_SEPARATOR)
-            .append(String.format("%.2fb", stats.averageResponseSize()))
-            .append(NEW_LINE)
-            .append(COLUMN_SEPARATOR).append("95p размера ответа").append(COLUMN_SEPARATOR)
-            .append((int) stats.percentile95ResponseSize()).append("b")
-            .append(NEW_LINE)
-            .append(COLUMN_SEPARATOR).append("Минимальный размер ответа").append(COLUMN_SEPARATOR)
-            .append(stats.minResponseSize()).append(NEW_LINE)
+            .append(String.valueOf(stats.totalRequests())).append(NEW_LINE)
+            .append(COLUMN_SEPARATOR).append("Средний размер ответа").append(COLUMN_SEPARATOR);
+        ReportValues.appendSize(out, stats.averageResponseSize());
+        out.append(NEW_LINE);
+        if (stats.responseSizePercentiles().isEmpty()) {
+            appendPercentile(out, PERCENTILE_95, (int) stats.percentile95ResponseSize());
+        } else {
+            for (Map.Entry<Double, Integer> entry : stats.responseSizePercentiles().entrySet()) {
+                appendPercentile(out, entry.getKey(), entry.getValue());
+            }
+        }
+        out.append(COLUMN_SEPARATOR).append("Минимальный размер ответа").append(COLUMN_SEPARATOR)
+            .append(String.valueOf(stats.minResponseSize())).append(NEW_LINE)
             .append(COLUMN_SEPARATOR).append("Количество ответов размера 0b").append(COLUMN_SEPARATOR)
-            .append(stats.zeroResponseCount()).append(NEW_LINE)
+            .append(String.valueOf(stats.zeroResponseCount())).append(NEW_LINE)
             .append(TABLE_END);
-        report.append("== Запрашиваемые ресурсы").append(NEW_LINE).append(NEW_LINE)
+        out.append("== Запрашиваемые ресурсы").append(NEW_LINE).append(NEW_LINE)
             .append(TABLE_START)
             .append("| Ресурс").append(COLUMN_SEPARATOR).append(HEADER_COUNT).append(NEW_LINE);
 
-        for (Map.Entry<String, Integer> entry : stats.resourceCounts().entrySet()) {
-            report.append(COLUMN_SEPARATOR).append(entry.getKey()).append(COLUMN_SEPARATOR)
-                .append(entry.getValue()).append(NEW_LINE);
+        for (ResourceCount resource : stats.topResources()) {
+            out.append(COLUMN_SEPARATOR).append(resource.resource()).append(COLUMN_SEPARATOR);
+            appendCount(out, resource);
+            out.append(NEW_LINE);
         }
 
-        report.append(TABLE_END);
-        report.append("== Коды ответа").append(NEW_LINE).append(NEW_LINE)
+        out.append(TABLE_END);
+        out.append("== Коды ответа").append(NEW_LINE).append(NEW_LINE)
             .append(TABLE_START)
             .append("| Код").append(COLUMN_SEPARATOR).append("Имя")
             .append(COLUMN_SEPARATOR).append(HEADER_COUNT).append(NEW_LINE);
 
-        for (Map.Entry<Integer, Integer> entry : stats.statusCounts().entrySet()) {
-            report.append(COLUMN_SEPARATOR).append(entry.getKey()).append(COLUMN_SEPARATOR)
+        for (Map.Entry<Integer, Long> entry : stats.statusCounts().entrySet()) {
+            out.append(COLUMN_SEPARATOR).append(String.valueOf(entry.getKey())).append(COLUMN_SEPARATOR)
                 .append(HttpStatus.getDescriptionByCode(entry.getKey())).append(COLUMN_SEPARATOR)
-                .append(entry.getValue()).append(NEW_LINE);
+                .append(String.valueOf(entry.getValue())).append(NEW_LINE);
         }
 
-        report.append(TABLE_END);
+        out.append(TABLE_END);
+    }
+
+    private static void appendCount(Appendable out, ResourceCount resource) throws IOException {
+        out.append(String.valueOf(resource.count()));
+        if (resource.error() > 0) {
+            out.append(" (погрешность ≤ ").append(String.valueOf(resource.error())).append(")");
+        }
+    }
 
-        return report.toString();
+    private static void appendPercentile(Appendable out, double percentile, int value) throws IOException {
+        out.append(COLUMN_SEPARATOR).append(ReportValues.percentile(percentile)).append("p размера ответа")
+            .append(COLUMN_SEPARATOR).append(String.valueOf(value)).append("b").append(NEW_LINE);
     }
 }
@@ -0,0 +1,154 @@
+package backend.academy.formatter;
+
+import backend.academy.analyzer.ResourceCount;
+import backend.academy.analyzer.Statistics;
+import backend.academy.util.HttpStatus;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.StreamWriteFeature;
+import com.fasterxml.jackson.core.io.SerializedString;
+import java.io.IOException;
+import java.io.Writer;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+
+/**
+ * Форматирует статистику логов в JSON для загрузки в другие системы.
+ * Статистика пишется потоковым {@link JsonGenerator} поле за полем, без промежуточного дерева и строки,
+ * поэтому выгрузка таблицы ресурсов любого размера требует постоянной дополнительной памяти.
+ *
+ * В формате {@code json} отчёт — один объект с полями сводки и массивами {@code resources}
+ * и {@code statusCodes}. В построчном формате {@code ndjson} каждая строка — отдельный объект
+ * с полем {@code type}: сначала {@code summary}, затем по строке на ресурс ({@code resource})
+ * и код ответа ({@code status}).
+ */
+public class JsonFormatter implements ReportFormatter {
+
+    private static final JsonFactory FACTORY = JsonFactory.builder()
+        .disable(StreamWriteFeature.AUTO_CLOSE_TARGET)
+        .build();
+    private static final SerializedString LINE_SEPARATOR = new SerializedString("\n");
+    private static final double PERCENTILE_95 = 95.0;
+    private static final String FIELD_TYPE = "type";
+    private static final String FIELD_COUNT = "count";
+    private static final String RESOURCE = "resource";
+
+    private final boolean lineDelimited;
+
+    /**
+     * Создаёт форматтер отчёта в виде одного JSON-объекта.
+     */
+    public JsonFormatter() {
+        this(false);
+    }
+
+    /**
+     * Создаёт форматтер JSON.
+     *
+     * @param lineDelimited писать ли отчёт построчно (NDJSON), по объекту на строку.
+     */
+    public JsonFormatter(boolean lineDelimited) {
+        this.lineDelimited = lineDelimited;
+    }
+
+    /**
+     * Форматирует объект статистики в JSON, записывая его в приёмник по частям.
+     *
+     * @param stats объект {@link Statistics}, содержащий данные для отчёта.
+     * @param out приёмник текста отчёта.
+     * @throws IOException если запись в приёмник завершилась ошибкой.
+     */
+    @Override
+    public void format(Statistics stats, Appendable out) throws IOException {
+        Writer writer = out instanceof Writer target ? target : new AppendableWriter(out);
+        try (JsonGenerator generator = FACTORY.createGenerator(writer)) {
+            if (lineDelimited) {
+                generator.setRootValueSeparator(LINE_SEPARATOR);
+                writeLines(generator, stats);
+            } else {
+                generator.useDefaultPrettyPrinter();
+                writeDocument(generator, stats);
+            }
+            generator.writeRaw('\n');
+        }
+    }
+
+    private static void writeDocument(JsonGenerator generator, Statistics stats) throws IOException {
+        generator.writeStartObject();
+        writeSummary(generator, stats);
+        generator.writeArrayFieldStart("resources");
+        for (ResourceCount resource : stats.topResources()) {
+            generator.writeStartObject();
+            writeResource(generator, resource);
+            generator.writeEndObject();
+        }
+        generator.writeEndArray();
+        generator.writeArrayFieldStart("statusCodes");
+        for (Map.Entry<Integer, Long> entry : stats.statusCounts().entrySet()) {
+            generator.writeStartObject();
+            writeStatus(generator, entry.getKey(), entry.getValue());
+            generator.writeEndObject();
+        }
+        generator.writeEndArray();
+        generator.writeEndObject();
+    }
+
+    private static void writeLines(JsonGenerator generator, Statistics stats) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField(FIELD_TYPE, "summary");
+        writeSummary(generator, stats);
+        generator.writeEndObject();
+        for (ResourceCount resource : stats.topResources()) {
+            generator.writeStartObject();
+            generator.writeStringField(FIELD_TYPE, RESOURCE);
+            writeResource(generator, resource);
+            generator.writeEndObject();
+        }
+        for (Map.Entry<Integer, Long> entry : stats.statusCounts().entrySet()) {
+            generator.writeStartObject();
+            generator.writeStringField(FIELD_TYPE, "status");
+            writeStatus(generator, entry.getKey(), entry.getValue());
+            generator.writeEndObject();
+        }
+    }
+
+    private static void writeSummary(JsonGenerator generator, Statistics stats) throws IOException {
+        generator.writeStringField("path", stats.path());
+        writeDateTime(generator, "from", stats.from());
+        writeDateTime(generator, "to", stats.to());
+        generator.writeNumberField("totalRequests", stats.totalRequests());
+        generator.writeNumberField("averageResponseSize", stats.averageResponseSize());
+        generator.writeObjectFieldStart("responseSizePercentiles");
+        if (stats.responseSizePercentiles().isEmpty()) {
+            generator.writeNumberField(ReportValues.percentile(PERCENTILE_95), (int) stats.percentile95ResponseSize());
+        } else {
+            for (Map.Entry<Double, Integer> entry : stats.responseSizePercentiles().entrySet()) {
+                generator.writeNumberField(ReportValues.percentile(entry.getKey()), entry.getValue());
+            }
+        }
+        generator.writeEndObject();
+        generator.writeNumberField("minResponseSize", stats.minResponseSize());
+        generator.writeNumberField("zeroResponseCount", stats.zeroResponseCount());
+    }
+
+    private static void writeResource(JsonGenerator generator, ResourceCount resource) throws IOException {
+        generator.writeStringField(RESOURCE, resource.resource());
+        generator.writeNumberField(FIELD_COUNT, resource.count());
+        generator.writeNumberField("error", resource.error());
+    }
+
+    private static void writeStatus(JsonGenerator generator, int code, long count) throws IOException {
+        generator.writeNumberField("code", code);
+        generator.writeStringField("name", HttpStatus.getDescriptionByCode(code));
+        generator.writeNumberField(FIELD_COUNT, count);
+    }
+
+    private static void writeDateTime(JsonGenerator generator, String name, LocalDateTime value) throws IOException {
+        if (value != null) {
+            generator.writeStringField(name, value.format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+        } else {
+            generator.writeNullField(name);
+        }
+    }
+}
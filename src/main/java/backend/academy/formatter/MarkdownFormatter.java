@@ -1,8 +1,9 @@
 package backend.academy.formatter;
 
+import backend.academy.analyzer.ResourceCount;
 import backend.academy.analyzer.Statistics;
 import backend.academy.util.HttpStatus;
-import java.time.format.DateTimeFormatter;
+import java.io.IOException;
 import java.util.Map;
 
 /**
@@ -15,63 +16,74 @@ public class MarkdownFormatter implements ReportFormatter {
     private static final String TABLE_HEADER_DIVIDER = "|:---------------------:|-------------:|\n";
     private static final String NEW_LINE = "\n";
     private static final String HEADER_COUNT = "Количество";
+    private static final double PERCENTILE_95 = 95.0;
 
     /**
      * Форматирует объект статистики в текстовый отчёт в формате Markdown.
      *
      * @param stats объект {@link Statistics}, содержащий данные для отчёта.
-     * @return строка отчёта в формате Markdown.
+     * @param out приёмник текста отчёта.
+     * @throws IOException если запись в приёмник завершилась ошибкой.
      */
     @Override
-    public String format(Statistics stats) {
-        StringBuilder report = new StringBuilder();
-        report.append("#### Общая информация").append(NEW_LINE).append(NEW_LINE)
+    public void format(Statistics stats, Appendable out) throws IOException {
+        out.append("#### Общая информация").append(NEW_LINE).append(NEW_LINE)
             .append("| Метрика").append(COLUMN_SEPARATOR).append("Значение").append(ROW_END)
             .append(TABLE_HEADER_DIVIDER)
             .append("| Файл(-ы)").append(COLUMN_SEPARATOR).append(stats.path()).append(ROW_END)
-            .append("| Начальная дата").append(COLUMN_SEPARATOR)
-            .append(stats.from() != null
-                ? stats.from().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME)
-                : "-")
+            .append("| Начальная дата").append(COLUMN_SEPARATOR).append(ReportValues.dateTime(stats.from()))
             .append(ROW_END)
-            .append("| Конечная дата").append(COLUMN_SEPARATOR)
-            .append(stats.to() != null
-                ? stats.to().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME)
-                : "-")
+            .append("| Конечная дата").append(COLUMN_SEPARATOR).append(ReportValues.dateTime(stats.to()))
             .append(ROW_END)
-            .append("| Количество запросов").append(COLUMN_SEPARATOR).append(stats.totalRequests()).append(ROW_END)
-            .append("| Средний размер ответа").append(COLUMN_SEPARATOR)
-            .append(String.format("%.2fb", stats.averageResponseSize()))
-            .append(ROW_END)
-            .append("| 95p размера ответа").append(COLUMN_SEPARATOR)
-            .append((int) stats.percentile95ResponseSize()).append("b").append(ROW_END)
-            .append("| Минимальный размер ответа").append(COLUMN_SEPARATOR)
-            .append(stats.minResponseSize()).append(ROW_END)
+            .append("| Количество запросов").append(COLUMN_SEPARATOR)
+            .append(String.valueOf(stats.totalRequests())).append(ROW_END)
+            .append("| Средний размер ответа").append(COLUMN_SEPARATOR);
+        ReportValues.appendSize(out, stats.averageResponseSize());
+        out.append(ROW_END);
+        if (stats.responseSizePercentiles().isEmpty()) {
+            appendPercentile(out, PERCENTILE_95, (int) stats.percentile95ResponseSize());
+        } else {
+            for (Map.Entry<Double, Integer> entry : stats.responseSizePercentiles().entrySet()) {
+                appendPercentile(out, entry.getKey(), entry.getValue());
+            }
+        }
+        out.append("| Минимальный размер ответа").append(COLUMN_SEPARATOR)
+            .append(String.valueOf(stats.minResponseSize())).append(ROW_END)
             .append("| Количество ответов размера 0b").append(COLUMN_SEPARATOR)
-            .append(stats.zeroResponseCount()).append(ROW_END)
+            .append(String.valueOf(stats.zeroResponseCount())).append(ROW_END)
             .append(NEW_LINE);
-        report.append("#### Запрашиваемые ресурсы").append(NEW_LINE).append(NEW_LINE)
+        out.append("#### Запрашиваемые ресурсы").append(NEW_LINE).append(NEW_LINE)
             .append("| Ресурс").append(COLUMN_SEPARATOR).append(HEADER_COUNT).append(ROW_END)
             .append(TABLE_HEADER_DIVIDER);
 
-        for (Map.Entry<String, Integer> entry : stats.resourceCounts().entrySet()) {
-            report.append("| `").append(entry.getKey()).append("`").append(COLUMN_SEPARATOR)
-                .append(entry.getValue()).append(ROW_END);
+        for (ResourceCount resource : stats.topResources()) {
+            out.append("| `").append(resource.resource()).append("`").append(COLUMN_SEPARATOR);
+            appendCount(out, resource);
+            out.append(ROW_END);
         }
-        report.append(NEW_LINE);
+        out.append(NEW_LINE);
 
-        report.append("#### Коды ответа").append(NEW_LINE).append(NEW_LINE)
+        out.append("#### Коды ответа").append(NEW_LINE).append(NEW_LINE)
             .append("| Код").append(COLUMN_SEPARATOR).append("Имя").append(COLUMN_SEPARATOR)
             .append(HEADER_COUNT).append(ROW_END)
             .append("|:---:|:---------------------:|-----------:|\n");
 
-        for (Map.Entry<Integer, Integer> entry : stats.statusCounts().entrySet()) {
-            report.append("| ").append(entry.getKey()).append(COLUMN_SEPARATOR)
+        for (Map.Entry<Integer, Long> entry : stats.statusCounts().entrySet()) {
+            out.append("| ").append(String.valueOf(entry.getKey())).append(COLUMN_SEPARATOR)
                 .append(HttpStatus.getDescriptionByCode(entry.getKey())).append(COLUMN_SEPARATOR)
-                .append(entry.getValue()).append(ROW_END);
+                .append(String.valueOf(entry.getValue())).append(ROW_END);
         }
+    }
 
+    private static void appendCount(Appendable out, ResourceCount resource) throws IOException {
+        out.append(String.valueOf(resource.count()));
+        if (resource.error() > 0) {
+            out.append(" (погрешность ≤ ").append(String.valueOf(resource.error())).append(")");
+        }
+    }
 
-        return report.toString();
+    private static void appendPercentile(Appendable out, double percentile, int value) throws IOException {
+        out.append("| ").append(ReportValues.percentile(percentile)).append("p размера ответа")
+            .append(COLUMN_SEPARATOR).append(String.valueOf(value)).append("b").append(ROW_END);
     }
 }
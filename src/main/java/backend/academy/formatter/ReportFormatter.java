@@ -1,17 +1,38 @@
 package backend.academy.formatter;
 
 import backend.academy.analyzer.Statistics;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 
 /**
  * Интерфейс для форматирования статистики в отчёты.
+ * Отчёт пишется по частям в приёмник {@link Appendable} (например, буферизованный {@link java.io.Writer}),
+ * поэтому целиком в памяти он не собирается.
  */
 public interface ReportFormatter {
 
+    /**
+     * Форматирует объект статистики в текстовый отчёт, записывая его в приёмник по частям.
+     *
+     * @param stats объект {@link Statistics}, содержащий данные для отчёта.
+     * @param out приёмник текста отчёта.
+     * @throws IOException если запись в приёмник завершилась ошибкой.
+     */
+    void format(Statistics stats, Appendable out) throws IOException;
+
     /**
      * Форматирует объект статистики в текстовый отчёт.
      *
      * @param stats объект {@link Statistics}, содержащий данные для отчёта.
      * @return строка отчёта в заданном формате.
      */
-    String format(Statistics stats);
+    default String format(Statistics stats) {
+        StringBuilder report = new StringBuilder();
+        try {
+            format(stats, report);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return report.toString();
+    }
 }
@@ -0,0 +1,46 @@
+package backend.academy.formatter;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.text.DecimalFormatSymbols;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import lombok.experimental.UtilityClass;
+
+/**
+ * Запись значений отчёта, общих для всех форматов, без создания {@link java.util.Formatter}.
+ */
+@UtilityClass
+class ReportValues {
+
+    private static final int SIZE_SCALE = 2;
+
+    /**
+     * Записывает размер с двумя знаками после запятой и суффиксом {@code b}, как {@code %.2fb}
+     * в {@link String#format(String, Object...)}: округление половины вверх и десятичный разделитель
+     * локали форматирования по умолчанию.
+     */
+    static void appendSize(Appendable out, double value) throws IOException {
+        if (Double.isFinite(value)) {
+            String plain = BigDecimal.valueOf(value).setScale(SIZE_SCALE, RoundingMode.HALF_UP).toPlainString();
+            char separator = DecimalFormatSymbols.getInstance(Locale.getDefault(Locale.Category.FORMAT))
+                .getDecimalSeparator();
+            out.append(plain.replace('.', separator)).append('b');
+        } else {
+            out.append(String.format("%.2fb", value));
+        }
+    }
+
+    /**
+     * Возвращает перцентиль без лишних нулей, например {@code 95} или {@code 99.9}.
+     */
+    static String percentile(double percentile) {
+        return BigDecimal.valueOf(percentile).stripTrailingZeros().toPlainString();
+    }
+
+    static String dateTime(LocalDateTime value) {
+        return value != null ? value.format(DateTimeFormatter.ISO_LOCAL_DATE_TIME) : "-";
+    }
+}
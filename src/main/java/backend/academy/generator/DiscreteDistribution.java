@@ -0,0 +1,62 @@
+package backend.academy.generator;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Дискретное распределение по номерам {@code 0..n-1}, заданное накопленными вероятностями.
+ * Выборка — двоичный поиск по массиву, без создания объектов.
+ */
+final class DiscreteDistribution {
+
+    private final double[] cumulative;
+
+    private DiscreteDistribution(double[] weights) {
+        cumulative = new double[weights.length];
+        double sum = 0;
+        for (int i = 0; i < weights.length; i++) {
+            sum += weights[i];
+            cumulative[i] = sum;
+        }
+        for (int i = 0; i < cumulative.length; i++) {
+            cumulative[i] /= sum;
+        }
+        cumulative[cumulative.length - 1] = 1;
+    }
+
+    /**
+     * Распределение по заданным весам.
+     *
+     * @param weights неотрицательные веса, хотя бы один положительный.
+     * @return распределение.
+     */
+    static DiscreteDistribution weighted(double... weights) {
+        return new DiscreteDistribution(weights);
+    }
+
+    /**
+     * Распределение Ципфа: вероятность номера {@code k} пропорциональна {@code 1 / (k + 1)^exponent}.
+     *
+     * @param size число значений.
+     * @param exponent показатель; при нуле распределение равномерное.
+     * @return распределение.
+     */
+    static DiscreteDistribution zipf(int size, double exponent) {
+        double[] weights = new double[size];
+        for (int i = 0; i < size; i++) {
+            weights[i] = Math.pow(i + 1, -exponent);
+        }
+        return new DiscreteDistribution(weights);
+    }
+
+    /**
+     * Выбирает номер.
+     *
+     * @param random источник случайных чисел.
+     * @return номер от 0 до {@code n - 1}.
+     */
+    int sample(SplittableRandom random) {
+        int index = Arrays.binarySearch(cumulative, random.nextDouble());
+        return index >= 0 ? index : -index - 1;
+    }
+}
@@ -0,0 +1,119 @@
+package backend.academy.generator;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.logging.Logger;
+import lombok.experimental.UtilityClass;
+
+/**
+ * Запуск генератора синтетических логов из командной строки.
+ *
+ * Пример: {@code --output access.log --size 10G --seed 7 --malformed 0.001 --skew 5}.
+ * Параметры, кроме {@code --output}, необязательны (значения по умолчанию — в {@link GeneratorSettings}):
+ * {@code --size} (байты, можно с суффиксом K, M или G), {@code --seed}, {@code --resources},
+ * {@code --resource-exponent}, {@code --clients}, {@code --client-exponent}, {@code --agents},
+ * {@code --agent-exponent}, {@code --statuses} (например {@code 200:90,404:8,500:2}), {@code --size-alpha},
+ * {@code --size-min}, {@code --size-max}, {@code --start} (дата или дата и время ISO8601 в UTC),
+ * {@code --rate} (запросов в секунду), {@code --skew} (секунды) и {@code --malformed} (доля от 0 до 1).
+ */
+@UtilityClass
+public class GeneratorMain {
+
+    private static final Logger LOGGER = Logger.getLogger(GeneratorMain.class.getName());
+    private static final PrintStream OUT = System.out;
+    private static final String ARG_OUTPUT = "output";
+    private static final double NANOS_PER_SECOND = 1e9;
+    private static final double BYTES_PER_MEGABYTE = 1_048_576.0;
+    private static final String UNITS = "KMG";
+    private static final int UNIT_SHIFT = 10;
+    private static final Map<String, BiConsumer<GeneratorSettings, String>> OPTIONS = Map.ofEntries(
+        Map.entry("size", (settings, value) -> settings.targetBytes(parseSize(value))),
+        Map.entry("seed", (settings, value) -> settings.seed(Long.parseLong(value))),
+        Map.entry("resources", (settings, value) -> settings.resources(Integer.parseInt(value))),
+        Map.entry("resource-exponent", (settings, value) -> settings.resourceExponent(Double.parseDouble(value))),
+        Map.entry("clients", (settings, value) -> settings.clients(Integer.parseInt(value))),
+        Map.entry("client-exponent", (settings, value) -> settings.clientExponent(Double.parseDouble(value))),
+        Map.entry("agents", (settings, value) -> settings.agents(Integer.parseInt(value))),
+        Map.entry("agent-exponent", (settings, value) -> settings.agentExponent(Double.parseDouble(value))),
+        Map.entry("statuses", (settings, value) -> settings.statusMix(GeneratorSettings.parseStatusMix(value))),
+        Map.entry("size-alpha", (settings, value) -> settings.sizeAlpha(Double.parseDouble(value))),
+        Map.entry("size-min", (settings, value) -> settings.sizeMin(Integer.parseInt(value))),
+        Map.entry("size-max", (settings, value) -> settings.sizeMax(Integer.parseInt(value))),
+        Map.entry("start", (settings, value) -> settings.start(parseStart(value))),
+        Map.entry("rate", (settings, value) -> settings.rate(Double.parseDouble(value))),
+        Map.entry("skew", (settings, value) -> settings.skewSeconds(Integer.parseInt(value))),
+        Map.entry("malformed", (settings, value) -> settings.malformedRatio(Double.parseDouble(value)))
+    );
+
+    /**
+     * Генерирует лог и печатает число строк, размер и скорость записи.
+     *
+     * @param args аргументы командной строки.
+     */
+    public static void main(String[] args) {
+        try {
+            GeneratorSettings settings = new GeneratorSettings();
+            Path output = null;
+            for (int i = 0; i < args.length; i += 2) {
+                String name = args[i].startsWith("--") ? args[i].substring(2) : args[i];
+                if (i + 1 >= args.length) {
+                    throw new IllegalArgumentException("Не задано значение параметра --" + name);
+                }
+                if (ARG_OUTPUT.equals(name)) {
+                    output = Path.of(args[i + 1]);
+                } else {
+                    apply(settings, name, args[i + 1]);
+                }
+            }
+            if (output == null) {
+                throw new IllegalArgumentException("Параметр --output обязателен.");
+            }
+            long started = System.nanoTime();
+            long lines = new LogGenerator(settings).write(output);
+            double seconds = (System.nanoTime() - started) / NANOS_PER_SECOND;
+            double megabytes = output.toFile().length() / BYTES_PER_MEGABYTE;
+            OUT.printf(Locale.ROOT, "%s: %d строк, %.1f МБ за %.1f с (%.1f МБ/с)%n",
+                output, lines, megabytes, seconds, megabytes / seconds);
+        } catch (IllegalArgumentException | IOException e) {
+            LOGGER.severe("Ошибка: " + e.getMessage());
+        }
+    }
+
+    private static void apply(GeneratorSettings settings, String name, String value) {
+        BiConsumer<GeneratorSettings, String> option = OPTIONS.get(name);
+        if (option == null) {
+            throw new IllegalArgumentException("Неизвестный параметр --" + name);
+        }
+        try {
+            option.accept(settings, value.trim());
+        } catch (NumberFormatException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Неверное значение параметра --" + name + ": " + value);
+        }
+    }
+
+    /**
+     * Разбирает размер в байтах с необязательным двоичным суффиксом: {@code 512K}, {@code 100M}, {@code 10G}.
+     */
+    private static long parseSize(String value) {
+        int unit = UNITS.indexOf(Character.toUpperCase(value.charAt(value.length() - 1)));
+        if (unit < 0) {
+            return Long.parseLong(value);
+        }
+        return Long.parseLong(value.substring(0, value.length() - 1)) << (UNIT_SHIFT * (unit + 1));
+    }
+
+    private static Instant parseStart(String value) {
+        return value.length() == "yyyy-MM-dd".length()
+            ? LocalDate.parse(value).atStartOfDay().toInstant(ZoneOffset.UTC)
+            : LocalDateTime.parse(value).toInstant(ZoneOffset.UTC);
+    }
+}
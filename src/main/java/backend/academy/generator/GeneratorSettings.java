@@ -0,0 +1,114 @@
+package backend.academy.generator;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Параметры генератора синтетических логов {@link LogGenerator}. Значения по умолчанию
+ * дают лог, похожий на лог небольшого интернет-магазина.
+ *
+ * Поля класса:
+ * - seed: Зерно генератора; одинаковые параметры дают побайтно одинаковый файл.
+ * - targetBytes: Размер файла; генерация останавливается на первой строке, достигшей размера.
+ * - resources, resourceExponent: Число ресурсов и показатель распределения Ципфа для их популярности.
+ * - clients, clientExponent: Число IP-адресов клиентов и показатель Ципфа для их активности.
+ * - agents, agentExponent: Число различных User-Agent и показатель Ципфа для их частоты.
+ * - statusMix: Веса кодов ответа.
+ * - sizeAlpha, sizeMin, sizeMax: Распределение Парето размеров успешных ответов
+ *   (показатель, минимум и ограничение сверху в байтах).
+ * - start, rate: Время первой записи и число запросов в секунду.
+ * - skewSeconds: Наибольшее отставание метки от порядка строк, как при записи лога по завершении запроса.
+ * - malformedRatio: Доля испорченных строк (обрезанных, с неверной датой, кодом ответа или мусором).
+ */
+@Getter
+@Setter
+public class GeneratorSettings {
+
+    private static final int DEFAULT_RESOURCES = 50_000;
+    private static final double DEFAULT_RESOURCE_EXPONENT = 1.1;
+    private static final int DEFAULT_CLIENTS = 100_000;
+    private static final double DEFAULT_CLIENT_EXPONENT = 0.8;
+    private static final int DEFAULT_AGENTS = 500;
+    private static final double DEFAULT_AGENT_EXPONENT = 1.2;
+    private static final double DEFAULT_SIZE_ALPHA = 1.2;
+    private static final int DEFAULT_SIZE_MIN = 200;
+    private static final int DEFAULT_SIZE_MAX = 50_000_000;
+    private static final double DEFAULT_RATE = 2_000;
+    private static final long DEFAULT_TARGET_BYTES = 104_857_600L;
+    private static final String DEFAULT_STATUS_MIX =
+        "200:78,206:1,301:2,302:3,304:6,400:1,403:1,404:5,499:1,500:1,502:0.5,503:0.5";
+    private static final int MIN_STATUS = 100;
+    private static final int MAX_STATUS = 999;
+    private static final Instant DEFAULT_START = Instant.parse("2024-01-01T00:00:00Z");
+
+    private long seed = 1;
+    private long targetBytes = DEFAULT_TARGET_BYTES;
+    private int resources = DEFAULT_RESOURCES;
+    private double resourceExponent = DEFAULT_RESOURCE_EXPONENT;
+    private int clients = DEFAULT_CLIENTS;
+    private double clientExponent = DEFAULT_CLIENT_EXPONENT;
+    private int agents = DEFAULT_AGENTS;
+    private double agentExponent = DEFAULT_AGENT_EXPONENT;
+    private Map<Integer, Double> statusMix = parseStatusMix(DEFAULT_STATUS_MIX);
+    private double sizeAlpha = DEFAULT_SIZE_ALPHA;
+    private int sizeMin = DEFAULT_SIZE_MIN;
+    private int sizeMax = DEFAULT_SIZE_MAX;
+    private Instant start = DEFAULT_START;
+    private double rate = DEFAULT_RATE;
+    private int skewSeconds;
+    private double malformedRatio;
+
+    /**
+     * Проверяет параметры.
+     *
+     * @throws IllegalArgumentException если параметр вне допустимого диапазона.
+     */
+    void validate() {
+        require(targetBytes > 0, "Размер файла должен быть положительным");
+        require(resources > 0 && clients > 0 && agents > 0,
+            "Числа ресурсов, клиентов и агентов должны быть положительными");
+        require(resourceExponent >= 0 && clientExponent >= 0 && agentExponent >= 0,
+            "Показатели распределения Ципфа не могут быть отрицательными");
+        require(!statusMix.isEmpty() && statusMix.values().stream().allMatch(weight -> weight >= 0)
+                && statusMix.values().stream().mapToDouble(Double::doubleValue).sum() > 0,
+            "Веса кодов ответа должны быть неотрицательными, и хотя бы один — положительным");
+        require(statusMix.keySet().stream().allMatch(code -> code >= MIN_STATUS && code <= MAX_STATUS),
+            "Код ответа должен состоять из трёх цифр");
+        require(sizeAlpha > 0 && sizeMin > 0 && sizeMax >= sizeMin, "Неверное распределение размеров ответа");
+        require(rate > 0, "Число запросов в секунду должно быть положительным");
+        require(skewSeconds >= 0, "Отставание меток не может быть отрицательным");
+        require(malformedRatio >= 0 && malformedRatio <= 1, "Доля испорченных строк должна быть от 0 до 1");
+    }
+
+    private static void require(boolean condition, String message) {
+        if (!condition) {
+            throw new IllegalArgumentException(message);
+        }
+    }
+
+    /**
+     * Разбирает веса кодов ответа вида {@code 200:80,404:15,500:5}.
+     *
+     * @param value список пар «код:вес» через запятую.
+     * @return веса кодов в порядке записи.
+     * @throws IllegalArgumentException если пара записана неверно.
+     */
+    public static Map<Integer, Double> parseStatusMix(String value) {
+        Map<Integer, Double> mix = new LinkedHashMap<>();
+        for (String pair : value.split(",")) {
+            String[] parts = pair.trim().split(":");
+            try {
+                if (parts.length != 2) {
+                    throw new NumberFormatException();
+                }
+                mix.put(Integer.parseInt(parts[0].trim()), Double.parseDouble(parts[1].trim()));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Неверный вес кода ответа, ожидается КОД:ВЕС: " + pair);
+            }
+        }
+        return mix;
+    }
+}
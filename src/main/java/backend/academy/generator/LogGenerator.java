@@ -0,0 +1,352 @@
+package backend.academy.generator;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+
+/**
+ * Генератор синтетического лога nginx в формате combined для нагрузочных проверок.
+ *
+ * Ресурсы, клиенты и User-Agent выбираются по распределению Ципфа, коды ответа — по весам,
+ * размеры успешных ответов — по распределению Парето (тяжёлый хвост). Метки идут с заданной
+ * частотой запросов и могут отставать от порядка строк на {@link GeneratorSettings#skewSeconds()}.
+ * Доля {@link GeneratorSettings#malformedRatio()} строк портится так, что их не разбирает
+ * ни быстрый путь, ни регулярное выражение.
+ *
+ * Результат определяется только параметрами: один и тот же {@link GeneratorSettings#seed()}
+ * даёт побайтно одинаковый файл. Строки собираются сразу в байтах в большом буфере,
+ * поэтому генератор пишет сотни мегабайт в секунду на одном ядре.
+ */
+public class LogGenerator {
+
+    private static final int BUFFER_SIZE = 4_194_304;
+    private static final int MAX_LINE_BYTES = 4_096;
+    private static final int SECONDS_PER_DAY = 86_400;
+    private static final int SECONDS_PER_HOUR = 3_600;
+    private static final int SECONDS_PER_MINUTE = 60;
+    private static final int DECIMAL_BASE = 10;
+    private static final int OCTETS = 4;
+    private static final int OCTET_RANGE = 254;
+    private static final int MONTH_OFFSET = 3;
+    private static final int MALFORMED_KINDS = 4;
+    private static final int RESOURCE_KINDS = 4;
+    private static final int HASH_MULTIPLIER = 40_503;
+    private static final int PRINTABLE_FIRST = 33;
+    private static final int PRINTABLE_COUNT = 94;
+    private static final int STATUS_NOT_MODIFIED = 304;
+    private static final int STATUS_NO_CONTENT = 204;
+    private static final int STATUS_REDIRECT = 300;
+    private static final int STATUS_CLIENT_ERROR = 400;
+    private static final int REDIRECT_MIN_SIZE = 150;
+    private static final int REDIRECT_SIZE_RANGE = 250;
+    private static final int ERROR_MIN_SIZE = 150;
+    private static final int ERROR_SIZE_RANGE = 1_500;
+    private static final double REFERER_SHARE = 0.4;
+    private static final int HEAD = 2;
+    private static final String[] METHOD_NAMES = {"GET", "POST", "HEAD", "PUT", "DELETE"};
+    private static final double[] METHOD_WEIGHTS = {88, 8, 2, 1, 1};
+    private static final String[] MONTHS =
+        {"Jan", "Feb", "Mar", "Apr", "May", "Jun", "Jul", "Aug", "Sep", "Oct", "Nov", "Dec"};
+    private static final List<String> TOP_RESOURCES =
+        List.of("/", "/index.html", "/favicon.ico", "/api/v1/health", "/robots.txt", "/static/css/main.css");
+    private static final String[] WORDS = {"phone", "laptop", "camera", "shoes", "jacket", "lamp", "chair",
+        "watch", "book", "kettle", "guitar", "bicycle", "tent", "printer", "speaker", "monitor"};
+    private static final String[] AGENT_TEMPLATES = {
+        "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/%d.0.%d.%d "
+            + "Safari/537.36",
+        "Mozilla/5.0 (Macintosh; Intel Mac OS X 10_15_%d) AppleWebKit/605.1.15 (KHTML, like Gecko) Version/%d.%d "
+            + "Safari/605.1.15",
+        "Mozilla/5.0 (X11; Linux x86_64; rv:%d.%d) Gecko/20100101 Firefox/%d.0",
+        "Mozilla/5.0 (iPhone; CPU iPhone OS %d_%d like Mac OS X) AppleWebKit/605.1.15 (KHTML, like Gecko) "
+            + "Mobile/15E%d",
+        "Mozilla/5.0 (Linux; Android %d; SM-G%d) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/%d.0 "
+            + "Mobile Safari/537.36",
+        "Mozilla/5.0 (compatible; bingbot/2.0; +http://www.bing.com/bingbot.htm) Chrome/%d.0.%d.%d Safari/537.36",
+        "curl/%d.%d.%d",
+        "python-requests/2.%d.%d (build %d)",
+    };
+    private static final int VERSION_RANGE = 130;
+    private static final int SUB_VERSION_RANGE = 20;
+    private static final byte[] IDENTITY = bytes(" - - [");
+    private static final byte[] ZONE = bytes(" +0000] \"");
+    private static final byte[] PROTOCOL = bytes(" HTTP/1.1\" ");
+    private static final byte[] NO_REFERER = bytes(" \"-\" \"");
+    private static final byte[] REFERER_START = bytes(" \"https://shop.example.com");
+    private static final byte[] REFERER_END = bytes("\" \"");
+    private static final byte[] BAD_MONTH = bytes("Xyz");
+    private static final byte[] BAD_STATUS = bytes("???");
+
+    private final GeneratorSettings settings;
+    private final byte[][] resources;
+    private final byte[][] clients;
+    private final byte[][] agents;
+    private final byte[][] methods;
+    private final int[] statusCodes;
+    private final DiscreteDistribution resourceDistribution;
+    private final DiscreteDistribution clientDistribution;
+    private final DiscreteDistribution agentDistribution;
+    private final DiscreteDistribution statusDistribution;
+    private final DiscreteDistribution methodDistribution;
+    private final SplittableRandom lineRandom;
+
+    /**
+     * Создаёт генератор и заранее готовит ресурсы, адреса клиентов и User-Agent.
+     *
+     * @param settings параметры генератора.
+     * @throws IllegalArgumentException если параметры неверны.
+     */
+    public LogGenerator(GeneratorSettings settings) {
+        settings.validate();
+        this.settings = settings;
+        SplittableRandom random = new SplittableRandom(settings.seed());
+        this.lineRandom = random.split();
+        this.resources = new byte[settings.resources()][];
+        for (int i = 0; i < resources.length; i++) {
+            resources[i] = bytes(resource(i, random));
+        }
+        this.clients = new byte[settings.clients()][];
+        for (int i = 0; i < clients.length; i++) {
+            StringBuilder address = new StringBuilder();
+            for (int octet = 0; octet < OCTETS; octet++) {
+                address.append(octet == 0 ? "" : ".").append(1 + random.nextInt(OCTET_RANGE));
+            }
+            clients[i] = bytes(address.toString());
+        }
+        this.agents = new byte[settings.agents()][];
+        for (int i = 0; i < agents.length; i++) {
+            agents[i] = bytes(String.format(Locale.ROOT, AGENT_TEMPLATES[i % AGENT_TEMPLATES.length],
+                random.nextInt(VERSION_RANGE), random.nextInt(SUB_VERSION_RANGE), random.nextInt(VERSION_RANGE)));
+        }
+        this.methods = new byte[METHOD_NAMES.length][];
+        for (int i = 0; i < methods.length; i++) {
+            methods[i] = bytes(METHOD_NAMES[i]);
+        }
+        // Коды сортируются, чтобы результат не зависел от порядка обхода переданной карты.
+        Map<Integer, Double> mix = new TreeMap<>(settings.statusMix());
+        this.statusCodes = mix.keySet().stream().mapToInt(Integer::intValue).toArray();
+        this.statusDistribution = DiscreteDistribution.weighted(
+            mix.values().stream().mapToDouble(Double::doubleValue).toArray());
+        this.resourceDistribution = DiscreteDistribution.zipf(resources.length, settings.resourceExponent());
+        this.clientDistribution = DiscreteDistribution.zipf(clients.length, settings.clientExponent());
+        this.agentDistribution = DiscreteDistribution.zipf(agents.length, settings.agentExponent());
+        this.methodDistribution = DiscreteDistribution.weighted(METHOD_WEIGHTS);
+    }
+
+    /**
+     * Записывает лог в файл, заменяя его содержимое.
+     *
+     * @param output путь к файлу.
+     * @return число записанных строк.
+     * @throws IOException если файл не удалось записать.
+     */
+    public long write(Path output) throws IOException {
+        try (FileChannel channel = FileChannel.open(output, StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            return write(channel);
+        }
+    }
+
+    /**
+     * Записывает лог в канал. Генератор можно использовать один раз: повторная запись продолжит
+     * последовательность случайных чисел и даст другой лог.
+     *
+     * @param channel канал для записи.
+     * @return число записанных строк.
+     * @throws IOException если канал не удалось записать.
+     */
+    public long write(WritableByteChannel channel) throws IOException {
+        LineBuffer buffer = new LineBuffer(channel);
+        long startSecond = settings.start().getEpochSecond();
+        long line = 0;
+        while (buffer.written() < settings.targetBytes()) {
+            long second = startSecond + (long) (line / settings.rate());
+            if (settings.skewSeconds() > 0) {
+                second = Math.max(startSecond, second - lineRandom.nextInt(settings.skewSeconds() + 1));
+            }
+            writeLine(buffer, second);
+            line++;
+        }
+        buffer.flush();
+        return line;
+    }
+
+    private void writeLine(LineBuffer buffer, long second) throws IOException {
+        buffer.reserve();
+        int lineStart = buffer.position();
+        buffer.put(clients[clientDistribution.sample(lineRandom)]).put(IDENTITY);
+        int timestamp = buffer.position();
+        buffer.timestamp(second).put(ZONE);
+        int method = methodDistribution.sample(lineRandom);
+        buffer.put(methods[method]).put((byte) ' ').put(resources[resourceDistribution.sample(lineRandom)])
+            .put(PROTOCOL);
+        int status = statusCodes[statusDistribution.sample(lineRandom)];
+        int statusPosition = buffer.position();
+        buffer.number(status).put((byte) ' ').number(responseSize(status, method));
+        if (lineRandom.nextDouble() < REFERER_SHARE) {
+            buffer.put(REFERER_START).put(resources[resourceDistribution.sample(lineRandom)]).put(REFERER_END);
+        } else {
+            buffer.put(NO_REFERER);
+        }
+        buffer.put(agents[agentDistribution.sample(lineRandom)]).put((byte) '"');
+        if (settings.malformedRatio() > 0 && lineRandom.nextDouble() < settings.malformedRatio()) {
+            buffer.corrupt(lineStart, timestamp, statusPosition, lineRandom);
+        }
+        buffer.put((byte) '\n');
+    }
+
+    private long responseSize(int status, int method) {
+        if (method == HEAD || status == STATUS_NO_CONTENT || status == STATUS_NOT_MODIFIED) {
+            return 0;
+        }
+        if (status >= STATUS_CLIENT_ERROR) {
+            return ERROR_MIN_SIZE + lineRandom.nextInt(ERROR_SIZE_RANGE);
+        }
+        if (status >= STATUS_REDIRECT) {
+            return REDIRECT_MIN_SIZE + lineRandom.nextInt(REDIRECT_SIZE_RANGE);
+        }
+        double size = settings.sizeMin() / Math.pow(1 - lineRandom.nextDouble(), 1 / settings.sizeAlpha());
+        return (long) Math.min(size, settings.sizeMax());
+    }
+
+    /**
+     * Путь ресурса по месту в рейтинге популярности: несколько типичных страниц,
+     * затем API, статика, карточки товаров, поиск и картинки.
+     */
+    private static String resource(int rank, SplittableRandom random) {
+        if (rank < TOP_RESOURCES.size()) {
+            return TOP_RESOURCES.get(rank);
+        }
+        String word = WORDS[random.nextInt(WORDS.length)];
+        return switch (rank % RESOURCE_KINDS) {
+            case 0 -> "/api/v1/items/" + rank;
+            case 1 -> "/static/js/chunk-" + Integer.toHexString(rank * HASH_MULTIPLIER) + ".js";
+            case 2 -> "/products/" + word + "-" + rank;
+            default -> "/search?q=" + word + "&page=" + (rank % DECIMAL_BASE + 1);
+        };
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Буфер строк в байтах, который сбрасывается в канал большими блоками.
+     */
+    private static final class LineBuffer {
+
+        private final WritableByteChannel channel;
+        private final byte[] data = new byte[BUFFER_SIZE];
+        private final byte[] day = new byte["dd/MMM/yyyy:".length()];
+        private int position;
+        private long flushed;
+        private long cachedDay = Long.MIN_VALUE;
+
+        LineBuffer(WritableByteChannel channel) {
+            this.channel = channel;
+        }
+
+        int position() {
+            return position;
+        }
+
+        long written() {
+            return flushed + position;
+        }
+
+        void reserve() throws IOException {
+            if (position > data.length - MAX_LINE_BYTES) {
+                flush();
+            }
+        }
+
+        void flush() throws IOException {
+            ByteBuffer buffer = ByteBuffer.wrap(data, 0, position);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            flushed += position;
+            position = 0;
+        }
+
+        LineBuffer put(byte value) {
+            data[position++] = value;
+            return this;
+        }
+
+        LineBuffer put(byte[] bytes) {
+            return put(bytes, 0, bytes.length);
+        }
+
+        LineBuffer put(byte[] bytes, int offset, int length) {
+            System.arraycopy(bytes, offset, data, position, length);
+            position += length;
+            return this;
+        }
+
+        LineBuffer number(long value) {
+            int digits = 1;
+            for (long rest = value / DECIMAL_BASE; rest > 0; rest /= DECIMAL_BASE) {
+                digits++;
+            }
+            long rest = value;
+            for (int i = position + digits - 1; i >= position; i--) {
+                data[i] = (byte) ('0' + rest % DECIMAL_BASE);
+                rest /= DECIMAL_BASE;
+            }
+            position += digits;
+            return this;
+        }
+
+        /**
+         * Пишет метку {@code dd/MMM/yyyy:HH:mm:ss}; часть с датой пересчитывается только при смене суток.
+         */
+        LineBuffer timestamp(long epochSecond) {
+            long epochDay = Math.floorDiv(epochSecond, SECONDS_PER_DAY);
+            if (epochDay != cachedDay) {
+                LocalDate date = LocalDate.ofEpochDay(epochDay);
+                byte[] text = bytes(String.format(Locale.ROOT, "%02d/%s/%04d:",
+                    date.getDayOfMonth(), MONTHS[date.getMonthValue() - 1], date.getYear()));
+                System.arraycopy(text, 0, day, 0, day.length);
+                cachedDay = epochDay;
+            }
+            put(day);
+            int secondOfDay = Math.floorMod(epochSecond, SECONDS_PER_DAY);
+            twoDigits(secondOfDay / SECONDS_PER_HOUR).put((byte) ':');
+            twoDigits(secondOfDay % SECONDS_PER_HOUR / SECONDS_PER_MINUTE).put((byte) ':');
+            return twoDigits(secondOfDay % SECONDS_PER_MINUTE);
+        }
+
+        private LineBuffer twoDigits(int value) {
+            data[position++] = (byte) ('0' + value / DECIMAL_BASE);
+            data[position++] = (byte) ('0' + value % DECIMAL_BASE);
+            return this;
+        }
+
+        /**
+         * Портит только что записанную строку: обрезает её, ломает месяц или код ответа
+         * или заменяет строку случайными печатными символами той же длины.
+         */
+        void corrupt(int lineStart, int timestamp, int status, SplittableRandom random) {
+            switch (random.nextInt(MALFORMED_KINDS)) {
+                case 0 -> position = lineStart + 1 + random.nextInt(position - lineStart - 1);
+                case 1 -> System.arraycopy(BAD_MONTH, 0, data, timestamp + MONTH_OFFSET, BAD_MONTH.length);
+                case 2 -> System.arraycopy(BAD_STATUS, 0, data, status, BAD_STATUS.length);
+                default -> {
+                    for (int i = lineStart; i < position; i++) {
+                        data[i] = (byte) (PRINTABLE_FIRST + random.nextInt(PRINTABLE_COUNT));
+                    }
+                }
+            }
+        }
+    }
+}
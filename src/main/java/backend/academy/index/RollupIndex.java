@@ -0,0 +1,444 @@
+package backend.academy.index;
+
+import backend.academy.analyzer.LogAnalyzer;
+import backend.academy.analyzer.RequestRollup;
+import backend.academy.parser.BadLines;
+import backend.academy.parser.LogFiles;
+import backend.academy.parser.LogFilter;
+import backend.academy.parser.LogParser;
+import backend.academy.parser.LogRecord;
+import backend.academy.parser.ParseContext;
+import backend.academy.parser.RecordBatch;
+import backend.academy.parser.RecordBatchSink;
+import backend.academy.parser.StringDictionary;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.logging.Logger;
+import java.util.stream.Collector;
+
+/**
+ * Индекс несжатого файла логов по минутам: для каждой минуты местного времени записи хранится
+ * сводка {@link RequestRollup} и диапазон смещений её строк в файле. Индекс сохраняется в двоичном
+ * файле рядом с логом ({@code access.log.rollup}) или в каталоге кэша. Сводки минут читаются
+ * с диска как есть и разбираются только для минут, попавших в запрос.
+ *
+ * Запрос с диапазоном дат складывает сводки минут, целиком попавших в диапазон, а строки
+ * неполных крайних минут разбирает заново по сохранённым смещениям, поэтому результат совпадает
+ * с полным разбором файла. Условия по полям строки в минутных сводках не учтены, поэтому индекс
+ * применим только к фильтру по датам (см. {@link #supports(List, LogFilter)}).
+ *
+ * Индекс привязан к размеру, времени изменения и контрольной сумме начала файла.
+ * Если файл только дописан, индексируются лишь новые полные строки; если он стал короче,
+ * изменён на месте или начинается иначе (ротация), индекс строится заново.
+ * Неполная последняя строка в индекс не попадает и при запросе разбирается отдельно.
+ * Строки, прочитанные при построении индекса, учитываются в {@link ParseContext#badLines()} один раз:
+ * повторный разбор тех же строк крайних минут в том же запуске их не отклоняет снова.
+ */
+public final class RollupIndex {
+
+    private static final Logger LOGGER = Logger.getLogger(RollupIndex.class.getName());
+    private static final int MAGIC = 0x4C524F4C;
+    private static final int VERSION = 1;
+    private static final int FINGERPRINT_BYTES = 4_096;
+    private static final int BUFFER_SIZE = 65_536;
+    private static final long SECONDS_PER_MINUTE = 60;
+    private static final String SUFFIX = ".rollup";
+    private static final String PATH_DIGEST = "SHA-256";
+
+    private final Path logPath;
+    private final Path indexPath;
+    private final StringDictionary resources = new StringDictionary();
+    private final TreeMap<Long, Minute> minutes = new TreeMap<>();
+    private long logSize;
+    private long logModified;
+    private long indexedBytes;
+    private int fingerprintLength;
+    private long fingerprint;
+    private long builtFrom;
+
+    private RollupIndex(Path logPath, Path indexPath) {
+        this.logPath = logPath;
+        this.indexPath = indexPath;
+    }
+
+    /**
+     * Проверяет, можно ли ответить на запрос по индексу: все источники — несжатые локальные файлы,
+     * а фильтр задаёт только диапазон дат.
+     *
+     * @param sources пути к файлам логов или URL.
+     * @param filter параметры фильтрации.
+     * @return {@code true}, если индекс применим.
+     * @throws IOException если сигнатуру файла не удалось прочитать.
+     */
+    public static boolean supports(List<String> sources, LogFilter filter) throws IOException {
+        if (filter.hasFieldConditions()) {
+            return false;
+        }
+        for (String source : sources) {
+            if (!LogParser.isPlainFile(source)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Собирает статистику по файлам через их индексы, создавая или дополняя индексы при необходимости.
+     *
+     * @param sources пути к несжатым файлам логов.
+     * @param filter параметры фильтрации (только диапазон дат).
+     * @param context общее состояние разбора; в нём учитываются и строки, разобранные при построении индекса.
+     * @param directory каталог для файлов индекса; {@code null} — рядом с логами.
+     * @param collector коллектор статистики.
+     * @param <R> тип итогового результата.
+     * @return результат коллектора.
+     * @throws IOException если файл лога или индекса не удалось прочитать или записать.
+     */
+    public static <R> R parse(
+        List<String> sources,
+        LogFilter filter,
+        ParseContext context,
+        Path directory,
+        Collector<LogRecord, LogAnalyzer, R> collector
+    ) throws IOException {
+        LogAnalyzer analyzer = collector.supplier().get();
+        for (String source : sources) {
+            Path logPath = Path.of(source);
+            open(logPath, indexPath(logPath, directory), context).collect(filter, context, analyzer);
+        }
+        return collector.finisher().apply(analyzer);
+    }
+
+    /**
+     * Возвращает путь к файлу индекса для лога. В общем каталоге имя файла индекса содержит SHA-256
+     * абсолютного пути лога, поэтому индексы одноимённых логов из разных каталогов не совпадают.
+     *
+     * @param logPath путь к файлу лога.
+     * @param directory каталог для файлов индекса; {@code null} — рядом с логом.
+     * @return путь к файлу индекса.
+     */
+    public static Path indexPath(Path logPath, Path directory) {
+        String name = logPath.getFileName() + SUFFIX;
+        if (directory == null) {
+            return logPath.resolveSibling(name);
+        }
+        byte[] absolute = logPath.toAbsolutePath().normalize().toString().getBytes(StandardCharsets.UTF_8);
+        try {
+            String key = HexFormat.of().formatHex(MessageDigest.getInstance(PATH_DIGEST).digest(absolute));
+            return directory.resolve(logPath.getFileName() + "-" + key + SUFFIX);
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 обязана поддерживать любая реализация Java.
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Открывает индекс лога: читает сохранённый индекс, если он соответствует файлу,
+     * дополняет его новыми строками или строит заново и сохраняет изменения.
+     *
+     * @param logPath путь к несжатому файлу лога.
+     * @param indexPath путь к файлу индекса.
+     * @param context общее состояние разбора, в котором учитываются строки, прочитанные для индекса.
+     * @return актуальный индекс.
+     * @throws IOException если файл лога не удалось прочитать или индекс не удалось записать.
+     */
+    public static RollupIndex open(Path logPath, Path indexPath, ParseContext context) throws IOException {
+        long size = Files.size(logPath);
+        long modified = Files.getLastModifiedTime(logPath).toMillis();
+        RollupIndex index = load(logPath, indexPath);
+        if (index == null || !index.isPrefixOf(size, modified)) {
+            index = new RollupIndex(logPath, indexPath);
+        }
+        index.builtFrom = index.indexedBytes;
+        if (index.logSize != size || index.logModified != modified) {
+            long before = index.indexedBytes;
+            index.extend(size, modified, context);
+            index.save();
+            RollupIndex built = index;
+            LOGGER.fine(() -> indexPath + ": проиндексированы байты " + before + "–"
+                + built.indexedBytes + ", минут: " + built.minutes.size());
+        }
+        return index;
+    }
+
+    /**
+     * Учитывает в анализаторе записи из диапазона дат фильтра.
+     *
+     * @param filter параметры фильтрации (только диапазон дат).
+     * @param context общее состояние разбора.
+     * @param analyzer анализатор, в который добавляются сводки и разобранные строки.
+     * @throws IOException если строки крайних минут не удалось прочитать.
+     */
+    public void collect(LogFilter filter, ParseContext context, LogAnalyzer analyzer) throws IOException {
+        long from = filter.fromLocalSecond();
+        long to = filter.toLocalSecond();
+        Map<Long, Minute> range = from > to ? Map.of() : minutes.subMap(
+            Math.floorDiv(from, SECONDS_PER_MINUTE), true, Math.floorDiv(to, SECONDS_PER_MINUTE), true);
+        for (Map.Entry<Long, Minute> entry : range.entrySet()) {
+            long start = entry.getKey() * SECONDS_PER_MINUTE;
+            long end = start + SECONDS_PER_MINUTE - 1;
+            Minute minute = entry.getValue();
+            if (start >= from && end <= to) {
+                analyzer.add(minute.rollup(), resources);
+            } else {
+                parseEdge(minute, edgeFilter(filter, start, end), context, analyzer);
+            }
+        }
+        long size = Files.size(logPath);
+        if (indexedBytes < size) {
+            LogParser.parseRange(logPath, indexedBytes, size, filter, context, analyzer);
+        }
+    }
+
+    /**
+     * Возвращает количество минут в индексе.
+     *
+     * @return количество минут, в которых есть хотя бы одна запись.
+     */
+    public int minuteCount() {
+        return minutes.size();
+    }
+
+    /**
+     * Возвращает количество проиндексированных байт с начала файла.
+     *
+     * @return смещение конца последней проиндексированной строки.
+     */
+    public long indexedBytes() {
+        return indexedBytes;
+    }
+
+    /**
+     * Разбирает строки неполной минуты. Строки с {@link #builtFrom} уже прочитаны в этом запуске
+     * при построении индекса, поэтому их отказы не передаются обработчику разбора второй раз.
+     */
+    private void parseEdge(Minute minute, LogFilter filter, ParseContext context, LogAnalyzer analyzer)
+        throws IOException {
+        long start = minute.firstLineOffset;
+        long end = minute.lastLineOffset + 1;
+        long split = Math.clamp(builtFrom, start, end);
+        if (start < split) {
+            LogParser.parseRange(logPath, start, split, filter, context, analyzer);
+        }
+        if (split < end) {
+            ParseContext reread = new ParseContext()
+                .metrics(context.metrics())
+                .pipeline(context.pipeline())
+                .badLines(new BadLines().logFirst(0).logEvery(0));
+            LogParser.parseRange(logPath, split, end, filter, reread, analyzer);
+        }
+    }
+
+    /**
+     * Фильтр для неполной минуты: пересечение диапазона запроса с минутой.
+     */
+    private static LogFilter edgeFilter(LogFilter filter, long minuteStart, long minuteEnd) {
+        LocalDateTime start = LocalDateTime.ofEpochSecond(minuteStart, 0, ZoneOffset.UTC);
+        LocalDateTime end = LocalDateTime.ofEpochSecond(minuteEnd, 0, ZoneOffset.UTC);
+        LocalDateTime from = filter.from() != null && filter.from().isAfter(start) ? filter.from() : start;
+        LocalDateTime to = filter.to() != null && filter.to().isBefore(end) ? filter.to() : end;
+        return new LogFilter(from, to, null, null);
+    }
+
+    /**
+     * Проверяет, что индекс построен по началу текущего файла и его можно дополнить.
+     */
+    private boolean isPrefixOf(long size, long modified) throws IOException {
+        if (size < logSize || size == logSize && modified != logModified) {
+            return false;
+        }
+        return LogFiles.prefixChecksum(logPath, fingerprintLength) == fingerprint;
+    }
+
+    /**
+     * Индексирует полные строки от {@link #indexedBytes} до последнего перевода строки файла.
+     */
+    private void extend(long size, long modified, ParseContext context) throws IOException {
+        long end = LogFiles.completeLinesEnd(logPath, indexedBytes);
+        if (end > indexedBytes) {
+            LogParser.parseRange(logPath, indexedBytes, end, new LogFilter(null, null, null, null), context,
+                new Builder());
+            indexedBytes = end;
+        }
+        logSize = size;
+        logModified = modified;
+        fingerprintLength = (int) Math.min(FINGERPRINT_BYTES, size);
+        fingerprint = LogFiles.prefixChecksum(logPath, fingerprintLength);
+    }
+
+    private void save() throws IOException {
+        Path parent = indexPath.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temporary = Files.createTempFile(parent, indexPath.getFileName().toString(), ".tmp");
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(
+            Files.newOutputStream(temporary), BUFFER_SIZE))) {
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            output.writeLong(logSize);
+            output.writeLong(logModified);
+            output.writeLong(indexedBytes);
+            output.writeInt(fingerprintLength);
+            output.writeLong(fingerprint);
+            output.writeInt(resources.size());
+            for (int id = 0; id < resources.size(); id++) {
+                byte[] resource = resources.get(id).getBytes(StandardCharsets.UTF_8);
+                output.writeInt(resource.length);
+                output.write(resource);
+            }
+            output.writeInt(minutes.size());
+            for (Map.Entry<Long, Minute> entry : minutes.entrySet()) {
+                output.writeLong(entry.getKey());
+                output.writeLong(entry.getValue().firstLineOffset);
+                output.writeLong(entry.getValue().lastLineOffset);
+                entry.getValue().writeTo(output);
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+        Files.move(temporary, indexPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Читает сохранённый индекс; возвращает {@code null}, если файла нет или он повреждён.
+     */
+    private static RollupIndex load(Path logPath, Path indexPath) {
+        if (!Files.isRegularFile(indexPath)) {
+            return null;
+        }
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(
+            Files.newInputStream(indexPath), BUFFER_SIZE))) {
+            if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+                return null;
+            }
+            RollupIndex index = new RollupIndex(logPath, indexPath);
+            index.logSize = input.readLong();
+            index.logModified = input.readLong();
+            index.indexedBytes = input.readLong();
+            index.fingerprintLength = input.readInt();
+            index.fingerprint = input.readLong();
+            int resourceCount = input.readInt();
+            for (int id = 0; id < resourceCount; id++) {
+                byte[] resource = new byte[input.readInt()];
+                input.readFully(resource);
+                index.resources.intern(new String(resource, StandardCharsets.UTF_8));
+            }
+            int minuteCount = input.readInt();
+            for (int i = 0; i < minuteCount; i++) {
+                Minute minute = new Minute();
+                long key = input.readLong();
+                minute.firstLineOffset = input.readLong();
+                minute.lastLineOffset = input.readLong();
+                minute.encoded = new byte[input.readInt()];
+                input.readFully(minute.encoded);
+                index.minutes.put(key, minute);
+            }
+            return index;
+        } catch (IOException e) {
+            LOGGER.warning("Индекс " + indexPath + " не прочитан и будет построен заново (" + e.getMessage() + ")");
+            return null;
+        }
+    }
+
+    /**
+     * Сводка за одну минуту и диапазон смещений её строк. Сводка из файла хранится в двоичном виде
+     * и разбирается только при первом обращении, поэтому открытие индекса не зависит от числа ресурсов.
+     */
+    private static final class Minute {
+
+        private RequestRollup rollup;
+        private byte[] encoded;
+        private long firstLineOffset = Long.MAX_VALUE;
+        private long lastLineOffset = -1;
+
+        private RequestRollup rollup() {
+            if (rollup == null) {
+                try {
+                    rollup = encoded == null
+                        ? new RequestRollup()
+                        : RequestRollup.readFrom(new DataInputStream(new ByteArrayInputStream(encoded)));
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Повреждена сводка минуты в индексе", e);
+                }
+                encoded = null;
+            }
+            return rollup;
+        }
+
+        private void writeTo(DataOutputStream output) throws IOException {
+            if (encoded == null) {
+                ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+                rollup().writeTo(new DataOutputStream(buffer));
+                encoded = buffer.toByteArray();
+            }
+            output.writeInt(encoded.length);
+            output.write(encoded);
+        }
+    }
+
+    /**
+     * Раскладывает строки блоков по минутам. Номера ресурсов из словаря читателя
+     * переводятся в номера словаря индекса через таблицу.
+     */
+    private final class Builder implements RecordBatchSink {
+
+        private StringDictionary remapSource;
+        private int[] remap = new int[0];
+        private long currentKey = Long.MIN_VALUE;
+        private Minute current;
+
+        @Override
+        public void accept(RecordBatch batch) {
+            long[] epochSeconds = batch.epochSeconds();
+            int[] offsetSeconds = batch.offsetSeconds();
+            int[] resourceIds = batch.resourceIds();
+            short[] statusCodes = batch.statusCodes();
+            int[] responseSizes = batch.responseSizes();
+            long[] lineOffsets = batch.lineOffsets();
+            StringDictionary source = batch.dictionaries().resources();
+            for (int i = 0; i < batch.size(); i++) {
+                long key = Math.floorDiv(epochSeconds[i] + offsetSeconds[i], SECONDS_PER_MINUTE);
+                if (current == null || key != currentKey) {
+                    current = minutes.computeIfAbsent(key, ignored -> new Minute());
+                    currentKey = key;
+                }
+                current.rollup().add(resourceId(source, resourceIds[i]), statusCodes[i], responseSizes[i]);
+                current.firstLineOffset = Math.min(current.firstLineOffset, lineOffsets[i]);
+                current.lastLineOffset = Math.max(current.lastLineOffset, lineOffsets[i]);
+            }
+        }
+
+        private int resourceId(StringDictionary source, int sourceId) {
+            if (source != remapSource) {
+                remapSource = source;
+                remap = new int[source.size()];
+            }
+            if (sourceId >= remap.length) {
+                remap = Arrays.copyOf(remap, Math.max(sourceId + 1, remap.length * 2));
+            }
+            if (remap[sourceId] == 0) {
+                remap[sourceId] = resources.intern(source.get(sourceId)) + 1;
+            }
+            return remap[sourceId] - 1;
+        }
+    }
+}
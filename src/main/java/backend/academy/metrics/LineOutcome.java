@@ -0,0 +1,46 @@
+package backend.academy.metrics;
+
+/**
+ * Итог разбора одной строки лога: строка либо принята, либо отфильтрована, либо отклонена.
+ */
+public enum LineOutcome {
+    MATCHED("принято"),
+    FILTERED_BY_DATE("вне диапазона дат"),
+    FILTERED_BY_FIELDS("не прошло фильтр по полям"),
+    MALFORMED("не соответствует формату"),
+    BAD_TIMESTAMP("неверная временная метка"),
+    BAD_VALUE("неверное значение поля");
+
+    private final String label;
+
+    LineOutcome(String label) {
+        this.label = label;
+    }
+
+    /**
+     * Название итога для сводки.
+     *
+     * @return название на русском языке.
+     */
+    public String label() {
+        return label;
+    }
+
+    /**
+     * Проверяет, что строка разобрана, но не прошла фильтр.
+     *
+     * @return {@code true} для отфильтрованных строк.
+     */
+    public boolean filtered() {
+        return this == FILTERED_BY_DATE || this == FILTERED_BY_FIELDS;
+    }
+
+    /**
+     * Проверяет, что строку не удалось разобрать.
+     *
+     * @return {@code true} для отклонённых строк.
+     */
+    public boolean rejected() {
+        return this != MATCHED && !filtered();
+    }
+}
@@ -0,0 +1,43 @@
+package backend.academy.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Событие JFR о разборе одного блока строк: буфера потока или куска файла.
+ * Длительность события — время разбора блока, без ожидания данных.
+ */
+@Name("backend.academy.ParseBlock")
+@Label("Разбор блока строк")
+@Category({"Анализатор логов", "Разбор"})
+@Description("Строки одного буфера потока или куска файла и итоги их разбора")
+@StackTrace(false)
+class ParseBlockEvent extends Event {
+
+    @Label("Байты")
+    @DataAmount
+    long bytes;
+
+    @Label("Строки")
+    long lines;
+
+    @Label("Принято")
+    long matched;
+
+    @Label("Отфильтровано")
+    long filtered;
+
+    @Label("Отклонено")
+    long rejected;
+
+    @Label("Ожидание данных")
+    @Description("Время чтения из потока перед разбором блока")
+    @Timespan
+    long readTime;
+}
@@ -0,0 +1,243 @@
+package backend.academy.metrics;
+
+import java.util.Locale;
+import java.util.function.ToLongFunction;
+
+/**
+ * Метрики одного запуска: прочитанные байты и строки, итоги разбора строк
+ * и время, процессорное время и выделенная память по этапам ({@link Stage}).
+ *
+ * Потоки обработки копят значения в своих {@link StageRecorder} и передают их сюда блоками,
+ * поэтому синхронизация происходит раз на блок, а не на строку. Время этапов суммируется
+ * по потокам и в параллельном режиме может превышать время запуска. Время строк замеряется
+ * целиком, а его деление между этапами строки оценивается по выборке строк (см. {@link StageRecorder}).
+ *
+ * Кроме сводки ({@link #summary()}), метрики записываются в JFR, если идёт запись:
+ * события {@code backend.academy.ParseBlock} и {@code backend.academy.Stage} — по ходу работы,
+ * {@code backend.academy.StageSummary} и {@code backend.academy.RunSummary} — в {@link #finish()}.
+ */
+public final class PipelineMetrics {
+
+    private static final double NANOS_PER_MILLI = 1e6;
+    private static final double BYTES_PER_MEGABYTE = 1_048_576.0;
+    private static final String COUNT_FORMAT = "%s: %d";
+    private static final String ROW_FORMAT = "  %-10s %12s %12s %14s%n";
+    private static final String NUMBER_FORMAT = "%.1f";
+
+    private final long[] outcomes = new long[LineOutcome.values().length];
+    private final StageTimes exact = new StageTimes();
+    private final StageTimes wallSamples = new StageTimes();
+    private final StageTimes allocationSamples = new StageTimes();
+    private final long started = System.nanoTime();
+    private final RunSummaryEvent runEvent = new RunSummaryEvent();
+    private long bytes;
+    private long lineWallNanos;
+    private long lineCpuNanos;
+    private long lineAllocatedBytes;
+    private long overheadWallNanos;
+    private long overheadLaps;
+    private long elapsedNanos = -1;
+
+    /**
+     * Создаёт пустые метрики; время запуска отсчитывается с этого момента.
+     */
+    public PipelineMetrics() {
+        runEvent.begin();
+    }
+
+    /**
+     * Проверяет, идёт ли запись JFR с событиями анализатора. Тогда метрики стоит собирать,
+     * даже если сводка не нужна.
+     *
+     * @return {@code true}, если события анализатора записываются.
+     */
+    public static boolean recording() {
+        return new ParseBlockEvent().isEnabled();
+    }
+
+    synchronized void add(StageRecorder recorder) {
+        for (LineOutcome outcome : LineOutcome.values()) {
+            outcomes[outcome.ordinal()] += recorder.lines(outcome);
+        }
+        recorder.exact().addTo(exact);
+        recorder.wallSamples().addTo(wallSamples);
+        recorder.allocationSamples().addTo(allocationSamples);
+        bytes += recorder.bytes();
+        lineWallNanos += recorder.lineWallNanos();
+        lineCpuNanos += recorder.lineCpuNanos();
+        lineAllocatedBytes += recorder.lineAllocatedBytes();
+        overheadWallNanos += recorder.overheadWallNanos();
+        overheadLaps += recorder.overheadLaps();
+    }
+
+    /**
+     * Число прочитанных байт строк вместе с переводами строк.
+     *
+     * @return число байт.
+     */
+    public synchronized long bytes() {
+        return bytes;
+    }
+
+    /**
+     * Число прочитанных строк.
+     *
+     * @return число строк.
+     */
+    public synchronized long lines() {
+        long total = 0;
+        for (long count : outcomes) {
+            total += count;
+        }
+        return total;
+    }
+
+    /**
+     * Число строк с заданным итогом разбора.
+     *
+     * @param outcome итог.
+     * @return число строк.
+     */
+    public synchronized long lines(LineOutcome outcome) {
+        return outcomes[outcome.ordinal()];
+    }
+
+    /**
+     * Время этапа по часам, суммарно по потокам.
+     *
+     * @param stage этап.
+     * @return время в наносекундах.
+     */
+    public synchronized long wallNanos(Stage stage) {
+        return exact.wallNanos(stage) + share(stage, lineWallNanos, this::sampledWallNanos);
+    }
+
+    /**
+     * Процессорное время этапа, суммарно по потокам.
+     *
+     * @param stage этап.
+     * @return время в наносекундах.
+     */
+    public synchronized long cpuNanos(Stage stage) {
+        return exact.cpuNanos(stage) + share(stage, lineCpuNanos, this::sampledWallNanos);
+    }
+
+    /**
+     * Память, выделенная на этапе, суммарно по потокам.
+     *
+     * @param stage этап.
+     * @return число байт.
+     */
+    public synchronized long allocatedBytes(Stage stage) {
+        return exact.allocatedBytes(stage) + share(stage, lineAllocatedBytes, this::sampledAllocatedBytes);
+    }
+
+    /**
+     * Завершает запуск: запоминает его время и записывает итоговые события JFR.
+     * Повторные вызовы ничего не делают.
+     */
+    public synchronized void finish() {
+        if (elapsedNanos >= 0) {
+            return;
+        }
+        elapsedNanos = System.nanoTime() - started;
+        runEvent.end();
+        if (runEvent.shouldCommit()) {
+            runEvent.bytes = bytes;
+            runEvent.lines = lines();
+            runEvent.matched = lines(LineOutcome.MATCHED);
+            runEvent.filteredByDate = lines(LineOutcome.FILTERED_BY_DATE);
+            runEvent.filteredByFields = lines(LineOutcome.FILTERED_BY_FIELDS);
+            runEvent.malformed = lines(LineOutcome.MALFORMED);
+            runEvent.badTimestamp = lines(LineOutcome.BAD_TIMESTAMP);
+            runEvent.badValue = lines(LineOutcome.BAD_VALUE);
+            runEvent.commit();
+        }
+        for (Stage stage : Stage.values()) {
+            StageSummaryEvent event = new StageSummaryEvent();
+            if (event.shouldCommit()) {
+                event.stage = stage.label();
+                event.wallTime = wallNanos(stage);
+                event.cpuTime = cpuNanos(stage);
+                event.allocated = allocatedBytes(stage);
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Сводка для вывода пользователю: объём, итоги строк и таблица этапов.
+     *
+     * @return многострочный текст.
+     */
+    public synchronized String summary() {
+        long elapsed = elapsedNanos >= 0 ? elapsedNanos : System.nanoTime() - started;
+        StringBuilder text = new StringBuilder();
+        text.append(String.format(Locale.ROOT, "Метрики обработки (%s мс):%n", millis(elapsed)))
+            .append(String.format(Locale.ROOT, "  Прочитано: %s МБ, %d строк%n", megabytes(bytes), lines()))
+            .append(String.format(Locale.ROOT, "  Принято: %d%n", lines(LineOutcome.MATCHED)))
+            .append(group("Отфильтровано", true))
+            .append(group("Отклонено", false))
+            .append(String.format(Locale.ROOT, ROW_FORMAT, "Этап", "Время, мс", "ЦП, мс", "Выделено, МБ"));
+        for (Stage stage : Stage.values()) {
+            text.append(String.format(Locale.ROOT, ROW_FORMAT, stage.label(), millis(wallNanos(stage)),
+                millis(cpuNanos(stage)), megabytes(allocatedBytes(stage))));
+        }
+        text.append(String.format(Locale.ROOT,
+            "  Время этапов суммировано по потокам; доли разбора, фильтра и агрегации записей%n"
+                + "  оценены по каждой %d-й строке.%n",
+            StageRecorder.SAMPLE_INTERVAL));
+        return text.toString();
+    }
+
+    /**
+     * Строка сводки с общим числом отфильтрованных или отклонённых строк и разбивкой по причинам.
+     */
+    private String group(String name, boolean filtered) {
+        long total = 0;
+        StringBuilder reasons = new StringBuilder();
+        for (LineOutcome outcome : LineOutcome.values()) {
+            if (outcome != LineOutcome.MATCHED && outcome.filtered() == filtered) {
+                total += lines(outcome);
+                reasons.append(reasons.isEmpty() ? "" : ", ")
+                    .append(String.format(Locale.ROOT, COUNT_FORMAT, outcome.label(), lines(outcome)));
+            }
+        }
+        return String.format(Locale.ROOT, "  %s: %d (%s)%n", name, total, reasons);
+    }
+
+    /**
+     * Доля замера строк, приходящаяся на этап, — пропорционально выборке.
+     * Если в выборку не попало ни одной строки, всё относится к разбору.
+     */
+    private long share(Stage stage, long lineTotal, ToLongFunction<Stage> sample) {
+        long sampledTotal = 0;
+        for (Stage lineStage : Stage.values()) {
+            sampledTotal += sample.applyAsLong(lineStage);
+        }
+        if (sampledTotal <= 0) {
+            return stage == Stage.PARSE ? lineTotal : 0;
+        }
+        return Math.round((double) lineTotal * sample.applyAsLong(stage) / sampledTotal);
+    }
+
+    /**
+     * Время этапа по выборке строк за вычетом цены чтения часов.
+     */
+    private long sampledWallNanos(Stage stage) {
+        long overhead = overheadLaps == 0 ? 0 : wallSamples.laps(stage) * overheadWallNanos / overheadLaps;
+        return Math.max(0, wallSamples.wallNanos(stage) - overhead);
+    }
+
+    private long sampledAllocatedBytes(Stage stage) {
+        return allocationSamples.allocatedBytes(stage);
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, NUMBER_FORMAT, nanos / NANOS_PER_MILLI);
+    }
+
+    private static String megabytes(long value) {
+        return String.format(Locale.ROOT, NUMBER_FORMAT, value / BYTES_PER_MEGABYTE);
+    }
+}
@@ -0,0 +1,43 @@
+package backend.academy.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Событие JFR с итогами запуска; длительность события — весь запуск.
+ */
+@Name("backend.academy.RunSummary")
+@Label("Итоги обработки")
+@Category({"Анализатор логов", "Итоги"})
+@StackTrace(false)
+class RunSummaryEvent extends Event {
+
+    @Label("Байты")
+    @DataAmount
+    long bytes;
+
+    @Label("Строки")
+    long lines;
+
+    @Label("Принято")
+    long matched;
+
+    @Label("Вне диапазона дат")
+    long filteredByDate;
+
+    @Label("Не прошло фильтр по полям")
+    long filteredByFields;
+
+    @Label("Не соответствует формату")
+    long malformed;
+
+    @Label("Неверная временная метка")
+    long badTimestamp;
+
+    @Label("Неверное значение поля")
+    long badValue;
+}
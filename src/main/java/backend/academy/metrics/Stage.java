@@ -0,0 +1,32 @@
+package backend.academy.metrics;
+
+/**
+ * Этапы обработки, для которых {@link PipelineMetrics} считает время и выделенную память.
+ *
+ * Чтение — ожидание данных из потока (файл, распаковка, сеть); у файлов, отображённых в память,
+ * чтение происходит при первом обращении к странице и входит в разбор. Разбор — токенизатор,
+ * запасное регулярное выражение, временная метка и сборка записи. Фильтр — диапазон дат
+ * и условия по полям. Агрегация — передача записей и блоков анализатору. Отчёт — форматирование.
+ */
+public enum Stage {
+    READ("чтение"),
+    PARSE("разбор"),
+    FILTER("фильтр"),
+    AGGREGATE("агрегация"),
+    REPORT("отчёт");
+
+    private final String label;
+
+    Stage(String label) {
+        this.label = label;
+    }
+
+    /**
+     * Название этапа для сводки.
+     *
+     * @return название на русском языке.
+     */
+    public String label() {
+        return label;
+    }
+}
@@ -0,0 +1,21 @@
+package backend.academy.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Событие JFR об этапе, время которого замеряется целиком: чтении из потока,
+ * передаче блока анализатору или форматировании отчёта.
+ */
+@Name("backend.academy.Stage")
+@Label("Этап обработки")
+@Category({"Анализатор логов", "Этапы"})
+@StackTrace(false)
+class StageEvent extends Event {
+
+    @Label("Этап")
+    String stage;
+}
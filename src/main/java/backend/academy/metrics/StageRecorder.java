@@ -0,0 +1,310 @@
+package backend.academy.metrics;
+
+import com.sun.management.ThreadMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+
+/**
+ * Счётчики и таймеры одного потока обработки. Читатель строк создаёт свой экземпляр,
+ * отмечает итог каждой строки и начало и конец этапов, а в конце блока передаёт накопленное
+ * в общие {@link PipelineMetrics}.
+ *
+ * Итоги строк считаются всегда: это одно увеличение элемента массива. Время и выделенная память
+ * замеряются, только если метрики включены. Чтение из потока, передача блоков анализатору и отчёт
+ * замеряются целиком, а строки блока — одним замером на блок. Как этот замер делится между этапами
+ * строки (разбор, фильтр, передача записи), оценивается по каждой {@value #SAMPLE_INTERVAL}-й строке:
+ * строки выборки по очереди замеряются по часам и по счётчику выделенной памяти, по одному показателю
+ * за раз, чтобы сам замер стоил меньше этапа. Процессорное время делится в той же пропорции, что время
+ * по часам: его чтение стоит сотни наносекунд — дольше разбора строки. Цена чтения часов измеряется
+ * пустым замером в начале каждой строки выборки и вычитается из замеров этапов.
+ * Первая строка читателя в выборку не попадает, чтобы разовые затраты прогрева
+ * (загрузка классов, первый разбор) не искажали доли этапов.
+ * В виртуальных потоках процессорное время и выделенная память недоступны и не учитываются.
+ *
+ * Экземпляр не потокобезопасен.
+ */
+public final class StageRecorder {
+
+    /**
+     * Замеряется одна строка из стольких; степень двойки.
+     */
+    public static final int SAMPLE_INTERVAL = 256;
+
+    private static final int SAMPLE_MASK = SAMPLE_INTERVAL - 1;
+    private static final ThreadMXBean THREADS = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private static final boolean CPU_TIME = THREADS.isCurrentThreadCpuTimeSupported();
+    private static final boolean ALLOCATION = THREADS.isThreadAllocatedMemorySupported();
+
+    private final PipelineMetrics metrics;
+    private final long[] outcomes = new long[LineOutcome.values().length];
+    private final StageTimes exact = new StageTimes();
+    private final StageTimes wallSamples = new StageTimes();
+    private final StageTimes allocationSamples = new StageTimes();
+    private long bytes;
+    private long lineWallNanos;
+    private long lineCpuNanos;
+    private long lineAllocatedBytes;
+    private long overheadWallNanos;
+    private long overheadLaps;
+    private long lineNumber;
+    private LineOutcome last = LineOutcome.MATCHED;
+    private boolean timing;
+    private boolean countingAllocation;
+    private long lapMark;
+    private long wallMark;
+    private long cpuMark;
+    private long allocationMark;
+    private long blockWallMark;
+    private long blockCpuMark;
+    private long blockAllocationMark;
+    private long exactWallMark;
+    private long exactCpuMark;
+    private long exactAllocationMark;
+    private StageEvent stageEvent;
+    private ParseBlockEvent blockEvent;
+
+    /**
+     * Создаёт счётчики потока.
+     *
+     * @param metrics общие метрики или {@code null}, если метрики выключены и нужны только итоги строк.
+     */
+    public StageRecorder(PipelineMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Отмечает итог разбора строки.
+     *
+     * @param outcome итог.
+     */
+    public void count(LineOutcome outcome) {
+        outcomes[outcome.ordinal()]++;
+        last = outcome;
+    }
+
+    /**
+     * Итог последней отмеченной строки.
+     *
+     * @return итог.
+     */
+    public LineOutcome last() {
+        return last;
+    }
+
+    /**
+     * Начинает строку; если метрики включены и строка попала в выборку, запоминает начало
+     * её первого этапа, а у строк, замеряемых по часам, — ещё и цену чтения часов.
+     */
+    public void beginLine() {
+        timing = metrics != null && (++lineNumber & SAMPLE_MASK) == 0;
+        if (timing) {
+            countingAllocation = (lineNumber & SAMPLE_INTERVAL) != 0;
+            lapMark = lapClock();
+            if (!countingAllocation) {
+                long now = lapClock();
+                overheadWallNanos += now - lapMark;
+                overheadLaps++;
+                lapMark = now;
+            }
+        }
+    }
+
+    /**
+     * Завершает этап строки, начавшийся с предыдущей отметки; вне выборки ничего не делает.
+     *
+     * @param stage этап.
+     */
+    public void lap(Stage stage) {
+        if (timing) {
+            long now = lapClock();
+            if (countingAllocation) {
+                allocationSamples.add(stage, 0, 0, now - lapMark);
+            } else {
+                wallSamples.add(stage, now - lapMark, 0, 0);
+            }
+            lapMark = now;
+        }
+    }
+
+    /**
+     * Начинает замер этапа, время которого учитывается целиком.
+     */
+    public void start() {
+        if (metrics != null) {
+            timing = false;
+            stageEvent = new StageEvent();
+            stageEvent.begin();
+            mark();
+        }
+    }
+
+    /**
+     * Завершает замер, начатый {@link #start()}.
+     *
+     * @param stage этап.
+     */
+    public void stop(Stage stage) {
+        if (metrics != null) {
+            measure(stage);
+            stageEvent.end();
+            if (stageEvent.shouldCommit()) {
+                stageEvent.stage = stage.label();
+                stageEvent.commit();
+            }
+        }
+    }
+
+    /**
+     * Начинает блок строк.
+     */
+    public void beginBlock() {
+        if (metrics != null) {
+            blockEvent = new ParseBlockEvent();
+            blockEvent.begin();
+            blockWallMark = System.nanoTime();
+            blockCpuMark = cpuTime();
+            blockAllocationMark = allocatedBytes();
+            exactWallMark = exact.totalWallNanos();
+            exactCpuMark = exact.totalCpuNanos();
+            exactAllocationMark = exact.totalAllocatedBytes();
+        }
+    }
+
+    /**
+     * Завершает блок строк и передаёт накопленное в общие метрики.
+     *
+     * @param blockBytes число байт строк блока вместе с переводами строк.
+     */
+    public void endBlock(long blockBytes) {
+        bytes += blockBytes;
+        if (metrics != null) {
+            // Строки блока — всё время блока, кроме замеренных целиком передач блоков анализатору.
+            lineWallNanos += System.nanoTime() - blockWallMark - (exact.totalWallNanos() - exactWallMark);
+            lineCpuNanos += cpuTime() - blockCpuMark - (exact.totalCpuNanos() - exactCpuMark);
+            lineAllocatedBytes +=
+                allocatedBytes() - blockAllocationMark - (exact.totalAllocatedBytes() - exactAllocationMark);
+            blockEvent.end();
+            if (blockEvent.shouldCommit()) {
+                blockEvent.bytes = bytes;
+                blockEvent.lines = lines();
+                blockEvent.matched = lines(LineOutcome.MATCHED);
+                for (LineOutcome outcome : LineOutcome.values()) {
+                    if (outcome.filtered()) {
+                        blockEvent.filtered += lines(outcome);
+                    } else if (outcome.rejected()) {
+                        blockEvent.rejected += lines(outcome);
+                    }
+                }
+                blockEvent.readTime = exact.wallNanos(Stage.READ);
+                blockEvent.commit();
+            }
+            publish();
+        }
+    }
+
+    /**
+     * Передаёт накопленное с прошлой передачи в общие метрики и обнуляет счётчики.
+     */
+    public void publish() {
+        if (metrics != null) {
+            metrics.add(this);
+            Arrays.fill(outcomes, 0);
+            exact.clear();
+            wallSamples.clear();
+            allocationSamples.clear();
+            bytes = 0;
+            lineWallNanos = 0;
+            lineCpuNanos = 0;
+            lineAllocatedBytes = 0;
+            overheadWallNanos = 0;
+            overheadLaps = 0;
+        }
+    }
+
+    /**
+     * Число строк с заданным итогом с прошлой передачи.
+     *
+     * @param outcome итог.
+     * @return число строк.
+     */
+    public long lines(LineOutcome outcome) {
+        return outcomes[outcome.ordinal()];
+    }
+
+    /**
+     * Число строк с прошлой передачи.
+     *
+     * @return число строк.
+     */
+    public long lines() {
+        long total = 0;
+        for (long count : outcomes) {
+            total += count;
+        }
+        return total;
+    }
+
+    long bytes() {
+        return bytes;
+    }
+
+    long lineWallNanos() {
+        return lineWallNanos;
+    }
+
+    long lineCpuNanos() {
+        return lineCpuNanos;
+    }
+
+    long lineAllocatedBytes() {
+        return lineAllocatedBytes;
+    }
+
+    long overheadWallNanos() {
+        return overheadWallNanos;
+    }
+
+    long overheadLaps() {
+        return overheadLaps;
+    }
+
+    StageTimes exact() {
+        return exact;
+    }
+
+    StageTimes wallSamples() {
+        return wallSamples;
+    }
+
+    StageTimes allocationSamples() {
+        return allocationSamples;
+    }
+
+    private long lapClock() {
+        return countingAllocation ? allocatedBytes() : System.nanoTime();
+    }
+
+    private void mark() {
+        wallMark = System.nanoTime();
+        cpuMark = cpuTime();
+        allocationMark = allocatedBytes();
+    }
+
+    private void measure(Stage stage) {
+        long wall = System.nanoTime();
+        long cpu = cpuTime();
+        long allocated = allocatedBytes();
+        exact.add(stage, wall - wallMark, cpu - cpuMark, allocated - allocationMark);
+        wallMark = wall;
+        cpuMark = cpu;
+        allocationMark = allocated;
+    }
+
+    private static long cpuTime() {
+        return CPU_TIME ? Math.max(0, THREADS.getCurrentThreadCpuTime()) : 0;
+    }
+
+    private static long allocatedBytes() {
+        return ALLOCATION ? Math.max(0, THREADS.getCurrentThreadAllocatedBytes()) : 0;
+    }
+}
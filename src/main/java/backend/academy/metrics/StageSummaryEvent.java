@@ -0,0 +1,36 @@
+package backend.academy.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Событие JFR с итогами одного этапа за весь запуск; записывается при завершении.
+ */
+@Name("backend.academy.StageSummary")
+@Label("Итоги этапа")
+@Category({"Анализатор логов", "Итоги"})
+@Description("Время по часам, процессорное время и выделенная память этапа, суммарно по потокам")
+@StackTrace(false)
+class StageSummaryEvent extends Event {
+
+    @Label("Этап")
+    String stage;
+
+    @Label("Время")
+    @Timespan
+    long wallTime;
+
+    @Label("Процессорное время")
+    @Timespan
+    long cpuTime;
+
+    @Label("Выделено")
+    @DataAmount
+    long allocated;
+}
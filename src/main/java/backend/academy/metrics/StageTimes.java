@@ -0,0 +1,69 @@
+package backend.academy.metrics;
+
+import java.util.Arrays;
+
+/**
+ * Время по часам, процессорное время, выделенные байты и число замеров по этапам.
+ * Не потокобезопасен.
+ */
+final class StageTimes {
+
+    private static final int STAGES = Stage.values().length;
+
+    private final long[] wallNanos = new long[STAGES];
+    private final long[] cpuNanos = new long[STAGES];
+    private final long[] allocatedBytes = new long[STAGES];
+    private final long[] laps = new long[STAGES];
+
+    void add(Stage stage, long wall, long cpu, long allocated) {
+        wallNanos[stage.ordinal()] += wall;
+        cpuNanos[stage.ordinal()] += cpu;
+        allocatedBytes[stage.ordinal()] += allocated;
+        laps[stage.ordinal()]++;
+    }
+
+    void addTo(StageTimes target) {
+        for (Stage stage : Stage.values()) {
+            int index = stage.ordinal();
+            target.wallNanos[index] += wallNanos[index];
+            target.cpuNanos[index] += cpuNanos[index];
+            target.allocatedBytes[index] += allocatedBytes[index];
+            target.laps[index] += laps[index];
+        }
+    }
+
+    long wallNanos(Stage stage) {
+        return wallNanos[stage.ordinal()];
+    }
+
+    long cpuNanos(Stage stage) {
+        return cpuNanos[stage.ordinal()];
+    }
+
+    long allocatedBytes(Stage stage) {
+        return allocatedBytes[stage.ordinal()];
+    }
+
+    long laps(Stage stage) {
+        return laps[stage.ordinal()];
+    }
+
+    long totalWallNanos() {
+        return Arrays.stream(wallNanos).sum();
+    }
+
+    long totalCpuNanos() {
+        return Arrays.stream(cpuNanos).sum();
+    }
+
+    long totalAllocatedBytes() {
+        return Arrays.stream(allocatedBytes).sum();
+    }
+
+    void clear() {
+        Arrays.fill(wallNanos, 0);
+        Arrays.fill(cpuNanos, 0);
+        Arrays.fill(allocatedBytes, 0);
+        Arrays.fill(laps, 0);
+    }
+}
@@ -0,0 +1,49 @@
+package backend.academy.parser;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Изменяемое представление диапазона байт ASCII в буфере как {@link CharSequence}.
+ * Позволяет проверять текстовые поля фильтром, не создавая строк.
+ */
+final class AsciiSequence implements CharSequence {
+
+    private ByteBuffer buffer;
+    private int start;
+    private int end;
+
+    /**
+     * Переводит представление на диапазон байт {@code [start, end)} буфера.
+     *
+     * @return это представление.
+     */
+    AsciiSequence set(ByteBuffer source, int from, int to) {
+        this.buffer = source;
+        this.start = from;
+        this.end = to;
+        return this;
+    }
+
+    @Override
+    public int length() {
+        return end - start;
+    }
+
+    @Override
+    public char charAt(int index) {
+        return (char) Byte.toUnsignedInt(buffer.get(start + index));
+    }
+
+    @Override
+    public CharSequence subSequence(int from, int to) {
+        return toString().subSequence(from, to);
+    }
+
+    @Override
+    public String toString() {
+        byte[] bytes = new byte[length()];
+        buffer.get(start, bytes);
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+}
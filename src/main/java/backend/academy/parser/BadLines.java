@@ -0,0 +1,211 @@
+package backend.academy.parser;
+
+import backend.academy.metrics.LineOutcome;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.logging.Logger;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Обработка строк, которые не удалось разобрать: счётчики по причинам ({@link LineOutcome#rejected()}),
+ * журнал с ограничением частоты, файл карантина и прерывание разбора при слишком большой доле ошибок.
+ *
+ * В журнал выводятся первые {@code logFirst} отклонённых строк, а дальше — каждая {@code logEvery}-я
+ * ({@code 0} — больше ни одной), поэтому испорченный файл не тратит время на вывод миллионов сообщений.
+ * Если задан файл карантина ({@link #quarantine(Path)}), в него через буфер пишется каждая отклонённая
+ * строка как есть, по строке на каждую: смещение строки в источнике ({@code -1}, если неизвестно),
+ * причина и сами байты строки, разделённые табуляцией.
+ *
+ * Читатели строк сообщают о прочитанных строках пачками ({@link #check(long, long)}); как только
+ * прочитано не меньше {@code minLines} строк, а доля отклонённых среди них больше {@code maxErrorRatio},
+ * разбор прерывается исключением {@link TooManyBadLinesException} во всех потоках.
+ * Разобранные строки обработчик не замедляют: читатель обращается к нему только при отказе
+ * и раз в несколько тысяч строк.
+ *
+ * Экземпляр потокобезопасен и общий для всех читателей одного разбора (см. {@link ParseContext#badLines()}).
+ */
+@Getter
+public final class BadLines implements Closeable {
+
+    /**
+     * Сколько отклонённых строк выводится в журнал подряд по умолчанию.
+     */
+    public static final int DEFAULT_LOG_FIRST = 10;
+
+    /**
+     * Каждая какая отклонённая строка выводится в журнал после первых по умолчанию.
+     */
+    public static final int DEFAULT_LOG_EVERY = 10_000;
+
+    /**
+     * Сколько строк должно быть прочитано, прежде чем проверяется доля ошибок, по умолчанию.
+     */
+    public static final long DEFAULT_MIN_LINES = 1_000;
+
+    private static final Logger LOGGER = Logger.getLogger(BadLines.class.getName());
+    private static final int MAX_LOGGED_CHARS = 200;
+    private static final int BUFFER_SIZE = 65_536;
+    private static final byte TAB = '\t';
+    private static final byte LF = '\n';
+
+    @Setter
+    private int logFirst = DEFAULT_LOG_FIRST;
+    @Setter
+    private int logEvery = DEFAULT_LOG_EVERY;
+    @Setter
+    private double maxErrorRatio = 1.0;
+    @Setter
+    private long minLines = DEFAULT_MIN_LINES;
+    private Path quarantine;
+    @Getter(AccessLevel.NONE)
+    private volatile OutputStream quarantineOutput;
+    @Getter(AccessLevel.NONE)
+    private final AtomicLong rejected = new AtomicLong();
+    @Getter(AccessLevel.NONE)
+    private final AtomicLongArray reasons = new AtomicLongArray(LineOutcome.values().length);
+    @Getter(AccessLevel.NONE)
+    private long checkedLines;
+    @Getter(AccessLevel.NONE)
+    private long checkedRejected;
+    @Getter(AccessLevel.NONE)
+    private volatile boolean exceeded;
+
+    /**
+     * Открывает файл карантина; существующий файл перезаписывается.
+     *
+     * @param path путь к файлу.
+     * @return этот обработчик.
+     * @throws IOException если файл не удалось открыть.
+     */
+    public synchronized BadLines quarantine(Path path) throws IOException {
+        close();
+        quarantineOutput = new BufferedOutputStream(Files.newOutputStream(path), BUFFER_SIZE);
+        quarantine = path;
+        return this;
+    }
+
+    /**
+     * Число отклонённых строк.
+     *
+     * @return число строк.
+     */
+    public long rejected() {
+        return rejected.get();
+    }
+
+    /**
+     * Число отклонённых строк по причине.
+     *
+     * @param reason причина отказа.
+     * @return число строк.
+     */
+    public long rejected(LineOutcome reason) {
+        return reasons.get(reason.ordinal());
+    }
+
+    /**
+     * Учитывает отклонённую строку: выводит её в журнал, если подошла её очередь, и пишет в карантин.
+     *
+     * @param reason причина отказа.
+     * @param buffer буфер со строкой.
+     * @param start индекс первого байта строки.
+     * @param end индекс после последнего байта строки (без перевода строки).
+     * @param offset смещение строки в источнике или {@code -1}, если оно неизвестно.
+     */
+    void reject(LineOutcome reason, ByteBuffer buffer, int start, int end, long offset) {
+        long number = rejected.incrementAndGet();
+        reasons.incrementAndGet(reason.ordinal());
+        boolean logged = number <= logFirst || logEvery > 0 && (number - logFirst) % logEvery == 0;
+        if (!logged && quarantineOutput == null) {
+            return;
+        }
+        byte[] line = new byte[end - start];
+        buffer.get(start, line);
+        if (logged) {
+            LOGGER.warning(() -> String.format(Locale.ROOT, "Отклонена строка %d (%s, смещение %d): %s",
+                number, reason.label(), offset, abbreviate(new String(line, StandardCharsets.UTF_8))));
+        }
+        if (quarantineOutput != null) {
+            write(reason, line, offset);
+        }
+    }
+
+    /**
+     * Учитывает строки, прочитанные одним читателем с прошлой проверки, и проверяет долю ошибок.
+     *
+     * @param lines число прочитанных строк.
+     * @param rejectedLines сколько из них отклонено.
+     * @throws TooManyBadLinesException если доля отклонённых строк превысила порог, в том числе в другом потоке.
+     */
+    synchronized void check(long lines, long rejectedLines) {
+        checkedLines += lines;
+        checkedRejected += rejectedLines;
+        if (!exceeded && checkedLines >= minLines && checkedRejected > maxErrorRatio * checkedLines) {
+            exceeded = true;
+        }
+        if (exceeded) {
+            throw new TooManyBadLinesException(String.format(Locale.ROOT,
+                "Разбор прерван: отклонено %d строк из %d (доля больше %s)",
+                checkedRejected, checkedLines, maxErrorRatio));
+        }
+    }
+
+    /**
+     * Сбрасывает и закрывает файл карантина и, если часть отклонённых строк не попала в журнал,
+     * выводит в журнал их общее число по причинам.
+     *
+     * @throws IOException если файл карантина не удалось записать.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        long total = rejected.get();
+        long logged = Math.min(total, logFirst) + (logEvery > 0 ? Math.max(0, total - logFirst) / logEvery : 0);
+        if (logged < total) {
+            StringBuilder text = new StringBuilder();
+            for (LineOutcome reason : LineOutcome.values()) {
+                if (reason.rejected() && rejected(reason) > 0) {
+                    text.append(text.isEmpty() ? "" : ", ").append(reason.label()).append(": ")
+                        .append(rejected(reason));
+                }
+            }
+            LOGGER.warning(String.format(Locale.ROOT, "Отклонено строк: %d (%s), в журнал выведено %d%s",
+                total, text, logged, quarantine == null ? "" : ", все записаны в " + quarantine));
+        }
+        if (quarantineOutput != null) {
+            quarantineOutput.close();
+            quarantineOutput = null;
+        }
+    }
+
+    private synchronized void write(LineOutcome reason, byte[] line, long offset) {
+        if (quarantineOutput == null) {
+            return;
+        }
+        try {
+            quarantineOutput.write(Long.toString(offset).getBytes(StandardCharsets.US_ASCII));
+            quarantineOutput.write(TAB);
+            quarantineOutput.write(reason.name().getBytes(StandardCharsets.US_ASCII));
+            quarantineOutput.write(TAB);
+            quarantineOutput.write(line);
+            quarantineOutput.write(LF);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String abbreviate(String line) {
+        return line.length() <= MAX_LOGGED_CHARS ? line : line.substring(0, MAX_LOGGED_CHARS) + "…";
+    }
+}
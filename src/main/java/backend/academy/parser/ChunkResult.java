@@ -0,0 +1,132 @@
+package backend.academy.parser;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.stream.Collector;
+
+/**
+ * Результат разбора куска потока, границы которого не совпадают с границами строк
+ * (кусок gzip-файла, диапазон байт HTTP-ответа).
+ *
+ * Байты до первого перевода строки ({@code head}) и неполная последняя строка ({@code tail})
+ * не разбираются, а сохраняются; полные строки между ними разбираются в частичный результат
+ * коллектора. При объединении соседних кусков фрагменты на стыке склеиваются и разбираются,
+ * поэтому ни одна строка не теряется и не разбирается дважды.
+ * Если в куске нет ни одного перевода строки, все его байты лежат в {@code head},
+ * {@code complete == false}, а частичный результат пуст.
+ *
+ * @param <A> тип частичного результата коллектора.
+ */
+final class ChunkResult<A> {
+
+    private static final int LF = '\n';
+    private static final byte[] EMPTY = new byte[0];
+
+    private final A partial;
+    private final byte[] head;
+    private final boolean complete;
+    private final byte[] tail;
+
+    private ChunkResult(A partial, byte[] head, boolean complete, byte[] tail) {
+        this.partial = partial;
+        this.head = head;
+        this.complete = complete;
+        this.tail = tail;
+    }
+
+    /**
+     * Читает кусок до конца, разбирая полные строки по мере поступления данных.
+     *
+     * @param input поток байт куска; для побайтового чтения заголовка лучше передавать буферизованный поток.
+     * @param filter параметры фильтрации.
+     * @param context общее состояние разбора.
+     * @param collector коллектор, в который передаются записи.
+     * @param <A> тип частичного результата коллектора.
+     * @return результат разбора куска.
+     * @throws IOException если поток не удалось прочитать.
+     */
+    static <A> ChunkResult<A> read(
+        InputStream input,
+        LogFilter filter,
+        ParseContext context,
+        Collector<LogRecord, A, ?> collector
+    ) throws IOException {
+        ByteArrayOutputStream head = new ByteArrayOutputStream();
+        int next;
+        do {
+            next = input.read();
+            if (next >= 0) {
+                head.write(next);
+            }
+        } while (next >= 0 && next != LF);
+        A partial = collector.supplier().get();
+        if (next != LF) {
+            return new ChunkResult<>(partial, head.toByteArray(), false, EMPTY);
+        }
+        byte[] tail = LogLineReader.of(filter, context, collector, partial).withoutOffsets().readCompleteLines(input);
+        return new ChunkResult<>(partial, head.toByteArray(), true, tail);
+    }
+
+    /**
+     * Объединяет кусок со следующим за ним, разбирая строку на их стыке.
+     *
+     * @param next следующий кусок.
+     * @param filter параметры фильтрации.
+     * @param context общее состояние разбора.
+     * @param collector коллектор, в который передаются записи.
+     * @return результат разбора обоих кусков.
+     */
+    ChunkResult<A> append(
+        ChunkResult<A> next,
+        LogFilter filter,
+        ParseContext context,
+        Collector<LogRecord, A, ?> collector
+    ) {
+        if (!complete) {
+            return new ChunkResult<>(next.partial, concat(head, next.head), next.complete, next.tail);
+        }
+        if (!next.complete) {
+            return new ChunkResult<>(partial, head, true, concat(tail, next.head));
+        }
+        A boundary = parseBytes(concat(tail, next.head), filter, context, collector);
+        A merged = collector.combiner().apply(collector.combiner().apply(partial, boundary), next.partial);
+        return new ChunkResult<>(merged, head, true, next.tail);
+    }
+
+    /**
+     * Завершает разбор, считая, что кусок начинается с начала строки и заканчивается концом потока:
+     * разбирает {@code head} и {@code tail} как обычные строки.
+     *
+     * @param filter параметры фильтрации.
+     * @param context общее состояние разбора.
+     * @param collector коллектор, в который передаются записи.
+     * @return частичный результат по всем строкам куска в исходном порядке.
+     */
+    A finish(LogFilter filter, ParseContext context, Collector<LogRecord, A, ?> collector) {
+        if (!complete) {
+            return parseBytes(head, filter, context, collector);
+        }
+        A result = collector.combiner().apply(parseBytes(head, filter, context, collector), partial);
+        return collector.combiner().apply(result, parseBytes(tail, filter, context, collector));
+    }
+
+    private static <A> A parseBytes(
+        byte[] lines,
+        LogFilter filter,
+        ParseContext context,
+        Collector<LogRecord, A, ?> collector
+    ) {
+        A result = collector.supplier().get();
+        LogLineReader.of(filter, context, collector, result).withoutOffsets().read(ByteBuffer.wrap(lines));
+        return result;
+    }
+
+    private static byte[] concat(byte[] first, byte[] second) {
+        byte[] result = new byte[first.length + second.length];
+        System.arraycopy(first, 0, result, 0, first.length);
+        System.arraycopy(second, 0, result, first.length, second.length);
+        return result;
+    }
+}
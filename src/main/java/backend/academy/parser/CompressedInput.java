@@ -0,0 +1,110 @@
+package backend.academy.parser;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Распознаёт сжатые входные данные по сигнатуре (magic bytes) и прозрачно распаковывает их.
+ * gzip распаковывается потоково в отдельном потоке ({@link PipelinedInputStream}), поэтому
+ * распаковка и разбор строк идут одновременно. Сигнатура zstd распознаётся, но кодека zstd
+ * в зависимостях нет, поэтому такой вход отклоняется с понятной ошибкой.
+ */
+final class CompressedInput {
+
+    private static final int BUFFER_SIZE = 65_536;
+    private static final int SIGNATURE_LENGTH = 4;
+    private static final byte[] GZIP_SIGNATURE = {0x1f, (byte) 0x8b};
+    private static final byte[] ZSTD_SIGNATURE = {0x28, (byte) 0xb5, 0x2f, (byte) 0xfd};
+
+    /**
+     * Формат входных данных.
+     */
+    enum Format {
+        PLAIN,
+        GZIP,
+        ZSTD
+    }
+
+    private CompressedInput() {
+    }
+
+    /**
+     * Определяет формат файла по первым байтам.
+     *
+     * @param path путь к файлу.
+     * @return формат файла.
+     * @throws IOException если файл не удалось прочитать.
+     */
+    static Format detect(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer signature = ByteBuffer.allocate(SIGNATURE_LENGTH);
+            int read;
+            do {
+                read = channel.read(signature);
+            } while (read > 0 && signature.hasRemaining());
+            return detect(signature.array(), signature.position());
+        }
+    }
+
+    /**
+     * Оборачивает поток: сжатые данные распаковываются в отдельном потоке, несжатые читаются как есть.
+     *
+     * @param raw исходный поток.
+     * @return поток несжатых байт лога.
+     * @throws IOException если поток не удалось прочитать или формат не поддерживается.
+     */
+    static InputStream open(InputStream raw) throws IOException {
+        BufferedInputStream input = new BufferedInputStream(raw, BUFFER_SIZE);
+        input.mark(SIGNATURE_LENGTH);
+        byte[] signature = input.readNBytes(SIGNATURE_LENGTH);
+        input.reset();
+        return switch (detect(signature, signature.length)) {
+            case GZIP -> new PipelinedInputStream(new GZIPInputStream(input, BUFFER_SIZE));
+            case ZSTD -> throw unsupported(Format.ZSTD);
+            case PLAIN -> input;
+        };
+    }
+
+    /**
+     * Возвращает исключение для формата без кодека.
+     *
+     * @param format формат входных данных.
+     * @return исключение с описанием обходного пути.
+     */
+    static IOException unsupported(Format format) {
+        return new IOException("Формат " + format + " не поддерживается; распакуйте вход внешней утилитой "
+            + "и передайте его через --path -");
+    }
+
+    /**
+     * Определяет формат по первым байтам данных.
+     *
+     * @param signature первые байты данных.
+     * @param length количество прочитанных байт.
+     * @return формат данных.
+     */
+    static Format detect(byte[] signature, int length) {
+        if (startsWith(signature, length, ZSTD_SIGNATURE)) {
+            return Format.ZSTD;
+        }
+        return startsWith(signature, length, GZIP_SIGNATURE) ? Format.GZIP : Format.PLAIN;
+    }
+
+    private static boolean startsWith(byte[] data, int length, byte[] prefix) {
+        if (length < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (data[i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,14 @@
+package backend.academy.parser;
+
+import lombok.Getter;
+
+/**
+ * Словари полей, на которые ссылаются записи {@link LogRecord}: IP-адреса и ресурсы.
+ * Каждый читатель строк заводит свой набор словарей, поэтому словари не требуют синхронизации.
+ */
+@Getter
+public final class FieldDictionaries {
+
+    private final StringDictionary ipAddresses = new StringDictionary();
+    private final StringDictionary resources = new StringDictionary();
+}
@@ -0,0 +1,177 @@
+package backend.academy.parser;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Objects;
+import java.util.logging.Logger;
+
+/**
+ * Следит за растущим несжатым файлом логов, как {@code tail -F}: каждый вызов {@link #poll(RecordBatchSink)}
+ * читает только байты, дописанные с прошлого вызова, и передаёт полные строки приёмнику блоками.
+ * Неполная последняя строка остаётся в буфере до появления перевода строки.
+ *
+ * Если файл стал короче прочитанного (усечение, {@code copytruncate}), чтение начинается с начала.
+ * Если по пути появился другой файл (ротация переименованием), сначала дочитывается старый файл,
+ * затем открывается новый. Пока файла нет, опрос ничего не делает.
+ *
+ * Для каждого опроса создаётся новый {@link LogLineReader}, поэтому словари строк не растут
+ * со временем работы; память ограничена буфером чтения. Буфер растёт под длинную строку не больше
+ * чем до {@value LogLineReader#MAX_LINE_BYTES} байт: более длинная строка отклоняется, как в {@link LogLineReader},
+ * а её остаток пропускается до следующего перевода строки.
+ */
+public final class FileFollower implements Closeable {
+
+    private static final Logger LOGGER = Logger.getLogger(FileFollower.class.getName());
+    private static final int BUFFER_SIZE = 65_536;
+    private static final byte LF = '\n';
+
+    private final Path path;
+    private final LogFilter filter;
+    private final ParseContext context;
+    private FileChannel channel;
+    private Object fileKey;
+    private long position;
+    private ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private boolean skipping;
+
+    /**
+     * Создаёт наблюдатель за файлом; файл открывается при первом опросе.
+     *
+     * @param path путь к файлу логов.
+     * @param filter параметры фильтрации.
+     * @param context общее состояние разбора.
+     */
+    public FileFollower(Path path, LogFilter filter, ParseContext context) {
+        this.path = path;
+        this.filter = filter;
+        this.context = context;
+    }
+
+    /**
+     * Читает новые полные строки файла и передаёт их приёмнику.
+     *
+     * @param sink приёмник блоков записей.
+     * @return количество прочитанных байт.
+     * @throws IOException если файл не удалось прочитать.
+     */
+    public long poll(RecordBatchSink sink) throws IOException {
+        Object currentKey = currentFileKey();
+        if (channel == null) {
+            if (currentKey == null) {
+                return 0;
+            }
+            open(currentKey);
+        }
+        if (channel.size() < position) {
+            LOGGER.info(() -> path + ": файл усечён, чтение с начала");
+            position = 0;
+            buffer.clear();
+            skipping = false;
+        }
+        LogLineReader reader = LogLineReader.of(filter, context, sink);
+        long read = drain(reader);
+        if (currentKey != null && !Objects.equals(currentKey, fileKey)) {
+            LOGGER.info(() -> path + ": файл заменён, чтение нового файла");
+            reader.startingAt(position - buffer.position()).read(buffer.flip());
+            close();
+            open(currentKey);
+            read += drain(reader);
+        }
+        return read;
+    }
+
+    /**
+     * Возвращает смещение в текущем файле, до которого он прочитан.
+     *
+     * @return количество прочитанных байт текущего файла.
+     */
+    public long position() {
+        return position;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    private void open(Object key) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        fileKey = key;
+        position = 0;
+        buffer.clear();
+        skipping = false;
+    }
+
+    /**
+     * Возвращает ключ файла (номер inode), находящегося сейчас по пути, или {@code null}, если файла нет.
+     * Если система не сообщает ключ, вместо него используется время создания файла.
+     */
+    private Object currentFileKey() throws IOException {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            return attributes.fileKey() != null ? attributes.fileKey() : attributes.creationTime();
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Дочитывает файл до конца, разбирая полные строки. Неполная строка остаётся в начале буфера.
+     */
+    private long drain(LogLineReader reader) throws IOException {
+        long total = 0;
+        int read;
+        while ((read = channel.read(buffer, position)) > 0) {
+            position += read;
+            total += read;
+            if (skipping) {
+                skipOversizedLine();
+            }
+            int end = lastLineEnd();
+            if (end > 0) {
+                reader.startingAt(position - buffer.position()).read(buffer.duplicate().position(0).limit(end));
+                buffer.limit(buffer.position()).position(end).compact();
+            } else if (!buffer.hasRemaining() && buffer.capacity() < LogLineReader.MAX_LINE_BYTES) {
+                buffer = ByteBuffer.allocate(buffer.capacity() * 2).put(buffer.flip());
+            } else if (!buffer.hasRemaining()) {
+                reader.startingAt(position - buffer.position()).rejectOversizedLine(buffer, buffer.position());
+                buffer.clear();
+                skipping = true;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Отбрасывает остаток слишком длинной строки до перевода строки включительно.
+     */
+    private void skipOversizedLine() {
+        for (int i = 0; i < buffer.position(); i++) {
+            if (buffer.get(i) == LF) {
+                buffer.limit(buffer.position()).position(i + 1).compact();
+                skipping = false;
+                return;
+            }
+        }
+        buffer.clear();
+    }
+
+    private int lastLineEnd() {
+        for (int i = buffer.position() - 1; i >= 0; i--) {
+            if (buffer.get(i) == LF) {
+                return i + 1;
+            }
+        }
+        return 0;
+    }
+}
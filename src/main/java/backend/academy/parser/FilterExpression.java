@@ -0,0 +1,200 @@
+package backend.academy.parser;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Компилирует текстовое выражение фильтра в дерево {@link LogPredicate}.
+ *
+ * Грамматика (ключевые слова без учёта регистра):
+ * <pre>
+ * выражение := и ("or" и)*
+ * и         := множитель ("and" множитель)*
+ * множитель := "not" множитель | "(" выражение ")" | поле ("=" | "!=") значение
+ * </pre>
+ * Значение — слово до пробела или скобки либо строка в двойных кавычках.
+ * Поля {@code method}, {@code agent}, {@code resource} и {@code ip} сравниваются по шаблону
+ * с {@code *} и {@code ?} без учёта регистра; для {@code ip} можно указать подсеть IPv4
+ * ({@code 10.0.0.0/8}). Поля {@code status} и {@code size} принимают число, диапазон
+ * {@code 400-499} (границы можно опустить: {@code 1000-}), а {@code status} — ещё и класс {@code 5xx}.
+ *
+ * Пример: {@code method=GET and (status=5xx or agent="curl*") and not ip=10.0.0.0/8}.
+ */
+final class FilterExpression {
+
+    private static final char QUOTE = '"';
+    private static final char OPEN = '(';
+    private static final char CLOSE = ')';
+    private static final String STATUS_CLASS_SUFFIX = "xx";
+    private static final int STATUS_CLASS_SIZE = 100;
+
+    private final String text;
+    private int position;
+
+    private FilterExpression(String text) {
+        this.text = text;
+    }
+
+    /**
+     * Компилирует выражение фильтра.
+     *
+     * @param text выражение, например {@code method=GET and status=200-299}.
+     * @return скомпилированное условие.
+     * @throws IllegalArgumentException если выражение записано неверно.
+     */
+    static LogPredicate compile(String text) {
+        FilterExpression parser = new FilterExpression(text);
+        LogPredicate result = parser.disjunction();
+        parser.skipSpaces();
+        if (parser.position < text.length()) {
+            throw parser.error("лишние символы");
+        }
+        return result;
+    }
+
+    /**
+     * Компилирует одно сравнение поля со значением.
+     *
+     * @param fieldName имя поля.
+     * @param value значение, шаблон, подсеть или диапазон.
+     * @return скомпилированное условие.
+     * @throws IllegalArgumentException если поле неизвестно или значение записано неверно.
+     */
+    static LogPredicate condition(String fieldName, String value) {
+        LogField field = LogField.of(fieldName);
+        return switch (field) {
+            case STATUS, SIZE -> range(field, value);
+            case IP -> value.indexOf('/') >= 0
+                ? LogPredicates.cidr(value)
+                : LogPredicates.glob(field, GlobMatcher.compile(value));
+            default -> LogPredicates.glob(field, GlobMatcher.compile(value));
+        };
+    }
+
+    private static LogPredicate range(LogField field, String value) {
+        try {
+            if (field == LogField.STATUS && value.length() == STATUS_CLASS_SUFFIX.length() + 1
+                && value.endsWith(STATUS_CLASS_SUFFIX)) {
+                long min = Long.parseLong(value.substring(0, 1)) * STATUS_CLASS_SIZE;
+                return LogPredicates.range(field, min, min + STATUS_CLASS_SIZE - 1);
+            }
+            int dash = value.indexOf('-');
+            if (dash < 0) {
+                long exact = Long.parseLong(value);
+                return LogPredicates.range(field, exact, exact);
+            }
+            String from = value.substring(0, dash);
+            String to = value.substring(dash + 1);
+            return LogPredicates.range(field,
+                from.isEmpty() ? Long.MIN_VALUE : Long.parseLong(from),
+                to.isEmpty() ? Long.MAX_VALUE : Long.parseLong(to));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(
+                "Неверный диапазон для поля " + field.name().toLowerCase(Locale.ROOT) + ": " + value);
+        }
+    }
+
+    private LogPredicate disjunction() {
+        List<LogPredicate> parts = new ArrayList<>();
+        parts.add(conjunction());
+        while (keyword("or")) {
+            parts.add(conjunction());
+        }
+        return LogPredicates.or(parts);
+    }
+
+    private LogPredicate conjunction() {
+        List<LogPredicate> parts = new ArrayList<>();
+        parts.add(factor());
+        while (keyword("and")) {
+            parts.add(factor());
+        }
+        return LogPredicates.and(parts);
+    }
+
+    private LogPredicate factor() {
+        if (keyword("not")) {
+            return LogPredicates.not(factor());
+        }
+        if (consume(OPEN)) {
+            LogPredicate inner = disjunction();
+            if (!consume(CLOSE)) {
+                throw error("ожидается )");
+            }
+            return inner;
+        }
+        String field = word();
+        boolean negated = consume('!');
+        if (!consume('=')) {
+            throw error("ожидается = или !=");
+        }
+        LogPredicate comparison = condition(field, value());
+        return negated ? LogPredicates.not(comparison) : comparison;
+    }
+
+    private boolean keyword(String keyword) {
+        skipSpaces();
+        int end = position + keyword.length();
+        boolean found = text.regionMatches(true, position, keyword, 0, keyword.length())
+            && (end == text.length() || Character.isWhitespace(text.charAt(end)) || text.charAt(end) == OPEN);
+        if (found) {
+            position = end;
+        }
+        return found;
+    }
+
+    private boolean consume(char expected) {
+        skipSpaces();
+        boolean found = position < text.length() && text.charAt(position) == expected;
+        if (found) {
+            position++;
+        }
+        return found;
+    }
+
+    private String word() {
+        skipSpaces();
+        int start = position;
+        while (position < text.length() && Character.isLetter(text.charAt(position))) {
+            position++;
+        }
+        if (start == position) {
+            throw error("ожидается имя поля");
+        }
+        return text.substring(start, position);
+    }
+
+    private String value() {
+        skipSpaces();
+        if (position < text.length() && text.charAt(position) == QUOTE) {
+            int end = text.indexOf(QUOTE, position + 1);
+            if (end < 0) {
+                throw error("не закрыта кавычка");
+            }
+            String quoted = text.substring(position + 1, end);
+            position = end + 1;
+            return quoted;
+        }
+        int start = position;
+        while (position < text.length()
+            && !Character.isWhitespace(text.charAt(position)) && text.charAt(position) != CLOSE) {
+            position++;
+        }
+        if (start == position) {
+            throw error("ожидается значение");
+        }
+        return text.substring(start, position);
+    }
+
+    private void skipSpaces() {
+        while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+            position++;
+        }
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(
+            "Неверный фильтр «" + text + "»: " + message + " (позиция " + (position + 1) + ")");
+    }
+}
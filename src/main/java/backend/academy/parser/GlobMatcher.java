@@ -0,0 +1,90 @@
+package backend.academy.parser;
+
+/**
+ * Скомпилированный шаблон с подстановочными символами {@code *} (любая последовательность)
+ * и {@code ?} (любой символ). Сравнение без учёта регистра; шаблон должен совпасть
+ * со всей строкой, как прежнее {@code String.matches(value.replace("*", ".*"))},
+ * но остальные символы шаблона понимаются буквально.
+ *
+ * Шаблон приводится к нижнему регистру один раз при компиляции, а проверка идёт
+ * по {@link CharSequence} без создания объектов: жадное сопоставление с возвратом
+ * к последней звёздочке, в худшем случае O(n·m).
+ */
+final class GlobMatcher {
+
+    private static final char ANY_SEQUENCE = '*';
+    private static final char ANY_CHAR = '?';
+
+    private final char[] pattern;
+    private final boolean literalPrefix;
+
+    private GlobMatcher(char[] pattern) {
+        this.pattern = pattern;
+        int wildcards = 0;
+        for (char current : pattern) {
+            if (current == ANY_SEQUENCE || current == ANY_CHAR) {
+                wildcards++;
+            }
+        }
+        this.literalPrefix = wildcards == 0
+            || wildcards == 1 && pattern[pattern.length - 1] == ANY_SEQUENCE;
+    }
+
+    /**
+     * Компилирует шаблон.
+     *
+     * @param glob шаблон, например {@code Mozilla*} или {@code /api/*}.
+     * @return скомпилированный шаблон.
+     */
+    static GlobMatcher compile(String glob) {
+        char[] pattern = glob.toCharArray();
+        for (int i = 0; i < pattern.length; i++) {
+            pattern[i] = Character.toLowerCase(pattern[i]);
+        }
+        return new GlobMatcher(pattern);
+    }
+
+    /**
+     * Проверяет, совпадает ли шаблон со всей строкой.
+     *
+     * @param text проверяемый текст.
+     * @return {@code true}, если текст подходит под шаблон.
+     */
+    boolean matches(CharSequence text) {
+        int length = text.length();
+        int patternIndex = 0;
+        int textIndex = 0;
+        int starIndex = -1;
+        int starText = 0;
+        while (textIndex < length) {
+            char expected = patternIndex < pattern.length ? pattern[patternIndex] : 0;
+            if (patternIndex < pattern.length && expected == ANY_SEQUENCE) {
+                starIndex = patternIndex++;
+                starText = textIndex;
+            } else if (patternIndex < pattern.length
+                && (expected == ANY_CHAR || expected == Character.toLowerCase(text.charAt(textIndex)))) {
+                patternIndex++;
+                textIndex++;
+            } else if (starIndex >= 0) {
+                patternIndex = starIndex + 1;
+                textIndex = ++starText;
+            } else {
+                return false;
+            }
+        }
+        while (patternIndex < pattern.length && pattern[patternIndex] == ANY_SEQUENCE) {
+            patternIndex++;
+        }
+        return patternIndex == pattern.length;
+    }
+
+    /**
+     * Проверяет, что шаблон — точное значение или префикс со звёздочкой в конце,
+     * то есть сравнивается за один проход без возвратов.
+     *
+     * @return {@code true} для шаблонов вида {@code GET} или {@code /api/*}.
+     */
+    boolean isLiteralPrefix() {
+        return literalPrefix;
+    }
+}
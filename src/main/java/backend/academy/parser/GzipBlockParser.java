@@ -0,0 +1,254 @@
+package backend.academy.parser;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Serial;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.Collector;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Параллельный парсер gzip-файлов из нескольких членов (members).
+ *
+ * Обычный gzip не хранит размер сжатого члена, поэтому границы членов известны заранее только
+ * в блочном формате BGZF (bgzip, htslib): каждый член содержит в поле FEXTRA подполе {@code BC}
+ * с размером блока. Парсер проходит по заголовкам блоков, группирует блоки в куски примерно
+ * равного сжатого размера и распаковывает каждый кусок в отдельной задаче fork-join.
+ * Если встретился член без подполя {@code BC}, остаток файла становится последним куском
+ * и распаковывается последовательно.
+ *
+ * Границы кусков не совпадают с границами строк; строки на стыках склеивает {@link ChunkResult}.
+ */
+final class GzipBlockParser {
+
+    private static final int MIN_GROUP_SIZE = 1_048_576;
+    private static final int MAX_GROUP_SIZE = 67_108_864;
+    private static final int GROUPS_PER_WORKER = 4;
+    private static final int BUFFER_SIZE = 65_536;
+    private static final int HEADER_BUFFER_SIZE = 256;
+    private static final int FIXED_HEADER_SIZE = 10;
+    private static final int EXTRA_LENGTH_OFFSET = 10;
+    private static final int SUBFIELD_HEADER_SIZE = 4;
+    private static final int FLAG_OFFSET = 3;
+    private static final int FLAG_EXTRA = 4;
+    private static final int DEFLATE = 8;
+    private static final int UNSIGNED_BYTE = 0xff;
+    private static final int UNSIGNED_SHORT = 0xffff;
+    private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, DEFLATE};
+    private static final byte BLOCK_SIZE_ID1 = 'B';
+    private static final byte BLOCK_SIZE_ID2 = 'C';
+    private static final int BLOCK_SIZE_LENGTH = 2;
+
+    private GzipBlockParser() {
+    }
+
+    /**
+     * Проверяет, что файл начинается с блока BGZF.
+     *
+     * @param path путь к файлу.
+     * @return {@code true}, если размер первого блока записан в заголовке.
+     * @throws IOException если файл не удалось прочитать.
+     */
+    static boolean isBlockCompressed(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return blockSize(channel, 0, ByteBuffer.allocate(HEADER_BUFFER_SIZE)) > 0;
+        }
+    }
+
+    /**
+     * Распаковывает и парсит файл BGZF параллельно в общем пуле fork-join.
+     *
+     * @param path путь к файлу.
+     * @param filter параметры фильтрации.
+     * @param context общее состояние разбора.
+     * @param collector коллектор, в который передаются записи.
+     * @param <A> тип частичного результата коллектора.
+     * @return частичный результат по всему файлу.
+     * @throws IOException если файл не удалось прочитать или распаковать.
+     */
+    static <A> A parse(
+        Path path,
+        LogFilter filter,
+        ParseContext context,
+        Collector<LogRecord, A, ?> collector
+    ) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            List<long[]> groups = split(channel, ForkJoinPool.commonPool().getParallelism());
+            if (groups.isEmpty()) {
+                return collector.supplier().get();
+            }
+            try {
+                return ForkJoinPool.commonPool()
+                    .invoke(new GroupTask<>(channel, filter, context, collector, groups, 0, groups.size()))
+                    .finish(filter, context, collector);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    /**
+     * Группирует блоки BGZF в диапазоны байт примерно одинакового сжатого размера.
+     */
+    private static List<long[]> split(FileChannel channel, int parallelism) throws IOException {
+        long size = channel.size();
+        long groupSize = Math.clamp(size / ((long) parallelism * GROUPS_PER_WORKER), MIN_GROUP_SIZE, MAX_GROUP_SIZE);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BUFFER_SIZE);
+        List<long[]> groups = new ArrayList<>();
+        long groupStart = 0;
+        long position = 0;
+        while (position < size) {
+            long blockSize = blockSize(channel, position, header);
+            position = blockSize > 0 ? position + blockSize : size;
+            if (position - groupStart >= groupSize || position >= size) {
+                groups.add(new long[] {groupStart, Math.min(position, size)});
+                groupStart = position;
+            }
+        }
+        return groups;
+    }
+
+    /**
+     * Читает заголовок члена gzip и возвращает размер блока из подполя {@code BC}.
+     *
+     * @return размер блока в байтах или {@code -1}, если это не блок BGZF.
+     */
+    private static long blockSize(FileChannel channel, long position, ByteBuffer header) throws IOException {
+        header.clear();
+        int read;
+        do {
+            read = channel.read(header, position + header.position());
+        } while (read > 0 && header.hasRemaining());
+        header.flip().order(ByteOrder.LITTLE_ENDIAN);
+        boolean gzipWithExtra = header.remaining() >= FIXED_HEADER_SIZE + 2
+            && header.get(0) == GZIP_HEADER[0] && header.get(1) == GZIP_HEADER[1] && header.get(2) == GZIP_HEADER[2]
+            && (header.get(FLAG_OFFSET) & FLAG_EXTRA) != 0;
+        if (!gzipWithExtra) {
+            return -1;
+        }
+        int extraEnd = Math.min(header.limit(),
+            FIXED_HEADER_SIZE + 2 + (header.getShort(EXTRA_LENGTH_OFFSET) & UNSIGNED_SHORT));
+        int offset = FIXED_HEADER_SIZE + 2;
+        while (offset + SUBFIELD_HEADER_SIZE <= extraEnd) {
+            int length = header.getShort(offset + 2) & UNSIGNED_SHORT;
+            if (header.get(offset) == BLOCK_SIZE_ID1 && header.get(offset + 1) == BLOCK_SIZE_ID2
+                && length == BLOCK_SIZE_LENGTH && offset + SUBFIELD_HEADER_SIZE + length <= extraEnd) {
+                return (header.getShort(offset + SUBFIELD_HEADER_SIZE) & UNSIGNED_SHORT) + 1L;
+            }
+            offset += SUBFIELD_HEADER_SIZE + length;
+        }
+        return -1;
+    }
+
+    private static <A> ChunkResult<A> parseGroup(
+        FileChannel channel,
+        long[] group,
+        LogFilter filter,
+        ParseContext context,
+        Collector<LogRecord, A, ?> collector
+    ) throws IOException {
+        ByteBuffer compressed = channel.map(FileChannel.MapMode.READ_ONLY, group[0], group[1] - group[0]);
+        try (InputStream input = new BufferedInputStream(
+            new GZIPInputStream(new ByteBufferInputStream(compressed), BUFFER_SIZE), BUFFER_SIZE)) {
+            return ChunkResult.read(input, filter, context, collector);
+        }
+    }
+
+    /**
+     * Задача fork-join, обрабатывающая диапазон кусков файла.
+     * Диапазон делится пополам, пока в нём не останется один кусок.
+     */
+    private static final class GroupTask<A> extends RecursiveTask<ChunkResult<A>> {
+
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private final transient FileChannel channel;
+        private final transient LogFilter filter;
+        private final transient ParseContext context;
+        private final transient Collector<LogRecord, A, ?> collector;
+        private final transient List<long[]> groups;
+        private final int from;
+        private final int to;
+
+        GroupTask(
+            FileChannel channel,
+            LogFilter filter,
+            ParseContext context,
+            Collector<LogRecord, A, ?> collector,
+            List<long[]> groups,
+            int from,
+            int to
+        ) {
+            this.channel = channel;
+            this.filter = filter;
+            this.context = context;
+            this.collector = collector;
+            this.groups = groups;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected ChunkResult<A> compute() {
+            if (to - from == 1) {
+                try {
+                    return parseGroup(channel, groups.get(from), filter, context, collector);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            int middle = (from + to) >>> 1;
+            GroupTask<A> left = new GroupTask<>(channel, filter, context, collector, groups, from, middle);
+            GroupTask<A> right = new GroupTask<>(channel, filter, context, collector, groups, middle, to);
+            left.fork();
+            ChunkResult<A> tail = right.compute();
+            ChunkResult<A> head = left.join();
+            return head.append(tail, filter, context, collector);
+        }
+    }
+
+    /**
+     * Поток байт поверх отображённого в память куска файла.
+     * {@link #available()} сообщает остаток куска: по нему {@link GZIPInputStream}
+     * решает, читать ли следующий член gzip.
+     */
+    private static final class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & UNSIGNED_BYTE : -1;
+        }
+
+        @Override
+        public int read(byte[] target, int offset, int length) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(target, offset, count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
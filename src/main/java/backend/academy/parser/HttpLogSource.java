@@ -0,0 +1,324 @@
+package backend.academy.parser;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.Serial;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collector;
+
+/**
+ * Загрузка и разбор лога по HTTP через {@link HttpClient} на виртуальных потоках.
+ *
+ * Сначала запрашиваются первые байты ответа ({@code Range: bytes=0-3}). Ответ 200 без диапазона
+ * разбирается сразу. Если сервер ответил 206 и сообщил полный размер, а данные не сжаты, тело загружается
+ * диапазонами по {@link HttpSettings#rangeSize()} байт параллельно (не больше {@link HttpSettings#connections()}
+ * запросов одновременно). Каждый диапазон разбирается по мере поступления байт, а строки
+ * на стыках диапазонов склеивает {@link ChunkResult}. Иначе (в том числе при неизвестном размере,
+ * {@code bytes 0-3/*}) тело запрашивается заново без Range и читается одним потоком
+ * (сжатое — с распаковкой через {@link CompressedInput}).
+ *
+ * Запросы повторяются после сетевых ошибок и ответов 5xx с экспоненциальной задержкой.
+ * Диапазон повторяется целиком, вместе с запросом, и его разбор начинается заново, поэтому записи
+ * не учитываются дважды. Диапазоны запрашиваются скользящим окном, чтобы готовые частичные результаты
+ * не копились в памяти.
+ * Клиент использует HTTP/1.1: при HTTP/2 все диапазоны шли бы через одно TCP-соединение.
+ */
+final class HttpLogSource {
+
+    private static final Logger LOGGER = Logger.getLogger(HttpLogSource.class.getName());
+    private static final Pattern CONTENT_RANGE = Pattern.compile("bytes \\d+-\\d+/(\\d+)");
+    private static final String RANGE = "Range";
+    private static final String INTERRUPTED_MESSAGE = "Загрузка прервана: ";
+    private static final int SIGNATURE_LENGTH = 4;
+    private static final int BUFFER_SIZE = 65_536;
+    private static final int HTTP_OK = 200;
+    private static final int HTTP_PARTIAL_CONTENT = 206;
+    private static final int HTTP_SERVER_ERROR = 500;
+    private static final long RETRY_DELAY_MILLIS = 200;
+
+    private final HttpSettings settings;
+    private final HttpClient client;
+    private final ExecutorService executor;
+
+    private HttpLogSource(HttpSettings settings, ExecutorService executor) {
+        this.settings = settings;
+        this.executor = executor;
+        this.client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .connectTimeout(settings.timeout())
+            .executor(executor)
+            .build();
+    }
+
+    /**
+     * Загружает и разбирает лог по URL.
+     *
+     * @param url адрес лога.
+     * @param filter параметры фильтрации.
+     * @param context общее состояние разбора.
+     * @param settings параметры загрузки.
+     * @param collector коллектор, в который передаются записи.
+     * @param <A> тип частичного результата коллектора.
+     * @return частичный результат по всему логу.
+     * @throws IOException если лог не удалось загрузить после всех повторов.
+     */
+    static <A> A parse(
+        String url,
+        LogFilter filter,
+        ParseContext context,
+        HttpSettings settings,
+        Collector<LogRecord, A, ?> collector
+    ) throws IOException {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            HttpLogSource source = new HttpLogSource(settings, executor);
+            try {
+                return source.parse(URI.create(url), filter, context, collector);
+            } finally {
+                source.client.shutdownNow();
+            }
+        }
+    }
+
+    private <A> A parse(
+        URI uri,
+        LogFilter filter,
+        ParseContext context,
+        Collector<LogRecord, A, ?> collector
+    ) throws IOException {
+        HttpResponse<InputStream> probe =
+            send(request(uri, 0, SIGNATURE_LENGTH - 1), HttpResponse.BodyHandlers.ofInputStream());
+        if (probe.statusCode() == HTTP_OK) {
+            // Сервер проигнорировал Range и отдаёт всё тело.
+            return parseBody(probe.body(), filter, context, collector);
+        }
+        long length = contentLength(probe);
+        byte[] signature;
+        try (InputStream body = probe.body()) {
+            signature = body.readNBytes(SIGNATURE_LENGTH);
+        }
+        if (length < 0 || length <= settings.rangeSize()
+            || CompressedInput.detect(signature, signature.length) != CompressedInput.Format.PLAIN) {
+            HttpRequest whole = HttpRequest.newBuilder(uri).timeout(settings.timeout()).build();
+            return parseBody(send(whole, HttpResponse.BodyHandlers.ofInputStream()).body(), filter, context,
+                collector);
+        }
+        return parseRanges(uri, length, filter, context, collector);
+    }
+
+    /**
+     * Разбирает тело ответа целиком одним потоком.
+     */
+    private static <A> A parseBody(
+        InputStream body,
+        LogFilter filter,
+        ParseContext context,
+        Collector<LogRecord, A, ?> collector
+    ) throws IOException {
+        try (InputStream input = CompressedInput.open(body)) {
+            return LogParser.parseInput(input, 0, filter, context, collector);
+        }
+    }
+
+    /**
+     * Загружает диапазоны скользящим окном: в работе не больше {@code 2 × connections} диапазонов,
+     * и следующий запрашивается, только когда самый ранний из них присоединён к результату.
+     * Так готовые частичные результаты не копятся в памяти, пока ждут медленный диапазон перед ними.
+     */
+    private <A> A parseRanges(
+        URI uri,
+        long length,
+        LogFilter filter,
+        ParseContext context,
+        Collector<LogRecord, A, ?> collector
+    ) throws IOException {
+        Semaphore connections = new Semaphore(settings.connections());
+        int window = 2 * settings.connections();
+        Deque<Future<ChunkResult<A>>> ranges = new ArrayDeque<>(window);
+        ChunkResult<A> whole = null;
+        long start = 0;
+        try {
+            while (start < length || !ranges.isEmpty()) {
+                if (start < length && ranges.size() < window) {
+                    long end = Math.min(length, start + settings.rangeSize()) - 1;
+                    long from = start;
+                    ranges.addLast(executor.submit(() -> {
+                        connections.acquire();
+                        try {
+                            return fetchRange(uri, from, end, filter, context, collector);
+                        } finally {
+                            connections.release();
+                        }
+                    }));
+                    start = end + 1;
+                    continue;
+                }
+                ChunkResult<A> next = await(ranges.removeFirst(), uri);
+                whole = whole == null ? next : whole.append(next, filter, context, collector);
+            }
+        } finally {
+            ranges.forEach(range -> range.cancel(true));
+        }
+        return whole.finish(filter, context, collector);
+    }
+
+    /**
+     * Загружает и разбирает один диапазон. Если запрос не удался или тело оборвалось, диапазон
+     * загружается и разбирается заново с новым частичным результатом.
+     */
+    private <A> ChunkResult<A> fetchRange(
+        URI uri,
+        long start,
+        long end,
+        LogFilter filter,
+        ParseContext context,
+        Collector<LogRecord, A, ?> collector
+    ) throws IOException {
+        return retrying(uri, () -> {
+            HttpResponse<InputStream> response =
+                sendOnce(request(uri, start, end), HttpResponse.BodyHandlers.ofInputStream());
+            try (InputStream input = new BufferedInputStream(response.body(), BUFFER_SIZE)) {
+                if (response.statusCode() != HTTP_PARTIAL_CONTENT) {
+                    throw new StatusException("Сервер не вернул диапазон " + start + "-" + end + ": "
+                        + response.statusCode(), false);
+                }
+                return ChunkResult.read(input, filter, context, collector);
+            }
+        });
+    }
+
+    /**
+     * Отправляет запрос с повторами (см. {@link #retrying(URI, Attempt)}).
+     */
+    private <T> HttpResponse<T> send(HttpRequest request, HttpResponse.BodyHandler<T> handler) throws IOException {
+        return retrying(request.uri(), () -> sendOnce(request, handler));
+    }
+
+    /**
+     * Выполняет попытку и повторяет её после сетевой ошибки или ответа 5xx с экспоненциальной задержкой,
+     * не больше {@link HttpSettings#retries()} раз. Ответы 4xx и прерывание не повторяются.
+     */
+    private <T> T retrying(URI uri, Attempt<T> attempt) throws IOException {
+        for (int number = 0;; number++) {
+            try {
+                return attempt.run();
+            } catch (InterruptedIOException e) {
+                throw e;
+            } catch (IOException e) {
+                boolean retryable = !(e instanceof StatusException status) || status.retryable;
+                if (!retryable || number >= settings.retries()) {
+                    throw e;
+                }
+                LOGGER.warning("Повтор запроса " + uri + ": " + e.getMessage());
+                sleep(RETRY_DELAY_MILLIS << number);
+            }
+        }
+    }
+
+    /**
+     * Отправляет запрос один раз. Ответ вне диапазона 200–206 закрывается и превращается в ошибку.
+     */
+    private <T> HttpResponse<T> sendOnce(HttpRequest request, HttpResponse.BodyHandler<T> handler)
+        throws IOException {
+        HttpResponse<T> response;
+        try {
+            response = client.send(request, handler);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(INTERRUPTED_MESSAGE + request.uri());
+        }
+        int status = response.statusCode();
+        if (status >= HTTP_OK && status <= HTTP_PARTIAL_CONTENT) {
+            return response;
+        }
+        if (response.body() instanceof InputStream body) {
+            body.close();
+        }
+        throw new StatusException("Сервер ответил " + status + " на " + request.uri(), status >= HTTP_SERVER_ERROR);
+    }
+
+    private HttpRequest request(URI uri, long start, long end) {
+        return HttpRequest.newBuilder(uri)
+            .timeout(settings.timeout())
+            .header(RANGE, "bytes=" + start + "-" + end)
+            .build();
+    }
+
+    /**
+     * Возвращает полный размер тела из {@code Content-Range} ответа 206 или -1,
+     * если сервер не поддерживает диапазоны или не сообщил размер.
+     */
+    private static long contentLength(HttpResponse<?> response) {
+        if (response.statusCode() != HTTP_PARTIAL_CONTENT) {
+            return -1;
+        }
+        Matcher matcher = CONTENT_RANGE.matcher(response.headers().firstValue("Content-Range").orElse(""));
+        return matcher.matches() ? Long.parseLong(matcher.group(1)) : -1;
+    }
+
+    private static <T> T await(Future<T> future, URI uri) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(INTERRUPTED_MESSAGE + uri, e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof TooManyBadLinesException cause) {
+                throw cause;
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    private static void sleep(long millis) throws IOException {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Загрузка прервана во время ожидания повтора");
+        }
+    }
+
+    /**
+     * Одна попытка запроса.
+     */
+    @FunctionalInterface
+    private interface Attempt<T> {
+
+        T run() throws IOException;
+    }
+
+    /**
+     * Ответ сервера с ошибочным статусом.
+     */
+    private static final class StatusException extends IOException {
+
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private final boolean retryable;
+
+        StatusException(String message, boolean retryable) {
+            super(message);
+            this.retryable = retryable;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package backend.academy.parser;
+
+import java.time.Duration;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Параметры загрузки логов по HTTP.
+ *
+ * Поля класса:
+ * - retries: Количество повторов запроса после ошибки сети или ответа 5xx.
+ * - timeout: Таймаут соединения и ожидания ответа на каждый запрос.
+ * - rangeSize: Размер диапазона байт для параллельной загрузки.
+ * - connections: Максимальное количество одновременных запросов к одному URL.
+ */
+@Getter
+@AllArgsConstructor
+public class HttpSettings {
+
+    /**
+     * Параметры по умолчанию: 3 повтора, таймаут 30 секунд, диапазоны по 8 МБ, 8 соединений.
+     */
+    public static final HttpSettings DEFAULT = new HttpSettings(3, Duration.ofSeconds(30), 8_388_608L, 8);
+
+    private int retries;
+    private Duration timeout;
+    private long rangeSize;
+    private int connections;
+}
@@ -0,0 +1,39 @@
+package backend.academy.parser;
+
+import java.util.Locale;
+
+/**
+ * Поля строки лога, по которым можно фильтровать записи.
+ */
+enum LogField {
+    IP("ip"),
+    METHOD("method"),
+    RESOURCE("resource"),
+    AGENT("agent"),
+    STATUS("status"),
+    SIZE("size");
+
+    private final String fieldName;
+
+    LogField(String fieldName) {
+        this.fieldName = fieldName;
+    }
+
+    /**
+     * Находит поле по имени без учёта регистра.
+     *
+     * @param name имя поля, например {@code method} или {@code agent}.
+     * @return поле лога.
+     * @throws IllegalArgumentException если поле неизвестно.
+     */
+    static LogField of(String name) {
+        String normalized = name.toLowerCase(Locale.ROOT);
+        for (LogField field : values()) {
+            if (field.fieldName.equals(normalized)) {
+                return field;
+            }
+        }
+        throw new IllegalArgumentException(
+            "Неизвестное поле фильтра: " + name + ". Доступные поля: ip, method, resource, agent, status, size.");
+    }
+}
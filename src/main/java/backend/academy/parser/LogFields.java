@@ -0,0 +1,32 @@
+package backend.academy.parser;
+
+/**
+ * Доступ к полям разбираемой строки лога до создания {@link LogRecord}.
+ * Быстрый путь отдаёт текстовые поля как представления над байтами строки без копирования,
+ * запасной путь — как уже выделенные регулярным выражением строки.
+ */
+interface LogFields {
+
+    /**
+     * Возвращает текстовое поле строки.
+     *
+     * @param field одно из полей {@link LogField#IP}, {@link LogField#METHOD},
+     *     {@link LogField#RESOURCE} или {@link LogField#AGENT}.
+     * @return значение поля; действительно до разбора следующей строки.
+     */
+    CharSequence text(LogField field);
+
+    /**
+     * Возвращает HTTP-код ответа.
+     *
+     * @return код ответа.
+     */
+    int statusCode();
+
+    /**
+     * Возвращает размер ответа в байтах.
+     *
+     * @return размер ответа.
+     */
+    int responseSize();
+}
@@ -0,0 +1,119 @@
+package backend.academy.parser;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+import lombok.experimental.UtilityClass;
+
+/**
+ * Вспомогательные операции над несжатыми файлами логов по смещениям: поиск границ строк,
+ * подсчёт строк и контрольная сумма начала файла, по которой индекс и контрольная точка узнают,
+ * что по пути лежит тот же файл, а не новый после ротации.
+ */
+@UtilityClass
+public class LogFiles {
+
+    private static final int SCAN_BUFFER_SIZE = 8_192;
+    private static final int COUNT_BUFFER_SIZE = 1_048_576;
+    private static final byte LF = '\n';
+
+    /**
+     * Возвращает смещение первого начала строки не раньше {@code offset}.
+     *
+     * @param path путь к файлу.
+     * @param offset смещение в файле.
+     * @return {@code offset}, если с него начинается строка; иначе начало следующей строки
+     *     или размер файла, если перевода строки дальше нет.
+     * @throws IOException если файл не удалось прочитать.
+     */
+    public static long lineStartAtOrAfter(Path path, long offset) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (offset <= 0 || offset >= size) {
+                return Math.clamp(offset, 0, size);
+            }
+            return ParallelFileParser.nextLineStart(channel, offset - 1, size, ByteBuffer.allocate(SCAN_BUFFER_SIZE));
+        }
+    }
+
+    /**
+     * Возвращает смещение сразу после последнего перевода строки в диапазоне {@code [from, size)}.
+     * Неполная последняя строка дописываемого файла в этот диапазон не входит.
+     *
+     * @param path путь к файлу.
+     * @param from смещение, с которого ищется перевод строки.
+     * @return конец последней полной строки или {@code from}, если полных строк после него нет.
+     * @throws IOException если файл не удалось прочитать.
+     */
+    public static long completeLinesEnd(Path path, long from) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer scan = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+            long end = channel.size();
+            while (end > from) {
+                long start = Math.max(from, end - SCAN_BUFFER_SIZE);
+                scan.clear().limit((int) (end - start));
+                readFully(channel, scan, start);
+                for (int i = scan.position() - 1; i >= 0; i--) {
+                    if (scan.get(i) == LF) {
+                        return start + i + 1;
+                    }
+                }
+                end = start;
+            }
+            return from;
+        }
+    }
+
+    /**
+     * Вычисляет CRC32C первых {@code length} байт файла.
+     *
+     * @param path путь к файлу.
+     * @param length количество байт с начала файла.
+     * @return контрольная сумма; если файл короче, считается по всем его байтам.
+     * @throws IOException если файл не удалось прочитать.
+     */
+    public static long prefixChecksum(Path path, int length) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer prefix = ByteBuffer.allocate(length);
+            readFully(channel, prefix, 0);
+            CRC32C checksum = new CRC32C();
+            checksum.update(prefix.flip());
+            return checksum.getValue();
+        }
+    }
+
+    /**
+     * Считает строки файла: переводы строки и неполную последнюю строку, если она есть.
+     *
+     * @param path путь к файлу.
+     * @return количество строк.
+     * @throws IOException если файл не удалось прочитать.
+     */
+    public static long countLines(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer scan = ByteBuffer.allocateDirect(COUNT_BUFFER_SIZE);
+            long lines = 0;
+            byte last = LF;
+            while (channel.read(scan.clear()) > 0) {
+                scan.flip();
+                while (scan.hasRemaining()) {
+                    last = scan.get();
+                    if (last == LF) {
+                        lines++;
+                    }
+                }
+            }
+            return last == LF ? lines : lines + 1;
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        int read;
+        do {
+            read = channel.read(buffer, position + buffer.position());
+        } while (read > 0 && buffer.hasRemaining());
+    }
+}
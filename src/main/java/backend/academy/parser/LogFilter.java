@@ -1,8 +1,13 @@
 package backend.academy.parser;
 
 import java.time.LocalDateTime;
-import lombok.AllArgsConstructor;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+import lombok.AccessLevel;
 import lombok.Getter;
+import lombok.Setter;
 
 /**
  * Класс LogFilter представляет параметры фильтрации логов.
@@ -14,15 +19,146 @@ import lombok.Getter;
  * - to: Конечная дата и время анализа (включительно).
  * - filterField: Поле для фильтрации (например, "method" или "agent").
  * - filterValue: Значение фильтра для указанного поля (может включать шаблоны, такие как "Mozilla*").
+ *   Как и раньше, метод сравнивается целиком без учёта регистра, а неизвестное поле не отбрасывает строк
+ *   (в журнал выводится предупреждение); остальные поля понимаются так же, как в выражениях.
+ * - expressions: Выражения фильтра по нескольким полям с and/or/not (см. {@link FilterExpression}).
  *
- * Конструктор принимает все параметры фильтрации.
+ * Все условия по полям один раз компилируются в дерево {@link LogPredicate}, объединённое через И,
+ * и проверяются по сырым полям строки до создания {@link LogRecord}.
+ * Конструктор принимает все параметры фильтрации. Границы диапазона сразу переводятся
+ * в секунды эпохи местного времени записи, поэтому проверка диапазона — два сравнения {@code long}.
+ *
+ * Если включён поиск ({@code seek}), несжатые файлы считаются упорядоченными по времени
+ * и читаются только в окрестности диапазона (см. {@link TimeRangeSeeker});
+ * {@code seekToleranceSeconds} — допустимое отставание меток от порядка строк.
+ * Границы {@code fromLocalSecond} и {@code toLocalSecond} — секунды эпохи местного времени,
+ * {@link Long#MIN_VALUE} и {@link Long#MAX_VALUE}, если край диапазона не задан.
+ *
+ * Метрики разбора, обработчик строк, которые не удалось разобрать, и параметры поэтапного разбора
+ * передаются отдельно, в {@link ParseContext}.
  */
 @Getter
-@AllArgsConstructor
 public class LogFilter {
 
+    private static final Logger LOGGER = Logger.getLogger(LogFilter.class.getName());
+
     private LocalDateTime from;
     private LocalDateTime to;
     private String filterField;
     private String filterValue;
+    private List<String> expressions;
+    @Getter(AccessLevel.NONE)
+    private LogPredicate predicate;
+    private long fromLocalSecond;
+    private long toLocalSecond;
+    @Setter
+    private boolean seek;
+    @Setter
+    private long seekToleranceSeconds;
+
+    /**
+     * Создаёт параметры фильтрации.
+     *
+     * @param from начальная дата и время (может быть null).
+     * @param to конечная дата и время (может быть null).
+     * @param filterField поле для фильтрации (может быть null).
+     * @param filterValue значение фильтра (может быть null).
+     */
+    public LogFilter(LocalDateTime from, LocalDateTime to, String filterField, String filterValue) {
+        this(from, to, filterField, filterValue, List.of());
+    }
+
+    /**
+     * Создаёт параметры фильтрации с выражениями фильтра.
+     *
+     * @param from начальная дата и время (может быть null).
+     * @param to конечная дата и время (может быть null).
+     * @param filterField поле для фильтрации (может быть null).
+     * @param filterValue значение фильтра (может быть null).
+     * @param expressions выражения фильтра, например {@code method=GET and status=5xx}.
+     * @throws IllegalArgumentException если поле выражения неизвестно или выражение записано неверно.
+     */
+    public LogFilter(
+        LocalDateTime from,
+        LocalDateTime to,
+        String filterField,
+        String filterValue,
+        List<String> expressions
+    ) {
+        this.from = from;
+        this.to = to;
+        this.filterField = filterField;
+        this.filterValue = filterValue;
+        this.expressions = List.copyOf(expressions);
+        List<LogPredicate> conditions = new ArrayList<>();
+        if (filterField != null && filterValue != null) {
+            conditions.add(legacyCondition(filterField, filterValue));
+        }
+        for (String expression : expressions) {
+            conditions.add(FilterExpression.compile(expression));
+        }
+        this.predicate = LogPredicates.and(conditions);
+        // Метки лога целые, поэтому дробная часть «from» округляется вверх, а «to» — вниз.
+        this.fromLocalSecond = from == null
+            ? Long.MIN_VALUE
+            : from.toEpochSecond(ZoneOffset.UTC) + (from.getNano() > 0 ? 1 : 0);
+        this.toLocalSecond = to == null ? Long.MAX_VALUE : to.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    /**
+     * Компилирует условие пары {@code --filter-field}/{@code --filter-value} с прежней семантикой.
+     */
+    private static LogPredicate legacyCondition(String fieldName, String value) {
+        LogField field;
+        try {
+            field = LogField.of(fieldName);
+        } catch (IllegalArgumentException e) {
+            LOGGER.warning(e.getMessage() + " Фильтр по полю не применяется.");
+            return LogPredicates.ALWAYS;
+        }
+        return field == LogField.METHOD
+            ? LogPredicates.equalsIgnoreCase(field, value)
+            : FilterExpression.condition(fieldName, value);
+    }
+
+    /**
+     * Проверяет, попадает ли запись в диапазон дат. Как и раньше, сравнивается местное время
+     * записи (без учёта её смещения часового пояса) с границами {@code from} и {@code to}.
+     *
+     * @param epochSecond момент записи в секундах эпохи UTC.
+     * @param offsetSeconds смещение часового пояса записи в секундах.
+     * @return {@code true}, если запись попадает в диапазон.
+     */
+    public boolean isInDateRange(long epochSecond, int offsetSeconds) {
+        long localSecond = epochSecond + offsetSeconds;
+        return localSecond >= fromLocalSecond && localSecond <= toLocalSecond;
+    }
+
+    /**
+     * Проверяет поля строки по условиям фильтра (без диапазона дат).
+     *
+     * @param fields поля разбираемой строки.
+     * @return {@code true}, если строка подходит под все условия.
+     */
+    boolean matches(LogFields fields) {
+        return predicate.test(fields);
+    }
+
+    /**
+     * Проверяет, задан ли хотя бы один край диапазона дат.
+     *
+     * @return {@code true}, если задан {@code from} или {@code to}.
+     */
+    public boolean hasDateRange() {
+        return from != null || to != null;
+    }
+
+    /**
+     * Проверяет, задано ли хотя бы одно условие по полям строки.
+     *
+     * @return {@code true}, если фильтр проверяет не только диапазон дат.
+     */
+    public boolean hasFieldConditions() {
+        return predicate != LogPredicates.ALWAYS;
+    }
 }
@@ -0,0 +1,337 @@
+package backend.academy.parser;
+
+import backend.academy.metrics.LineOutcome;
+import backend.academy.metrics.Stage;
+import backend.academy.metrics.StageRecorder;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.function.Consumer;
+import java.util.stream.Collector;
+
+/**
+ * Делит байтовый поток или отображённый в память кусок файла на строки и разбирает их.
+ * Строки разделяются так же, как в {@link java.io.BufferedReader#readLine()}:
+ * по {@code \n}, {@code \r} или {@code \r\n}.
+ * Каждая строка сначала разбирается {@link LogLineTokenizer}, а при отказе быстрого пути —
+ * регулярным выражением {@link LogParser}. Разобранные записи сразу передаются
+ * приёмнику и нигде не накапливаются; их строки хранятся в словарях читателя.
+ * Если приёмник принимает блоки ({@link RecordBatchSink}), записи не создаются:
+ * поля строк складываются в колоночный {@link RecordBatch}, который передаётся приёмнику
+ * по заполнении и в конце каждого чтения.
+ * Итоги строк, прочитанные байты и время этапов копятся в {@link StageRecorder} читателя
+ * и передаются в метрики разбора ({@link ParseContext#metrics()}), если они заданы, после каждого
+ * разобранного блока: буфера потока или переданного куска. Строки, которые не удалось разобрать,
+ * передаются обработчику {@link ParseContext#badLines()} вместе со смещением в источнике, а число
+ * прочитанных строк сообщается ему раз в {@value #CHECK_INTERVAL} строк и в конце блока.
+ * Строка потока длиннее {@value #MAX_LINE_BYTES} байт отклоняется как {@link LineOutcome#MALFORMED}:
+ * обработчику передаётся её начало, а остаток до следующего перевода строки пропускается,
+ * поэтому буфер чтения не растёт без предела, даже если в потоке нет переводов строк.
+ *
+ * Экземпляр не потокобезопасен: каждому потоку нужен свой читатель.
+ */
+final class LogLineReader {
+
+    private static final int BUFFER_SIZE = 65_536;
+    private static final byte LF = '\n';
+    private static final byte CR = '\r';
+    private static final int CHECK_INTERVAL = 4_096;
+
+    /**
+     * Наибольшая длина строки потока в байтах, до которой растёт буфер чтения.
+     */
+    static final int MAX_LINE_BYTES = 4_194_304;
+
+    private final LogFilter filter;
+    private final Consumer<LogRecord> sink;
+    private final RecordBatchSink batchSink;
+    private final LogLineTokenizer tokenizer = new LogLineTokenizer();
+    private final FieldDictionaries dictionaries = new FieldDictionaries();
+    private final RecordBatch batch;
+    private final StageRecorder recorder;
+    private final BadLines badLines;
+    private long streamOffset;
+    private boolean offsetsKnown = true;
+    private int uncheckedLines;
+    private int uncheckedRejected;
+    private boolean skipping;
+    private boolean skippedCr;
+
+    LogLineReader(LogFilter filter, ParseContext context, Consumer<LogRecord> sink) {
+        this.filter = filter;
+        this.sink = sink;
+        this.batchSink = null;
+        this.batch = null;
+        this.recorder = new StageRecorder(context.metrics());
+        this.badLines = context.badLines();
+    }
+
+    private LogLineReader(LogFilter filter, ParseContext context, RecordBatchSink batchSink) {
+        this.filter = filter;
+        this.sink = null;
+        this.batchSink = batchSink;
+        this.batch = new RecordBatch(dictionaries);
+        this.recorder = new StageRecorder(context.metrics());
+        this.badLines = context.badLines();
+    }
+
+    /**
+     * Создаёт читатель, передающий записи в частичный результат коллектора:
+     * блоками, если результат реализует {@link RecordBatchSink}, иначе через аккумулятор коллектора.
+     *
+     * @param filter параметры фильтрации.
+     * @param context общее состояние разбора.
+     * @param collector коллектор.
+     * @param container частичный результат коллектора.
+     * @param <A> тип частичного результата.
+     * @return читатель строк.
+     */
+    static <A> LogLineReader of(
+        LogFilter filter,
+        ParseContext context,
+        Collector<LogRecord, A, ?> collector,
+        A container
+    ) {
+        if (container instanceof RecordBatchSink batchSink) {
+            return new LogLineReader(filter, context, batchSink);
+        }
+        Consumer<LogRecord> sink = logRecord -> collector.accumulator().accept(container, logRecord);
+        return new LogLineReader(filter, context, sink);
+    }
+
+    /**
+     * Создаёт читатель, передающий записи блоками.
+     *
+     * @param filter параметры фильтрации.
+     * @param context общее состояние разбора.
+     * @param batchSink приёмник блоков.
+     * @return читатель строк.
+     */
+    static LogLineReader of(LogFilter filter, ParseContext context, RecordBatchSink batchSink) {
+        return new LogLineReader(filter, context, batchSink);
+    }
+
+    /**
+     * Читает поток до конца, разбирая каждую строку.
+     *
+     * @param input поток байт лога.
+     * @throws IOException если чтение потока завершилось ошибкой.
+     */
+    void read(InputStream input) throws IOException {
+        byte[] tail = readCompleteLines(input);
+        parseLines(ByteBuffer.wrap(tail), tail.length, true);
+        flush();
+        recorder.publish();
+    }
+
+    /**
+     * Читает поток до конца, разбирая только строки, завершённые переводом строки.
+     * Байты после последнего перевода строки (и завершающий {@code \r}, за которым
+     * может следовать {@code \n} из следующего куска) не разбираются, а возвращаются.
+     *
+     * @param input поток байт лога.
+     * @return неразобранный остаток потока.
+     * @throws IOException если чтение потока завершилось ошибкой.
+     */
+    byte[] readCompleteLines(InputStream input) throws IOException {
+        byte[] data = new byte[BUFFER_SIZE];
+        ByteBuffer view = ByteBuffer.wrap(data);
+        int length = 0;
+        int read;
+        recorder.start();
+        while ((read = input.read(data, length, data.length - length)) != -1) {
+            recorder.stop(Stage.READ);
+            length += read;
+            if (skipping) {
+                int skipped = skipOversizedLine(view, length);
+                System.arraycopy(data, skipped, data, 0, length - skipped);
+                length -= skipped;
+                streamOffset += skipped;
+            }
+            int consumed = parseLines(view, length, false);
+            System.arraycopy(data, consumed, data, 0, length - consumed);
+            length -= consumed;
+            streamOffset += consumed;
+            if (length == data.length && data.length < MAX_LINE_BYTES) {
+                data = Arrays.copyOf(data, data.length * 2);
+                view = ByteBuffer.wrap(data);
+            } else if (length == data.length) {
+                rejectOversizedLine(view, length);
+                streamOffset += length;
+                length = 0;
+                skipping = true;
+            }
+            recorder.start();
+        }
+        recorder.stop(Stage.READ);
+        flush();
+        recorder.publish();
+        return Arrays.copyOf(data, length);
+    }
+
+    /**
+     * Задаёт смещение первого байта следующего читаемого потока; с него отсчитываются
+     * смещения строк в {@link RecordBatch#lineOffsets()}.
+     *
+     * @param offset смещение начала потока, например в файле.
+     * @return этот читатель.
+     */
+    LogLineReader startingAt(long offset) {
+        this.streamOffset = offset;
+        return this;
+    }
+
+    /**
+     * Отмечает, что смещение читаемых данных в источнике неизвестно (например, у куска,
+     * начало которого определится только при склейке с соседним); отклонённые строки
+     * передаются обработчику со смещением {@code -1}.
+     *
+     * @return этот читатель.
+     */
+    LogLineReader withoutOffsets() {
+        this.offsetsKnown = false;
+        return this;
+    }
+
+    /**
+     * Разбирает все строки буфера от нулевого индекса до его {@code limit}.
+     *
+     * @param buffer буфер с целыми строками лога.
+     */
+    void read(ByteBuffer buffer) {
+        parseLines(buffer, buffer.limit(), true);
+        flush();
+        recorder.publish();
+    }
+
+    /**
+     * Разбирает полные строки в диапазоне {@code [0, limit)}.
+     *
+     * @return индекс первого байта, который ещё не разобран (начало неполной строки).
+     */
+    private int parseLines(ByteBuffer buffer, int limit, boolean endOfInput) {
+        recorder.beginBlock();
+        int lineStart = 0;
+        int position = 0;
+        while (position < limit) {
+            byte current = buffer.get(position);
+            if (current == LF || current == CR) {
+                if (current == CR && position + 1 == limit && !endOfInput) {
+                    break;
+                }
+                parseLine(buffer, lineStart, position);
+                if (current == CR && position + 1 < limit && buffer.get(position + 1) == LF) {
+                    position++;
+                }
+                lineStart = position + 1;
+            }
+            position++;
+        }
+        if (endOfInput && lineStart < limit) {
+            parseLine(buffer, lineStart, limit);
+            lineStart = limit;
+        }
+        if (uncheckedLines > 0) {
+            check();
+        }
+        recorder.endBlock(lineStart);
+        return lineStart;
+    }
+
+    private void parseLine(ByteBuffer buffer, int start, int end) {
+        recorder.beginLine();
+        boolean tokenized = tokenizer.tokenize(buffer, start, end);
+        recorder.lap(Stage.PARSE);
+        if (batch != null && tokenized) {
+            LogParser.appendTokens(tokenizer, filter, batch, streamOffset + start, recorder);
+            recorder.lap(Stage.PARSE);
+        } else {
+            LogRecord logRecord = tokenized
+                ? LogParser.parseTokens(tokenizer, filter, dictionaries, recorder)
+                : LogParser.parseLine(tokenizer.line(), filter, dictionaries, recorder);
+            recorder.lap(Stage.PARSE);
+            if (logRecord != null && batch != null) {
+                batch.add(logRecord.ipAddressId(), logRecord.epochSecond(), logRecord.offsetSeconds(),
+                    logRecord.resourceId(), logRecord.statusCode(), logRecord.responseSize(), streamOffset + start);
+            } else if (logRecord != null) {
+                sink.accept(logRecord);
+            }
+            recorder.lap(Stage.AGGREGATE);
+        }
+        if (recorder.last().rejected()) {
+            badLines.reject(recorder.last(), buffer, start, end, offsetsKnown ? streamOffset + start : -1);
+            uncheckedRejected++;
+        }
+        if (++uncheckedLines == CHECK_INTERVAL) {
+            check();
+        }
+        if (batch != null && batch.isFull()) {
+            flush();
+        }
+    }
+
+    /**
+     * Отклоняет как {@link LineOutcome#MALFORMED} строку, не поместившуюся в буфер наибольшего размера;
+     * обработчику передаётся её начало {@code [0, end)}. Остаток строки пропускает вызывающий.
+     *
+     * @param buffer буфер с началом строки.
+     * @param end индекс после последнего байта начала строки.
+     */
+    void rejectOversizedLine(ByteBuffer buffer, int end) {
+        recorder.beginBlock();
+        recorder.count(LineOutcome.MALFORMED);
+        badLines.reject(LineOutcome.MALFORMED, buffer, 0, end, offsetsKnown ? streamOffset : -1);
+        uncheckedRejected++;
+        uncheckedLines++;
+        check();
+        recorder.endBlock(end);
+    }
+
+    /**
+     * Пропускает остаток слишком длинной строки до перевода строки включительно.
+     * Если буфер кончается на {@code \r}, следующее чтение пропускает ещё и {@code \n} в его начале.
+     *
+     * @return сколько байт с начала буфера пропущено.
+     */
+    private int skipOversizedLine(ByteBuffer buffer, int limit) {
+        recorder.beginBlock();
+        int position = 0;
+        if (skippedCr) {
+            skipping = false;
+            skippedCr = false;
+            position = limit > 0 && buffer.get(0) == LF ? 1 : 0;
+        }
+        while (skipping && position < limit) {
+            byte current = buffer.get(position++);
+            if (current == LF || current == CR) {
+                skippedCr = current == CR && position == limit;
+                skipping = skippedCr;
+                if (current == CR && position < limit && buffer.get(position) == LF) {
+                    position++;
+                }
+            }
+        }
+        recorder.endBlock(position);
+        return position;
+    }
+
+    /**
+     * Сообщает обработчику отклонённых строк, сколько строк прочитано с прошлой проверки;
+     * обработчик прерывает разбор, если доля ошибок превысила порог.
+     */
+    private void check() {
+        badLines.check(uncheckedLines, uncheckedRejected);
+        uncheckedLines = 0;
+        uncheckedRejected = 0;
+    }
+
+    private void flush() {
+        if (batch != null && batch.size() > 0) {
+            recorder.start();
+            batchSink.accept(batch);
+            recorder.stop(Stage.AGGREGATE);
+            batch.clear();
+        }
+    }
+}
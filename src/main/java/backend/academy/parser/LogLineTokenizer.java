@@ -0,0 +1,405 @@
+package backend.academy.parser;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Побайтовый токенизатор строк лога NGINX в формате combined.
+ * Сканирует сырые байты строки без декодирования в {@link String} и запоминает
+ * смещения полей; код ответа и размер ответа разбираются прямо из байт.
+ * Строки создаются только для тех полей, которые запрошены через аксессоры;
+ * временная метка разбирается в секунды эпохи без промежуточных объектов,
+ * а фильтр проверяет текстовые поля через представления {@link AsciiSequence} над буфером.
+ *
+ * Быстрый путь принимает только ASCII-строки, для которых результат гарантированно
+ * совпадает с разбором через регулярное выражение {@code LogParser.LOG_PATTERN}.
+ * Если строка отклонена, её нужно разобрать регулярным выражением.
+ */
+public final class LogLineTokenizer implements LogFields {
+
+    private static final int STATUS_DIGITS = 3;
+    private static final int SCRATCH_SIZE = 256;
+    private static final int MAX_SIZE_DIGITS = 9;
+    private static final int DECIMAL_BASE = 10;
+    private static final byte SPACE = ' ';
+    private static final byte QUOTE = '"';
+    private static final byte OPEN_BRACKET = '[';
+    private static final byte CLOSE_BRACKET = ']';
+
+    private ByteBuffer buffer;
+    private int lineStart;
+    private int lineEnd;
+    private int ipStart;
+    private int ipEnd;
+    private int dateStart;
+    private int dateEnd;
+    private int methodStart;
+    private int methodEnd;
+    private int resourceStart;
+    private int resourceEnd;
+    private int agentStart;
+    private int agentEnd;
+    private int statusCode;
+    private int responseSize;
+    private byte[] scratch = new byte[SCRATCH_SIZE];
+    private final NginxTimestampParser timestamps = new NginxTimestampParser();
+    private long epochSecond;
+    private int offsetSeconds;
+    private final AsciiSequence ipView = new AsciiSequence();
+    private final AsciiSequence methodView = new AsciiSequence();
+    private final AsciiSequence resourceView = new AsciiSequence();
+    private final AsciiSequence agentView = new AsciiSequence();
+
+    /**
+     * Разбирает строку, занимающую байты {@code [start, end)} буфера.
+     * Буфер читается абсолютными индексами, его позиция не меняется.
+     *
+     * @param source буфер со строкой.
+     * @param start индекс первого байта строки.
+     * @param end индекс байта, следующего за последним байтом строки.
+     * @return {@code true}, если строка разобрана быстрым путём.
+     */
+    public boolean tokenize(ByteBuffer source, int start, int end) {
+        this.buffer = source;
+        this.lineStart = start;
+        this.lineEnd = end;
+
+        ipStart = start;
+        ipEnd = skipToken(ipStart);
+        int position = skipToken(expectSpace(ipEnd));
+        position = skipToken(expectSpace(position));
+        position = expect(expectSpace(position), OPEN_BRACKET);
+        if (position < 0) {
+            return false;
+        }
+
+        dateStart = position;
+        dateEnd = findDateEnd(position);
+        position = expect(expect(expect(dateEnd, CLOSE_BRACKET), SPACE), QUOTE);
+
+        methodStart = position;
+        methodEnd = skipToken(methodStart);
+        resourceStart = expectSpace(methodEnd);
+        resourceEnd = skipToken(resourceStart);
+        position = skipProtocol(expectSpace(resourceEnd));
+        position = parseStatus(expectSpace(position));
+        position = parseSize(expectSpace(position));
+        position = expect(expectSpace(position), QUOTE);
+        if (position < 0) {
+            return false;
+        }
+
+        int refererEnd = findRefererEnd(position);
+        agentStart = expect(expect(expect(refererEnd, QUOTE), SPACE), QUOTE);
+        agentEnd = findQuote(agentStart);
+        return agentEnd >= 0;
+    }
+
+    /**
+     * Возвращает IP-адрес клиента.
+     *
+     * @return IP-адрес.
+     */
+    public String ipAddress() {
+        return ascii(ipStart, ipEnd);
+    }
+
+    /**
+     * Возвращает номер IP-адреса в словаре, не создавая строку для уже известных адресов.
+     *
+     * @param dictionary словарь IP-адресов.
+     * @return номер IP-адреса.
+     */
+    int internIpAddress(StringDictionary dictionary) {
+        return dictionary.intern(buffer, ipStart, ipEnd);
+    }
+
+    /**
+     * Возвращает номер ресурса в словаре, не создавая строку для уже известных ресурсов.
+     *
+     * @param dictionary словарь ресурсов.
+     * @return номер ресурса.
+     */
+    int internResource(StringDictionary dictionary) {
+        return dictionary.intern(buffer, resourceStart, resourceEnd);
+    }
+
+    /**
+     * Возвращает текст временной метки без квадратных скобок.
+     *
+     * @return временная метка в формате {@code dd/MMM/yyyy:HH:mm:ss Z}.
+     */
+    public String dateTime() {
+        return ascii(dateStart, dateEnd);
+    }
+
+    /**
+     * Разбирает временную метку без создания объектов (см. {@link NginxTimestampParser}).
+     * Результат доступен через {@link #epochSecond()} и {@link #offsetSeconds()}.
+     *
+     * @return {@code true}, если метка разобрана; иначе её нужно разобрать через {@link #dateTime()}.
+     */
+    public boolean parseDateTime() {
+        if (!timestamps.parse(buffer, dateStart, dateEnd)) {
+            return false;
+        }
+        epochSecond = timestamps.epochSecond();
+        offsetSeconds = timestamps.offsetSeconds();
+        return true;
+    }
+
+    /**
+     * Разбирает временную метку форматтером; используется для меток, которые отклонил
+     * {@link #parseDateTime()}. Результат доступен через {@link #epochSecond()} и {@link #offsetSeconds()}.
+     *
+     * @param formatter форматтер временной метки.
+     * @throws java.time.format.DateTimeParseException если метку не удалось разобрать.
+     */
+    public void parseDateTime(DateTimeFormatter formatter) {
+        OffsetDateTime timestamp = OffsetDateTime.parse(dateTime(), formatter);
+        epochSecond = timestamp.toEpochSecond();
+        offsetSeconds = timestamp.getOffset().getTotalSeconds();
+    }
+
+    /**
+     * Возвращает момент времени, разобранный {@link #parseDateTime()}.
+     *
+     * @return секунды эпохи UTC.
+     */
+    public long epochSecond() {
+        return epochSecond;
+    }
+
+    /**
+     * Возвращает смещение часового пояса, разобранное {@link #parseDateTime()}.
+     *
+     * @return смещение в секундах.
+     */
+    public int offsetSeconds() {
+        return offsetSeconds;
+    }
+
+    /**
+     * Возвращает HTTP-метод запроса.
+     *
+     * @return HTTP-метод.
+     */
+    public String method() {
+        return ascii(methodStart, methodEnd);
+    }
+
+    /**
+     * Возвращает запрашиваемый ресурс.
+     *
+     * @return ресурс.
+     */
+    public String resource() {
+        return ascii(resourceStart, resourceEnd);
+    }
+
+    /**
+     * Возвращает User-Agent клиента.
+     *
+     * @return User-Agent.
+     */
+    public String userAgent() {
+        return ascii(agentStart, agentEnd);
+    }
+
+    /**
+     * Возвращает текстовое поле как представление над байтами строки, без создания {@link String}.
+     *
+     * @param field текстовое поле.
+     * @return значение поля; действительно до разбора следующей строки.
+     */
+    @Override
+    public CharSequence text(LogField field) {
+        return switch (field) {
+            case IP -> ipView.set(buffer, ipStart, ipEnd);
+            case METHOD -> methodView.set(buffer, methodStart, methodEnd);
+            case RESOURCE -> resourceView.set(buffer, resourceStart, resourceEnd);
+            case AGENT -> agentView.set(buffer, agentStart, agentEnd);
+            default -> throw new IllegalArgumentException("Поле не текстовое: " + field);
+        };
+    }
+
+    /**
+     * Возвращает HTTP-код ответа.
+     *
+     * @return код ответа.
+     */
+    @Override
+    public int statusCode() {
+        return statusCode;
+    }
+
+    /**
+     * Возвращает размер ответа в байтах.
+     *
+     * @return размер ответа.
+     */
+    @Override
+    public int responseSize() {
+        return responseSize;
+    }
+
+    /**
+     * Декодирует всю строку в UTF-8. Используется для сообщений об ошибках и
+     * для разбора строки регулярным выражением, если быстрый путь её отклонил.
+     *
+     * @return исходная строка лога.
+     */
+    public String line() {
+        int length = lineEnd - lineStart;
+        byte[] bytes = new byte[length];
+        buffer.get(lineStart, bytes, 0, length);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Пропускает непустую последовательность непробельных ASCII-символов (аналог {@code \S+}).
+     */
+    private int skipToken(int from) {
+        if (from < 0) {
+            return -1;
+        }
+        int position = from;
+        while (position < lineEnd && isTokenByte(buffer.get(position))) {
+            position++;
+        }
+        return position > from ? position : -1;
+    }
+
+    private int expectSpace(int position) {
+        return expect(position, SPACE);
+    }
+
+    private int expect(int position, byte expected) {
+        if (position < 0 || position >= lineEnd || buffer.get(position) != expected) {
+            return -1;
+        }
+        return position + 1;
+    }
+
+    /**
+     * Ищет первое вхождение {@code "] \""}, перед которым есть хотя бы один символ.
+     */
+    private int findDateEnd(int from) {
+        for (int position = from + 1; position + 2 < lineEnd; position++) {
+            byte current = buffer.get(position);
+            if (current == CLOSE_BRACKET && buffer.get(position + 1) == SPACE && buffer.get(position + 2) == QUOTE) {
+                return isAsciiText(from, position) ? position : -1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Пропускает версию протокола вместе с закрывающей кавычкой запроса:
+     * непробельная последовательность длиной не менее двух символов, заканчивающаяся на {@code "}.
+     */
+    private int skipProtocol(int from) {
+        int end = skipToken(from);
+        if (end < 0 || end - from < 2 || buffer.get(end - 1) != QUOTE) {
+            return -1;
+        }
+        return end;
+    }
+
+    private int parseStatus(int from) {
+        if (from < 0 || from + STATUS_DIGITS > lineEnd) {
+            return -1;
+        }
+        int value = 0;
+        for (int position = from; position < from + STATUS_DIGITS; position++) {
+            int digit = buffer.get(position) - '0';
+            if (digit < 0 || digit >= DECIMAL_BASE) {
+                return -1;
+            }
+            value = value * DECIMAL_BASE + digit;
+        }
+        statusCode = value;
+        return from + STATUS_DIGITS;
+    }
+
+    private int parseSize(int from) {
+        if (from < 0) {
+            return -1;
+        }
+        int value = 0;
+        int position = from;
+        while (position < lineEnd) {
+            int digit = buffer.get(position) - '0';
+            if (digit < 0 || digit >= DECIMAL_BASE) {
+                break;
+            }
+            value = value * DECIMAL_BASE + digit;
+            position++;
+        }
+        int digits = position - from;
+        if (digits == 0 || digits > MAX_SIZE_DIGITS) {
+            return -1;
+        }
+        responseSize = value;
+        return position;
+    }
+
+    /**
+     * Ищет первое вхождение {@code "\" \""} — конец поля Referer.
+     */
+    private int findRefererEnd(int from) {
+        for (int position = from; position + 2 < lineEnd; position++) {
+            byte current = buffer.get(position);
+            if (current < 0) {
+                return -1;
+            }
+            if (current == QUOTE && buffer.get(position + 1) == SPACE && buffer.get(position + 2) == QUOTE) {
+                return position;
+            }
+        }
+        return -1;
+    }
+
+    private int findQuote(int from) {
+        if (from < 0) {
+            return -1;
+        }
+        for (int position = from; position < lineEnd; position++) {
+            byte current = buffer.get(position);
+            if (current < 0) {
+                return -1;
+            }
+            if (current == QUOTE) {
+                return position;
+            }
+        }
+        return -1;
+    }
+
+    private boolean isAsciiText(int from, int to) {
+        for (int position = from; position < to; position++) {
+            if (buffer.get(position) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String ascii(int from, int to) {
+        int length = to - from;
+        if (scratch.length < length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+        buffer.get(from, scratch, 0, length);
+        return new String(scratch, 0, length, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Проверяет, что байт — непробельный ASCII-символ в смысле {@code \S} регулярных выражений Java.
+     */
+    private static boolean isTokenByte(byte value) {
+        return value > SPACE || value >= 0 && value < '\t' || value > '\r' && value < SPACE;
+    }
+}
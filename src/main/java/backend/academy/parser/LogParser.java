@@ -1,24 +1,38 @@
 package backend.academy.parser;
 
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
-import java.net.URL;
+import backend.academy.metrics.LineOutcome;
+import backend.academy.metrics.Stage;
+import backend.academy.metrics.StageRecorder;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.time.LocalDateTime;
+import java.time.DateTimeException;
 import java.time.OffsetDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
 import java.util.logging.Logger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.stream.Collector;
+import java.util.stream.Collectors;
 import lombok.experimental.UtilityClass;
 
 /**
  * Парсер логов NGINX. Преобразует строки логов в объекты {@link LogRecord}.
- * Поддерживает чтение из локальных файлов и URL.
+ * Поддерживает чтение из локальных файлов, URL и стандартного ввода ({@code -}), в том числе нескольких сразу.
+ * Сжатые gzip данные распознаются по сигнатуре и распаковываются на лету.
+ * URL загружаются через {@link HttpLogSource}, при поддержке сервером — параллельно по диапазонам.
+ * Локальные файлы могут разбираться параллельно (см. {@link ParallelFileParser}).
+ * Строки разбираются побайтовым {@link LogLineTokenizer}; регулярное выражение
+ * {@code LOG_PATTERN} остаётся запасным путём для строк, которые токенизатор отклонил.
+ * Итог разбора каждой строки и время её этапов отмечаются в {@link StageRecorder} читателя,
+ * а строки, которые не удалось разобрать, передаются обработчику {@link ParseContext#badLines()}.
+ * Ошибка чтения источника оставляет результат по уже разобранным строкам; только прерывание
+ * из-за доли ошибок ({@link TooManyBadLinesException}) доходит до вызывающего кода.
  */
 @UtilityClass
 public class LogParser {
@@ -30,10 +44,28 @@ public class LogParser {
     private static final int STATUS_CODE_INDEX = 5;
     private static final int RESPONSE_SIZE_INDEX = 6;
     private static final int AGENT_INDEX = 8;
+    private static final String STDIN = "-";
     private static final Logger LOGGER = Logger.getLogger(LogParser.class.getName());
     private static final Pattern LOG_PATTERN = Pattern.compile(
         "^(\\S+) \\S+ \\S+ \\[(.+?)] \"(\\S+) (\\S+) \\S+\" (\\d{3}) (\\d+) \"(.*?)\" \"(.*?)\""
     );
+    /**
+     * Счётчики итогов для разбора отдельных строк ({@link #parseLine(byte[], LogFilter)}): по одному на поток
+     * и без метрик. Нужны только для {@link StageRecorder#last()}, по которому отклонённая строка передаётся
+     * обработчику; общий для всех потоков экземпляр не подходит, потому что итог последней строки у каждого свой.
+     */
+    private static final ThreadLocal<StageRecorder> LINE_OUTCOMES =
+        ThreadLocal.withInitial(() -> new StageRecorder(null));
+    /**
+     * Токенизаторы для разбора отдельных строк: по одному на поток, как и {@link #LINE_OUTCOMES},
+     * чтобы разбор строки не создавал заново токенизатор с его буфером, разборщиком времени и представлениями полей.
+     */
+    private static final ThreadLocal<LogLineTokenizer> LINE_TOKENIZERS = ThreadLocal.withInitial(LogLineTokenizer::new);
+    /**
+     * Состояние разбора для отдельных строк, разобранных без своего {@link ParseContext}: журнал отклонённых
+     * строк ограничивается по всем таким вызовам сразу, а не заново на каждой строке.
+     */
+    private static final ParseContext LINE_CONTEXT = new ParseContext();
     private static final DateTimeFormatter DATE_FORMATTER =
         DateTimeFormatter.ofPattern("dd/MMM/yyyy:HH:mm:ss Z", Locale.ENGLISH);
 
@@ -45,82 +77,555 @@ public class LogParser {
      * @return список объектов {@link LogRecord}.
      */
     public static List<LogRecord> parse(String pathOrUrl, LogFilter filter) {
-        List<LogRecord> logs = new ArrayList<>();
+        return parse(pathOrUrl, filter, false);
+    }
+
+    /**
+     * Парсит лог-файлы по указанному пути или URL и возвращает список записей.
+     * В параллельном режиме локальный файл отображается в память и разбирается
+     * кусками в пуле fork-join; порядок записей совпадает с последовательным режимом.
+     *
+     * @param pathOrUrl путь к файлу логов или URL.
+     * @param filter обозначение диапазона анализа (может быть null).
+     * @param parallel разбирать ли локальный файл параллельно.
+     * @return список объектов {@link LogRecord}.
+     */
+    public static List<LogRecord> parse(String pathOrUrl, LogFilter filter, boolean parallel) {
+        return parse(pathOrUrl, filter, parallel, Collectors.toList());
+    }
+
+    /**
+     * Парсит лог-файлы по указанному пути или URL, передавая каждую запись в коллектор
+     * сразу после разбора строки. Записи нигде не накапливаются, поэтому расход памяти
+     * определяется только состоянием коллектора.
+     * В параллельном режиме каждый кусок файла собирается в свой частичный результат,
+     * которые затем объединяются функцией {@link Collector#combiner()} в порядке кусков.
+     *
+     * @param pathOrUrl путь к файлу логов или URL.
+     * @param filter обозначение диапазона анализа (может быть null).
+     * @param parallel разбирать ли локальный файл параллельно.
+     * @param collector коллектор, принимающий записи.
+     * @param <A> тип промежуточного результата коллектора.
+     * @param <R> тип итогового результата.
+     * @return результат коллектора; если ресурс не удалось прочитать до конца —
+     *     результат по уже разобранным строкам.
+     */
+    public static <A, R> R parse(
+        String pathOrUrl,
+        LogFilter filter,
+        boolean parallel,
+        Collector<LogRecord, A, R> collector
+    ) {
+        return parse(pathOrUrl, filter, new ParseContext(), parallel, collector);
+    }
+
+    /**
+     * Парсит лог-файлы по указанному пути или URL, как {@link #parse(String, LogFilter, boolean, Collector)},
+     * в рамках общего разбора.
+     *
+     * @param pathOrUrl путь к файлу логов или URL.
+     * @param filter обозначение диапазона анализа (может быть null).
+     * @param context общее состояние разбора.
+     * @param parallel разбирать ли локальный файл параллельно.
+     * @param collector коллектор, принимающий записи.
+     * @param <A> тип промежуточного результата коллектора.
+     * @param <R> тип итогового результата.
+     * @return результат коллектора; если ресурс не удалось прочитать до конца —
+     *     результат по уже разобранным строкам.
+     */
+    public static <A, R> R parse(
+        String pathOrUrl,
+        LogFilter filter,
+        ParseContext context,
+        boolean parallel,
+        Collector<LogRecord, A, R> collector
+    ) {
+        return collector.finisher().apply(
+            parseSource(pathOrUrl, filter, context, parallel, HttpSettings.DEFAULT, collector));
+    }
+
+    /**
+     * Парсит несколько файлов или URL и собирает все записи в один результат.
+     * Источники обрабатываются одновременно (см. {@link MultiFileParser}), а частичные
+     * результаты объединяются в порядке списка, поэтому результат не зависит от того,
+     * какой файл был разобран раньше.
+     *
+     * @param sources пути к файлам логов или URL.
+     * @param filter обозначение диапазона анализа (может быть null).
+     * @param parallel разбирать ли каждый локальный файл параллельно по кускам.
+     * @param collector коллектор, принимающий записи.
+     * @param <A> тип промежуточного результата коллектора.
+     * @param <R> тип итогового результата.
+     * @return результат коллектора по всем источникам.
+     */
+    public static <A, R> R parse(
+        List<String> sources,
+        LogFilter filter,
+        boolean parallel,
+        Collector<LogRecord, A, R> collector
+    ) {
+        return parse(sources, filter, new ParseContext(), parallel, HttpSettings.DEFAULT, collector);
+    }
+
+    /**
+     * Парсит несколько файлов или URL в рамках общего разбора с заданными параметрами загрузки по HTTP.
+     *
+     * @param sources пути к файлам логов или URL.
+     * @param filter обозначение диапазона анализа (может быть null).
+     * @param context общее состояние разбора: метрики, обработчик неразобранных строк.
+     * @param parallel разбирать ли каждый локальный файл параллельно по кускам.
+     * @param http параметры загрузки по HTTP (повторы, таймауты, диапазоны).
+     * @param collector коллектор, принимающий записи.
+     * @param <A> тип промежуточного результата коллектора.
+     * @param <R> тип итогового результата.
+     * @return результат коллектора по всем источникам.
+     */
+    public static <A, R> R parse(
+        List<String> sources,
+        LogFilter filter,
+        ParseContext context,
+        boolean parallel,
+        HttpSettings http,
+        Collector<LogRecord, A, R> collector
+    ) {
+        if (sources.size() == 1) {
+            return collector.finisher().apply(
+                parseSource(sources.getFirst(), filter, context, parallel, http, collector));
+        }
+        return collector.finisher().apply(MultiFileParser.parse(sources, filter, context, parallel, http, collector));
+    }
+
+    /**
+     * Разбирает один источник в новый частичный результат коллектора.
+     * Ошибка чтения логируется, а возвращается результат по уже разобранным строкам.
+     */
+    static <A> A parseSource(
+        String pathOrUrl,
+        LogFilter filter,
+        ParseContext context,
+        boolean parallel,
+        HttpSettings http,
+        Collector<LogRecord, A, ?> collector
+    ) {
+        A container = collector.supplier().get();
+        A result = container;
 
         try {
-            if (pathOrUrl.startsWith("http://") || pathOrUrl.startsWith("https://")) {
-                URL url = new URL(pathOrUrl);
-                try (BufferedReader reader = new BufferedReader(new InputStreamReader(url.openStream()))) {
-                    String line;
-                    while ((line = reader.readLine()) != null) {
-                        parseLine(line, logs, filter);
-                    }
-                }
+            if (isUrl(pathOrUrl)) {
+                result = collector.combiner().apply(container,
+                    HttpLogSource.parse(pathOrUrl, filter, context, http, collector));
+            } else if (STDIN.equals(pathOrUrl)) {
+                result = collector.combiner().apply(container,
+                    parseInput(CompressedInput.open(System.in), 0, filter, context, collector));
             } else {
-                Path path = Path.of(pathOrUrl);
-                Files.lines(path).forEach(line -> parseLine(line, logs, filter));
+                A partial = parseFile(Path.of(pathOrUrl), filter, context, parallel, collector);
+                result = collector.combiner().apply(container, partial);
             }
+        } catch (TooManyBadLinesException e) {
+            throw e;
         } catch (Exception e) {
-            LOGGER.severe("Ошибка при обработке ресурса: " + pathOrUrl);
+            LOGGER.severe("Ошибка при обработке ресурса: " + pathOrUrl + " (" + e.getMessage() + ")");
         }
 
-        return logs;
+        return result;
     }
 
-    private static void parseLine(String line, List<LogRecord> logs, LogFilter filter) {
-        Matcher matcher = LOG_PATTERN.matcher(line);
-        boolean shouldAddLog = true;
+    /**
+     * Проверяет, что источник — несжатый локальный файл, который можно читать по смещениям.
+     *
+     * @param source путь, URL или {@code -}.
+     * @return {@code true} для существующего несжатого файла.
+     * @throws IOException если сигнатуру файла не удалось прочитать.
+     */
+    public static boolean isPlainFile(String source) throws IOException {
+        if (isUrl(source) || STDIN.equals(source)) {
+            return false;
+        }
+        Path path = Path.of(source);
+        return Files.isRegularFile(path) && CompressedInput.detect(path) == CompressedInput.Format.PLAIN;
+    }
+
+    /**
+     * Проверяет, является ли источник адресом HTTP или HTTPS.
+     *
+     * @param source путь или URL.
+     * @return {@code true} для URL.
+     */
+    public static boolean isUrl(String source) {
+        return source.startsWith("http://") || source.startsWith("https://");
+    }
+
+    /**
+     * Разбирает локальный файл, выбирая способ чтения по его формату:
+     * несжатый файл в параллельном режиме отображается в память кусками,
+     * файл BGZF распаковывается кусками параллельно, остальные читаются потоком
+     * (gzip — с распаковкой в отдельном потоке). Если в фильтре включён поиск,
+     * из несжатого файла читается только диапазон, найденный {@link TimeRangeSeeker}.
+     */
+    private static <A> A parseFile(
+        Path path,
+        LogFilter filter,
+        ParseContext context,
+        boolean parallel,
+        Collector<LogRecord, A, ?> collector
+    ) throws IOException {
+        CompressedInput.Format format = CompressedInput.detect(path);
+        if (format == CompressedInput.Format.ZSTD) {
+            throw CompressedInput.unsupported(format);
+        }
+        if (filter.seek() && filter.hasDateRange() && format == CompressedInput.Format.PLAIN) {
+            long[] range = TimeRangeSeeker.range(path, filter);
+            LOGGER.fine(() -> "Поиск по времени в " + path + ": байты " + range[0] + "–" + range[1]);
+            return parseRange(path, range[0], range[1], filter, context, parallel, collector);
+        }
+        if (parallel && format == CompressedInput.Format.PLAIN) {
+            return ParallelFileParser.parse(path, filter, context, collector);
+        }
+        if (parallel && GzipBlockParser.isBlockCompressed(path)) {
+            return GzipBlockParser.parse(path, filter, context, collector);
+        }
+        return parseStream(CompressedInput.open(Files.newInputStream(path)), 0, filter, context, collector);
+    }
+
+    /**
+     * Разбирает строки несжатого файла, которые начинаются в диапазоне байт {@code [start, end)},
+     * и передаёт их приёмнику блоками. Последняя строка диапазона дочитывается до перевода строки,
+     * а смещения строк в блоках отсчитываются от начала файла.
+     *
+     * @param path путь к несжатому файлу логов.
+     * @param start смещение начала строки, с которой начинается чтение.
+     * @param end смещение, до которого должны начинаться читаемые строки.
+     * @param filter параметры фильтрации.
+     * @param context общее состояние разбора.
+     * @param sink приёмник блоков записей.
+     * @throws IOException если файл не удалось прочитать.
+     */
+    public static void parseRange(
+        Path path,
+        long start,
+        long end,
+        LogFilter filter,
+        ParseContext context,
+        RecordBatchSink sink
+    ) throws IOException {
+        long rangeEnd = end <= start ? start : LogFiles.lineStartAtOrAfter(path, end);
+        if (start < rangeEnd) {
+            try (InputStream input = TimeRangeSeeker.open(path, start, rangeEnd)) {
+                LogLineReader.of(filter, context, sink).startingAt(start).read(input);
+            }
+        }
+    }
+
+    /**
+     * Разбирает строки несжатого файла в диапазоне байт {@code [start, end)} в новый частичный
+     * результат коллектора. Обе границы должны совпадать с началами строк (или концом файла).
+     *
+     * @param path путь к несжатому файлу логов.
+     * @param start смещение начала первой строки.
+     * @param end смещение сразу после последней строки.
+     * @param filter параметры фильтрации.
+     * @param context общее состояние разбора.
+     * @param parallel разбирать ли диапазон параллельно по кускам.
+     * @param collector коллектор, принимающий записи.
+     * @param <A> тип промежуточного результата коллектора.
+     * @return частичный результат по строкам диапазона.
+     * @throws IOException если файл не удалось прочитать.
+     */
+    public static <A> A parseRange(
+        Path path,
+        long start,
+        long end,
+        LogFilter filter,
+        ParseContext context,
+        boolean parallel,
+        Collector<LogRecord, A, ?> collector
+    ) throws IOException {
+        if (start >= end) {
+            return collector.supplier().get();
+        }
+        return parallel
+            ? ParallelFileParser.parse(path, start, end, filter, context, collector)
+            : parseStream(TimeRangeSeeker.open(path, start, end), start, filter, context, collector);
+    }
+
+    private static <A> A parseStream(
+        InputStream stream,
+        long start,
+        LogFilter filter,
+        ParseContext context,
+        Collector<LogRecord, A, ?> collector
+    ) throws IOException {
+        try (InputStream input = stream) {
+            return parseInput(input, start, filter, context, collector);
+        }
+    }
+
+    /**
+     * Разбирает поток до конца, не закрывая его: в вызывающем потоке или, если в фильтре заданы
+     * параметры {@link ParseContext#pipeline()}, поэтапно в нескольких потоках ({@link StagedPipeline}).
+     *
+     * @param input поток байт лога.
+     * @param start смещение начала потока в источнике.
+     * @param filter параметры фильтрации.
+     * @param context общее состояние разбора.
+     * @param collector коллектор, принимающий записи.
+     * @param <A> тип частичного результата коллектора.
+     * @return частичный результат по всем строкам потока.
+     * @throws IOException если поток не удалось прочитать.
+     */
+    static <A> A parseInput(
+        InputStream input,
+        long start,
+        LogFilter filter,
+        ParseContext context,
+        Collector<LogRecord, A, ?> collector
+    ) throws IOException {
+        if (context.pipeline() != null) {
+            return StagedPipeline.parse(input, start, filter, context, collector);
+        }
+        A container = collector.supplier().get();
+        LogLineReader.of(filter, context, collector, container).startingAt(start).read(input);
+        return container;
+    }
+
+    /**
+     * Разбирает одну строку лога: сначала побайтовым токенизатором,
+     * а если он отклонил строку — регулярным выражением. Неразобранная строка передаётся без смещения
+     * общему для таких вызовов обработчику {@link ParseContext#badLines()} по умолчанию.
+     *
+     * @param line байты строки лога в UTF-8 без символа перевода строки.
+     * @param filter параметры фильтрации.
+     * @return запись лога или {@code null}, если строка не разобрана или не прошла фильтр.
+     */
+    public static LogRecord parseLine(byte[] line, LogFilter filter) {
+        return parseLine(line, filter, LINE_CONTEXT, new FieldDictionaries());
+    }
+
+    /**
+     * Разбирает одну строку лога, как {@link #parseLine(byte[], LogFilter)}, в рамках общего разбора,
+     * добавляя IP-адрес и ресурс в словари вызывающего. Так при разборе множества строк записи
+     * не заводят каждая свои словари.
+     *
+     * @param line байты строки лога в UTF-8 без символа перевода строки.
+     * @param filter параметры фильтрации.
+     * @param context общее состояние разбора; неразобранная строка передаётся его обработчику без смещения.
+     * @param dictionaries словари полей; словари не потокобезопасны, поэтому у каждого потока должны быть свои.
+     * @return запись лога или {@code null}, если строка не разобрана или не прошла фильтр.
+     */
+    public static LogRecord parseLine(
+        byte[] line,
+        LogFilter filter,
+        ParseContext context,
+        FieldDictionaries dictionaries
+    ) {
+        LogLineTokenizer tokenizer = LINE_TOKENIZERS.get();
+        StageRecorder recorder = LINE_OUTCOMES.get();
+        LogRecord logRecord = tokenizer.tokenize(ByteBuffer.wrap(line), 0, line.length)
+            ? parseTokens(tokenizer, filter, dictionaries, recorder)
+            : parseLine(new String(line, StandardCharsets.UTF_8), filter, dictionaries, recorder);
+        if (recorder.last().rejected()) {
+            context.badLines().reject(recorder.last(), ByteBuffer.wrap(line), 0, line.length, -1);
+        }
+        return logRecord;
+    }
+
+    /**
+     * Разбирает одну строку лога регулярным выражением {@code LOG_PATTERN}.
+     * Неразобранная строка передаётся без смещения общему для таких вызовов обработчику
+     * {@link ParseContext#badLines()} по умолчанию.
+     *
+     * @param line строка лога.
+     * @param filter параметры фильтрации.
+     * @return запись лога или {@code null}, если строка не разобрана или не прошла фильтр.
+     */
+    public static LogRecord parseLine(String line, LogFilter filter) {
+        return parseLine(line, filter, LINE_CONTEXT, new FieldDictionaries());
+    }
 
+    /**
+     * Разбирает одну строку лога, как {@link #parseLine(String, LogFilter)}, в рамках общего разбора,
+     * добавляя IP-адрес и ресурс в словари вызывающего.
+     *
+     * @param line строка лога.
+     * @param filter параметры фильтрации.
+     * @param context общее состояние разбора; неразобранная строка передаётся его обработчику без смещения.
+     * @param dictionaries словари полей; словари не потокобезопасны, поэтому у каждого потока должны быть свои.
+     * @return запись лога или {@code null}, если строка не разобрана или не прошла фильтр.
+     */
+    public static LogRecord parseLine(
+        String line,
+        LogFilter filter,
+        ParseContext context,
+        FieldDictionaries dictionaries
+    ) {
+        StageRecorder recorder = LINE_OUTCOMES.get();
+        LogRecord logRecord = parseLine(line, filter, dictionaries, recorder);
+        if (recorder.last().rejected()) {
+            byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+            context.badLines().reject(recorder.last(), ByteBuffer.wrap(bytes), 0, bytes.length, -1);
+        }
+        return logRecord;
+    }
+
+    /**
+     * Разбирает одну строку лога регулярным выражением, добавляя строки записи в словари читателя
+     * и отмечая итог в счётчиках читателя.
+     */
+    static LogRecord parseLine(String line, LogFilter filter, FieldDictionaries dictionaries, StageRecorder recorder) {
+        Matcher matcher = LOG_PATTERN.matcher(line);
         if (!matcher.find()) {
-            shouldAddLog = false;
+            recorder.count(LineOutcome.MALFORMED);
+            return null;
         }
 
+        LogRecord logRecord = null;
         try {
-            if (shouldAddLog) {
-                OffsetDateTime timestamp = OffsetDateTime.parse(matcher.group(DATE_TIME_INDEX), DATE_FORMATTER);
-                LocalDateTime logDate = timestamp.toLocalDateTime();
-                boolean isOutsideDateRange = (filter.from() != null && logDate.isBefore(filter.from()))
-                    || (filter.to() != null && logDate.isAfter(filter.to()));
-                if (isOutsideDateRange) {
-                    shouldAddLog = false;
+            OffsetDateTime timestamp = OffsetDateTime.parse(matcher.group(DATE_TIME_INDEX), DATE_FORMATTER);
+            if (filter.isInDateRange(timestamp.toEpochSecond(), timestamp.getOffset().getTotalSeconds())) {
+                String ipAddress = matcher.group(IP_ADRESS_INDEX);
+                String resource = matcher.group(RESOURCE_GROUP_INDEX);
+                String method = matcher.group(METHOD_INDEX);
+                String userAgent = matcher.group(AGENT_INDEX);
+                int statusCode = Integer.parseInt(matcher.group(STATUS_CODE_INDEX));
+                int responseSize = Integer.parseInt(matcher.group(RESPONSE_SIZE_INDEX));
+                recorder.lap(Stage.PARSE);
+                boolean matches =
+                    filter.matches(new TextFields(ipAddress, method, resource, userAgent, statusCode, responseSize));
+                recorder.lap(Stage.FILTER);
+                if (matches) {
+                    logRecord = new LogRecord(dictionaries, ipAddress, timestamp.toEpochSecond(),
+                        timestamp.getOffset().getTotalSeconds(), resource, statusCode, responseSize);
                 }
+                recorder.count(matches ? LineOutcome.MATCHED : LineOutcome.FILTERED_BY_FIELDS);
+            } else {
+                recorder.count(LineOutcome.FILTERED_BY_DATE);
+            }
+        } catch (Exception e) {
+            recorder.count(failure(e));
+        }
+        return logRecord;
+    }
 
-                if (shouldAddLog) {
-                    String ipAddress = matcher.group(IP_ADRESS_INDEX);
-                    String resource = matcher.group(RESOURCE_GROUP_INDEX);
-                    String method = matcher.group(METHOD_INDEX);
-                    String userAgent = matcher.group(AGENT_INDEX);
-                    int statusCode = Integer.parseInt(matcher.group(STATUS_CODE_INDEX));
-                    int responseSize = Integer.parseInt(matcher.group(RESPONSE_SIZE_INDEX));
-                    boolean doesNotMatchFilter = !applyFilter(
-                        filter.filterField(),
-                        filter.filterValue(),
-                        method, userAgent);
-                    if (doesNotMatchFilter) {
-                        shouldAddLog = false;
-                    }
-                    if (shouldAddLog) {
-                        LogRecord logRecord = new LogRecord(ipAddress, timestamp, resource, statusCode, responseSize);
-                        logs.add(logRecord);
-                    }
-                }
+    /**
+     * Собирает запись из полей, найденных {@link LogLineTokenizer}.
+     * Фильтр проверяет поля прямо в буфере, а IP-адрес и ресурс добавляются в словари читателя
+     * по байтам, поэтому для уже встречавшихся значений строки не создаются.
+     * Временная метка разбирается без создания объектов; {@code DATE_FORMATTER} используется
+     * только для меток, которые отклонил быстрый путь.
+     */
+    static LogRecord parseTokens(
+        LogLineTokenizer tokens,
+        LogFilter filter,
+        FieldDictionaries dictionaries,
+        StageRecorder recorder
+    ) {
+        try {
+            if (!accepts(tokens, filter, recorder)) {
+                return null;
             }
+            LogRecord logRecord = new LogRecord(dictionaries, tokens.internIpAddress(dictionaries.ipAddresses()),
+                tokens.epochSecond(), tokens.offsetSeconds(), tokens.internResource(dictionaries.resources()),
+                tokens.statusCode(), tokens.responseSize());
+            recorder.count(LineOutcome.MATCHED);
+            return logRecord;
         } catch (Exception e) {
-            LOGGER.severe("Ошибка парсинга строки: " + line);
+            recorder.count(failure(e));
+            return null;
         }
     }
 
-    private static boolean applyFilter(String filterField, String filterValue, String method, String userAgent) {
-        if (filterField == null || filterValue == null) {
-            return true;
+    /**
+     * Добавляет поля, найденные {@link LogLineTokenizer}, строкой блока, не создавая {@link LogRecord}.
+     */
+    static void appendTokens(
+        LogLineTokenizer tokens,
+        LogFilter filter,
+        RecordBatch batch,
+        long lineOffset,
+        StageRecorder recorder
+    ) {
+        try {
+            if (accepts(tokens, filter, recorder)) {
+                FieldDictionaries dictionaries = batch.dictionaries();
+                batch.add(tokens.internIpAddress(dictionaries.ipAddresses()), tokens.epochSecond(),
+                    tokens.offsetSeconds(), tokens.internResource(dictionaries.resources()),
+                    tokens.statusCode(), tokens.responseSize(), lineOffset);
+                recorder.count(LineOutcome.MATCHED);
+            }
+        } catch (Exception e) {
+            recorder.count(failure(e));
         }
+    }
 
-        return switch (filterField.toLowerCase()) {
-            case "method" -> method.equalsIgnoreCase(filterValue);
-            case "agent" -> userAgent.toLowerCase()
-                .matches(filterValue.toLowerCase().replace("*", ".*"));
-            default -> true;
-        };
+    /**
+     * Разбирает временную метку и проверяет фильтр; отфильтрованную строку отмечает в счётчиках.
+     */
+    private static boolean accepts(LogLineTokenizer tokens, LogFilter filter, StageRecorder recorder) {
+        if (!tokens.parseDateTime()) {
+            tokens.parseDateTime(DATE_FORMATTER);
+        }
+        recorder.lap(Stage.PARSE);
+        LineOutcome outcome = LineOutcome.MATCHED;
+        if (!filter.isInDateRange(tokens.epochSecond(), tokens.offsetSeconds())) {
+            outcome = LineOutcome.FILTERED_BY_DATE;
+        } else if (!filter.matches(tokens)) {
+            outcome = LineOutcome.FILTERED_BY_FIELDS;
+        }
+        recorder.lap(Stage.FILTER);
+        if (outcome != LineOutcome.MATCHED) {
+            recorder.count(outcome);
+        }
+        return outcome == LineOutcome.MATCHED;
+    }
+
+    /**
+     * Причина отказа по исключению, брошенному при разборе полей строки.
+     */
+    private static LineOutcome failure(Exception e) {
+        return e instanceof DateTimeException ? LineOutcome.BAD_TIMESTAMP : LineOutcome.BAD_VALUE;
+    }
+
+    /**
+     * Поля строки, уже выделенные регулярным выражением.
+     */
+    private static final class TextFields implements LogFields {
+
+        private final String ipAddress;
+        private final String method;
+        private final String resource;
+        private final String userAgent;
+        private final int statusCode;
+        private final int responseSize;
+
+        TextFields(String ipAddress, String method, String resource, String userAgent, int statusCode, int size) {
+            this.ipAddress = ipAddress;
+            this.method = method;
+            this.resource = resource;
+            this.userAgent = userAgent;
+            this.statusCode = statusCode;
+            this.responseSize = size;
+        }
+
+        @Override
+        public CharSequence text(LogField field) {
+            return switch (field) {
+                case IP -> ipAddress;
+                case METHOD -> method;
+                case RESOURCE -> resource;
+                case AGENT -> userAgent;
+                default -> throw new IllegalArgumentException("Поле не текстовое: " + field);
+            };
+        }
+
+        @Override
+        public int statusCode() {
+            return statusCode;
+        }
+
+        @Override
+        public int responseSize() {
+            return responseSize;
+        }
     }
 
 }
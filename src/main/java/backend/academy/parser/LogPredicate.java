@@ -0,0 +1,24 @@
+package backend.academy.parser;
+
+/**
+ * Скомпилированное условие фильтра. Проверяется по сырым полям строки ({@link LogFields})
+ * до создания {@link LogRecord}. Создаётся через {@link LogPredicates}.
+ */
+interface LogPredicate {
+
+    /**
+     * Проверяет строку лога.
+     *
+     * @param fields поля разбираемой строки.
+     * @return {@code true}, если строка подходит под условие.
+     */
+    boolean test(LogFields fields);
+
+    /**
+     * Возвращает относительную стоимость проверки. В составных условиях
+     * более дешёвые условия проверяются первыми.
+     *
+     * @return стоимость проверки.
+     */
+    int cost();
+}
@@ -0,0 +1,357 @@
+package backend.academy.parser;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import lombok.experimental.UtilityClass;
+
+/**
+ * Фабрика скомпилированных условий фильтра {@link LogPredicate}.
+ * Составные условия И/ИЛИ хранят части в массиве, отсортированном по стоимости:
+ * сравнения чисел дешевле сравнения текста, а шаблоны с возвратами — самые дорогие.
+ */
+@UtilityClass
+class LogPredicates {
+
+    private static final int NUMERIC_COST = 1;
+    private static final int ADDRESS_COST = 2;
+    private static final int LITERAL_COST = 3;
+    private static final int GLOB_COST = 5;
+    private static final int OCTET_COUNT = 4;
+    private static final int OCTET_BITS = 8;
+    private static final int MAX_OCTET = 255;
+    private static final int DECIMAL_BASE = 10;
+
+    /**
+     * Условие, которому подходит любая строка.
+     */
+    static final LogPredicate ALWAYS = new LogPredicate() {
+        @Override
+        public boolean test(LogFields fields) {
+            return true;
+        }
+
+        @Override
+        public int cost() {
+            return 0;
+        }
+    };
+
+    /**
+     * Объединяет условия через И. Вложенные И раскрываются, {@link #ALWAYS} отбрасывается.
+     *
+     * @param parts условия.
+     * @return составное условие.
+     */
+    static LogPredicate and(List<LogPredicate> parts) {
+        List<LogPredicate> flat = new ArrayList<>();
+        for (LogPredicate part : parts) {
+            if (part instanceof And and) {
+                flat.addAll(List.of(and.parts));
+            } else if (part != ALWAYS) {
+                flat.add(part);
+            }
+        }
+        if (flat.isEmpty()) {
+            return ALWAYS;
+        }
+        return flat.size() == 1 ? flat.getFirst() : new And(sortedByCost(flat));
+    }
+
+    /**
+     * Объединяет условия через ИЛИ. Вложенные ИЛИ раскрываются.
+     *
+     * @param parts условия (хотя бы одно).
+     * @return составное условие.
+     */
+    static LogPredicate or(List<LogPredicate> parts) {
+        List<LogPredicate> flat = new ArrayList<>();
+        for (LogPredicate part : parts) {
+            if (part instanceof Or or) {
+                flat.addAll(List.of(or.parts));
+            } else {
+                flat.add(part);
+            }
+        }
+        return flat.size() == 1 ? flat.getFirst() : new Or(sortedByCost(flat));
+    }
+
+    /**
+     * Отрицает условие.
+     *
+     * @param part условие.
+     * @return отрицание условия.
+     */
+    static LogPredicate not(LogPredicate part) {
+        return part instanceof Not not ? not.part : new Not(part);
+    }
+
+    /**
+     * Проверяет, что числовое поле попадает в диапазон {@code [min, max]}.
+     *
+     * @param field {@link LogField#STATUS} или {@link LogField#SIZE}.
+     * @param min нижняя граница включительно.
+     * @param max верхняя граница включительно.
+     * @return условие.
+     */
+    static LogPredicate range(LogField field, long min, long max) {
+        return new Range(field == LogField.STATUS, min, max);
+    }
+
+    /**
+     * Проверяет текстовое поле по шаблону без учёта регистра.
+     *
+     * @param field текстовое поле.
+     * @param glob скомпилированный шаблон.
+     * @return условие.
+     */
+    static LogPredicate glob(LogField field, GlobMatcher glob) {
+        return new Glob(field, glob);
+    }
+
+    /**
+     * Сравнивает текстовое поле со значением целиком без учёта регистра, как {@link String#equalsIgnoreCase}.
+     *
+     * @param field текстовое поле.
+     * @param value значение; символы {@code *} и {@code ?} понимаются буквально.
+     * @return условие.
+     */
+    static LogPredicate equalsIgnoreCase(LogField field, String value) {
+        return new Literal(field, value);
+    }
+
+    /**
+     * Проверяет, что IPv4-адрес клиента входит в подсеть.
+     *
+     * @param cidr подсеть в записи CIDR, например {@code 10.0.0.0/8}.
+     * @return условие.
+     * @throws IllegalArgumentException если подсеть записана неверно.
+     */
+    static LogPredicate cidr(String cidr) {
+        int slash = cidr.indexOf('/');
+        long address = parseIpv4(cidr.substring(0, slash));
+        int prefix;
+        try {
+            prefix = Integer.parseInt(cidr.substring(slash + 1));
+        } catch (NumberFormatException e) {
+            prefix = -1;
+        }
+        if (address < 0 || prefix < 0 || prefix > Integer.SIZE) {
+            throw new IllegalArgumentException("Неверная подсеть: " + cidr);
+        }
+        int mask = prefix == 0 ? 0 : -1 << (Integer.SIZE - prefix);
+        return new Cidr((int) address & mask, mask);
+    }
+
+    /**
+     * Разбирает IPv4-адрес из четырёх десятичных октетов без создания объектов.
+     *
+     * @return адрес как беззнаковое 32-битное число или -1, если это не IPv4-адрес.
+     */
+    static long parseIpv4(CharSequence text) {
+        long address = 0;
+        int octets = 0;
+        int value = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            char current = i < text.length() ? text.charAt(i) : '.';
+            if (current >= '0' && current <= '9') {
+                value = (value < 0 ? 0 : value * DECIMAL_BASE) + current - '0';
+            } else if (current == '.' && value >= 0 && value <= MAX_OCTET && octets < OCTET_COUNT) {
+                address = address << OCTET_BITS | value;
+                octets++;
+                value = -1;
+            } else {
+                return -1;
+            }
+            if (value > MAX_OCTET) {
+                return -1;
+            }
+        }
+        return octets == OCTET_COUNT ? address : -1;
+    }
+
+    private static LogPredicate[] sortedByCost(List<LogPredicate> parts) {
+        return parts.stream()
+            .sorted(Comparator.comparingInt(LogPredicate::cost))
+            .toArray(LogPredicate[]::new);
+    }
+
+    private static int totalCost(LogPredicate[] parts) {
+        int cost = 0;
+        for (LogPredicate part : parts) {
+            cost += part.cost();
+        }
+        return cost;
+    }
+
+    private static final class And implements LogPredicate {
+
+        private final LogPredicate[] parts;
+        private final int cost;
+
+        And(LogPredicate[] parts) {
+            this.parts = parts;
+            this.cost = totalCost(parts);
+        }
+
+        @Override
+        public boolean test(LogFields fields) {
+            for (LogPredicate part : parts) {
+                if (!part.test(fields)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public int cost() {
+            return cost;
+        }
+    }
+
+    private static final class Or implements LogPredicate {
+
+        private final LogPredicate[] parts;
+        private final int cost;
+
+        Or(LogPredicate[] parts) {
+            this.parts = parts;
+            this.cost = totalCost(parts);
+        }
+
+        @Override
+        public boolean test(LogFields fields) {
+            for (LogPredicate part : parts) {
+                if (part.test(fields)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public int cost() {
+            return cost;
+        }
+    }
+
+    private static final class Not implements LogPredicate {
+
+        private final LogPredicate part;
+
+        Not(LogPredicate part) {
+            this.part = part;
+        }
+
+        @Override
+        public boolean test(LogFields fields) {
+            return !part.test(fields);
+        }
+
+        @Override
+        public int cost() {
+            return part.cost();
+        }
+    }
+
+    private static final class Range implements LogPredicate {
+
+        private final boolean status;
+        private final long min;
+        private final long max;
+
+        Range(boolean status, long min, long max) {
+            this.status = status;
+            this.min = min;
+            this.max = max;
+        }
+
+        @Override
+        public boolean test(LogFields fields) {
+            long value = status ? fields.statusCode() : fields.responseSize();
+            return value >= min && value <= max;
+        }
+
+        @Override
+        public int cost() {
+            return NUMERIC_COST;
+        }
+    }
+
+    private static final class Glob implements LogPredicate {
+
+        private final LogField field;
+        private final GlobMatcher glob;
+
+        Glob(LogField field, GlobMatcher glob) {
+            this.field = field;
+            this.glob = glob;
+        }
+
+        @Override
+        public boolean test(LogFields fields) {
+            return glob.matches(fields.text(field));
+        }
+
+        @Override
+        public int cost() {
+            return glob.isLiteralPrefix() ? LITERAL_COST : GLOB_COST;
+        }
+    }
+
+    private static final class Literal implements LogPredicate {
+
+        private final LogField field;
+        private final String value;
+
+        Literal(LogField field, String value) {
+            this.field = field;
+            this.value = value;
+        }
+
+        @Override
+        public boolean test(LogFields fields) {
+            CharSequence text = fields.text(field);
+            if (text.length() != value.length()) {
+                return false;
+            }
+            for (int i = 0; i < text.length(); i++) {
+                char actual = text.charAt(i);
+                char expected = value.charAt(i);
+                if (actual != expected && Character.toUpperCase(actual) != Character.toUpperCase(expected)
+                    && Character.toLowerCase(actual) != Character.toLowerCase(expected)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public int cost() {
+            return LITERAL_COST;
+        }
+    }
+
+    private static final class Cidr implements LogPredicate {
+
+        private final int network;
+        private final int mask;
+
+        Cidr(int network, int mask) {
+            this.network = network;
+            this.mask = mask;
+        }
+
+        @Override
+        public boolean test(LogFields fields) {
+            long address = parseIpv4(fields.text(LogField.IP));
+            return address >= 0 && ((int) address & mask) == network;
+        }
+
+        @Override
+        public int cost() {
+            return ADDRESS_COST;
+        }
+    }
+}
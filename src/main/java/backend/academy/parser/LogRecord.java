@@ -1,17 +1,26 @@
 package backend.academy.parser;
 
+import java.time.Instant;
 import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
 import lombok.Getter;
 
 /**
  * Представляет запись лога NGINX, содержащую данные о запросе.
+ * Временная метка хранится примитивами (секунды эпохи и смещение часового пояса),
+ * а {@link OffsetDateTime} создаётся только по запросу.
+ * IP-адрес и ресурс хранятся номерами в словарях {@link FieldDictionaries} читателя,
+ * который разобрал запись; аксессоры {@link #ipAddress()} и {@link #resource()} возвращают
+ * общий для всех записей экземпляр строки из словаря.
  */
 @Getter
 public class LogRecord {
 
-    private String ipAddress;
-    private OffsetDateTime timestamp;
-    private String resource;
+    private FieldDictionaries dictionaries;
+    private int ipAddressId;
+    private int resourceId;
+    private long epochSecond;
+    private int offsetSeconds;
     private int statusCode;
     private int responseSize;
 
@@ -19,16 +28,116 @@ public class LogRecord {
      * Создаёт объект записи лога.
      *
      * @param ipAddress IP-адрес клиента.
-     * @param timestamp Временная метка запроса.
+     * @param timestamp Временная метка запроса (хранится с точностью до секунды).
      * @param resource Запрашиваемый ресурс.
      * @param statusCode HTTP-код ответа.
      * @param responseSize Размер ответа в байтах.
      */
     public LogRecord(String ipAddress, OffsetDateTime timestamp, String resource, int statusCode, int responseSize) {
-        this.ipAddress = ipAddress;
-        this.timestamp = timestamp;
-        this.resource = resource;
+        this(ipAddress, timestamp.toEpochSecond(), timestamp.getOffset().getTotalSeconds(),
+            resource, statusCode, responseSize);
+    }
+
+    /**
+     * Создаёт объект записи лога из уже разобранной временной метки.
+     * Строки добавляются в собственные словари записи; при разборе потока
+     * используется конструктор с номерами из общих словарей читателя.
+     *
+     * @param ipAddress IP-адрес клиента.
+     * @param epochSecond Момент запроса в секундах эпохи UTC.
+     * @param offsetSeconds Смещение часового пояса записи в секундах.
+     * @param resource Запрашиваемый ресурс.
+     * @param statusCode HTTP-код ответа.
+     * @param responseSize Размер ответа в байтах.
+     */
+    public LogRecord(
+        String ipAddress,
+        long epochSecond,
+        int offsetSeconds,
+        String resource,
+        int statusCode,
+        int responseSize
+    ) {
+        this(new FieldDictionaries(), ipAddress, epochSecond, offsetSeconds, resource, statusCode, responseSize);
+    }
+
+    /**
+     * Создаёт объект записи лога, добавляя строки в указанные словари.
+     *
+     * @param dictionaries словари полей.
+     * @param ipAddress IP-адрес клиента.
+     * @param epochSecond Момент запроса в секундах эпохи UTC.
+     * @param offsetSeconds Смещение часового пояса записи в секундах.
+     * @param resource Запрашиваемый ресурс.
+     * @param statusCode HTTP-код ответа.
+     * @param responseSize Размер ответа в байтах.
+     */
+    public LogRecord(
+        FieldDictionaries dictionaries,
+        String ipAddress,
+        long epochSecond,
+        int offsetSeconds,
+        String resource,
+        int statusCode,
+        int responseSize
+    ) {
+        this(dictionaries, dictionaries.ipAddresses().intern(ipAddress), epochSecond, offsetSeconds,
+            dictionaries.resources().intern(resource), statusCode, responseSize);
+    }
+
+    /**
+     * Создаёт объект записи лога из номеров строк в словарях.
+     *
+     * @param dictionaries словари полей.
+     * @param ipAddressId номер IP-адреса в {@link FieldDictionaries#ipAddresses()}.
+     * @param epochSecond Момент запроса в секундах эпохи UTC.
+     * @param offsetSeconds Смещение часового пояса записи в секундах.
+     * @param resourceId номер ресурса в {@link FieldDictionaries#resources()}.
+     * @param statusCode HTTP-код ответа.
+     * @param responseSize Размер ответа в байтах.
+     */
+    public LogRecord(
+        FieldDictionaries dictionaries,
+        int ipAddressId,
+        long epochSecond,
+        int offsetSeconds,
+        int resourceId,
+        int statusCode,
+        int responseSize
+    ) {
+        this.dictionaries = dictionaries;
+        this.ipAddressId = ipAddressId;
+        this.epochSecond = epochSecond;
+        this.offsetSeconds = offsetSeconds;
+        this.resourceId = resourceId;
         this.statusCode = statusCode;
         this.responseSize = responseSize;
     }
+
+    /**
+     * Возвращает IP-адрес клиента.
+     *
+     * @return IP-адрес.
+     */
+    public String ipAddress() {
+        return dictionaries.ipAddresses().get(ipAddressId);
+    }
+
+    /**
+     * Возвращает запрашиваемый ресурс.
+     *
+     * @return ресурс.
+     */
+    public String resource() {
+        return dictionaries.resources().get(resourceId);
+    }
+
+    /**
+     * Возвращает временную метку запроса с исходным смещением часового пояса.
+     *
+     * @return временная метка.
+     */
+    public OffsetDateTime timestamp() {
+        return OffsetDateTime.ofInstant(Instant.ofEpochSecond(epochSecond), ZoneOffset.ofTotalSeconds(offsetSeconds));
+    }
 }
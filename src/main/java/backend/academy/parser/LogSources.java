@@ -0,0 +1,92 @@
+package backend.academy.parser;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+import lombok.experimental.UtilityClass;
+
+/**
+ * Раскрывает значения параметра {@code --path} в список источников логов.
+ * Значение может быть путём к файлу, URL или glob-шаблоном
+ * (например, {@code logs/access.log.*} или {@code logs/**}{@code /*.log}).
+ */
+@UtilityClass
+public class LogSources {
+
+    private static final Logger LOGGER = Logger.getLogger(LogSources.class.getName());
+    private static final String GLOB_CHARACTERS = "*?[{";
+    private static final String RECURSIVE_WILDCARD = "**";
+    private static final char SEPARATOR = '/';
+
+    /**
+     * Раскрывает шаблоны в список источников без повторов.
+     * Совпавшие с шаблоном файлы идут в лексикографическом порядке;
+     * пути без шаблонов и URL остаются как есть.
+     *
+     * @param patterns пути, URL или glob-шаблоны.
+     * @return список путей к файлам и URL.
+     * @throws IOException если не удалось обойти каталог шаблона.
+     */
+    public static List<String> resolve(List<String> patterns) throws IOException {
+        Set<String> sources = new LinkedHashSet<>();
+        for (String pattern : patterns) {
+            if (LogParser.isUrl(pattern) || !isGlob(pattern)) {
+                sources.add(pattern);
+            } else {
+                List<String> matches = expand(pattern);
+                if (matches.isEmpty()) {
+                    LOGGER.warning("Нет файлов, подходящих под шаблон: " + pattern);
+                }
+                sources.addAll(matches);
+            }
+        }
+        return new ArrayList<>(sources);
+    }
+
+    private static boolean isGlob(String value) {
+        return firstGlobIndex(value) >= 0;
+    }
+
+    private static int firstGlobIndex(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (GLOB_CHARACTERS.indexOf(value.charAt(i)) >= 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Обходит каталог до первого сегмента с шаблоном и отбирает подходящие файлы.
+     */
+    private static List<String> expand(String pattern) throws IOException {
+        int separator = pattern.lastIndexOf(SEPARATOR, firstGlobIndex(pattern));
+        String prefix = separator < 0 ? "" : pattern.substring(0, separator + 1);
+        String glob = pattern.substring(separator + 1);
+        Path base = Path.of(prefix.isEmpty() ? "." : prefix);
+        if (!Files.isDirectory(base)) {
+            return List.of();
+        }
+        int depth = glob.contains(RECURSIVE_WILDCARD)
+            ? Integer.MAX_VALUE
+            : (int) glob.chars().filter(ch -> ch == SEPARATOR).count() + 1;
+        PathMatcher matcher = base.getFileSystem().getPathMatcher("glob:" + glob);
+
+        try (Stream<Path> files = Files.walk(base, depth)) {
+            return files
+                .filter(Files::isRegularFile)
+                .map(base::relativize)
+                .filter(matcher::matches)
+                .map(relative -> prefix + relative)
+                .sorted()
+                .toList();
+        }
+    }
+}
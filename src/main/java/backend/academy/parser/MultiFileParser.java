@@ -0,0 +1,99 @@
+package backend.academy.parser;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.stream.Collector;
+import java.util.stream.IntStream;
+
+/**
+ * Параллельный парсер набора файлов (например, ротированных {@code access.log.1 … access.log.500}).
+ * Каждый файл разбирается отдельной задачей в общем пуле fork-join. Задачи отправляются
+ * в порядке убывания размера файла, чтобы самые долгие начинались первыми и не оставались
+ * «хвостом» в конце; куски больших файлов в параллельном режиме забирают простаивающие потоки пула.
+ * URL загружаются в виртуальных потоках, чтобы ожидание сети не занимало потоки пула.
+ * Частичные результаты объединяются в исходном порядке источников.
+ */
+final class MultiFileParser {
+
+    private MultiFileParser() {
+    }
+
+    /**
+     * Парсит все источники и объединяет их частичные результаты.
+     *
+     * @param sources пути к файлам логов или URL.
+     * @param filter параметры фильтрации.
+     * @param context общее состояние разбора.
+     * @param parallel разбирать ли каждый локальный файл параллельно по кускам.
+     * @param http параметры загрузки по HTTP.
+     * @param collector коллектор, в который передаются записи.
+     * @param <A> тип частичного результата коллектора.
+     * @return частичный результат, объединённый по всем источникам.
+     */
+    static <A> A parse(
+        List<String> sources,
+        LogFilter filter,
+        ParseContext context,
+        boolean parallel,
+        HttpSettings http,
+        Collector<LogRecord, A, ?> collector
+    ) {
+        long[] sizes = sources.stream().mapToLong(MultiFileParser::sizeOf).toArray();
+        List<Future<A>> tasks = new ArrayList<>(Collections.nCopies(sources.size(), null));
+        try (ExecutorService downloads = Executors.newVirtualThreadPerTaskExecutor()) {
+            IntStream.range(0, sources.size()).boxed()
+                .sorted(Comparator.comparingLong((Integer index) -> sizes[index]).reversed())
+                .forEach(index -> {
+                    Callable<A> task = () ->
+                        LogParser.parseSource(sources.get(index), filter, context, parallel, http, collector);
+                    ExecutorService executor = LogParser.isUrl(sources.get(index))
+                        ? downloads
+                        : ForkJoinPool.commonPool();
+                    tasks.set(index, executor.submit(task));
+                });
+
+            A result = collector.supplier().get();
+            for (Future<A> task : tasks) {
+                result = collector.combiner().apply(result, join(task));
+            }
+            return result;
+        }
+    }
+
+    private static <A> A join(Future<A> task) {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Разбор прерван", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof TooManyBadLinesException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Возвращает размер локального файла; для URL и недоступных файлов — 0.
+     */
+    private static long sizeOf(String source) {
+        try {
+            return Files.size(Path.of(source));
+        } catch (IOException | InvalidPathException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package backend.academy.parser;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Разбирает временную метку nginx {@code dd/MMM/yyyy:HH:mm:ss Z} (например,
+ * {@code 17/May/2015:08:05:32 +0000}) прямо из байт строки в секунды эпохи и смещение
+ * часового пояса, не создавая объектов.
+ *
+ * Соседние строки лога обычно имеют одну и ту же метку или отличаются только секундами,
+ * поэтому парсер помнит байты последней метки: при полном совпадении результат берётся
+ * из кэша, а при совпадении всего, кроме секунд, пересчитываются только секунды.
+ *
+ * Быстрый путь принимает только однозначные значения (день в пределах месяца, часы 0–23,
+ * смещение не больше ±18:00). Для всего остального {@link #parse} возвращает {@code false},
+ * и метку нужно разобрать через {@link java.time.format.DateTimeFormatter}, чтобы сохранить
+ * его правила разрешения дат.
+ *
+ * Экземпляр хранит кэш и не потокобезопасен.
+ */
+final class NginxTimestampParser {
+
+    private static final int LENGTH = 26;
+    private static final int MINUTE_PREFIX_LENGTH = 17;
+    private static final int SECONDS_OFFSET = 18;
+    private static final int ZONE_OFFSET = 21;
+    private static final int DAY_OFFSET = 0;
+    private static final int MONTH_OFFSET = 3;
+    private static final int YEAR_OFFSET = 7;
+    private static final int HOUR_OFFSET = 12;
+    private static final int MINUTE_OFFSET = 15;
+    private static final int DECIMAL_BASE = 10;
+    private static final int HOURS_PER_DAY = 24;
+    private static final int MINUTES_PER_HOUR = 60;
+    private static final int SECONDS_PER_MINUTE = 60;
+    private static final int SECONDS_PER_HOUR = 3600;
+    private static final int SECONDS_PER_DAY = 86_400;
+    private static final int MAX_OFFSET_HOURS = 18;
+    private static final int MONTHS_PER_YEAR = 12;
+    private static final int FEBRUARY = 2;
+    private static final int DAYS_IN_FEBRUARY = 28;
+    private static final int LEAP_CYCLE = 4;
+    private static final int CENTURY = 100;
+    private static final int GREGORIAN_CYCLE = 400;
+    private static final int DAYS_PER_ERA = 146_097;
+    private static final int DAYS_FROM_CIVIL_EPOCH = 719_468;
+    private static final int DAYS_PER_YEAR = 365;
+    private static final int MONTHS_FROM_MARCH = 9;
+    private static final int MARCH_BASED_MONTH_SHIFT = 3;
+    private static final int MONTH_NAME_LENGTH = 3;
+    private static final int OFFSET_MINUTES = 3;
+    private static final int DAYS_PER_FIVE_MONTHS = 153;
+    private static final int FIVE_MONTHS = 5;
+    private static final int ROUNDING = 2;
+    private static final String MONTHS = "JanFebMarAprMayJunJulAugSepOctNovDec";
+    private static final int[] DAYS_IN_MONTH = {31, 28, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31};
+
+    private final byte[] cached = new byte[LENGTH];
+    private boolean hasCached;
+    private long cachedMinuteEpochSecond;
+    private long epochSecond;
+    private int offsetSeconds;
+
+    /**
+     * Разбирает метку, занимающую байты {@code [start, end)} буфера.
+     *
+     * @param buffer буфер со строкой лога.
+     * @param start индекс первого байта метки.
+     * @param end индекс байта после метки.
+     * @return {@code true}, если метка разобрана; иначе результат не изменился.
+     */
+    boolean parse(ByteBuffer buffer, int start, int end) {
+        if (end - start != LENGTH) {
+            return false;
+        }
+        if (hasCached && sameMinute(buffer, start)) {
+            int seconds = twoDigits(buffer, start + SECONDS_OFFSET);
+            if (seconds < 0 || seconds >= SECONDS_PER_MINUTE || buffer.get(start + SECONDS_OFFSET - 1) != ':') {
+                return false;
+            }
+            epochSecond = cachedMinuteEpochSecond + seconds;
+            return true;
+        }
+        return parseFull(buffer, start);
+    }
+
+    /**
+     * Возвращает момент времени последней разобранной метки.
+     *
+     * @return секунды эпохи UTC.
+     */
+    long epochSecond() {
+        return epochSecond;
+    }
+
+    /**
+     * Возвращает смещение часового пояса последней разобранной метки.
+     *
+     * @return смещение в секундах.
+     */
+    int offsetSeconds() {
+        return offsetSeconds;
+    }
+
+    private boolean sameMinute(ByteBuffer buffer, int start) {
+        for (int i = 0; i < MINUTE_PREFIX_LENGTH; i++) {
+            if (buffer.get(start + i) != cached[i]) {
+                return false;
+            }
+        }
+        for (int i = ZONE_OFFSET - 1; i < LENGTH; i++) {
+            if (buffer.get(start + i) != cached[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean parseFull(ByteBuffer buffer, int start) {
+        if (!hasSeparators(buffer, start)) {
+            return false;
+        }
+        int day = twoDigits(buffer, start + DAY_OFFSET);
+        int month = month(buffer, start + MONTH_OFFSET);
+        int centuries = twoDigits(buffer, start + YEAR_OFFSET);
+        int yearOfCentury = twoDigits(buffer, start + YEAR_OFFSET + 2);
+        int year = centuries < 0 || yearOfCentury < 0 ? -1 : centuries * CENTURY + yearOfCentury;
+        int hour = twoDigits(buffer, start + HOUR_OFFSET);
+        int minute = twoDigits(buffer, start + MINUTE_OFFSET);
+        int second = twoDigits(buffer, start + SECONDS_OFFSET);
+        int offset = zoneOffset(buffer, start + ZONE_OFFSET);
+        boolean valid = month > 0 && year > 0 && day > 0 && day <= daysInMonth(year, month)
+            && isValidTime(hour, minute, second) && offset != Integer.MIN_VALUE;
+        if (!valid) {
+            return false;
+        }
+
+        long localMinute = daysFromCivil(year, month, day) * SECONDS_PER_DAY
+            + (long) hour * SECONDS_PER_HOUR + (long) minute * SECONDS_PER_MINUTE;
+        cachedMinuteEpochSecond = localMinute - offset;
+        epochSecond = cachedMinuteEpochSecond + second;
+        offsetSeconds = offset;
+        buffer.get(start, cached, 0, LENGTH);
+        hasCached = true;
+        return true;
+    }
+
+    private static boolean hasSeparators(ByteBuffer buffer, int start) {
+        return buffer.get(start + MONTH_OFFSET - 1) == '/' && buffer.get(start + YEAR_OFFSET - 1) == '/'
+            && buffer.get(start + HOUR_OFFSET - 1) == ':' && buffer.get(start + MINUTE_OFFSET - 1) == ':'
+            && buffer.get(start + SECONDS_OFFSET - 1) == ':' && buffer.get(start + ZONE_OFFSET - 1) == ' ';
+    }
+
+    private static boolean isValidTime(int hour, int minute, int second) {
+        return hour >= 0 && hour < HOURS_PER_DAY && minute >= 0 && minute < MINUTES_PER_HOUR
+            && second >= 0 && second < SECONDS_PER_MINUTE;
+    }
+
+    /**
+     * Возвращает номер месяца 1–12 по трёхбуквенному английскому названию или -1.
+     */
+    private static int month(ByteBuffer buffer, int position) {
+        for (int month = 0; month < MONTHS_PER_YEAR; month++) {
+            int index = month * MONTH_NAME_LENGTH;
+            if (buffer.get(position) == MONTHS.charAt(index)
+                && buffer.get(position + 1) == MONTHS.charAt(index + 1)
+                && buffer.get(position + 2) == MONTHS.charAt(index + 2)) {
+                return month + 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Разбирает смещение {@code +hhmm} или {@code -hhmm} в секунды;
+     * возвращает {@link Integer#MIN_VALUE}, если смещение некорректно.
+     */
+    private static int zoneOffset(ByteBuffer buffer, int position) {
+        byte sign = buffer.get(position);
+        int hours = twoDigits(buffer, position + 1);
+        int minutes = twoDigits(buffer, position + OFFSET_MINUTES);
+        if (sign != '+' && sign != '-' || hours < 0 || minutes < 0 || minutes >= MINUTES_PER_HOUR
+            || hours > MAX_OFFSET_HOURS || hours == MAX_OFFSET_HOURS && minutes > 0) {
+            return Integer.MIN_VALUE;
+        }
+        int seconds = hours * SECONDS_PER_HOUR + minutes * SECONDS_PER_MINUTE;
+        return sign == '-' ? -seconds : seconds;
+    }
+
+    /**
+     * Разбирает две десятичные цифры или возвращает -1.
+     */
+    private static int twoDigits(ByteBuffer buffer, int position) {
+        int high = buffer.get(position) - '0';
+        int low = buffer.get(position + 1) - '0';
+        if (high < 0 || high >= DECIMAL_BASE || low < 0 || low >= DECIMAL_BASE) {
+            return -1;
+        }
+        return high * DECIMAL_BASE + low;
+    }
+
+    private static int daysInMonth(int year, int month) {
+        boolean leap = year % LEAP_CYCLE == 0 && (year % CENTURY != 0 || year % GREGORIAN_CYCLE == 0);
+        return month == FEBRUARY && leap ? DAYS_IN_FEBRUARY + 1 : DAYS_IN_MONTH[month - 1];
+    }
+
+    /**
+     * Количество дней от 1970-01-01 до даты по пролептическому григорианскому календарю
+     * (алгоритм days_from_civil Говарда Хиннанта).
+     */
+    private static long daysFromCivil(int year, int month, int day) {
+        int shiftedYear = month <= FEBRUARY ? year - 1 : year;
+        int era = Math.floorDiv(shiftedYear, GREGORIAN_CYCLE);
+        int yearOfEra = shiftedYear - era * GREGORIAN_CYCLE;
+        int monthFromMarch = month > FEBRUARY ? month - MARCH_BASED_MONTH_SHIFT : month + MONTHS_FROM_MARCH;
+        int dayOfYear = (DAYS_PER_FIVE_MONTHS * monthFromMarch + ROUNDING) / FIVE_MONTHS + day - 1;
+        int dayOfEra = yearOfEra * DAYS_PER_YEAR + yearOfEra / LEAP_CYCLE - yearOfEra / CENTURY + dayOfYear;
+        return (long) era * DAYS_PER_ERA + dayOfEra - DAYS_FROM_CIVIL_EPOCH;
+    }
+}
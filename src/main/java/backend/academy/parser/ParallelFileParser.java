@@ -0,0 +1,205 @@
+package backend.academy.parser;
+
+import java.io.IOException;
+import java.io.Serial;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.Collector;
+
+/**
+ * Параллельный парсер локального файла логов.
+ * Отображает файл в память через {@link FileChannel}, делит его на куски,
+ * выровненные по границам строк, и разбирает каждый кусок в отдельной задаче fork-join.
+ * Каждая задача накапливает свой частичный результат коллектора; частичные результаты
+ * объединяются в исходном порядке кусков, поэтому результат совпадает
+ * с последовательным чтением файла.
+ */
+final class ParallelFileParser {
+
+    private static final int MIN_CHUNK_SIZE = 1_048_576;
+    private static final int MAX_CHUNK_SIZE = 67_108_864;
+    private static final int CHUNKS_PER_WORKER = 4;
+    private static final int SCAN_BUFFER_SIZE = 8192;
+    private static final byte LF = '\n';
+
+    private ParallelFileParser() {
+    }
+
+    /**
+     * Парсит файл параллельно в общем пуле fork-join.
+     *
+     * @param path путь к файлу логов.
+     * @param filter параметры фильтрации.
+     * @param context общее состояние разбора.
+     * @param collector коллектор, в который передаются записи.
+     * @param <A> тип частичного результата коллектора.
+     * @return частичный результат, объединённый по всем кускам файла.
+     * @throws IOException если файл не удалось прочитать.
+     */
+    static <A> A parse(
+        Path path,
+        LogFilter filter,
+        ParseContext context,
+        Collector<LogRecord, A, ?> collector
+    ) throws IOException {
+        return parse(path, 0, Long.MAX_VALUE, filter, context, collector);
+    }
+
+    /**
+     * Парсит параллельно диапазон байт файла {@code [start, end)}; {@code start} должен быть началом строки.
+     *
+     * @param path путь к файлу логов.
+     * @param start смещение начала диапазона.
+     * @param end смещение конца диапазона (обрезается по размеру файла).
+     * @param filter параметры фильтрации.
+     * @param context общее состояние разбора.
+     * @param collector коллектор, в который передаются записи.
+     * @param <A> тип частичного результата коллектора.
+     * @return частичный результат, объединённый по всем кускам диапазона.
+     * @throws IOException если файл не удалось прочитать.
+     */
+    static <A> A parse(
+        Path path,
+        long start,
+        long end,
+        LogFilter filter,
+        ParseContext context,
+        Collector<LogRecord, A, ?> collector
+    ) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            List<long[]> chunks = split(channel, start, Math.min(end, channel.size()),
+                ForkJoinPool.commonPool().getParallelism());
+            if (chunks.isEmpty()) {
+                return collector.supplier().get();
+            }
+            try {
+                return ForkJoinPool.commonPool()
+                    .invoke(new ChunkTask<>(channel, filter, context, collector, chunks, 0, chunks.size()));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    /**
+     * Делит диапазон файла на диапазоны байт, каждый из которых заканчивается переводом строки
+     * (кроме, возможно, последнего).
+     */
+    private static List<long[]> split(FileChannel channel, long from, long size, int parallelism) throws IOException {
+        long chunkSize = Math.clamp((size - from) / ((long) parallelism * CHUNKS_PER_WORKER),
+            MIN_CHUNK_SIZE, MAX_CHUNK_SIZE);
+        List<long[]> chunks = new ArrayList<>();
+        ByteBuffer scan = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+        long start = from;
+        while (start < size) {
+            long end = start + chunkSize;
+            if (end >= size) {
+                end = size;
+            } else {
+                end = nextLineStart(channel, end, size, scan);
+            }
+            chunks.add(new long[] {start, end});
+            start = end;
+        }
+        return chunks;
+    }
+
+    /**
+     * Возвращает смещение первого начала строки после {@code from} (не включая его)
+     * или {@code size}, если перевода строки дальше нет.
+     */
+    static long nextLineStart(FileChannel channel, long from, long size, ByteBuffer scan) throws IOException {
+        long position = from;
+        while (position < size) {
+            scan.clear();
+            int read = channel.read(scan, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (scan.get(i) == LF) {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    private static <A> A parseChunk(
+        MappedByteBuffer buffer,
+        long start,
+        LogFilter filter,
+        ParseContext context,
+        Collector<LogRecord, A, ?> collector
+    ) {
+        A partial = collector.supplier().get();
+        LogLineReader.of(filter, context, collector, partial).startingAt(start).read(buffer);
+        return partial;
+    }
+
+    /**
+     * Задача fork-join, обрабатывающая диапазон кусков файла.
+     * Диапазон делится пополам, пока в нём не останется один кусок.
+     */
+    private static final class ChunkTask<A> extends RecursiveTask<A> {
+
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private final transient FileChannel channel;
+        private final transient LogFilter filter;
+        private final transient ParseContext context;
+        private final transient Collector<LogRecord, A, ?> collector;
+        private final transient List<long[]> chunks;
+        private final int from;
+        private final int to;
+
+        ChunkTask(
+            FileChannel channel,
+            LogFilter filter,
+            ParseContext context,
+            Collector<LogRecord, A, ?> collector,
+            List<long[]> chunks,
+            int from,
+            int to
+        ) {
+            this.channel = channel;
+            this.filter = filter;
+            this.context = context;
+            this.collector = collector;
+            this.chunks = chunks;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected A compute() {
+            if (to - from == 1) {
+                long[] chunk = chunks.get(from);
+                try {
+                    MappedByteBuffer buffer =
+                        channel.map(FileChannel.MapMode.READ_ONLY, chunk[0], chunk[1] - chunk[0]);
+                    return parseChunk(buffer, chunk[0], filter, context, collector);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            int middle = (from + to) >>> 1;
+            ChunkTask<A> left = new ChunkTask<>(channel, filter, context, collector, chunks, from, middle);
+            ChunkTask<A> right = new ChunkTask<>(channel, filter, context, collector, chunks, middle, to);
+            left.fork();
+            A tail = right.compute();
+            A head = left.join();
+            return collector.combiner().apply(head, tail);
+        }
+    }
+}
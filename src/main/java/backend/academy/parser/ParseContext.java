@@ -0,0 +1,28 @@
+package backend.academy.parser;
+
+import backend.academy.metrics.PipelineMetrics;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Общее состояние одного разбора: всё, что относится к запуску, а не к условиям отбора строк.
+ * Передаётся рядом с {@link LogFilter} во все пути разбора, в том числе во вложенные разборы
+ * с собственными фильтрами (крайние минуты индекса, построение индекса), поэтому их строки
+ * учитываются в тех же метриках, доле ошибок и карантине.
+ *
+ * Поля класса:
+ * - metrics: Метрики этапов, в которые читатели строк передают счётчики и время; {@code null} — выключены.
+ * - badLines: Обработчик строк, которые не удалось разобрать (см. {@link BadLines}), общий для всех
+ *   читателей разбора. По умолчанию — с журналом первых строк, без карантина и порога ошибок.
+ * - pipeline: Параметры поэтапного разбора. Если заданы, потоки (стандартный ввод, сжатые файлы, тело ответа HTTP,
+ *   несжатые файлы без {@code --parallel}) разбираются в нескольких потоках (см. {@link StagedPipeline});
+ *   {@code null} — в потоке, который читает.
+ */
+@Getter
+@Setter
+public class ParseContext {
+
+    private PipelineMetrics metrics;
+    private BadLines badLines = new BadLines();
+    private PipelineSettings pipeline;
+}
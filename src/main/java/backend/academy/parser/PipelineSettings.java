@@ -0,0 +1,31 @@
+package backend.academy.parser;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Параметры поэтапного разбора потока ({@link StagedPipeline}).
+ *
+ * Поля класса:
+ * - workers: Число потоков, разбирающих и фильтрующих блоки строк.
+ * - batchBytes: Размер блока, который читатель отдаёт разборщикам; блок обрезается по последнему переводу строки.
+ * - queueBatches: Сколько блоков может ждать разбора в очереди. Всего в работе не больше
+ *   {@code queueBatches + workers} блоков: читатель ждёт, пока отстающие этапы их не разберут.
+ * - virtualThreads: Запускать этапы в виртуальных потоках; иначе — в пуле из {@code workers + 1} потоков платформы.
+ * - deterministic: Объединять частичные результаты в порядке блоков, а не по мере готовности. Тогда результат
+ *   не зависит от числа разборщиков и планирования потоков (для точных счётчиков он одинаков в обоих режимах,
+ *   а приближённая сводка популярных ресурсов и порядок записей — только в этом).
+ */
+@Getter
+@Setter
+public class PipelineSettings {
+
+    private static final int DEFAULT_BATCH_BYTES = 4_194_304;
+    private static final int DEFAULT_QUEUE_BATCHES = 8;
+
+    private int workers = Runtime.getRuntime().availableProcessors();
+    private int batchBytes = DEFAULT_BATCH_BYTES;
+    private int queueBatches = DEFAULT_QUEUE_BATCHES;
+    private boolean virtualThreads = true;
+    private boolean deterministic;
+}
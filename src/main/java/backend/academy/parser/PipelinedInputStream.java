@@ -0,0 +1,109 @@
+package backend.academy.parser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Поток, читающий исходные данные в отдельном потоке-производителе.
+ * Производитель читает блоки по {@code BLOCK_SIZE} байт и кладёт их в ограниченную очередь,
+ * а потребитель (парсер) забирает их через обычный интерфейс {@link InputStream}.
+ * Так распаковка одного блока идёт одновременно с разбором предыдущего, а памяти
+ * используется не больше {@code QUEUE_CAPACITY} блоков.
+ *
+ * Ошибка чтения в производителе передаётся потребителю при следующем чтении.
+ * Закрытие потока останавливает производителя и закрывает исходный поток.
+ */
+final class PipelinedInputStream extends InputStream {
+
+    private static final int BLOCK_SIZE = 262_144;
+    private static final int QUEUE_CAPACITY = 16;
+    private static final int UNSIGNED_BYTE = 0xff;
+    private static final byte[] END_OF_STREAM = new byte[0];
+
+    private final BlockingQueue<byte[]> blocks = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final Thread producer;
+    private volatile IOException failure;
+    private byte[] current = new byte[0];
+    private int position;
+    private boolean finished;
+
+    PipelinedInputStream(InputStream source) {
+        this.producer = Thread.ofPlatform().daemon().name("log-decompressor").start(() -> produce(source));
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!fill()) {
+            return -1;
+        }
+        return current[position++] & UNSIGNED_BYTE;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        if (!fill()) {
+            return -1;
+        }
+        int count = Math.min(length, current.length - position);
+        System.arraycopy(current, position, buffer, offset, count);
+        position += count;
+        return count;
+    }
+
+    @Override
+    public void close() {
+        finished = true;
+        producer.interrupt();
+    }
+
+    /**
+     * Берёт из очереди следующий блок, если текущий прочитан.
+     *
+     * @return {@code false}, если данные закончились.
+     */
+    private boolean fill() throws IOException {
+        while (!finished && position == current.length) {
+            try {
+                current = blocks.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Чтение прервано");
+            }
+            position = 0;
+            if (current == END_OF_STREAM) {
+                finished = true;
+                if (failure != null) {
+                    throw failure;
+                }
+            }
+        }
+        return !finished;
+    }
+
+    private void produce(InputStream source) {
+        try (source) {
+            while (true) {
+                byte[] block = source.readNBytes(BLOCK_SIZE);
+                if (block.length == 0) {
+                    break;
+                }
+                blocks.put(block);
+            }
+        } catch (IOException e) {
+            failure = e;
+        } catch (InterruptedException e) {
+            return;
+        }
+        try {
+            blocks.put(END_OF_STREAM);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
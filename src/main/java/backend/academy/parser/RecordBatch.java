@@ -0,0 +1,103 @@
+package backend.academy.parser;
+
+import lombok.Getter;
+
+/**
+ * Блок разобранных записей в колоночном виде: по массиву на поле вместо объекта на запись.
+ * Читатель строк заполняет блок до {@link #CAPACITY} строк и передаёт его приёмнику
+ * {@link RecordBatchSink}, после чего очищает и заполняет заново, поэтому массивы выделяются
+ * один раз на читателя. Строковые поля хранятся номерами в словарях {@link #dictionaries()}.
+ * Колонка {@link #lineOffsets()} хранит смещение начала строки от начала читаемого потока или куска.
+ *
+ * Данные блока действительны только во время вызова {@link RecordBatchSink#accept(RecordBatch)}.
+ */
+@Getter
+public final class RecordBatch {
+
+    /**
+     * Количество строк в полном блоке.
+     */
+    public static final int CAPACITY = 65_536;
+
+    private final FieldDictionaries dictionaries;
+    private final long[] epochSeconds;
+    private final int[] offsetSeconds;
+    private final int[] ipAddressIds;
+    private final int[] resourceIds;
+    private final short[] statusCodes;
+    private final int[] responseSizes;
+    private final long[] lineOffsets;
+    private int size;
+
+    /**
+     * Создаёт пустой блок на {@link #CAPACITY} строк.
+     *
+     * @param dictionaries словари, на которые ссылаются номера строк блока.
+     */
+    public RecordBatch(FieldDictionaries dictionaries) {
+        this(dictionaries, CAPACITY);
+    }
+
+    /**
+     * Создаёт пустой блок заданной вместимости.
+     *
+     * @param dictionaries словари, на которые ссылаются номера строк блока.
+     * @param capacity максимальное количество строк.
+     */
+    public RecordBatch(FieldDictionaries dictionaries, int capacity) {
+        this.dictionaries = dictionaries;
+        this.epochSeconds = new long[capacity];
+        this.offsetSeconds = new int[capacity];
+        this.ipAddressIds = new int[capacity];
+        this.resourceIds = new int[capacity];
+        this.statusCodes = new short[capacity];
+        this.responseSizes = new int[capacity];
+        this.lineOffsets = new long[capacity];
+    }
+
+    /**
+     * Добавляет строку в блок.
+     *
+     * @param ipAddressId номер IP-адреса в словаре.
+     * @param epochSecond момент запроса в секундах эпохи UTC.
+     * @param offset смещение часового пояса в секундах.
+     * @param resourceId номер ресурса в словаре.
+     * @param statusCode HTTP-код ответа.
+     * @param responseSize размер ответа в байтах.
+     * @param lineOffset смещение начала строки.
+     */
+    public void add(
+        int ipAddressId,
+        long epochSecond,
+        int offset,
+        int resourceId,
+        int statusCode,
+        int responseSize,
+        long lineOffset
+    ) {
+        epochSeconds[size] = epochSecond;
+        offsetSeconds[size] = offset;
+        ipAddressIds[size] = ipAddressId;
+        resourceIds[size] = resourceId;
+        statusCodes[size] = (short) statusCode;
+        responseSizes[size] = responseSize;
+        lineOffsets[size] = lineOffset;
+        size++;
+    }
+
+    /**
+     * Проверяет, заполнен ли блок.
+     *
+     * @return {@code true}, если в блок больше нельзя добавить строку.
+     */
+    public boolean isFull() {
+        return size == epochSeconds.length;
+    }
+
+    /**
+     * Очищает блок для повторного заполнения.
+     */
+    public void clear() {
+        size = 0;
+    }
+}
@@ -0,0 +1,15 @@
+package backend.academy.parser;
+
+/**
+ * Приёмник записей блоками {@link RecordBatch}. Если частичный результат коллектора реализует
+ * этот интерфейс, парсер передаёт ему записи блоками вместо отдельных объектов {@link LogRecord}.
+ */
+public interface RecordBatchSink {
+
+    /**
+     * Принимает блок записей. Блок переиспользуется после возврата из метода.
+     *
+     * @param batch заполненный блок.
+     */
+    void accept(RecordBatch batch);
+}
@@ -0,0 +1,309 @@
+package backend.academy.parser;
+
+import backend.academy.metrics.Stage;
+import backend.academy.metrics.StageRecorder;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Collector;
+
+/**
+ * Поэтапный разбор потока: читатель → разборщики → сборщик результата.
+ *
+ * Читатель (отдельный поток) читает поток блоками по {@link PipelineSettings#batchBytes()} байт,
+ * обрезает каждый блок по последнему переводу строки, а остаток переносит в следующий блок.
+ * Под длинную строку блок растёт не больше чем до {@value LogLineReader#MAX_LINE_BYTES} байт:
+ * более длинная строка отклоняется, как в {@link LogLineReader}, а её остаток пропускается
+ * до следующего перевода строки.
+ * Блоки нумеруются и через ограниченную очередь попадают к разборщикам; каждый разборщик разбирает
+ * и фильтрует строки блока своим {@link LogLineReader} в новый частичный результат коллектора.
+ * Сборщик — вызывающий поток — объединяет частичные результаты по мере готовности или,
+ * в детерминированном режиме, строго в порядке блоков.
+ *
+ * Так медленное чтение (сеть, распаковка) идёт одновременно с разбором, а при медленном разборе
+ * читатель ждёт: в работе не больше {@code queueBatches + workers} блоков, и место освобождается,
+ * только когда сборщик учтёт блок. Границы блоков зависят только от данных и размера блока,
+ * поэтому частичные результаты одинаковы при любом числе разборщиков.
+ *
+ * Ошибка любого этапа останавливает остальные и бросается из {@link #parse} как есть
+ * ({@link IOException} чтения, {@link TooManyBadLinesException} и т. д.); {@link #parse} возвращается,
+ * только когда остановлены все этапы, в том числе читатель, занятый чтением потока.
+ *
+ * @param <A> тип частичного результата коллектора.
+ */
+final class StagedPipeline<A> {
+
+    private static final Batch END = new Batch(-1, -1, new byte[0], 0);
+    private static final byte LF = '\n';
+    private static final byte CR = '\r';
+
+    private final PipelineSettings settings;
+    private final LogFilter filter;
+    private final ParseContext context;
+    private final Collector<LogRecord, A, ?> collector;
+    private final BlockingQueue<Batch> batches;
+    private final BlockingQueue<Result<A>> results = new LinkedBlockingQueue<>();
+    private final Semaphore inFlight;
+
+    private StagedPipeline(LogFilter filter, ParseContext context, Collector<LogRecord, A, ?> collector) {
+        this.settings = context.pipeline();
+        this.filter = filter;
+        this.context = context;
+        this.collector = collector;
+        this.batches = new ArrayBlockingQueue<>(settings.queueBatches());
+        this.inFlight = new Semaphore(settings.queueBatches() + settings.workers());
+    }
+
+    /**
+     * Разбирает поток до конца с параметрами {@link ParseContext#pipeline()}. Поток не закрывается.
+     *
+     * @param input поток байт лога.
+     * @param start смещение начала потока в источнике.
+     * @param filter параметры фильтрации и разбора.
+     * @param context общее состояние разбора.
+     * @param collector коллектор, принимающий записи.
+     * @param <A> тип частичного результата коллектора.
+     * @return частичный результат по всем строкам потока.
+     * @throws IOException если поток не удалось прочитать или разбор прерван.
+     */
+    static <A> A parse(
+        InputStream input,
+        long start,
+        LogFilter filter,
+        ParseContext context,
+        Collector<LogRecord, A, ?> collector
+    ) throws IOException {
+        return new StagedPipeline<>(filter, context, collector).run(input, start);
+    }
+
+    private A run(InputStream input, long start) throws IOException {
+        ExecutorService executor = settings.virtualThreads()
+            ? Executors.newVirtualThreadPerTaskExecutor()
+            : Executors.newFixedThreadPool(settings.workers() + 1,
+                Thread.ofPlatform().daemon().name("log-pipeline-", 0).factory());
+        try {
+            executor.execute(() -> read(input, start));
+            for (int i = 0; i < settings.workers(); i++) {
+                executor.execute(this::work);
+            }
+            return collect();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Разбор прерван");
+        } finally {
+            // После ошибки ожидающие этапы прерываются. Разбор возвращается только после того, как завершились
+            // все этапы, поэтому вызывающий может закрыть поток, не мешая читателю.
+            executor.shutdownNow();
+            executor.close();
+        }
+    }
+
+    /**
+     * Этап чтения: делит поток на блоки целых строк и передаёт их разборщикам,
+     * а в конце — по признаку конца каждому разборщику.
+     */
+    private void read(InputStream input, long start) {
+        StageRecorder recorder = new StageRecorder(context.metrics());
+        // Читатель строк только для отклонения слишком длинных строк: записей он не создаёт.
+        LogLineReader oversized = LogLineReader.of(filter, context, batch -> { });
+        try {
+            byte[] data = new byte[settings.batchBytes()];
+            int length = 0;
+            long offset = start;
+            long sequence = 0;
+            boolean end = false;
+            boolean skipping = false;
+            while (!end) {
+                recorder.start();
+                length += input.readNBytes(data, length, data.length - length);
+                recorder.stop(Stage.READ);
+                end = length < data.length;
+                if (skipping) {
+                    int skipped = skipped(data, length, end);
+                    skipping = skipped == 0 || data[skipped - 1] != LF && data[skipped - 1] != CR;
+                    System.arraycopy(data, skipped, data, 0, length - skipped);
+                    length -= skipped;
+                    offset += skipped;
+                    if (skipping) {
+                        continue;
+                    }
+                }
+                int cut = end ? length : lastLineEnd(data, length);
+                if (cut == 0 && !end && data.length < LogLineReader.MAX_LINE_BYTES) {
+                    // Строка длиннее блока: блок растёт, пока в него не поместится перевод строки.
+                    data = Arrays.copyOf(data, Math.min(data.length * 2, LogLineReader.MAX_LINE_BYTES));
+                    continue;
+                }
+                if (cut == 0 && !end) {
+                    oversized.startingAt(offset).rejectOversizedLine(ByteBuffer.wrap(data), length);
+                    offset += length;
+                    length = 0;
+                    skipping = true;
+                    continue;
+                }
+                if (cut > 0) {
+                    inFlight.acquire();
+                    batches.put(new Batch(sequence++, offset, data, cut));
+                    offset += cut;
+                }
+                byte[] next = new byte[Math.max(settings.batchBytes(), length - cut)];
+                System.arraycopy(data, cut, next, 0, length - cut);
+                length -= cut;
+                data = next;
+            }
+            for (int i = 0; i < settings.workers(); i++) {
+                batches.put(END);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException | RuntimeException | Error e) {
+            results.add(new Result<>(-1, null, e));
+        } finally {
+            recorder.publish();
+        }
+    }
+
+    /**
+     * Этап разбора: разбирает блоки, пока не получит признак конца.
+     */
+    private void work() {
+        try {
+            Batch batch = batches.take();
+            while (batch != END) {
+                A partial = collector.supplier().get();
+                LogLineReader.of(filter, context, collector, partial).startingAt(batch.offset)
+                    .read(ByteBuffer.wrap(batch.data, 0, batch.length));
+                results.add(new Result<>(batch.sequence, partial, null));
+                batch = batches.take();
+            }
+            results.add(new Result<>(-1, null, null));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException | Error e) {
+            results.add(new Result<>(-1, null, e));
+        }
+    }
+
+    /**
+     * Этап сборки: объединяет частичные результаты, пока все разборщики не закончат.
+     */
+    private A collect() throws IOException, InterruptedException {
+        StageRecorder recorder = new StageRecorder(context.metrics());
+        A result = collector.supplier().get();
+        Map<Long, A> pending = new HashMap<>();
+        long next = 0;
+        int finished = 0;
+        while (finished < settings.workers()) {
+            Result<A> item = results.take();
+            if (item.failure != null) {
+                throw rethrow(item.failure);
+            }
+            if (item.partial == null) {
+                finished++;
+                continue;
+            }
+            recorder.start();
+            if (settings.deterministic()) {
+                pending.put(item.sequence, item.partial);
+                A partial;
+                while ((partial = pending.remove(next)) != null) {
+                    result = collector.combiner().apply(result, partial);
+                    next++;
+                    inFlight.release();
+                }
+            } else {
+                result = collector.combiner().apply(result, item.partial);
+                inFlight.release();
+            }
+            recorder.stop(Stage.AGGREGATE);
+        }
+        recorder.publish();
+        return result;
+    }
+
+    /**
+     * Возвращает индекс после последнего перевода строки блока. {@code \r} в конце блока
+     * переводом строки не считается: за ним может прийти {@code \n} из следующего чтения.
+     */
+    private static int lastLineEnd(byte[] data, int length) {
+        for (int i = length - 1; i >= 0; i--) {
+            if (data[i] == LF || data[i] == CR && i + 1 < length) {
+                return i + 1;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Возвращает, сколько байт с начала блока занимает остаток слишком длинной строки вместе
+     * с переводом строки. Если перевода строки нет, пропускается весь блок, кроме {@code \r} в конце,
+     * за которым в следующем чтении может прийти {@code \n}.
+     */
+    private static int skipped(byte[] data, int length, boolean end) {
+        for (int i = 0; i < length; i++) {
+            if (data[i] == LF || data[i] == CR && i + 1 < length) {
+                return data[i] == CR && data[i + 1] == LF ? i + 2 : i + 1;
+            }
+        }
+        return length > 0 && data[length - 1] == CR && !end ? length - 1 : length;
+    }
+
+    private static IOException rethrow(Throwable failure) {
+        if (failure instanceof IOException e) {
+            return e;
+        }
+        if (failure instanceof UncheckedIOException e) {
+            return e.getCause();
+        }
+        if (failure instanceof RuntimeException e) {
+            throw e;
+        }
+        throw (Error) failure;
+    }
+
+    /**
+     * Блок целых строк потока.
+     */
+    private static final class Batch {
+
+        private final long sequence;
+        private final long offset;
+        private final byte[] data;
+        private final int length;
+
+        Batch(long sequence, long offset, byte[] data, int length) {
+            this.sequence = sequence;
+            this.offset = offset;
+            this.data = data;
+            this.length = length;
+        }
+    }
+
+    /**
+     * Частичный результат блока, признак завершения разборщика ({@code partial == null})
+     * или ошибка этапа.
+     */
+    private static final class Result<A> {
+
+        private final long sequence;
+        private final A partial;
+        private final Throwable failure;
+
+        Result(long sequence, A partial, Throwable failure) {
+            this.sequence = sequence;
+            this.partial = partial;
+            this.failure = failure;
+        }
+    }
+}
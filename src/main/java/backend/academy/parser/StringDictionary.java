@@ -0,0 +1,166 @@
+package backend.academy.parser;
+
+import it.unimi.dsi.fastutil.HashCommon;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Словарь строк одного поля лога: каждой различной строке выдаётся плотный номер {@code 0, 1, 2, …},
+ * а сама строка хранится в единственном экземпляре. Записи {@link LogRecord} хранят номера,
+ * поэтому тысячи различных значений на сотни миллионов строк не дублируются в куче.
+ *
+ * Строку можно добавить прямо из байт буфера ({@link #intern(ByteBuffer, int, int)}): хеш считается
+ * так же, как {@link String#hashCode()} для ASCII, и при попадании в словарь строка не создаётся.
+ * Словари из разных потоков объединяются через {@link #merge(StringDictionary)}, которое возвращает
+ * таблицу перенумерации.
+ *
+ * Экземпляр не потокобезопасен: каждому потоку нужен свой словарь.
+ */
+public final class StringDictionary {
+
+    private static final int INITIAL_CAPACITY = 8;
+    private static final int HASH_MULTIPLIER = 31;
+
+    private int[] slots = new int[INITIAL_CAPACITY * 2];
+    private String[] values = new String[INITIAL_CAPACITY];
+    private int[] hashes = new int[INITIAL_CAPACITY];
+    private int size;
+
+    /**
+     * Возвращает номер строки, добавляя её в словарь при первом появлении.
+     *
+     * @param value строка.
+     * @return номер строки в словаре.
+     */
+    public int intern(String value) {
+        int hash = value.hashCode();
+        int mask = slots.length - 1;
+        int slot = HashCommon.mix(hash) & mask;
+        while (slots[slot] != 0) {
+            int id = slots[slot] - 1;
+            if (hashes[id] == hash && values[id].equals(value)) {
+                return id;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return add(value, hash, slot);
+    }
+
+    /**
+     * Возвращает номер строки, не добавляя её в словарь.
+     *
+     * @param value строка.
+     * @return номер строки или {@code -1}, если строки в словаре нет.
+     */
+    public int find(String value) {
+        int hash = value.hashCode();
+        int mask = slots.length - 1;
+        for (int slot = HashCommon.mix(hash) & mask; slots[slot] != 0; slot = (slot + 1) & mask) {
+            int id = slots[slot] - 1;
+            if (hashes[id] == hash && values[id].equals(value)) {
+                return id;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Возвращает номер строки из байт ASCII {@code [start, end)} буфера,
+     * создавая {@link String} только при первом появлении значения.
+     *
+     * @param buffer буфер со строкой лога.
+     * @param start индекс первого байта значения.
+     * @param end индекс байта, следующего за значением.
+     * @return номер строки в словаре.
+     */
+    int intern(ByteBuffer buffer, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = HASH_MULTIPLIER * hash + Byte.toUnsignedInt(buffer.get(i));
+        }
+        int mask = slots.length - 1;
+        int slot = HashCommon.mix(hash) & mask;
+        while (slots[slot] != 0) {
+            int id = slots[slot] - 1;
+            if (hashes[id] == hash && equalsAscii(values[id], buffer, start, end)) {
+                return id;
+            }
+            slot = (slot + 1) & mask;
+        }
+        byte[] bytes = new byte[end - start];
+        buffer.get(start, bytes);
+        return add(new String(bytes, StandardCharsets.ISO_8859_1), hash, slot);
+    }
+
+    /**
+     * Возвращает строку по номеру.
+     *
+     * @param id номер строки.
+     * @return строка.
+     */
+    public String get(int id) {
+        return values[id];
+    }
+
+    /**
+     * Возвращает количество различных строк в словаре.
+     *
+     * @return размер словаря.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Добавляет в словарь все строки другого словаря.
+     *
+     * @param other словарь с частичными результатами.
+     * @return таблица перенумерации: номер строки в {@code other} → номер в этом словаре.
+     */
+    public int[] merge(StringDictionary other) {
+        int[] remap = new int[other.size];
+        for (int id = 0; id < other.size; id++) {
+            remap[id] = intern(other.values[id]);
+        }
+        return remap;
+    }
+
+    private int add(String value, int hash, int slot) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+            hashes = Arrays.copyOf(hashes, size * 2);
+        }
+        values[size] = value;
+        hashes[size] = hash;
+        slots[slot] = ++size;
+        if (size * 2 > slots.length) {
+            rehash();
+        }
+        return size - 1;
+    }
+
+    private void rehash() {
+        slots = new int[slots.length * 2];
+        int mask = slots.length - 1;
+        for (int id = 0; id < size; id++) {
+            int slot = HashCommon.mix(hashes[id]) & mask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = id + 1;
+        }
+    }
+
+    private static boolean equalsAscii(String value, ByteBuffer buffer, int start, int end) {
+        if (value.length() != end - start) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) != Byte.toUnsignedInt(buffer.get(start + i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
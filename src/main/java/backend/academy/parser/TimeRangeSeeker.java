@@ -0,0 +1,210 @@
+package backend.academy.parser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Ищет в несжатом файле, упорядоченном по времени, диапазон байт, в котором могут быть
+ * записи из диапазона дат фильтра. Поиск двоичный по смещению в файле: от середины интервала
+ * выполняется переход к началу следующей строки и читается метка первой строки, которую удалось
+ * разобрать. Для запроса за час по логу за неделю читается несколько десятков окон
+ * по {@value #WINDOW_SIZE} байт, а затем только найденный диапазон.
+ *
+ * Границы расширяются на {@link LogFilter#seekToleranceSeconds()}, чтобы не потерять записи,
+ * немного нарушающие порядок. Окна без разобранных меток тоже только расширяют диапазон.
+ * Сами записи внутри диапазона по-прежнему проверяются фильтром.
+ */
+final class TimeRangeSeeker {
+
+    private static final int WINDOW_SIZE = 16_384;
+    private static final long UNKNOWN = Long.MIN_VALUE;
+    private static final byte LF = '\n';
+    private static final byte CR = '\r';
+
+    private final FileChannel channel;
+    private final long size;
+    private final ByteBuffer window = ByteBuffer.allocate(WINDOW_SIZE);
+    private final LogLineTokenizer tokenizer = new LogLineTokenizer();
+    private long foundLineStart;
+
+    private TimeRangeSeeker(FileChannel channel) throws IOException {
+        this.channel = channel;
+        this.size = channel.size();
+    }
+
+    /**
+     * Находит диапазон байт файла, который нужно прочитать для фильтра.
+     *
+     * @param path путь к несжатому файлу логов.
+     * @param filter параметры фильтрации с диапазоном дат.
+     * @return массив {@code {start, end}}; {@code start} — начало строки.
+     * @throws IOException если файл не удалось прочитать.
+     */
+    static long[] range(Path path, LogFilter filter) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            TimeRangeSeeker seeker = new TimeRangeSeeker(channel);
+            long tolerance = filter.seekToleranceSeconds();
+            long start = filter.from() == null ? 0 : seeker.lowerBound(filter.fromLocalSecond() - tolerance);
+            long end = filter.to() == null ? seeker.size : seeker.upperBound(filter.toLocalSecond() + tolerance);
+            return new long[] {start, Math.max(start, end)};
+        }
+    }
+
+    /**
+     * Открывает поток, читающий диапазон байт файла {@code [start, end)}.
+     *
+     * @param path путь к файлу.
+     * @param start смещение начала диапазона.
+     * @param end смещение конца диапазона.
+     * @return поток байт диапазона; закрывает файл при закрытии.
+     * @throws IOException если файл не удалось открыть.
+     */
+    static InputStream open(Path path, long start, long end) throws IOException {
+        return new RangeInputStream(FileChannel.open(path, StandardOpenOption.READ), start, end);
+    }
+
+    /**
+     * Возвращает начало строки, с которой нужно читать, чтобы не пропустить метки не раньше {@code target}.
+     * Инвариант: первая разобранная метка начиная с {@code low} меньше {@code target}.
+     */
+    private long lowerBound(long target) throws IOException {
+        long low = 0;
+        long high = size;
+        while (high - low > WINDOW_SIZE) {
+            long middle = low + (high - low) / 2;
+            long timestamp = firstTimestamp(middle);
+            if (timestamp != UNKNOWN && timestamp < target) {
+                low = middle;
+            } else {
+                high = middle;
+            }
+        }
+        return lineStartAtOrAfter(low);
+    }
+
+    /**
+     * Возвращает смещение, до которого нужно читать, чтобы не пропустить метки не позже {@code target}.
+     * Инвариант: первая разобранная метка начиная с {@code high} больше {@code target}.
+     */
+    private long upperBound(long target) throws IOException {
+        long low = 0;
+        long high = size;
+        while (high - low > WINDOW_SIZE) {
+            long middle = low + (high - low) / 2;
+            long timestamp = firstTimestamp(middle);
+            if (timestamp != UNKNOWN && timestamp > target) {
+                high = middle;
+            } else {
+                low = middle;
+            }
+        }
+        return high < size && firstTimestamp(high) != UNKNOWN ? foundLineStart : size;
+    }
+
+    private long lineStartAtOrAfter(long offset) throws IOException {
+        if (offset == 0) {
+            return 0;
+        }
+        return ParallelFileParser.nextLineStart(channel, offset - 1, size, window);
+    }
+
+    /**
+     * Возвращает местное время (секунды эпохи) первой строки, которая начинается не раньше {@code offset}
+     * и метку которой удалось разобрать в пределах одного окна, или {@link #UNKNOWN}.
+     * Начало найденной строки сохраняется в {@link #foundLineStart}.
+     */
+    private long firstTimestamp(long offset) throws IOException {
+        long windowStart = offset == 0 ? 0 : offset - 1;
+        int length = fill(windowStart);
+        boolean endOfFile = windowStart + length >= size;
+        int lineStart = offset == 0 ? 0 : indexOf(LF, 0, length) + 1;
+        if (offset > 0 && lineStart == 0) {
+            return UNKNOWN;
+        }
+        while (lineStart < length) {
+            int lineEnd = indexOfLineBreak(lineStart, length);
+            if (lineEnd < 0 && !endOfFile) {
+                break;
+            }
+            int end = lineEnd < 0 ? length : lineEnd;
+            if (tokenizer.tokenize(window, lineStart, end) && tokenizer.parseDateTime()) {
+                foundLineStart = windowStart + lineStart;
+                return tokenizer.epochSecond() + tokenizer.offsetSeconds();
+            }
+            lineStart = end + 1;
+        }
+        return UNKNOWN;
+    }
+
+    private int fill(long position) throws IOException {
+        window.clear();
+        int read;
+        do {
+            read = channel.read(window, position + window.position());
+        } while (read > 0 && window.hasRemaining());
+        return window.position();
+    }
+
+    private int indexOfLineBreak(int from, int length) {
+        for (int i = from; i < length; i++) {
+            byte current = window.get(i);
+            if (current == LF || current == CR) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int indexOf(byte value, int from, int length) {
+        for (int i = from; i < length; i++) {
+            if (window.get(i) == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Поток, читающий диапазон байт файла позиционными чтениями канала.
+     */
+    private static final class RangeInputStream extends InputStream {
+
+        private final FileChannel channel;
+        private final long end;
+        private long position;
+
+        RangeInputStream(FileChannel channel, long start, long end) {
+            this.channel = channel;
+            this.position = start;
+            this.end = end;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) == -1 ? -1 : Byte.toUnsignedInt(single[0]);
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            int limit = (int) Math.min(length, end - position);
+            int read = limit <= 0 ? -1 : channel.read(ByteBuffer.wrap(buffer, offset, limit), position);
+            if (read > 0) {
+                position += read;
+            }
+            return read;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package backend.academy.parser;
+
+import java.io.Serial;
+
+/**
+ * Разбор прерван, потому что доля строк, которые не удалось разобрать, превысила порог
+ * ({@link BadLines#maxErrorRatio()}). В отличие от прочих ошибок чтения источника, не превращается
+ * в частичный результат, а доходит до вызывающего кода.
+ */
+public class TooManyBadLinesException extends IllegalStateException {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Создаёт исключение с сообщением о числе отклонённых строк.
+     *
+     * @param message сообщение.
+     */
+    public TooManyBadLinesException(String message) {
+        super(message);
+    }
+}
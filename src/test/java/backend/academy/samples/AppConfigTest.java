@@ -0,0 +1,65 @@
+package backend.academy.samples;
+
+import backend.academy.config.AppConfig;
+import org.junit.jupiter.api.Test;
+import java.nio.file.Path;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AppConfigTest {
+
+    @Test
+    void testConflictingRunModesAreRejected() {
+        String[][] conflicts = {
+            {"--checkpoint", "run.ckpt", "--workers", "2"},
+            {"--workers", "2", "--index"},
+            {"--checkpoint", "run.ckpt", "--index-dir", "indexes"},
+            {"--follow", "--index"},
+            {"--snapshot", "part.snapshot", "--workers", "2"},
+        };
+
+        for (String[] conflict : conflicts) {
+            String[] args = new String[conflict.length + 2];
+            args[0] = "--path";
+            args[1] = "access.log";
+            System.arraycopy(conflict, 0, args, 2, conflict.length);
+            IllegalArgumentException error = assertThrows(IllegalArgumentException.class, () -> new AppConfig(args));
+            assertTrue(error.getMessage().contains(conflict[0]), error.getMessage());
+        }
+    }
+
+    @Test
+    void testExtraValuesAreRejected() {
+        String[][] invalid = {
+            {"--path", "access.log", "--parallel", "foo"},
+            {"--stats", "access.log", "--path", "access.log"},
+            {"stray", "--path", "access.log"},
+            {"--path", "access.log", "--format", "json", "adoc"},
+        };
+
+        for (String[] args : invalid) {
+            assertThrows(IllegalArgumentException.class, () -> new AppConfig(args), String.join(" ", args));
+        }
+    }
+
+    @Test
+    void testPathAndFilterTakeSeveralValues() {
+        AppConfig config = new AppConfig(new String[] {"--path", "a.log", "b.log", "--filter", "method=GET",
+            "status=200", "--format", "adoc", "--format", "json", "--parallel"});
+
+        assertEquals(List.of("a.log", "b.log"), config.paths());
+        assertEquals(List.of("method=GET", "status=200"), config.filters());
+        assertEquals("json", config.format());
+        assertTrue(config.parallel());
+    }
+
+    @Test
+    void testIndexDirectoryWithIndexIsOneRunMode() {
+        AppConfig config = new AppConfig(new String[] {"--path", "access.log", "--index", "--index-dir", "indexes"});
+
+        assertTrue(config.index());
+        assertEquals(Path.of("indexes"), config.indexDirectory());
+    }
+}
@@ -0,0 +1,153 @@
+package backend.academy.samples;
+
+import backend.academy.analyzer.LogAnalyzer;
+import backend.academy.generator.GeneratorSettings;
+import backend.academy.generator.LogGenerator;
+import backend.academy.metrics.LineOutcome;
+import backend.academy.parser.BadLines;
+import backend.academy.parser.HttpSettings;
+import backend.academy.parser.LogFilter;
+import backend.academy.parser.LogParser;
+import backend.academy.parser.ParseContext;
+import backend.academy.parser.TooManyBadLinesException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BadLinesTest {
+
+    private static final LogFilter FILTER = new LogFilter(null, null, null, null);
+
+    private static final String GOOD_LINE =
+        "127.0.0.1 - - [02/Jan/2024:12:00:00 +0000] \"GET /a HTTP/1.1\" 200 10 \"-\" \"Mozilla/5.0\"";
+    private static final String BAD_DATE_LINE =
+        "127.0.0.5 - - [02/Xyz/2024:12:00:03 +0000] \"GET /a HTTP/1.1\" 200 50 \"-\" \"Mozilla/5.0\"";
+    private static final String GARBAGE_LINE = "это не строка лога";
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testRejectedLinesAreQuarantinedWithOffsets() throws Exception {
+        Path log = directory.resolve("access.log");
+        Files.write(log, List.of(GOOD_LINE, GARBAGE_LINE, GOOD_LINE, BAD_DATE_LINE, GOOD_LINE));
+        long garbageOffset = GOOD_LINE.length() + 1;
+        long badDateOffset = garbageOffset + GARBAGE_LINE.getBytes(StandardCharsets.UTF_8).length + 1
+            + GOOD_LINE.length() + 1;
+        List<String> expected = List.of(
+            garbageOffset + "\tMALFORMED\t" + GARBAGE_LINE,
+            badDateOffset + "\tBAD_TIMESTAMP\t" + BAD_DATE_LINE);
+
+        for (boolean parallel : new boolean[] {false, true}) {
+            Path quarantine = directory.resolve("quarantine-" + parallel + ".txt");
+            BadLines badLines = new BadLines().quarantine(quarantine);
+            long parsed = LogParser.parse(log.toString(), FILTER, context(badLines), parallel,
+                LogAnalyzer.collector()).totalRequests();
+            badLines.close();
+
+            assertEquals(3, parsed);
+            assertEquals(2, badLines.rejected());
+            assertEquals(1, badLines.rejected(LineOutcome.MALFORMED));
+            assertEquals(1, badLines.rejected(LineOutcome.BAD_TIMESTAMP));
+            assertEquals(expected, Files.readAllLines(quarantine));
+        }
+    }
+
+    @Test
+    void testOversizedLineIsRejectedAndReadingResumesAfterIt() throws Exception {
+        String oversized = "x".repeat(5_000_000);
+        for (String separator : new String[] {"\n", "\r\n", "\r"}) {
+            Path log = directory.resolve("long.log");
+            Files.writeString(log, GOOD_LINE + separator + oversized + separator + GOOD_LINE + separator);
+            Path quarantine = directory.resolve("long-quarantine.txt");
+
+            BadLines badLines = new BadLines().logFirst(0).quarantine(quarantine);
+            long parsed = LogParser.parse(log.toString(), FILTER, context(badLines), false,
+                LogAnalyzer.collector()).totalRequests();
+            badLines.close();
+
+            assertEquals(2, parsed);
+            assertEquals(1, badLines.rejected(LineOutcome.MALFORMED));
+            String quarantined = Files.readString(quarantine);
+            assertTrue(quarantined.startsWith((GOOD_LINE.length() + separator.length()) + "\tMALFORMED\txxx"));
+            assertTrue(quarantined.length() < oversized.length());
+        }
+    }
+
+    @Test
+    void testLoggingIsRateLimited() throws Exception {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            lines.add(GOOD_LINE);
+            lines.add(GARBAGE_LINE + " " + i);
+        }
+        Path log = directory.resolve("access.log");
+        Files.write(log, lines);
+        List<String> messages = new ArrayList<>();
+        Handler handler = new Handler() {
+            @Override
+            public void publish(LogRecord logRecord) {
+                messages.add(logRecord.getMessage());
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        Logger logger = Logger.getLogger(BadLines.class.getName());
+        logger.addHandler(handler);
+        try {
+            BadLines badLines = new BadLines().logFirst(3).logEvery(5);
+            LogParser.parse(log.toString(), FILTER, context(badLines), false, LogAnalyzer.collector());
+            badLines.close();
+        } finally {
+            logger.removeHandler(handler);
+        }
+
+        // Строки 1, 2, 3, затем 8, 13, 18 и итог по всем 20.
+        assertEquals(7, messages.size());
+        assertTrue(messages.get(3).contains(GARBAGE_LINE + " 7"));
+        assertTrue(messages.getLast().contains("Отклонено строк: 20"));
+    }
+
+    @Test
+    void testParsingStopsWhenErrorRatioIsExceeded() throws Exception {
+        Path log = directory.resolve("generated.log");
+        new LogGenerator(new GeneratorSettings()
+            .seed(5)
+            .targetBytes(2_000_000)
+            .resources(200)
+            .clients(200)
+            .agents(10)
+            .malformedRatio(0.3)).write(log);
+
+        for (boolean parallel : new boolean[] {false, true}) {
+            ParseContext strict = context(new BadLines().logFirst(0).logEvery(0).maxErrorRatio(0.05));
+            assertThrows(TooManyBadLinesException.class,
+                () -> LogParser.parse(List.of(log.toString(), log.toString()), FILTER, strict, parallel,
+                    HttpSettings.DEFAULT, LogAnalyzer.collector()));
+
+            BadLines lenient = new BadLines().logFirst(0).logEvery(0).maxErrorRatio(0.5);
+            LogParser.parse(log.toString(), FILTER, context(lenient), parallel, LogAnalyzer.collector());
+            assertTrue(lenient.rejected() > 0);
+        }
+    }
+
+    private static ParseContext context(BadLines badLines) {
+        return new ParseContext().badLines(badLines);
+    }
+}
@@ -0,0 +1,77 @@
+package backend.academy.samples;
+
+import backend.academy.analyzer.LogAnalyzer;
+import backend.academy.analyzer.Statistics;
+import backend.academy.checkpoint.Checkpoint;
+import backend.academy.checkpoint.CheckpointSettings;
+import backend.academy.parser.LogFilter;
+import backend.academy.parser.LogParser;
+import backend.academy.parser.ParseContext;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Random;
+import static backend.academy.samples.TestLogs.assertSameStatistics;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class CheckpointTest {
+
+    private static final LogFilter ALL = new LogFilter(null, null, null, null);
+    private static final int RESOURCES = 40;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testResumedRunsMatchFullParse() throws Exception {
+        Path log = directory.resolve("access.log");
+        Path checkpoint = directory.resolve("state.ckpt");
+        Random random = new Random(17);
+        String first = String.join("\n", lines(random, 3_000));
+        String second = String.join("\n", lines(random, 2_000)) + "\n";
+        Files.writeString(log, first);
+
+        assertMatchesFullParse(List.of(log), parse(List.of(log), checkpoint, false));
+
+        Files.writeString(log, "\n" + second, StandardOpenOption.APPEND);
+        assertMatchesFullParse(List.of(log), parse(List.of(log), checkpoint, true));
+        assertMatchesFullParse(List.of(log), parse(List.of(log), checkpoint, true));
+
+        Path rotated = directory.resolve("access.log.1");
+        Files.writeString(log, String.join("\n", lines(random, 500)) + "\n", StandardOpenOption.APPEND);
+        Files.move(log, rotated);
+        Files.write(log, lines(random, 700));
+        assertMatchesFullParse(List.of(rotated, log), parse(List.of(log, rotated), checkpoint, true));
+    }
+
+    @Test
+    void testResumeWithDifferentFilterFails() throws Exception {
+        Path log = directory.resolve("access.log");
+        Path checkpoint = directory.resolve("state.ckpt");
+        Files.write(log, lines(new Random(18), 100));
+        parse(List.of(log), checkpoint, false);
+
+        LogFilter other = new LogFilter(LocalDateTime.of(2024, 1, 1, 0, 0), null, null, null);
+        assertThrows(IllegalArgumentException.class, () -> Checkpoint.parse(List.of(log.toString()), other,
+            new ParseContext(), false, new CheckpointSettings(checkpoint, true, 4_096), LogAnalyzer.collector()));
+    }
+
+    private static Statistics parse(List<Path> logs, Path checkpoint, boolean resume) throws Exception {
+        List<String> sources = logs.stream().map(Path::toString).toList();
+        return Checkpoint.parse(sources, ALL, new ParseContext(), false, new CheckpointSettings(checkpoint, resume, 4_096),
+            LogAnalyzer.collector());
+    }
+
+    private static void assertMatchesFullParse(List<Path> logs, Statistics actual) {
+        List<String> sources = logs.stream().map(Path::toString).toList();
+        assertSameStatistics(LogParser.parse(sources, ALL, false, LogAnalyzer.collector()), actual);
+    }
+
+    private static List<String> lines(Random random, int count) {
+        return TestLogs.lines(random, count, RESOURCES);
+    }
+}
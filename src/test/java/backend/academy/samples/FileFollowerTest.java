@@ -0,0 +1,82 @@
+package backend.academy.samples;
+
+import backend.academy.analyzer.LogAnalyzer;
+import backend.academy.metrics.LineOutcome;
+import backend.academy.parser.BadLines;
+import backend.academy.parser.FileFollower;
+import backend.academy.parser.LogFilter;
+import backend.academy.parser.ParseContext;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class FileFollowerTest {
+
+    private static final String LINE =
+        "10.0.0.1 - - [01/Jan/2024:12:00:00 +0000] \"GET /live HTTP/1.1\" 200 10 \"-\" \"curl/8.0\"";
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testFollowerReadsOnlyCompleteAppendedLines() throws Exception {
+        Path log = directory.resolve("access.log");
+        LogAnalyzer analyzer = new LogAnalyzer();
+        try (FileFollower follower = new FileFollower(log, new LogFilter(null, null, null, null), new ParseContext())) {
+            assertEquals(0, follower.poll(analyzer));
+
+            Files.writeString(log, LINE + "\n" + LINE + "\n" + LINE.substring(0, 20));
+            follower.poll(analyzer);
+            assertEquals(2, analyzer.getStatistics().totalRequests());
+
+            Files.writeString(log, LINE.substring(20) + "\n", StandardOpenOption.APPEND);
+            follower.poll(analyzer);
+            assertEquals(3, analyzer.getStatistics().totalRequests());
+            assertEquals(0, follower.poll(analyzer));
+            assertEquals(10.0, analyzer.getStatistics().averageResponseSize());
+        }
+    }
+
+    @Test
+    void testFollowerHandlesTruncationAndRotation() throws Exception {
+        Path log = directory.resolve("access.log");
+        LogAnalyzer analyzer = new LogAnalyzer();
+        try (FileFollower follower = new FileFollower(log, new LogFilter(null, null, null, null), new ParseContext())) {
+            Files.writeString(log, (LINE + "\n").repeat(5));
+            follower.poll(analyzer);
+            assertEquals(5, analyzer.getStatistics().totalRequests());
+
+            Files.writeString(log, LINE + "\n");
+            follower.poll(analyzer);
+            assertEquals(6, analyzer.getStatistics().totalRequests());
+
+            Files.writeString(log, (LINE + "\n").repeat(2) + LINE, StandardOpenOption.APPEND);
+            Files.move(log, directory.resolve("access.log.1"));
+            Files.writeString(log, (LINE + "\n").repeat(4));
+            follower.poll(analyzer);
+            assertEquals(13, analyzer.getStatistics().totalRequests());
+        }
+    }
+
+    @Test
+    void testFollowerRejectsOversizedLineAndResumesAfterIt() throws Exception {
+        Path log = directory.resolve("access.log");
+        LogAnalyzer analyzer = new LogAnalyzer();
+        BadLines badLines = new BadLines().logFirst(0);
+        ParseContext context = new ParseContext().badLines(badLines);
+        try (FileFollower follower = new FileFollower(log, new LogFilter(null, null, null, null), context)) {
+            Files.writeString(log, LINE + "\n" + "x".repeat(5_000_000));
+            follower.poll(analyzer);
+            assertEquals(1, analyzer.getStatistics().totalRequests());
+            assertEquals(1, badLines.rejected(LineOutcome.MALFORMED));
+
+            Files.writeString(log, "x".repeat(1_000) + "\n" + LINE + "\n", StandardOpenOption.APPEND);
+            follower.poll(analyzer);
+            assertEquals(2, analyzer.getStatistics().totalRequests());
+            assertEquals(1, badLines.rejected());
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package backend.academy.samples;
+
+import backend.academy.analyzer.HeavyHitters;
+import backend.academy.analyzer.ResourceCount;
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HeavyHittersTest {
+
+    private static final int CAPACITY = 200;
+
+    @Test
+    void testCountsStayWithinErrorBound() {
+        Map<String, Long> exact = new HashMap<>();
+        HeavyHitters summary = new HeavyHitters(CAPACITY);
+        Random random = new Random(3);
+        int total = 200_000;
+        for (int i = 0; i < total; i++) {
+            String resource = zipfResource(random);
+            exact.merge(resource, 1L, Long::sum);
+            summary.offer(resource);
+        }
+
+        assertBounds(exact, summary.top(CAPACITY), total);
+    }
+
+    @Test
+    void testMergedSummaryKeepsErrorBound() {
+        Map<String, Long> exact = new HashMap<>();
+        HeavyHitters left = new HeavyHitters(CAPACITY);
+        HeavyHitters right = new HeavyHitters(CAPACITY);
+        Random random = new Random(5);
+        int total = 200_000;
+        for (int i = 0; i < total; i++) {
+            String resource = zipfResource(random);
+            exact.merge(resource, 1L, Long::sum);
+            (i < total / 2 ? left : right).offer(resource);
+        }
+        left.merge(right);
+
+        assertEquals(total, left.totalCount());
+        assertBounds(exact, left.top(CAPACITY), total);
+    }
+
+    @Test
+    void testExactWhileUnderCapacity() {
+        HeavyHitters summary = new HeavyHitters(CAPACITY);
+        for (String resource : List.of("/b", "/a", "/b", "/c", "/b", "/a")) {
+            summary.offer(resource);
+        }
+
+        List<ResourceCount> top = summary.top(2);
+        assertEquals(2, top.size());
+        assertEquals("/b", top.get(0).resource());
+        assertEquals(3, top.get(0).count());
+        assertEquals("/a", top.get(1).resource());
+        assertEquals(0, top.get(1).error());
+    }
+
+    @Test
+    void testPartialsAllocateOnlyForSeenResources() {
+        // Каждая сводка рассчитана на гигабайт; с заранее выделенными массивами их не хватило бы памяти.
+        int capacity = HeavyHitters.capacityFor(1L << 30);
+        List<HeavyHitters> partials = new ArrayList<>();
+        for (int partial = 0; partial < 64; partial++) {
+            HeavyHitters summary = new HeavyHitters(capacity);
+            for (int i = 0; i < 100; i++) {
+                summary.offer("/page/" + (partial + i));
+            }
+            partials.add(summary);
+        }
+        HeavyHitters result = new HeavyHitters(capacity);
+        partials.forEach(result::merge);
+
+        assertEquals(6_400, result.totalCount());
+        assertEquals("/page/63", result.top(1).getFirst().resource());
+        assertEquals(64, result.top(1).getFirst().count());
+    }
+
+    private static void assertBounds(Map<String, Long> exact, List<ResourceCount> top, int total) {
+        for (ResourceCount resource : top) {
+            long actual = exact.get(resource.resource());
+            assertTrue(resource.count() >= actual, resource.resource());
+            assertTrue(resource.count() - resource.error() <= actual, resource.resource());
+            assertTrue(resource.error() <= total / CAPACITY, resource.resource());
+        }
+        exact.forEach((resource, count) -> {
+            if (count > total / CAPACITY) {
+                assertTrue(top.stream().anyMatch(entry -> entry.resource().equals(resource)), resource);
+            }
+        });
+    }
+
+    private static String zipfResource(Random random) {
+        return "/page/" + (int) Math.floor(Math.pow(100_000, random.nextDouble()));
+    }
+}
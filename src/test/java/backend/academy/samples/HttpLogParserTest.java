@@ -0,0 +1,184 @@
+package backend.academy.samples;
+
+import backend.academy.parser.HttpSettings;
+import backend.academy.parser.LogFilter;
+import backend.academy.parser.LogParser;
+import backend.academy.parser.LogRecord;
+import backend.academy.parser.ParseContext;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HttpLogParserTest {
+
+    private static final Pattern RANGE = Pattern.compile("bytes=(\\d+)-(\\d+)");
+    private static final LogFilter NO_FILTER = new LogFilter(null, null, null, null);
+
+    private final AtomicInteger rangeRequests = new AtomicInteger();
+    private final AtomicInteger failuresLeft = new AtomicInteger();
+    private final AtomicInteger failedRangeRequests = new AtomicInteger();
+    private volatile int failingRangeStart = -1;
+    private HttpServer server;
+    private byte[] body;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            lines.add("10.0.0.1 - - [01/Jan/2024:12:00:00 +0000] \"GET /page/" + i + " HTTP/1.1\" 200 " + i
+                + " \"-\" \"curl/8.0\"");
+        }
+        body = (String.join("\n", lines) + "\n").getBytes(StandardCharsets.UTF_8);
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/ranged", exchange -> serve(exchange, true));
+        server.createContext("/plain", exchange -> serve(exchange, false));
+        server.createContext("/unknown-length", this::serveUnknownLength);
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    void testRangedDownloadMatchesWholeBody() {
+        HttpSettings settings = new HttpSettings(0, Duration.ofSeconds(10), 65_536, 4);
+
+        List<LogRecord> records = parse("/ranged", settings);
+
+        assertEquals(20_000, records.size());
+        assertTrue(rangeRequests.get() > 10);
+        for (int i = 0; i < records.size(); i++) {
+            assertEquals("/page/" + i, records.get(i).resource());
+        }
+    }
+
+    @Test
+    void testServerWithoutRangeSupportIsReadWhole() {
+        List<LogRecord> records = parse("/plain", new HttpSettings(0, Duration.ofSeconds(10), 65_536, 4));
+
+        assertEquals(20_000, records.size());
+    }
+
+    @Test
+    void testProbeWithUnknownLengthIsFollowedByWholeRequest() {
+        List<LogRecord> records = parse("/unknown-length", new HttpSettings(0, Duration.ofSeconds(10), 65_536, 4));
+
+        assertEquals(20_000, records.size());
+    }
+
+    @Test
+    void testFailedRequestsAreRetried() {
+        failuresLeft.set(3);
+
+        List<LogRecord> records = parse("/ranged", new HttpSettings(3, Duration.ofSeconds(10), 65_536, 2));
+
+        assertEquals(20_000, records.size());
+        assertEquals(0, failuresLeft.get());
+    }
+
+    @Test
+    void testFailingRangeIsRetriedOnlyByOneLayer() {
+        // Ответы по кругу: 503, 503, оборванное тело. Каждый из них — одна неудачная попытка.
+        int rangeSize = body.length / 2 + 1;
+        failingRangeStart = rangeSize;
+
+        List<LogRecord> records = parse("/ranged", new HttpSettings(2, Duration.ofSeconds(10), rangeSize, 2));
+
+        assertEquals(0, records.size());
+        assertEquals(3, failedRangeRequests.get());
+    }
+
+    @Test
+    void testMultipleUrlsAreMerged() {
+        String base = "http://127.0.0.1:" + server.getAddress().getPort();
+
+        List<LogRecord> records = LogParser.parse(List.of(base + "/ranged", base + "/plain"), NO_FILTER,
+            new ParseContext(), false, new HttpSettings(0, Duration.ofSeconds(10), 65_536, 4), Collectors.toList());
+
+        assertEquals(40_000, records.size());
+    }
+
+    private List<LogRecord> parse(String path, HttpSettings settings) {
+        String url = "http://127.0.0.1:" + server.getAddress().getPort() + path;
+        return LogParser.parse(List.of(url), NO_FILTER, new ParseContext(), false, settings, Collectors.toList());
+    }
+
+    private void serve(HttpExchange exchange, boolean ranges) throws IOException {
+        if (failuresLeft.getAndUpdate(left -> Math.max(0, left - 1)) > 0) {
+            exchange.sendResponseHeaders(503, -1);
+            exchange.close();
+            return;
+        }
+        String range = exchange.getRequestHeaders().getFirst("Range");
+        Matcher matcher = range == null ? null : RANGE.matcher(range);
+        int start = 0;
+        int end = body.length - 1;
+        if (ranges && matcher != null && matcher.matches()) {
+            rangeRequests.incrementAndGet();
+            start = Integer.parseInt(matcher.group(1));
+            if (start == failingRangeStart) {
+                failRange(exchange, start);
+                return;
+            }
+            end = Math.min(end, Integer.parseInt(matcher.group(2)));
+            exchange.getResponseHeaders().add("Content-Range", "bytes " + start + "-" + end + "/" + body.length);
+            exchange.sendResponseHeaders(206, end - start + 1);
+        } else {
+            exchange.sendResponseHeaders(200, body.length);
+        }
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(body, start, end - start + 1);
+        }
+    }
+
+    private void failRange(HttpExchange exchange, int start) throws IOException {
+        if (failedRangeRequests.getAndIncrement() % 3 < 2) {
+            exchange.sendResponseHeaders(503, -1);
+            exchange.close();
+            return;
+        }
+        exchange.getResponseHeaders().add("Content-Range", "bytes " + start + "-" + (body.length - 1) + "/"
+            + body.length);
+        exchange.sendResponseHeaders(206, body.length - start);
+        OutputStream output = exchange.getResponseBody();
+        output.write(body, start, 100);
+        output.flush();
+        exchange.close();
+    }
+
+    /**
+     * Отвечает на запрос диапазона запрошенными байтами, но без полного размера ({@code bytes 0-3/*}).
+     */
+    private void serveUnknownLength(HttpExchange exchange) throws IOException {
+        String range = exchange.getRequestHeaders().getFirst("Range");
+        Matcher matcher = range == null ? null : RANGE.matcher(range);
+        if (matcher == null || !matcher.matches()) {
+            serve(exchange, false);
+            return;
+        }
+        int start = Integer.parseInt(matcher.group(1));
+        int end = Integer.parseInt(matcher.group(2));
+        exchange.getResponseHeaders().add("Content-Range", "bytes " + start + "-" + end + "/*");
+        exchange.sendResponseHeaders(206, end - start + 1);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(body, start, end - start + 1);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package backend.academy.samples;
+
+import backend.academy.analyzer.ResourceCount;
+import backend.academy.analyzer.Statistics;
+import backend.academy.formatter.JsonFormatter;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import java.io.StringWriter;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+public class JsonFormatterTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Test
+    void testJsonFormatter() throws Exception {
+        Statistics stats = statistics(List.of(new ResourceCount("/a \"quoted\"", 60, 0), new ResourceCount("/b", 40, 2)));
+
+        JsonNode report = MAPPER.readTree(new JsonFormatter().format(stats));
+
+        assertEquals("access.log", report.get("path").asText());
+        assertEquals("2024-01-01T00:00:00", report.get("from").asText());
+        assertTrue(report.get("to").isNull());
+        assertEquals(100, report.get("totalRequests").asLong());
+        assertEquals(500.25, report.get("averageResponseSize").asDouble());
+        assertEquals(950, report.get("responseSizePercentiles").get("99.9").asInt());
+        assertEquals("/a \"quoted\"", report.get("resources").get(0).get("resource").asText());
+        assertEquals(2, report.get("resources").get(1).get("error").asLong());
+        assertEquals("Not Found", report.get("statusCodes").get(1).get("name").asText());
+        assertEquals(10, report.get("statusCodes").get(1).get("count").asLong());
+    }
+
+    @Test
+    void testNdjsonFormatterWritesOneObjectPerLine() throws Exception {
+        List<ResourceCount> resources = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            resources.add(new ResourceCount("/page/" + i, 10_000 - i, 0));
+        }
+        StringWriter writer = new StringWriter();
+        new JsonFormatter(true).format(statistics(resources), writer);
+
+        String[] lines = writer.toString().split("\n");
+        assertEquals(1 + resources.size() + 2, lines.length);
+        assertEquals("summary", MAPPER.readTree(lines[0]).get("type").asText());
+        JsonNode last = MAPPER.readTree(lines[resources.size()]);
+        assertEquals("resource", last.get("type").asText());
+        assertEquals("/page/9999", last.get("resource").asText());
+        assertEquals(90, MAPPER.readTree(lines[lines.length - 2]).get("count").asLong());
+    }
+
+    private static Statistics statistics(List<ResourceCount> resources) {
+        Statistics stats = Mockito.mock(Statistics.class);
+        when(stats.path()).thenReturn("access.log");
+        when(stats.from()).thenReturn(LocalDateTime.of(2024, 1, 1, 0, 0));
+        when(stats.totalRequests()).thenReturn(100L);
+        when(stats.averageResponseSize()).thenReturn(500.25);
+        when(stats.responseSizePercentiles()).thenReturn(Map.of(99.9, 950));
+        when(stats.topResources()).thenReturn(resources);
+        when(stats.statusCounts()).thenReturn(new TreeMap<>(Map.of(200, 90L, 404, 10L)));
+        return stats;
+    }
+}
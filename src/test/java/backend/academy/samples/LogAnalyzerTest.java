@@ -1,15 +1,31 @@
 package backend.academy.samples;
 
+import backend.academy.analyzer.AggregationKernels;
 import backend.academy.analyzer.LogAnalyzer;
 import backend.academy.analyzer.Statistics;
+import backend.academy.parser.LogFilter;
+import backend.academy.parser.LogParser;
 import backend.academy.parser.LogRecord;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.OffsetDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import static backend.academy.samples.TestLogs.assertSameStatistics;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 public class LogAnalyzerTest {
 
+    @TempDir
+    Path directory;
+
     @Test
     void testStatisticsCalculation() {
         List<LogRecord> records = List.of(
@@ -29,4 +45,64 @@ public class LogAnalyzerTest {
         assertEquals(300, stats.minResponseSize());
         assertEquals(1, stats.zeroResponseCount());
     }
+
+    @Test
+    void testResourceCountsAreReadOnlyViewOfNonZeroCounters() {
+        Statistics stats = new Statistics();
+        int index = stats.internResource("/index.html");
+        stats.internResource("/never-counted");
+        Map<String, Long> counts = stats.resourceCounts();
+        stats.addResourceCount(index, 3);
+        stats.incrementResourceCount(stats.internResource("/about.html"));
+
+        assertEquals(Map.of("/index.html", 3L, "/about.html", 1L), counts);
+        assertNull(counts.get("/never-counted"));
+        assertFalse(counts.containsKey("/missing"));
+        assertThrows(UnsupportedOperationException.class, () -> counts.put("/index.html", 1L));
+    }
+
+    @Test
+    void testStatusCountsAreMergedAndOrdered() {
+        Statistics left = new Statistics();
+        Statistics right = new Statistics();
+        for (int statusCode : new int[] {999, 200, 404, 200, 42}) {
+            left.incrementStatusCount(statusCode);
+            right.incrementStatusCount(statusCode);
+        }
+        left.merge(right);
+
+        assertEquals(List.of(42, 200, 404, 999), new ArrayList<>(left.statusCounts().keySet()));
+        assertEquals(4, left.statusCounts().get(200));
+        assertEquals(2, left.statusCounts().get(999));
+    }
+
+    @Test
+    void testStreamingCollectorMatchesListAdapter() throws Exception {
+        Path log = Files.write(directory.resolve("access.log"), TestLogs.lines(new Random(3), 30_000, 50));
+        String file = log.toString();
+        LogFilter filter = new LogFilter(null, null, null, null);
+
+        Statistics expected = new LogAnalyzer(LogParser.parse(file, filter)).getStatistics();
+        Statistics sequential = LogParser.parse(file, filter, false, LogAnalyzer.collector());
+        Statistics parallel = LogParser.parse(file, filter, true, LogAnalyzer.collector());
+
+        assertSameStatistics(expected, sequential);
+        assertSameStatistics(expected, parallel);
+    }
+
+    @Test
+    void testSelectedKernelsMatchScalarKernels() {
+        AggregationKernels selected = AggregationKernels.select();
+        AggregationKernels scalar = AggregationKernels.scalar();
+        Random random = new Random(14);
+        for (int length = 0; length < 300; length++) {
+            int[] values = new int[length + 7];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = random.nextInt(4) == 0 ? 0 : random.nextInt(Integer.MAX_VALUE);
+            }
+            assertEquals(scalar.sum(values, length), selected.sum(values, length), "length " + length);
+            assertEquals(scalar.minNonZero(values, length), selected.minNonZero(values, length), "length " + length);
+            assertEquals(scalar.countZeros(values, length), selected.countZeros(values, length), "length " + length);
+        }
+    }
 }
@@ -4,42 +4,125 @@ import backend.academy.parser.LogFilter;
 import backend.academy.parser.LogParser;
 import backend.academy.parser.LogRecord;
 import org.junit.jupiter.api.Test;
-import java.io.File;
+import org.junit.jupiter.api.io.TempDir;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Random;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class LogFilterTest {
 
+    private static final String[] METHODS = {"GET", "POST", "get", "HEAD"};
+    private static final String[] AGENTS = {"Mozilla/5.0 (X11)", "curl/8.0", "mozilla/4.0", "Go-http-client/1.1"};
+    private static final String[] RESOURCES = {"/api/v1/users", "/API/v2", "/static/app.js", "/index.html"};
+
+    @TempDir
+    Path directory;
+
     @Test
     void testLogFilteringByDate() throws Exception {
-        File tempFile = File.createTempFile("test", ".log");
-        Files.write(tempFile.toPath(), List.of(
+        Path file = Files.write(directory.resolve("access.log"), List.of(
             "127.0.0.1 - - [01/Jan/2024:12:00:00 +0000] \"GET /index.html HTTP/1.1\" 200 1234 \"-\" \"Mozilla/5.0\"",
             "127.0.0.1 - - [02/Jan/2024:12:00:00 +0000] \"GET /about.html HTTP/1.1\" 200 5678 \"-\" \"Mozilla/5.0\""
         ));
         LocalDateTime from = LocalDateTime.of(2024, 1, 2, 0, 0);
         LocalDateTime to = LocalDateTime.of(2024, 1, 2, 23, 59);
         LogFilter filter = new LogFilter(from, to, null, null);
-        List<LogRecord> records = LogParser.parse(tempFile.getAbsolutePath(), filter);
+        List<LogRecord> records = LogParser.parse(file.toString(), filter);
         assertEquals(1, records.size());
         assertEquals("/about.html", records.get(0).resource());
-        tempFile.delete();
     }
 
     @Test
     void testLogFilteringByMethod() throws Exception {
-        File tempFile = File.createTempFile("test", ".log");
-        Files.write(tempFile.toPath(), List.of(
+        Path file = Files.write(directory.resolve("access.log"), List.of(
             "127.0.0.1 - - [01/Jan/2024:12:00:00 +0000] \"GET /index.html HTTP/1.1\" 200 1234 \"-\" \"Mozilla/5.0\"",
             "127.0.0.1 - - [01/Jan/2024:12:00:01 +0000] \"POST /submit HTTP/1.1\" 200 5678 \"-\" \"Mozilla/5.0\""
         ));
         LogFilter filter = new LogFilter(null, null, "method", "GET");
-        List<LogRecord> records = LogParser.parse(tempFile.getAbsolutePath(), filter);
+        List<LogRecord> records = LogParser.parse(file.toString(), filter);
         assertEquals(1, records.size());
         assertEquals("/index.html", records.get(0).resource());
-        tempFile.delete();
     }
 
+    @Test
+    void testExpressionMatchesOnBothParsingPaths() {
+        LogFilter filter = new LogFilter(null, null, null, null, List.of(
+            "(method=get or agent=\"mozilla*\") and not ip=10.0.0.0/8",
+            "status=2xx or status=500-503 or size=-100",
+            "resource!=/static/*"
+        ));
+        Random random = new Random(5);
+
+        int matched = 0;
+        for (int i = 0; i < 5_000; i++) {
+            String ip = random.nextBoolean() ? "10.1.2." + random.nextInt(256) : "192.168.0." + random.nextInt(256);
+            String method = METHODS[random.nextInt(METHODS.length)];
+            String agent = AGENTS[random.nextInt(AGENTS.length)];
+            String resource = RESOURCES[random.nextInt(RESOURCES.length)];
+            int status = 200 + random.nextInt(400);
+            int size = random.nextInt(1000);
+            String line = ip + " - - [01/Jan/2024:12:00:00 +0000] \"" + method + " " + resource + " HTTP/1.1\" "
+                + status + " " + size + " \"-\" \"" + agent + "\"";
+
+            boolean expected = (method.equalsIgnoreCase("GET") || agent.toLowerCase().startsWith("mozilla"))
+                && !ip.startsWith("10.")
+                && (status / 100 == 2 || status >= 500 && status <= 503 || size <= 100)
+                && !resource.toLowerCase().startsWith("/static/");
+            LogRecord fromRegex = LogParser.parseLine(line, filter);
+            LogRecord fromTokens = LogParser.parseLine(line.getBytes(StandardCharsets.UTF_8), filter);
+            if (expected) {
+                matched++;
+                assertNotNull(fromRegex, line);
+                assertNotNull(fromTokens, line);
+            } else {
+                assertNull(fromRegex, line);
+                assertNull(fromTokens, line);
+            }
+        }
+        assertTrue(matched > 100, "matched: " + matched);
+    }
+
+    @Test
+    void testLegacyAgentFilterTreatsRegexCharactersLiterally() {
+        LogFilter filter = new LogFilter(null, null, "agent", "Mozilla/5.0 (X11*");
+        String line = "10.0.0.1 - - [01/Jan/2024:12:00:00 +0000] \"GET /a HTTP/1.1\" 200 5 \"-\" "
+            + "\"Mozilla/5.0 (X11; Linux x86_64)\"";
+
+        assertNotNull(LogParser.parseLine(line, filter));
+        assertNotNull(LogParser.parseLine(line.getBytes(StandardCharsets.UTF_8), filter));
+    }
+
+    @Test
+    void testInvalidExpressionsAreRejected() {
+        for (String expression : List.of("method", "method=GET and", "(status=200", "color=red", "size=abc",
+            "ip=10.0.0.0/33", "agent=\"curl")) {
+            assertThrows(IllegalArgumentException.class,
+                () -> new LogFilter(null, null, null, null, List.of(expression)), expression);
+        }
+    }
+
+    @Test
+    void testLegacyFieldPairKeepsOriginalSemantics() {
+        String line = "10.0.0.1 - - [01/Jan/2024:12:00:00 +0000] \"GET /a HTTP/1.1\" 200 5 \"-\" \"curl/8.0\"";
+        // Неизвестное поле, как и до выражений фильтра, не отбрасывает строки.
+        LogFilter unknown = new LogFilter(null, null, "color", "red");
+        // Метод сравнивается целиком без учёта регистра, «*» — обычный символ.
+        LogFilter exactMethod = new LogFilter(null, null, "method", "get");
+        LogFilter starMethod = new LogFilter(null, null, "method", "G*");
+
+        for (LogFilter filter : List.of(unknown, exactMethod)) {
+            assertNotNull(LogParser.parseLine(line, filter));
+            assertNotNull(LogParser.parseLine(line.getBytes(StandardCharsets.UTF_8), filter));
+        }
+        assertNull(LogParser.parseLine(line, starMethod));
+        assertNull(LogParser.parseLine(line.getBytes(StandardCharsets.UTF_8), starMethod));
+    }
 }
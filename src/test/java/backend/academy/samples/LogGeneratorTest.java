@@ -0,0 +1,77 @@
+package backend.academy.samples;
+
+import backend.academy.analyzer.LogAnalyzer;
+import backend.academy.analyzer.Statistics;
+import backend.academy.generator.GeneratorSettings;
+import backend.academy.generator.LogGenerator;
+import backend.academy.parser.LogFiles;
+import backend.academy.parser.LogFilter;
+import backend.academy.parser.LogParser;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LogGeneratorTest {
+
+    private static final LogFilter ALL = new LogFilter(null, null, null, null);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testSameSeedGivesSameFile() throws Exception {
+        Path first = directory.resolve("first.log");
+        Path second = directory.resolve("second.log");
+        Path other = directory.resolve("other.log");
+
+        long lines = new LogGenerator(settings(5)).write(first);
+        new LogGenerator(settings(5)).write(second);
+        new LogGenerator(settings(6)).write(other);
+
+        assertArrayEquals(Files.readAllBytes(first), Files.readAllBytes(second));
+        assertFalse(Files.mismatch(first, other) < 0);
+        assertEquals(lines, LogFiles.countLines(first));
+        assertTrue(Files.size(first) >= 1_000_000 && Files.size(first) < 1_001_000);
+    }
+
+    @Test
+    void testGeneratedLinesFollowSettings() throws Exception {
+        Path log = directory.resolve("access.log");
+        long lines = new LogGenerator(settings(7)
+            .statusMix(Map.of(200, 90.0, 404, 10.0))
+            .malformedRatio(0.2)).write(log);
+
+        Statistics stats = LogParser.parse(List.of(log.toString()), ALL, false, LogAnalyzer.collector());
+
+        assertEquals(0.8, (double) stats.totalRequests() / lines, 0.02);
+        assertEquals(Set.of(200, 404), stats.statusCounts().keySet());
+        assertEquals(0.1, (double) stats.statusCounts().get(404) / stats.totalRequests(), 0.02);
+        assertEquals("/", stats.topResources().getFirst().resource());
+    }
+
+    @Test
+    void testInvalidSettingsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new LogGenerator(settings(1).malformedRatio(1.5)));
+        assertThrows(IllegalArgumentException.class,
+            () -> new LogGenerator(settings(1).statusMix(GeneratorSettings.parseStatusMix("200:1,42:1"))));
+    }
+
+    private static GeneratorSettings settings(long seed) {
+        return new GeneratorSettings()
+            .seed(seed)
+            .targetBytes(1_000_000)
+            .resources(1_000)
+            .clients(500)
+            .agents(50)
+            .skewSeconds(3);
+    }
+}
@@ -0,0 +1,148 @@
+package backend.academy.samples;
+
+import backend.academy.parser.LogFilter;
+import backend.academy.parser.LogLineTokenizer;
+import backend.academy.parser.LogParser;
+import backend.academy.parser.LogRecord;
+import org.junit.jupiter.api.Test;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LogLineTokenizerTest {
+
+    private static final List<String> CORPUS = List.of(
+        "127.0.0.1 - - [01/Jan/2024:12:00:00 +0000] \"GET /index.html HTTP/1.1\" 200 1234 \"-\" \"Mozilla/5.0\"",
+        "93.180.71.3 - - [17/May/2015:08:05:32 +0000] \"GET /downloads/product_1 HTTP/1.1\" 304 0 \"-\" "
+            + "\"Debian APT-HTTP/1.3 (0.8.16~exp12ubuntu10.21)\"",
+        "10.0.0.1 - bob [01/Jan/2024:12:00:00 -0700] \"POST /submit?a=1&b=\"2\" HTTP/1.0\" 500 0 \"\" \"\"",
+        "10.0.0.1 - - [01/Jan/2024:12:00:00 +0000] \"GET /a HTTP/1.1\"\" 200 5 \"ref\" \"agent\" trailing",
+        "10.0.0.1 - - [01/Jan/2024:12:00:00 +0000] \"GET /a HTTP/1.1\" 200 5 \"a\" \"b\" \"c\"",
+        "10.0.0.1 - - [01/Jan/2024:12:00:00 +0000] \"GET /a HTTP/1.1\" 200 5 \"a\" \" \"b\"",
+        "10.0.0.1 - - [01/Jan/2024:12:00:00 +0000] \"GET /a HTTP/1.1\" 200 99999999999 \"-\" \"-\"",
+        "10.0.0.1 - - [01/Jan/2024:12:00:00 +0000] \"GET /a HTTP/1.1\" 2000 5 \"-\" \"-\"",
+        "10.0.0.1 - - [01/Jan/2024:12:00:00 +0000] \"GET /a b HTTP/1.1\" 200 5 \"-\" \"-\"",
+        "10.0.0.1 - - [32/Jan/2024:12:00:00 +0000] \"GET /a HTTP/1.1\" 200 5 \"-\" \"-\"",
+        "10.0.0.1 - - [01/Jan/2024:12:00:00 +0000] \"GET /a HTTP/1.1\" 200 5 \"-\" \"Mozilla/5.0 (Привет)\"",
+        "10.0.0.1 - - [01/Jan/2024:12:00:00 +0000] \"GET /ресурс HTTP/1.1\" 200 5 \"-\" \"-\"",
+        "10.0.0.1 - - [01/Jan/2024:12:00:00 +0000] \"GET /a HTTP/1.1\" 200 5 \"-\" \"no closing quote",
+        "10.0.0.1 - - [01/Jan/2024:12:00:00 +0000]\"GET /a HTTP/1.1\" 200 5 \"-\" \"-\"",
+        "10.0.0.1 - - [] \"GET /a HTTP/1.1\" 200 5 \"-\" \"-\"",
+        "10.0.0.1\t- - [01/Jan/2024:12:00:00 +0000] \"GET /a HTTP/1.1\" 200 5 \"-\" \"-\"",
+        "10.0.0.1 - - [01/Jan/2024:12:00:00 +0000] \"GET /a HTTP/1.1\" 200 5 \"a\tb\" \"c\u0085d\"",
+        "malformed line",
+        ""
+    );
+
+    @Test
+    void testTokenizerAcceptsCombinedFormat() {
+        LogLineTokenizer tokenizer = new LogLineTokenizer();
+        byte[] line = CORPUS.get(1).getBytes(StandardCharsets.UTF_8);
+
+        assertTrue(tokenizer.tokenize(ByteBuffer.wrap(line), 0, line.length));
+        assertEquals("93.180.71.3", tokenizer.ipAddress());
+        assertEquals("17/May/2015:08:05:32 +0000", tokenizer.dateTime());
+        assertEquals("GET", tokenizer.method());
+        assertEquals("/downloads/product_1", tokenizer.resource());
+        assertEquals(304, tokenizer.statusCode());
+        assertEquals(0, tokenizer.responseSize());
+        assertEquals("Debian APT-HTTP/1.3 (0.8.16~exp12ubuntu10.21)", tokenizer.userAgent());
+    }
+
+    @Test
+    void testTimestampParserMatchesDateTimeFormatter() {
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MMM/yyyy:HH:mm:ss Z", Locale.ENGLISH);
+        LogLineTokenizer tokenizer = new LogLineTokenizer();
+        Random random = new Random(23);
+        List<String> timestamps = new ArrayList<>(List.of(
+            "29/Feb/2024:23:59:59 +0000", "31/Dec/1999:23:59:59 -1800", "01/Jan/1970:00:00:00 +1800",
+            "01/Mar/2100:00:00:00 +0530", "29/Feb/2100:00:00:00 +0000", "31/Apr/2024:00:00:00 +0000",
+            "01/Jan/2024:24:00:00 +0000", "01/jan/2024:00:00:00 +0000", "01/Jan/2024:00:00:00 +1900"));
+        for (int i = 0; i < 5_000; i++) {
+            OffsetDateTime value = OffsetDateTime.ofInstant(
+                Instant.ofEpochSecond(random.nextLong(-2_000_000_000L, 8_000_000_000L)),
+                ZoneOffset.ofTotalSeconds((random.nextInt(73) - 36) * 1800));
+            timestamps.add(value.format(formatter));
+            if (i % 10 == 0) {
+                timestamps.add(value.plusSeconds(1).format(formatter));
+            }
+        }
+
+        int fastPath = 0;
+        for (String timestamp : timestamps) {
+            byte[] line = ("10.0.0.1 - - [" + timestamp + "] \"GET /a HTTP/1.1\" 200 5 \"-\" \"-\"")
+                .getBytes(StandardCharsets.UTF_8);
+            assertTrue(tokenizer.tokenize(ByteBuffer.wrap(line), 0, line.length), timestamp);
+            OffsetDateTime expected = null;
+            try {
+                expected = OffsetDateTime.parse(timestamp, formatter);
+            } catch (DateTimeParseException e) {
+                assertFalse(tokenizer.parseDateTime(), timestamp);
+                continue;
+            }
+            if (tokenizer.parseDateTime()) {
+                fastPath++;
+                assertEquals(expected.toEpochSecond(), tokenizer.epochSecond(), timestamp);
+                assertEquals(expected.getOffset().getTotalSeconds(), tokenizer.offsetSeconds(), timestamp);
+            }
+        }
+        assertTrue(fastPath >= 5_000, "fast path: " + fastPath);
+    }
+
+    @Test
+    void testTokenizerAndRegexAgreeOnCorpus() {
+        List<String> corpus = new ArrayList<>(CORPUS);
+        corpus.addAll(randomLines(5_000));
+        List<LogFilter> filters = List.of(
+            new LogFilter(null, null, null, null),
+            new LogFilter(null, null, "method", "GET"),
+            new LogFilter(null, null, "agent", "mozilla*")
+        );
+
+        for (LogFilter filter : filters) {
+            for (String line : corpus) {
+                LogRecord expected = LogParser.parseLine(line, filter);
+                LogRecord actual = LogParser.parseLine(line.getBytes(StandardCharsets.UTF_8), filter);
+                if (expected == null) {
+                    assertNull(actual, line);
+                } else {
+                    assertNotNull(actual, line);
+                    assertEquals(expected.ipAddress(), actual.ipAddress(), line);
+                    assertEquals(expected.timestamp(), actual.timestamp(), line);
+                    assertEquals(expected.resource(), actual.resource(), line);
+                    assertEquals(expected.statusCode(), actual.statusCode(), line);
+                    assertEquals(expected.responseSize(), actual.responseSize(), line);
+                }
+            }
+        }
+    }
+
+    private static List<String> randomLines(int count) {
+        Random random = new Random(42);
+        String alphabet = " \"[]-/:+0123456789GETPOSabcxyz\t";
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            StringBuilder line = new StringBuilder(CORPUS.get(random.nextInt(CORPUS.size())));
+            int mutations = random.nextInt(3);
+            for (int j = 0; j < mutations && !line.isEmpty(); j++) {
+                int position = random.nextInt(line.length());
+                line.setCharAt(position, alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            lines.add(line.toString());
+        }
+        return lines;
+    }
+}
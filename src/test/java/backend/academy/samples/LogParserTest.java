@@ -1,24 +1,48 @@
 package backend.academy.samples;
 
+import backend.academy.parser.BadLines;
+import backend.academy.parser.FieldDictionaries;
 import backend.academy.parser.LogFilter;
 import backend.academy.parser.LogParser;
 import backend.academy.parser.LogRecord;
+import backend.academy.parser.LogSources;
+import backend.academy.parser.ParseContext;
 import org.junit.jupiter.api.Test;
-import java.io.File;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 
 public class LogParserTest {
 
+    private static final String SINGLE_LINE =
+        "127.0.0.1 - - [01/Jan/2024:12:00:00 +0000] \"GET /index.html HTTP/1.1\" 200 1234 \"-\" \"Mozilla/5.0\"";
+
+    @TempDir
+    Path directory;
+
     @Test
     void testParseSingleLogRecord() throws Exception {
-        File tempFile = File.createTempFile("test", ".log");
-        Files.write(tempFile.toPath(), List.of(
-            "127.0.0.1 - - [01/Jan/2024:12:00:00 +0000] \"GET /index.html HTTP/1.1\" 200 1234 \"-\" \"Mozilla/5.0\""
-        ));
+        Path file = Files.write(directory.resolve("access.log"), List.of(SINGLE_LINE));
         LogFilter filter = new LogFilter(null, null, null, null);
-        List<LogRecord> records = LogParser.parse(tempFile.getAbsolutePath(), filter);
+        List<LogRecord> records = LogParser.parse(file.toString(), filter);
 
         assertEquals(1, records.size());
         LogRecord record = records.get(0);
@@ -26,8 +50,40 @@ public class LogParserTest {
         assertEquals("/index.html", record.resource());
         assertEquals(200, record.statusCode());
         assertEquals(1234, record.responseSize());
+    }
 
-        tempFile.delete();
+    @Test
+    void testSingleLinesUseCallerDictionariesAndReportRejectionsPerThread() throws Exception {
+        LogFilter filter = new LogFilter(null, null, null, null);
+        ParseContext context = new ParseContext().badLines(new BadLines().logFirst(0).logEvery(0));
+        List<FieldDictionaries> dictionaries = new ArrayList<>();
+        List<Future<?>> tasks = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (int t = 0; t < 4; t++) {
+            FieldDictionaries own = new FieldDictionaries();
+            dictionaries.add(own);
+            tasks.add(executor.submit(() -> {
+                for (int i = 0; i < 1_000; i++) {
+                    String line = "10.0.0.1 - - [01/Jan/2024:12:00:00 +0000] \"GET /page/" + i % 10
+                        + " HTTP/1.1\" 200 5 \"-\" \"curl/8.0\"";
+                    LogRecord fromText = LogParser.parseLine(line, filter, context, own);
+                    LogRecord fromBytes =
+                        LogParser.parseLine(line.getBytes(StandardCharsets.UTF_8), filter, context, own);
+                    assertEquals(fromText.resource(), fromBytes.resource());
+                    assertNull(LogParser.parseLine("garbage " + i, filter, context, own));
+                }
+            }));
+        }
+        for (Future<?> task : tasks) {
+            task.get();
+        }
+        executor.shutdown();
+
+        assertEquals(4_000, context.badLines().rejected());
+        for (FieldDictionaries own : dictionaries) {
+            assertEquals(10, own.resources().size());
+            assertEquals(1, own.ipAddresses().size());
+        }
     }
 
     @Test
@@ -41,19 +97,122 @@ public class LogParserTest {
 
     @Test
     void testLogParserCorrectness() throws Exception {
-        File tempFile = File.createTempFile("test", ".log");
-        Files.write(tempFile.toPath(), List.of(
-            "127.0.0.1 - - [01/Jan/2024:12:00:00 +0000] \"GET /index.html HTTP/1.1\" 200 1234 \"-\" \"Mozilla/5.0\""
-        ));
+        Path file = Files.write(directory.resolve("access.log"), List.of(SINGLE_LINE));
         LogFilter filter = new LogFilter(null, null, null, null);
-        List<LogRecord> records = LogParser.parse(tempFile.getAbsolutePath(), filter);
+        List<LogRecord> records = LogParser.parse(file.toString(), filter);
         assertEquals(1, records.size());
         LogRecord record = records.get(0);
         assertEquals("127.0.0.1", record.ipAddress());
         assertEquals("/index.html", record.resource());
         assertEquals(200, record.statusCode());
         assertEquals(1234, record.responseSize());
-        tempFile.delete();
     }
 
+    @Test
+    void testParallelParseMatchesSequential() throws Exception {
+        Path file = Files.write(directory.resolve("access.log"),
+            TestLogs.withMalformed(TestLogs.lines(new Random(17), 40_000, 5_000), 1000));
+        LogFilter filter = new LogFilter(null, null, null, null);
+
+        List<LogRecord> sequential = LogParser.parse(file.toString(), filter, false);
+        List<LogRecord> parallel = LogParser.parse(file.toString(), filter, true);
+
+        assertEquals(40_000, sequential.size());
+        TestLogs.assertSameRecords(sequential, parallel, file.toString());
+    }
+
+    @Test
+    void testGlobExpandsToFilesMergedInOrder() throws Exception {
+        for (int file = 1; file <= 3; file++) {
+            List<String> lines = new ArrayList<>();
+            for (int i = 0; i < file * 1000; i++) {
+                lines.add("10.0.0.1 - - [01/Jan/2024:12:00:00 +0000] \"GET /file/" + file + " HTTP/1.1\" 200 "
+                    + i + " \"-\" \"curl/8.0\"");
+            }
+            Files.write(directory.resolve("access.log." + file), lines);
+        }
+        Files.write(directory.resolve("error.log"), List.of("not an access log"));
+        LogFilter filter = new LogFilter(null, null, null, null);
+
+        List<String> sources = LogSources.resolve(List.of(directory + "/access.log.*"));
+        List<LogRecord> records = LogParser.parse(sources, filter, true, Collectors.toList());
+
+        assertEquals(3, sources.size());
+        assertEquals(6000, records.size());
+        assertEquals("/file/1", records.getFirst().resource());
+        assertEquals("/file/3", records.getLast().resource());
+    }
+
+    @Test
+    void testGzipInputMatchesPlain() throws Exception {
+        List<String> lines = TestLogs.lines(new Random(17), 60_000, 10_000);
+        byte[] plain = (String.join("\n", lines) + "\n").getBytes(StandardCharsets.UTF_8);
+        Path plainFile = Files.write(directory.resolve("access.log"), plain);
+        Path gzipFile = directory.resolve("access.log.gz");
+        Path blockFile = directory.resolve("access.log.bgz");
+        ByteArrayOutputStream members = new ByteArrayOutputStream();
+        for (int offset = 0; offset < plain.length; offset += 500_000) {
+            try (GZIPOutputStream member = new GZIPOutputStream(members)) {
+                member.write(plain, offset, Math.min(500_000, plain.length - offset));
+            }
+        }
+        Files.write(gzipFile, members.toByteArray());
+        Files.write(blockFile, blockGzip(plain));
+        LogFilter filter = new LogFilter(null, null, null, null);
+
+        List<LogRecord> expected = LogParser.parse(plainFile.toString(), filter);
+        for (Path file : List.of(gzipFile, blockFile)) {
+            for (boolean parallel : new boolean[] {false, true}) {
+                List<LogRecord> actual = LogParser.parse(file.toString(), filter, parallel);
+                TestLogs.assertSameRecords(expected, actual, file + " " + parallel);
+            }
+        }
+    }
+
+    @Test
+    void testSeekMatchesFullScan() throws Exception {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 60_000; i++) {
+            // Каждая седьмая запись отстаёт на 30 секунд, как при записи лога несколькими воркерами.
+            OffsetDateTime timestamp = TestLogs.START.plusSeconds(i * 10L - (i % 7 == 0 ? 30 : 0));
+            lines.add(TestLogs.line("10.0.0.1", timestamp, "/r/" + i, 200, i));
+        }
+        Path file = Files.write(directory.resolve("access.log"), TestLogs.withMalformed(lines, 5000));
+        LocalDateTime from = LocalDateTime.of(2024, 1, 4, 20, 0);
+
+        for (LocalDateTime to : new LocalDateTime[] {from.plusHours(1), null, from.plusDays(30)}) {
+            LogFilter fullScan = new LogFilter(from, to, null, null);
+            LogFilter seek = new LogFilter(from, to, null, null).seek(true).seekToleranceSeconds(60);
+            List<LogRecord> expected = LogParser.parse(file.toString(), fullScan);
+            for (boolean parallel : new boolean[] {false, true}) {
+                List<LogRecord> actual = LogParser.parse(file.toString(), seek, parallel);
+                TestLogs.assertSameRecords(expected, actual, to + " " + parallel);
+            }
+        }
+    }
+
+    /**
+     * Сжимает данные в формате BGZF: блоки по 60000 байт с размером блока в подполе BC.
+     */
+    private static byte[] blockGzip(byte[] data) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        byte[] compressed = new byte[70_000];
+        for (int offset = 0; offset < data.length; offset += 60_000) {
+            int length = Math.min(60_000, data.length - offset);
+            Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+            deflater.setInput(data, offset, length);
+            deflater.finish();
+            int size = deflater.deflate(compressed);
+            deflater.end();
+            CRC32 crc = new CRC32();
+            crc.update(data, offset, length);
+            ByteBuffer block = ByteBuffer.allocate(18 + size + 8).order(ByteOrder.LITTLE_ENDIAN);
+            block.put(new byte[] {0x1f, (byte) 0x8b, 8, 4, 0, 0, 0, 0, 0, (byte) 0xff});
+            block.putShort((short) 6).put((byte) 'B').put((byte) 'C').putShort((short) 2);
+            block.putShort((short) (block.capacity() - 1));
+            block.put(compressed, 0, size).putInt((int) crc.getValue()).putInt(length);
+            output.writeBytes(block.array());
+        }
+        return output.toByteArray();
+    }
 }
@@ -4,17 +4,56 @@ import backend.academy.analyzer.Statistics;
 import backend.academy.formatter.MarkdownFormatter;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
+import java.io.StringWriter;
+import java.util.Locale;
+import java.util.Map;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.when;
 
 public class MarkdownFormatterTest {
 
+    /**
+     * Отчёт по {@link TestLogs#reportStatistics()}, который выдавал форматтер до перехода на потоковый вывод.
+     */
+    private static final String GOLDEN = """
+        #### Общая информация
+
+        | Метрика | Значение |
+        |:---------------------:|-------------:|
+        | Файл(-ы) | logs/access-*.log |
+        | Начальная дата | 2024-01-01T10:00:00 |
+        | Конечная дата | 2024-01-02T23:59:30 |
+        | Количество запросов | 1500 |
+        | Средний размер ответа | 1234.01b |
+        | 50p размера ответа | 512b |
+        | 95p размера ответа | 4096b |
+        | 99.5p размера ответа | 8000b |
+        | Минимальный размер ответа | 0 |
+        | Количество ответов размера 0b | 42 |
+
+        #### Запрашиваемые ресурсы
+
+        | Ресурс | Количество |
+        |:---------------------:|-------------:|
+        | `/downloads/product_1` | 900 |
+        | `/downloads/product_2` | 450 (погрешность ≤ 12) |
+
+        #### Коды ответа
+
+        | Код | Имя | Количество |
+        |:---:|:---------------------:|-----------:|
+        | 200 | OK | 1300 |
+        | 404 | Not Found | 150 |
+        | 503 | Unknown | 50 |
+        """;
+
     @Test
     void testMarkdownFormatter() {
         Statistics stats = Mockito.mock(Statistics.class);
 
         when(stats.path()).thenReturn("access.log");
-        when(stats.totalRequests()).thenReturn(100);
+        when(stats.totalRequests()).thenReturn(100L);
         when(stats.averageResponseSize()).thenReturn(500.0);
         when(stats.percentile95ResponseSize()).thenReturn(950.0);
 
@@ -41,4 +80,47 @@ public class MarkdownFormatterTest {
         assertTrue(report.contains("| Начальная дата | -"));
         assertTrue(report.contains("| Конечная дата | -"));
     }
+
+    @Test
+    void testStreamingOutputMatchesStringReport() throws Exception {
+        Statistics stats = Mockito.mock(Statistics.class);
+        when(stats.path()).thenReturn("access.log");
+        when(stats.averageResponseSize()).thenReturn(1234.005);
+        when(stats.statusCounts()).thenReturn(Map.of(200, 7L));
+
+        Locale locale = Locale.getDefault(Locale.Category.FORMAT);
+        try {
+            for (Locale format : new Locale[] {Locale.ROOT, Locale.GERMANY}) {
+                Locale.setDefault(Locale.Category.FORMAT, format);
+                MarkdownFormatter formatter = new MarkdownFormatter();
+                StringWriter writer = new StringWriter();
+                formatter.format(stats, writer);
+
+                assertEquals(formatter.format(stats), writer.toString());
+                assertTrue(writer.toString().contains(
+                    "| Средний размер ответа | " + String.format("%.2fb", 1234.005) + " |"));
+            }
+        } finally {
+            Locale.setDefault(Locale.Category.FORMAT, locale);
+        }
+    }
+
+    @Test
+    void testReportMatchesGolden() throws Exception {
+        Statistics stats = TestLogs.reportStatistics();
+
+        // Средний размер форматируется по локали; эталон записан для Locale.ROOT.
+        Locale locale = Locale.getDefault(Locale.Category.FORMAT);
+        Locale.setDefault(Locale.Category.FORMAT, Locale.ROOT);
+        try {
+            MarkdownFormatter formatter = new MarkdownFormatter();
+            StringWriter writer = new StringWriter();
+            formatter.format(stats, writer);
+
+            assertEquals(GOLDEN, formatter.format(stats));
+            assertEquals(GOLDEN, writer.toString());
+        } finally {
+            Locale.setDefault(Locale.Category.FORMAT, locale);
+        }
+    }
 }
@@ -0,0 +1,88 @@
+package backend.academy.samples;
+
+import backend.academy.analyzer.LogAnalyzer;
+import backend.academy.generator.GeneratorSettings;
+import backend.academy.generator.LogGenerator;
+import backend.academy.metrics.LineOutcome;
+import backend.academy.metrics.PipelineMetrics;
+import backend.academy.metrics.Stage;
+import backend.academy.parser.LogFiles;
+import backend.academy.parser.LogFilter;
+import backend.academy.parser.LogParser;
+import backend.academy.parser.ParseContext;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PipelineMetricsTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testLinesAreCountedByOutcome() throws Exception {
+        Path log = directory.resolve("access.log");
+        Files.write(log, List.of(
+            "127.0.0.1 - - [02/Jan/2024:12:00:00 +0000] \"GET /a HTTP/1.1\" 200 10 \"-\" \"Mozilla/5.0\"",
+            "127.0.0.2 - - [02/Jan/2024:12:00:01 +0000] \"GET /b HTTP/1.1\" 404 20 \"-\" \"curl/8.0\"",
+            "127.0.0.3 - - [02/Jan/2024:12:00:02 +0000] \"POST /a HTTP/1.1\" 200 30 \"-\" \"Mozilla/5.0\"",
+            "127.0.0.4 - - [31/Dec/2023:23:59:59 +0000] \"GET /a HTTP/1.1\" 200 40 \"-\" \"Mozilla/5.0\"",
+            "127.0.0.5 - - [02/Xyz/2024:12:00:03 +0000] \"GET /a HTTP/1.1\" 200 50 \"-\" \"Mozilla/5.0\"",
+            "это не строка лога"
+        ));
+        PipelineMetrics metrics = new PipelineMetrics();
+        LogFilter filter = new LogFilter(LocalDateTime.of(2024, 1, 1, 0, 0), null, "method", "GET");
+
+        long parsed = LogParser.parse(log.toString(), filter, new ParseContext().metrics(metrics), false,
+            LogAnalyzer.collector()).totalRequests();
+        metrics.finish();
+
+        assertEquals(2, parsed);
+        assertEquals(6, metrics.lines());
+        assertEquals(Files.size(log), metrics.bytes());
+        assertEquals(2, metrics.lines(LineOutcome.MATCHED));
+        assertEquals(1, metrics.lines(LineOutcome.FILTERED_BY_FIELDS));
+        assertEquals(1, metrics.lines(LineOutcome.FILTERED_BY_DATE));
+        assertEquals(1, metrics.lines(LineOutcome.BAD_TIMESTAMP));
+        assertEquals(1, metrics.lines(LineOutcome.MALFORMED));
+        assertTrue(metrics.wallNanos(Stage.PARSE) > 0);
+        assertEquals(0, metrics.wallNanos(Stage.REPORT));
+        assertTrue(metrics.summary().contains("Принято: 2"));
+    }
+
+    @Test
+    void testParallelCountsMatchSequential() throws Exception {
+        Path log = directory.resolve("generated.log");
+        new LogGenerator(new GeneratorSettings()
+            .seed(3)
+            .targetBytes(3_000_000)
+            .resources(500)
+            .clients(500)
+            .agents(20)
+            .malformedRatio(0.05)).write(log);
+
+        PipelineMetrics sequential = parse(log, false);
+        PipelineMetrics parallel = parse(log, true);
+
+        assertEquals(LogFiles.countLines(log), sequential.lines());
+        assertEquals(Files.size(log), sequential.bytes());
+        assertEquals(Files.size(log), parallel.bytes());
+        for (LineOutcome outcome : LineOutcome.values()) {
+            assertEquals(sequential.lines(outcome), parallel.lines(outcome), outcome.name());
+        }
+        assertTrue(sequential.lines(LineOutcome.MALFORMED) + sequential.lines(LineOutcome.BAD_TIMESTAMP) > 0);
+    }
+
+    private static PipelineMetrics parse(Path log, boolean parallel) {
+        PipelineMetrics metrics = new PipelineMetrics();
+        LogParser.parse(log.toString(), new LogFilter(null, null, null, null), new ParseContext().metrics(metrics),
+            parallel, LogAnalyzer.collector());
+        metrics.finish();
+        return metrics;
+    }
+}
@@ -0,0 +1,62 @@
+package backend.academy.samples;
+
+import backend.academy.analyzer.ResponseSizeHistogram;
+import org.junit.jupiter.api.Test;
+import java.util.Arrays;
+import java.util.Random;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ResponseSizeHistogramTest {
+
+    private static final double[] PERCENTILES = {1, 50, 90, 95, 99, 99.9, 100};
+
+    @Test
+    void testPercentilesWithinErrorBound() {
+        Random random = new Random(7);
+        int[] values = new int[100_000];
+        ResponseSizeHistogram histogram = new ResponseSizeHistogram();
+        for (int i = 0; i < values.length; i++) {
+            values[i] = (int) Math.min(Integer.MAX_VALUE, Math.exp(random.nextDouble() * 20));
+            histogram.recordValue(values[i]);
+        }
+        Arrays.sort(values);
+
+        for (double percentile : PERCENTILES) {
+            int exact = values[(int) Math.ceil(percentile / 100 * values.length) - 1];
+            int approximate = histogram.valueAtPercentile(percentile);
+            assertTrue(approximate >= exact, "p" + percentile);
+            assertTrue(approximate - exact <= exact / 128.0, "p" + percentile);
+        }
+    }
+
+    @Test
+    void testSmallValuesAreExact() {
+        ResponseSizeHistogram histogram = new ResponseSizeHistogram();
+        for (int value = 0; value < 256; value++) {
+            histogram.recordValue(value);
+        }
+
+        assertEquals(127, histogram.valueAtPercentile(50));
+        assertEquals(255, histogram.valueAtPercentile(100));
+    }
+
+    @Test
+    void testMergedHistogramMatchesSingleHistogram() {
+        Random random = new Random(11);
+        ResponseSizeHistogram single = new ResponseSizeHistogram();
+        ResponseSizeHistogram left = new ResponseSizeHistogram();
+        ResponseSizeHistogram right = new ResponseSizeHistogram();
+        for (int i = 0; i < 10_000; i++) {
+            int value = random.nextInt(1_000_000);
+            single.recordValue(value);
+            (i % 2 == 0 ? left : right).recordValue(value);
+        }
+        left.merge(right);
+
+        assertEquals(single.totalCount(), left.totalCount());
+        for (double percentile : PERCENTILES) {
+            assertEquals(single.valueAtPercentile(percentile), left.valueAtPercentile(percentile));
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package backend.academy.samples;
+
+import backend.academy.analyzer.LogAnalyzer;
+import backend.academy.analyzer.Statistics;
+import backend.academy.index.RollupIndex;
+import backend.academy.metrics.PipelineMetrics;
+import backend.academy.parser.BadLines;
+import backend.academy.parser.LogFiles;
+import backend.academy.parser.LogFilter;
+import backend.academy.parser.LogParser;
+import backend.academy.parser.ParseContext;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import static backend.academy.samples.TestLogs.START;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RollupIndexTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testIndexedQueriesMatchFullScan() throws Exception {
+        Path log = directory.resolve("access.log");
+        Files.writeString(log, String.join("\n", lines(new Random(15), 20_000)) + "\n" + line(START, 200, 7));
+
+        List<LogFilter> filters = List.of(
+            new LogFilter(null, null, null, null),
+            filter(LocalDateTime.of(2024, 1, 1, 10, 0), LocalDateTime.of(2024, 1, 1, 10, 59, 59)),
+            filter(LocalDateTime.of(2024, 1, 1, 10, 0, 30), LocalDateTime.of(2024, 1, 1, 11, 15, 10, 500)),
+            filter(LocalDateTime.of(2024, 1, 1, 11, 5, 0, 250_000_000), null),
+            filter(null, LocalDateTime.of(2024, 1, 1, 12, 30, 1)),
+            filter(LocalDateTime.of(2024, 1, 1, 10, 20, 5), LocalDateTime.of(2024, 1, 1, 10, 20, 40)),
+            filter(LocalDateTime.of(2024, 1, 1, 11, 0), LocalDateTime.of(2024, 1, 1, 10, 0))
+        );
+        for (LogFilter filter : filters) {
+            assertSameStatistics(log, filter);
+        }
+        assertTrue(Files.exists(RollupIndex.indexPath(log, null)));
+    }
+
+    @Test
+    void testIndexIsExtendedWhenLogGrowsAndRebuiltWhenRotated() throws Exception {
+        Path log = directory.resolve("growing.log");
+        Path cache = directory.resolve("cache");
+        Random random = new Random(16);
+        Files.write(log, lines(random, 5_000));
+        RollupIndex first = RollupIndex.open(log, RollupIndex.indexPath(log, cache), new ParseContext());
+        long indexed = first.indexedBytes();
+        assertEquals(Files.size(log), indexed);
+
+        Files.write(log, lines(random, 5_000), StandardOpenOption.APPEND);
+        Files.writeString(log, line(START.plusHours(2), 500, 0), StandardOpenOption.APPEND);
+        RollupIndex extended = RollupIndex.open(log, RollupIndex.indexPath(log, cache), new ParseContext());
+        assertTrue(extended.indexedBytes() > indexed);
+        assertTrue(extended.indexedBytes() < Files.size(log));
+        LogFilter window = filter(LocalDateTime.of(2024, 1, 1, 10, 10, 10), LocalDateTime.of(2024, 1, 1, 12, 0, 1));
+        assertSameStatistics(log, window, cache);
+
+        Files.write(log, lines(random, 1_000));
+        RollupIndex rebuilt = RollupIndex.open(log, RollupIndex.indexPath(log, cache), new ParseContext());
+        assertEquals(Files.size(log), rebuilt.indexedBytes());
+        assertSameStatistics(log, window, cache);
+    }
+
+    @Test
+    void testSameNamedLogsGetSeparateIndexes() throws Exception {
+        // У строк "Aa" и "BB" одинаковый String.hashCode, поэтому и у путей логов в этих каталогах.
+        Path first = Files.createDirectories(directory.resolve("Aa")).resolve("access.log");
+        Path second = Files.createDirectories(directory.resolve("BB")).resolve("access.log");
+        Files.write(first, lines(new Random(21), 1_000));
+        Files.write(second, lines(new Random(22), 3_000));
+        Path cache = directory.resolve("cache");
+
+        assertNotEquals(RollupIndex.indexPath(first, cache), RollupIndex.indexPath(second, cache));
+        LogFilter window = filter(LocalDateTime.of(2024, 1, 1, 10, 5), LocalDateTime.of(2024, 1, 1, 10, 15));
+        assertSameStatistics(first, window, cache);
+        assertSameStatistics(second, window, cache);
+        assertSameStatistics(first, window, cache);
+    }
+
+    @Test
+    void testIndexBuildAndEdgeMinutesReportToRunMetrics() throws Exception {
+        Path log = directory.resolve("access.log");
+        Files.write(log, lines(new Random(19), 2_000));
+        LogFilter window = filter(LocalDateTime.of(2024, 1, 1, 10, 10, 10), LocalDateTime.of(2024, 1, 1, 10, 20, 40));
+
+        PipelineMetrics building = new PipelineMetrics();
+        RollupIndex.parse(List.of(log.toString()), window, new ParseContext().metrics(building), null,
+            LogAnalyzer.collector());
+        building.finish();
+        PipelineMetrics querying = new PipelineMetrics();
+        RollupIndex.parse(List.of(log.toString()), window, new ParseContext().metrics(querying), null,
+            LogAnalyzer.collector());
+        querying.finish();
+
+        // Построение индекса читает весь файл, а запрос по готовому индексу — только крайние минуты.
+        assertTrue(building.lines() > LogFiles.countLines(log));
+        assertTrue(querying.lines() > 0);
+        assertTrue(querying.lines() < LogFiles.countLines(log));
+    }
+
+    @Test
+    void testIndexBuildQuarantinesBadLinesOfTheRun() throws Exception {
+        Path log = directory.resolve("access.log");
+        List<String> lines = lines(new Random(23), 1_000);
+        Files.write(log, lines);
+        long malformed = lines.stream().filter(line -> line.startsWith("malformed")).count();
+        Path quarantine = directory.resolve("quarantine.txt");
+        LogFilter window = filter(LocalDateTime.of(2024, 1, 1, 10, 5), LocalDateTime.of(2024, 1, 1, 10, 15));
+
+        try (BadLines badLines = new BadLines().logFirst(0).quarantine(quarantine)) {
+            RollupIndex.parse(List.of(log.toString()), window, new ParseContext().badLines(badLines), null,
+                LogAnalyzer.collector());
+            assertEquals(malformed, badLines.rejected());
+        }
+        assertTrue(malformed > 0);
+        assertEquals(malformed, Files.readAllLines(quarantine).size());
+    }
+
+    private static void assertSameStatistics(Path log, LogFilter filter) throws Exception {
+        assertSameStatistics(log, filter, null);
+    }
+
+    private static void assertSameStatistics(Path log, LogFilter filter, Path cache) throws Exception {
+        Statistics expected = LogParser.parse(log.toString(), filter, false, LogAnalyzer.collector());
+        Statistics actual = RollupIndex.parse(List.of(log.toString()), filter, new ParseContext(), cache,
+            LogAnalyzer.collector());
+
+        TestLogs.assertSameStatistics(expected, actual);
+    }
+
+    private static LogFilter filter(LocalDateTime from, LocalDateTime to) {
+        return new LogFilter(from, to, null, null);
+    }
+
+    private static List<String> lines(Random random, int count) {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            OffsetDateTime time = START.plusSeconds(i * 3L / 2 + random.nextInt(90));
+            if (random.nextInt(50) == 0) {
+                time = time.withOffsetSameInstant(ZoneOffset.ofHours(3));
+            }
+            if (random.nextInt(200) == 0) {
+                lines.add("malformed " + i);
+            }
+            int size = random.nextInt(10) == 0 ? 0 : random.nextInt(50_000);
+            lines.add(line(time, "/page/" + random.nextInt(40), 200 + random.nextInt(4) * 100, size));
+        }
+        return lines;
+    }
+
+    private static String line(OffsetDateTime time, int status, int size) {
+        return line(time, "/page", status, size);
+    }
+
+    private static String line(OffsetDateTime time, String resource, int status, int size) {
+        return TestLogs.line("10.0.0.1", time, resource, status, size);
+    }
+}
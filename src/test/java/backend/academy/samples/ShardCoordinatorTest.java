@@ -0,0 +1,80 @@
+package backend.academy.samples;
+
+import backend.academy.analyzer.LogAnalyzer;
+import backend.academy.analyzer.Statistics;
+import backend.academy.config.AppConfig;
+import backend.academy.distributed.Shard;
+import backend.academy.distributed.ShardCoordinator;
+import backend.academy.parser.LogFilter;
+import backend.academy.parser.LogParser;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.GZIPOutputStream;
+import static backend.academy.samples.TestLogs.assertSameStatistics;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ShardCoordinatorTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testPlanSplitsLargeFilesIntoAdjacentRanges() throws Exception {
+        Path large = directory.resolve("large.log");
+        Path small = directory.resolve("small.log");
+        Files.write(large, lines(new Random(20), 40_000));
+        Files.write(small, lines(new Random(21), 100));
+
+        List<Shard> shards = ShardCoordinator.plan(List.of(large.toString(), small.toString()), 3);
+
+        long covered = 0;
+        for (Shard shard : shards.subList(0, shards.size() - 1)) {
+            assertTrue(shard.isRange());
+            assertEquals(covered, shard.start());
+            covered = shard.end();
+        }
+        assertEquals(Files.size(large), covered);
+        assertEquals(List.of(small.toString()), shards.getLast().sources());
+    }
+
+    @Test
+    void testWorkerProcessesMatchSingleProcess() throws Exception {
+        Path large = directory.resolve("large.log");
+        Path compressed = directory.resolve("old.log.gz");
+        Random random = new Random(22);
+        Files.write(large, lines(random, 30_000));
+        try (OutputStream output = new GZIPOutputStream(Files.newOutputStream(compressed))) {
+            output.write((String.join("\n", lines(random, 2_000)) + "\n").getBytes(StandardCharsets.UTF_8));
+        }
+        List<String> sources = List.of(large.toString(), compressed.toString());
+        LogFilter filter = new LogFilter(null, null, "status", "2xx");
+
+        Statistics expected = LogParser.parse(sources, filter, false, LogAnalyzer.collector(50.0, 99.0));
+        List<String> workerArguments = List.of("--filter-field", "status", "--filter-value", "2xx");
+        Statistics actual = ShardCoordinator.parse(sources, 2, workerArguments, LogAnalyzer.collector(50.0, 99.0));
+
+        assertSameStatistics(expected, actual);
+    }
+
+    @Test
+    void testWorkersReceiveEveryAnalysisOption() {
+        AppConfig config = new AppConfig(new String[] {"--path", "a.log", "b.log", "--workers", "2",
+            "--format", "adoc", "--output", "report.adoc", "--top-k", "5", "--top-k-memory", "1",
+            "--percentiles", "50,99", "--seek", "--seek-tolerance", "10", "--filter-field", "status",
+            "--filter-value", "2xx", "--stats", "--quarantine", "bad.txt"});
+
+        assertEquals(List.of("--top-k", "5", "--top-k-memory", "1", "--percentiles", "50,99", "--seek",
+            "--seek-tolerance", "10", "--filter-field", "status", "--filter-value", "2xx"), config.workerArguments());
+    }
+
+    private static List<String> lines(Random random, int count) {
+        return TestLogs.lines(random, count, 400);
+    }
+}
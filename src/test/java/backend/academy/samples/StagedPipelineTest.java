@@ -0,0 +1,185 @@
+package backend.academy.samples;
+
+import backend.academy.analyzer.LogAnalyzer;
+import backend.academy.analyzer.Statistics;
+import backend.academy.formatter.MarkdownFormatter;
+import backend.academy.generator.GeneratorSettings;
+import backend.academy.generator.LogGenerator;
+import backend.academy.metrics.LineOutcome;
+import backend.academy.parser.BadLines;
+import backend.academy.parser.LogFilter;
+import backend.academy.parser.LogParser;
+import backend.academy.parser.LogRecord;
+import backend.academy.parser.ParseContext;
+import backend.academy.parser.PipelineSettings;
+import backend.academy.parser.TooManyBadLinesException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class StagedPipelineTest {
+
+    @TempDir
+    Path directory;
+
+    private Path log;
+
+    @BeforeEach
+    void generate() throws Exception {
+        log = directory.resolve("generated.log");
+        new LogGenerator(new GeneratorSettings()
+            .seed(11)
+            .targetBytes(3_000_000)
+            .resources(2_000)
+            .clients(500)
+            .agents(20)
+            .malformedRatio(0.02)).write(log);
+    }
+
+    @Test
+    void testDeterministicPipelineKeepsRecordOrder() throws Exception {
+        Path gzip = directory.resolve("generated.log.gz");
+        try (OutputStream output = new GZIPOutputStream(Files.newOutputStream(gzip))) {
+            Files.copy(log, output);
+        }
+        List<LogRecord> expected = LogParser.parse(log.toString(), new LogFilter(null, null, "method", "GET"));
+
+        for (Path file : List.of(log, gzip)) {
+            for (boolean virtualThreads : new boolean[] {true, false}) {
+                ParseContext context = new ParseContext().pipeline(new PipelineSettings()
+                    .workers(3)
+                    .batchBytes(65_536)
+                    .queueBatches(2)
+                    .virtualThreads(virtualThreads)
+                    .deterministic(true));
+                List<LogRecord> actual = LogParser.parse(file.toString(), new LogFilter(null, null, "method", "GET"),
+                    context, false, Collectors.toList());
+
+                TestLogs.assertSameRecords(expected, actual, file + " " + virtualThreads);
+            }
+        }
+    }
+
+    @Test
+    void testReportDoesNotDependOnWorkers() {
+        String expected = report(new PipelineSettings().workers(1).batchBytes(100_000).deterministic(true));
+
+        for (int workers : new int[] {2, 5}) {
+            assertEquals(expected, report(new PipelineSettings().workers(workers).batchBytes(100_000)
+                .deterministic(true)));
+        }
+    }
+
+    @Test
+    void testBatchSmallerThanLineGrows() throws Exception {
+        long expected = LogParser.parse(List.of(log.toString()), new LogFilter(null, null, null, null), false,
+            LogAnalyzer.collector()).totalRequests();
+        ParseContext context = new ParseContext().pipeline(new PipelineSettings().workers(2).batchBytes(16));
+
+        assertEquals(expected, LogParser.parse(log.toString(), new LogFilter(null, null, null, null), context, false,
+            LogAnalyzer.collector()).totalRequests());
+    }
+
+    @Test
+    void testWorkerFailureStopsPipeline() {
+        ParseContext context = new ParseContext()
+            .badLines(new BadLines().logFirst(0).maxErrorRatio(0.001))
+            .pipeline(new PipelineSettings().workers(2).batchBytes(65_536).queueBatches(1));
+
+        assertThrows(TooManyBadLinesException.class, () -> LogParser.parse(log.toString(),
+            new LogFilter(null, null, null, null), context, false, LogAnalyzer.collector()));
+    }
+
+    @Test
+    void testFailedParseReturnsOnlyAfterReaderStops() {
+        AtomicBoolean reading = new AtomicBoolean();
+        InputStream input = new InputStream() {
+            private final byte[] garbage = "garbage\n".repeat(8_192).getBytes(StandardCharsets.US_ASCII);
+            private int position;
+
+            @Override
+            public int read() {
+                byte[] single = new byte[1];
+                return read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) {
+                if (position < garbage.length) {
+                    int count = Math.min(length, garbage.length - position);
+                    System.arraycopy(garbage, position, buffer, offset, count);
+                    position += count;
+                    return count;
+                }
+                // Медленный источник, который не отвечает на прерывание, как блокирующее чтение сокета.
+                reading.set(true);
+                long until = System.nanoTime() + 500_000_000L;
+                while (System.nanoTime() < until) {
+                    try {
+                        Thread.sleep(10);
+                    } catch (InterruptedException e) {
+                        // Прерывание игнорируется.
+                    }
+                }
+                reading.set(false);
+                return -1;
+            }
+        };
+        ParseContext context = new ParseContext()
+            .badLines(new BadLines().logFirst(0).maxErrorRatio(0.001))
+            .pipeline(new PipelineSettings().workers(2).batchBytes(65_536));
+        InputStream stdin = System.in;
+        System.setIn(input);
+        try {
+            assertThrows(TooManyBadLinesException.class, () -> LogParser.parse("-",
+                new LogFilter(null, null, null, null), context, false, LogAnalyzer.collector()));
+        } finally {
+            System.setIn(stdin);
+        }
+
+        assertFalse(reading.get());
+    }
+
+    @Test
+    void testOversizedLineIsRejectedWithoutGrowingBlock() throws Exception {
+        String line = Files.readAllLines(log).getFirst();
+        for (String separator : new String[] {"\n", "\r\n", "\r"}) {
+            Path file = directory.resolve("long.log");
+            Files.writeString(file, line + separator + "x".repeat(5_000_000) + separator + line + separator);
+            Path quarantine = directory.resolve("long-quarantine.txt");
+            BadLines badLines = new BadLines().logFirst(0).quarantine(quarantine);
+            ParseContext context = new ParseContext()
+                .badLines(badLines)
+                .pipeline(new PipelineSettings().workers(2).batchBytes(65_536));
+
+            assertEquals(2, LogParser.parse(file.toString(), new LogFilter(null, null, null, null), context, false,
+                LogAnalyzer.collector()).totalRequests());
+            badLines.close();
+            assertEquals(1, badLines.rejected(LineOutcome.MALFORMED));
+            // В карантин попадает только начало строки, до которого вырос блок.
+            assertTrue(Files.size(quarantine) < 5_000_000);
+        }
+    }
+
+    /**
+     * Отчёт по файлу с приближённым подсчётом ресурсов, результат которого зависит от порядка объединения.
+     */
+    private String report(PipelineSettings settings) {
+        Statistics stats = LogParser.parse(log.toString(), new LogFilter(null, null, null, null),
+            new ParseContext().pipeline(settings), false, LogAnalyzer.collector(new double[] {50, 95}, 20, 64 * 1024));
+        return new MarkdownFormatter().format(stats);
+    }
+}
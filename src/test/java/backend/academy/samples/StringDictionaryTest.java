@@ -0,0 +1,67 @@
+package backend.academy.samples;
+
+import backend.academy.parser.LogFilter;
+import backend.academy.parser.LogParser;
+import backend.academy.parser.LogRecord;
+import backend.academy.parser.StringDictionary;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class StringDictionaryTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testInternAssignsDenseStableIds() {
+        StringDictionary dictionary = new StringDictionary();
+        for (int i = 0; i < 10_000; i++) {
+            assertEquals(i, dictionary.intern("/resource/" + i));
+        }
+        for (int i = 0; i < 10_000; i++) {
+            assertEquals(i, dictionary.intern("/resource/" + i));
+            assertEquals("/resource/" + i, dictionary.get(i));
+        }
+        assertEquals(10_000, dictionary.size());
+    }
+
+    @Test
+    void testMergeReturnsRemapTable() {
+        StringDictionary left = new StringDictionary();
+        StringDictionary right = new StringDictionary();
+        left.intern("/a");
+        left.intern("/b");
+        right.intern("/c");
+        right.intern("/a");
+
+        int[] remap = left.merge(right);
+
+        assertEquals(3, left.size());
+        assertEquals("/c", left.get(remap[0]));
+        assertEquals(0, remap[1]);
+    }
+
+    @Test
+    void testParsedRecordsShareDictionaryStrings() throws Exception {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            lines.add(TestLogs.line("10.0.0." + (i % 3), TestLogs.START, "/page/" + (i % 10), 200, i));
+        }
+        Path file = Files.write(directory.resolve("access.log"), lines);
+
+        List<LogRecord> records = LogParser.parse(file.toString(), new LogFilter(null, null, null, null));
+
+        assertEquals(1000, records.size());
+        for (int i = 10; i < records.size(); i++) {
+            assertEquals("/page/" + (i % 10), records.get(i).resource());
+            assertSame(records.get(i % 10).resource(), records.get(i).resource());
+            assertSame(records.get(i % 3).ipAddress(), records.get(i).ipAddress());
+        }
+    }
+}
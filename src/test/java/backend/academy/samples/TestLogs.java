@@ -0,0 +1,110 @@
+package backend.academy.samples;
+
+import backend.academy.analyzer.ResourceCount;
+import backend.academy.analyzer.Statistics;
+import backend.academy.parser.LogRecord;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Синтетические строки лога и сравнение статистики для тестов, сверяющих разные пути разбора.
+ */
+final class TestLogs {
+
+    static final OffsetDateTime START = OffsetDateTime.of(2024, 1, 1, 10, 0, 0, 0, ZoneOffset.UTC);
+
+    private static final DateTimeFormatter FORMATTER =
+        DateTimeFormatter.ofPattern("dd/MMM/yyyy:HH:mm:ss Z", Locale.ENGLISH);
+
+    private TestLogs() {
+    }
+
+    /**
+     * Строки с метками в пределах часа после {@link #START}, случайными адресами, ресурсами,
+     * кодами 2xx–5xx и размерами ответа (каждый десятый — нулевой).
+     */
+    static List<String> lines(Random random, int count, int resources) {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            int size = random.nextInt(10) == 0 ? 0 : random.nextInt(50_000);
+            lines.add(line("10.0.0." + random.nextInt(20), START.plusMinutes(i % 60),
+                "/page/" + random.nextInt(resources), 200 + random.nextInt(4) * 100, size));
+        }
+        return lines;
+    }
+
+    /**
+     * Копия строк, в которой после каждой {@code every}-й строки (начиная с первой) вставлена испорченная.
+     */
+    static List<String> withMalformed(List<String> lines, int every) {
+        List<String> result = new ArrayList<>();
+        for (int i = 0; i < lines.size(); i++) {
+            result.add(lines.get(i));
+            if (i % every == 0) {
+                result.add("malformed line " + i);
+            }
+        }
+        return result;
+    }
+
+    static String line(String address, OffsetDateTime time, String resource, int status, int size) {
+        return address + " - - [" + time.format(FORMATTER) + "] \"GET " + resource + " HTTP/1.1\" "
+            + status + " " + size + " \"-\" \"Mozilla/5.0 (X11; Linux x86_64)\"";
+    }
+
+    /**
+     * Статистика для сверки отчётов с эталоном: заполнены все поля, есть дробный процентиль,
+     * приближённый счётчик ресурса и код ответа без описания.
+     */
+    static Statistics reportStatistics() {
+        Map<Double, Integer> percentiles = new LinkedHashMap<>();
+        percentiles.put(50.0, 512);
+        percentiles.put(95.0, 4096);
+        percentiles.put(99.5, 8000);
+        Statistics stats = new Statistics()
+            .path("logs/access-*.log")
+            .from(LocalDateTime.of(2024, 1, 1, 10, 0))
+            .to(LocalDateTime.of(2024, 1, 2, 23, 59, 30))
+            .totalRequests(1500)
+            .averageResponseSize(1234.005)
+            .responseSizePercentiles(percentiles)
+            .minResponseSize(0)
+            .zeroResponseCount(42)
+            .topResources(List.of(
+                new ResourceCount("/downloads/product_1", 900, 0),
+                new ResourceCount("/downloads/product_2", 450, 12)));
+        stats.addStatusCount(200, 1300);
+        stats.addStatusCount(404, 150);
+        stats.addStatusCount(503, 50);
+        return stats;
+    }
+
+    static void assertSameRecords(List<LogRecord> expected, List<LogRecord> actual, String message) {
+        assertEquals(expected.size(), actual.size(), message);
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).resource(), actual.get(i).resource(), message);
+            assertEquals(expected.get(i).timestamp(), actual.get(i).timestamp(), message);
+            assertEquals(expected.get(i).responseSize(), actual.get(i).responseSize(), message);
+        }
+    }
+
+    static void assertSameStatistics(Statistics expected, Statistics actual) {
+        assertEquals(expected.totalRequests(), actual.totalRequests());
+        assertEquals(expected.resourceCounts(), actual.resourceCounts());
+        assertEquals(expected.statusCounts(), actual.statusCounts());
+        assertEquals(expected.averageResponseSize(), actual.averageResponseSize());
+        assertEquals(expected.percentile95ResponseSize(), actual.percentile95ResponseSize());
+        assertEquals(expected.responseSizePercentiles(), actual.responseSizePercentiles());
+        assertEquals(expected.minResponseSize(), actual.minResponseSize());
+        assertEquals(expected.zeroResponseCount(), actual.zeroResponseCount());
+    }
+}